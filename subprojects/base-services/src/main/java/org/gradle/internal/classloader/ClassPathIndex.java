@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.classloader;
+
+import org.gradle.internal.classpath.ClassPath;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+/**
+ * An index of the resources contained in the jars of a classpath. Used to tell quickly that a resource is not in the classpath, without searching each
+ * jar. The index may report that a resource is present when it is not, but never the other way around.
+ *
+ * <p>The index cannot be used for classpaths that contain directories, or jars that reference other jars via their manifest. For these it always reports
+ * that a resource may be present.</p>
+ */
+public class ClassPathIndex {
+    private static final String VERSIONED_ENTRY_PREFIX = "META-INF/versions/";
+    private static final ClassPathIndex UNKNOWN = new ClassPathIndex(null);
+
+    // Sorted hashes of the resource names, or null when the contents of the classpath are not known
+    private final int[] resourceHashes;
+
+    private ClassPathIndex(int[] resourceHashes) {
+        this.resourceHashes = resourceHashes;
+    }
+
+    public static ClassPathIndex of(ClassPath classPath) {
+        int[] hashes = new int[1024];
+        int count = 0;
+        for (File file : classPath.getAsFiles()) {
+            if (file.isDirectory()) {
+                return UNKNOWN;
+            }
+            if (!file.isFile()) {
+                // Ignored by the class loader
+                continue;
+            }
+            try {
+                JarFile jarFile = new JarFile(file, false);
+                try {
+                    Manifest manifest = jarFile.getManifest();
+                    if (manifest != null && manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) != null) {
+                        return UNKNOWN;
+                    }
+                    Enumeration<? extends ZipEntry> entries = jarFile.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (count + 2 > hashes.length) {
+                            hashes = copyOf(hashes, hashes.length * 2);
+                        }
+                        if (name.endsWith("/")) {
+                            // Directory entries are found with or without the trailing slash
+                            name = name.substring(0, name.length() - 1);
+                            hashes[count++] = (name + "/").hashCode();
+                        }
+                        hashes[count++] = name.hashCode();
+                        if (name.startsWith(VERSIONED_ENTRY_PREFIX)) {
+                            // A multi-release jar can serve META-INF/versions/<n>/<name> as <name>
+                            int versionEnd = name.indexOf('/', VERSIONED_ENTRY_PREFIX.length());
+                            if (versionEnd > 0) {
+                                if (count + 1 > hashes.length) {
+                                    hashes = copyOf(hashes, hashes.length * 2);
+                                }
+                                hashes[count++] = name.substring(versionEnd + 1).hashCode();
+                            }
+                        }
+                    }
+                } finally {
+                    jarFile.close();
+                }
+            } catch (IOException e) {
+                // Let the class loader deal with the broken jar
+                return UNKNOWN;
+            }
+        }
+        hashes = copyOf(hashes, count);
+        Arrays.sort(hashes);
+        return new ClassPathIndex(hashes);
+    }
+
+    /**
+     * Returns false when the given resource is definitely not contained in the classpath.
+     */
+    public boolean mayContain(String resourceName) {
+        if (resourceHashes == null || !isPlainName(resourceName)) {
+            return true;
+        }
+        return Arrays.binarySearch(resourceHashes, resourceName.hashCode()) >= 0;
+    }
+
+    /**
+     * Returns false when the given class is definitely not contained in the classpath.
+     */
+    public boolean mayContainClass(String className) {
+        return mayContain(className.replace('.', '/').concat(".class"));
+    }
+
+    private static int[] copyOf(int[] hashes, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(hashes, 0, copy, 0, Math.min(hashes.length, length));
+        return copy;
+    }
+
+    private static boolean isPlainName(String resourceName) {
+        // Leave names that the class loader may resolve in some special way to the class loader
+        return resourceName.length() > 0
+            && !resourceName.startsWith("/")
+            && !resourceName.contains("\\")
+            && !resourceName.contains("//")
+            && !resourceName.contains("./");
+    }
+}
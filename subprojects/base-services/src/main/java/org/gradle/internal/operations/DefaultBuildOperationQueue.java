@@ -17,14 +17,12 @@
 package org.gradle.internal.operations;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Queues;
 import com.google.common.util.concurrent.*;
 import org.gradle.internal.UncheckedException;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -73,16 +71,25 @@ class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOpera
     public void waitForCompletion() throws MultipleBuildOperationFailures {
         waitingForCompletion.set(true);
 
-        CountDownLatch finished = new CountDownLatch(operations.size());
-        Queue<Throwable> failures = Queues.newConcurrentLinkedQueue();
+        List<QueuedOperation> queuedOperations;
+        synchronized (operations) {
+            queuedOperations = Lists.newArrayList(operations);
+        }
+        CountDownLatch finished = new CountDownLatch(queuedOperations.size());
 
-        for (QueuedOperation operation : operations) {
+        for (QueuedOperation operation : queuedOperations) {
             if (operation.future.isCancelled()) {
                 // If it's canceled, we'll never get a callback, so we just remove it from
                 // operations we're waiting for.
                 finished.countDown();
+            } else if (operation.operationHolder.claim()) {
+                // No worker thread has started this operation yet, so run it in this thread instead of waiting. Otherwise, when this queue is used
+                // by an operation running in the same executor, every worker thread could end up waiting for operations that none of them can run.
+                operation.future.cancel(false);
+                operation.runInCurrentThread();
+                finished.countDown();
             } else {
-                Futures.addCallback(operation.future, new CompletionCallback(finished, failures));
+                Futures.addCallback(operation.future, new CompletionCallback(operation, finished));
             }
         }
 
@@ -92,7 +99,13 @@ class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOpera
             throw UncheckedException.throwAsUncheckedException(e);
         }
 
-        // all operations are complete, check for errors
+        // all operations are complete, check for errors in the order the operations were added
+        List<Throwable> failures = Lists.newArrayList();
+        for (QueuedOperation operation : queuedOperations) {
+            if (operation.failure != null) {
+                failures.add(operation.failure);
+            }
+        }
         if (!failures.isEmpty()) {
             throw new MultipleBuildOperationFailures(getFailureMessage(failures), failures, logLocation);
         }
@@ -110,13 +123,13 @@ class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOpera
         return "Multiple build operations failed.";
     }
 
-    private static class CompletionCallback implements FutureCallback {
+    private class CompletionCallback implements FutureCallback {
+        private final QueuedOperation operation;
         private final CountDownLatch finished;
-        private final Collection<Throwable> failures;
 
-        private CompletionCallback(CountDownLatch finished, Collection<Throwable> failures) {
+        private CompletionCallback(QueuedOperation operation, CountDownLatch finished) {
+            this.operation = operation;
             this.finished = finished;
-            this.failures = failures;
         }
 
         public void onSuccess(Object result) {
@@ -124,7 +137,7 @@ class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOpera
         }
 
         public void onFailure(Throwable t) {
-            failures.add(t);
+            operation.failure = t;
             finished.countDown();
         }
     }
@@ -132,22 +145,45 @@ class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOpera
     private class QueuedOperation {
         final OperationHolder operationHolder;
         final ListenableFuture future;
+        volatile Throwable failure;
 
         public QueuedOperation(OperationHolder operationHolder, ListenableFuture future) {
             this.operationHolder = operationHolder;
             this.future = future;
         }
+
+        void runInCurrentThread() {
+            try {
+                operationHolder.runClaimed();
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
     }
 
     private class OperationHolder implements Runnable {
         private final T operation;
+        private final AtomicBoolean claimed = new AtomicBoolean();
         private final AtomicBoolean started = new AtomicBoolean();
 
         OperationHolder(T operation) {
             this.operation = operation;
         }
 
+        /**
+         * Claims this operation for the current thread. Returns false when another thread has already claimed it.
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
         public void run() {
+            if (claim()) {
+                runClaimed();
+            }
+        }
+
+        void runClaimed() {
             // Don't execute if the queue has been canceled
             started.set(!canceled.get());
             if (started.get()) {
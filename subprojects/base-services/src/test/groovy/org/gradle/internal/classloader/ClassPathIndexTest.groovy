@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.classloader
+
+import org.gradle.internal.classpath.DefaultClassPath
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.jar.Attributes
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+import java.util.zip.ZipEntry
+
+class ClassPathIndexTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def "knows which resources are contained in jars"() {
+        def jar1 = jar("a.jar", "org/", "org/a/", "org/a/A.class", "org/a/a.properties")
+        def jar2 = jar("b.jar", "org/b/B.class", "META-INF/services/org.b.Service")
+
+        when:
+        def index = ClassPathIndex.of(new DefaultClassPath(jar1, jar2))
+
+        then:
+        index.mayContainClass("org.a.A")
+        index.mayContainClass("org.b.B")
+        index.mayContain("org/a/a.properties")
+        index.mayContain("META-INF/services/org.b.Service")
+        index.mayContain("org/a")
+        index.mayContain("org/a/")
+
+        and:
+        !index.mayContainClass("org.a.ABeanInfo")
+        !index.mayContainClass("org.a.B")
+        !index.mayContain("org/a/b.properties")
+        !index.mayContain("org/b/")
+        !index.mayContain("META-INF/services/org.a.Service")
+    }
+
+    def "knows about versioned entries of multi-release jars"() {
+        def jar = jar("a.jar", "org/a/A.class", "META-INF/versions/9/org/a/B.class")
+
+        when:
+        def index = ClassPathIndex.of(new DefaultClassPath(jar))
+
+        then:
+        index.mayContainClass("org.a.B")
+        index.mayContain("META-INF/versions/9/org/a/B.class")
+        !index.mayContainClass("org.a.C")
+    }
+
+    def "ignores missing classpath entries"() {
+        def jar = jar("a.jar", "org/a/A.class")
+
+        when:
+        def index = ClassPathIndex.of(new DefaultClassPath(tmpDir.file("missing.jar"), jar))
+
+        then:
+        index.mayContainClass("org.a.A")
+        !index.mayContainClass("org.a.B")
+    }
+
+    def "does not rule out any resource when classpath contains a directory"() {
+        def jar = jar("a.jar", "org/a/A.class")
+        def dir = tmpDir.createDir("classes")
+
+        when:
+        def index = ClassPathIndex.of(new DefaultClassPath(jar, dir))
+
+        then:
+        index.mayContainClass("org.a.A")
+        index.mayContainClass("org.a.B")
+    }
+
+    def "does not rule out any resource when a jar references other jars"() {
+        def manifest = new Manifest()
+        manifest.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0")
+        manifest.mainAttributes.put(Attributes.Name.CLASS_PATH, "other.jar")
+        def jar = jar("a.jar", manifest, "org/a/A.class")
+
+        when:
+        def index = ClassPathIndex.of(new DefaultClassPath(jar))
+
+        then:
+        index.mayContainClass("org.a.B")
+    }
+
+    def "does not rule out resource names the class loader may resolve specially"() {
+        def jar = jar("a.jar", "org/a/A.class")
+
+        when:
+        def index = ClassPathIndex.of(new DefaultClassPath(jar))
+
+        then:
+        index.mayContain(name)
+
+        where:
+        name << ["", "/org/a/A.class", "org//a/A.class", "org/./a/A.class", "org/b/../a/A.class", "org\\a\\A.class"]
+    }
+
+    def "class loader finds resources that are in its classpath"() {
+        def jar = jar("a.jar", "org/a/a.properties")
+        def classPath = new DefaultClassPath(jar)
+        def loader = new IndexedURLClassLoader(null, classPath, ClassPathIndex.of(classPath))
+
+        expect:
+        loader.getResource("org/a/a.properties") != null
+        loader.getResources("org/a/a.properties").toList().size() == 1
+        loader.getResource("org/a/b.properties") == null
+        !loader.getResources("org/a/b.properties").hasMoreElements()
+
+        when:
+        loader.loadClass("org.a.A")
+
+        then:
+        thrown(ClassNotFoundException)
+
+        cleanup:
+        loader?.close()
+    }
+
+    TestFile jar(String name, Manifest manifest = null, String... entries) {
+        def file = tmpDir.file(name)
+        def outstr = manifest == null ? new JarOutputStream(file.newOutputStream()) : new JarOutputStream(file.newOutputStream(), manifest)
+        try {
+            entries.each { entry ->
+                outstr.putNextEntry(new ZipEntry(entry))
+                if (!entry.endsWith("/")) {
+                    outstr.write(entry.bytes)
+                }
+                outstr.closeEntry()
+            }
+        } finally {
+            outstr.close()
+        }
+        file
+    }
+}
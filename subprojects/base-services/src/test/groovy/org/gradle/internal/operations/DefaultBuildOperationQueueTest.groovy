@@ -209,6 +209,35 @@ class DefaultBuildOperationQueueTest extends Specification {
         5    | 10
     }
 
+    def "operation can use another queue on the same executor when all worker threads are busy"() {
+        def executor = Executors.newFixedThreadPool(1)
+        def nestedOperation = Mock(Runnable)
+        def outerStarted = new CountDownLatch(1)
+        def outerOperation = new TestBuildOperation() {
+            void run() {
+                outerStarted.countDown()
+                def nestedQueue = new DefaultBuildOperationQueue(executor, new SimpleWorker())
+                3.times { nestedQueue.add(new SynchronizedBuildOperation(nestedOperation, new CountDownLatch(1), new CountDownLatch(0))) }
+                nestedQueue.waitForCompletion()
+            }
+        }
+
+        given:
+        operationQueue = new DefaultBuildOperationQueue(executor, new SimpleWorker())
+
+        when:
+        operationQueue.add(outerOperation)
+        // the only worker thread runs the outer operation
+        outerStarted.await()
+        operationQueue.waitForCompletion()
+
+        then:
+        3 * nestedOperation.run()
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
     static class SynchronizedBuildOperation extends TestBuildOperation {
         final Runnable operationAction
         final CountDownLatch startedLatch
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.pattern;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares evaluating a set of patterns with one matcher per pattern against evaluating them with a single compiled {@link PathMatcherTrie}.
+ * The patterns are the default excludes plus a few typical excludes, evaluated against the files and directories of a source tree.
+ */
+@State(Scope.Benchmark)
+public class PatternMatcherBenchmark {
+    private static final String[] EXCLUDES = {"**/node_modules/**", "**/build/**", "**/*.class", "**/generated/**", "src/main/resources/static/"};
+    private static final String[][] PATHS = {
+        {"src"},
+        {"src", "main"},
+        {"src", "main", "java"},
+        {"src", "main", "java", "org", "gradle", "api", "Project.java"},
+        {"src", "main", "java", "org", "gradle", "api", "internal", "DefaultTask.java"},
+        {"src", "main", "resources", "static", "app.js"},
+        {"src", "test", "groovy", "org", "gradle", "api", "ProjectTest.groovy"},
+        {"node_modules"},
+        {"web", "node_modules", "lodash", "index.js"},
+        {"build", "classes", "main", "Project.class"},
+        {".git", "objects", "ab", "cdef"},
+        {"README.md"}
+    };
+
+    private Spec<RelativePath> matchers;
+    private Spec<RelativePath> trie;
+    private List<RelativePath> files;
+    private List<RelativePath> directories;
+
+    @Setup
+    public void setup() {
+        List<String> patterns = new ArrayList<String>(Arrays.asList(DirectoryScanner.getDefaultExcludes()));
+        patterns.addAll(Arrays.asList(EXCLUDES));
+        List<Spec<RelativePath>> specs = new ArrayList<Spec<RelativePath>>();
+        for (String pattern : patterns) {
+            specs.add(PatternMatcherFactory.getPatternMatcher(false, true, pattern));
+        }
+        matchers = Specs.union(specs);
+        trie = PatternMatcherFactory.getPatternsMatcher(false, true, patterns);
+        files = new ArrayList<RelativePath>();
+        directories = new ArrayList<RelativePath>();
+        for (String[] path : PATHS) {
+            files.add(new RelativePath(true, path));
+            directories.add(new RelativePath(false, path));
+        }
+    }
+
+    @Benchmark
+    public void matchFilesWithIndividualMatchers(Blackhole bh) {
+        for (RelativePath file : files) {
+            bh.consume(matchers.isSatisfiedBy(file));
+        }
+    }
+
+    @Benchmark
+    public void matchFilesWithTrie(Blackhole bh) {
+        for (RelativePath file : files) {
+            bh.consume(trie.isSatisfiedBy(file));
+        }
+    }
+
+    @Benchmark
+    public void matchDirectoriesWithIndividualMatchers(Blackhole bh) {
+        for (RelativePath directory : directories) {
+            bh.consume(matchers.isSatisfiedBy(directory));
+        }
+    }
+
+    @Benchmark
+    public void matchDirectoriesWithTrie(Blackhole bh) {
+        for (RelativePath directory : directories) {
+            bh.consume(trie.isSatisfiedBy(directory));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import org.gradle.api.internal.AsmBackedClassGenerator;
+import org.gradle.api.internal.ClassGeneratorBackedInstantiator;
+import org.gradle.api.internal.DynamicObjectAware;
+import org.gradle.api.internal.HasConvention;
+import org.gradle.api.plugins.ExtensionAware;
+import org.gradle.internal.reflect.DirectInstantiator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the cost of the dynamic property and method dispatch that build scripts use to configure a decorated, task-like object. The object has
+ * an extension and a convention object, so that lookups that fall through the bean to the extensions are measured too.
+ */
+@State(Scope.Benchmark)
+public class DynamicObjectBenchmark {
+    private DynamicObject dynamicObject;
+    private File destinationDir;
+
+    @Setup
+    public void setup() {
+        ClassGeneratorBackedInstantiator instantiator = new ClassGeneratorBackedInstantiator(new AsmBackedClassGenerator(), DirectInstantiator.INSTANCE);
+        TaskLikeBean bean = instantiator.newInstance(TaskLikeBean.class);
+        ((ExtensionAware) bean).getExtensions().add("custom", new CustomExtension());
+        ((HasConvention) bean).getConvention().getPlugins().put("custom", new CustomConvention());
+        dynamicObject = ((DynamicObjectAware) bean).getAsDynamicObject();
+        destinationDir = new File("build/classes");
+    }
+
+    @Benchmark
+    public void getBeanProperty(Blackhole bh) {
+        bh.consume(dynamicObject.getProperty("destinationDir"));
+    }
+
+    @Benchmark
+    public void getExtensionProperty(Blackhole bh) {
+        bh.consume(dynamicObject.getProperty("custom"));
+    }
+
+    @Benchmark
+    public void getConventionProperty(Blackhole bh) {
+        bh.consume(dynamicObject.getProperty("sourceCompatibility"));
+    }
+
+    @Benchmark
+    public void setBeanProperty() {
+        dynamicObject.setProperty("destinationDir", destinationDir);
+    }
+
+    @Benchmark
+    public void setBeanPropertyWithCoercion() {
+        dynamicObject.setProperty("mode", "FAST");
+    }
+
+    @Benchmark
+    public void setConventionProperty() {
+        dynamicObject.setProperty("sourceCompatibility", "1.7");
+    }
+
+    @Benchmark
+    public void invokeBeanMethod(Blackhole bh) {
+        bh.consume(dynamicObject.invokeMethod("include", "**/*.java"));
+    }
+
+    @Benchmark
+    public void invokeConventionMethod(Blackhole bh) {
+        bh.consume(dynamicObject.invokeMethod("sourceCompatibility", "1.7"));
+    }
+
+    @Benchmark
+    public void hasMissingProperty(Blackhole bh) {
+        bh.consume(dynamicObject.hasProperty("unknown"));
+    }
+
+    public enum Mode {
+        FAST, SLOW
+    }
+
+    public static class TaskLikeBean {
+        private File destinationDir;
+        private Mode mode;
+        private final List<String> includes = new ArrayList<String>();
+
+        public File getDestinationDir() {
+            return destinationDir;
+        }
+
+        public void setDestinationDir(File destinationDir) {
+            this.destinationDir = destinationDir;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public TaskLikeBean include(String pattern) {
+            includes.add(pattern);
+            if (includes.size() > 100) {
+                includes.clear();
+            }
+            return this;
+        }
+    }
+
+    public static class CustomExtension {
+        private String value = "value";
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    public static class CustomConvention {
+        private String sourceCompatibility = "1.6";
+
+        public String getSourceCompatibility() {
+            return sourceCompatibility;
+        }
+
+        public void setSourceCompatibility(String sourceCompatibility) {
+            this.sourceCompatibility = sourceCompatibility;
+        }
+
+        public void sourceCompatibility(String sourceCompatibility) {
+            this.sourceCompatibility = sourceCompatibility;
+        }
+    }
+}
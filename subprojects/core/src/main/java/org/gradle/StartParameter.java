@@ -85,6 +85,7 @@ public class StartParameter implements LoggingConfiguration, Serializable {
     private boolean recompileScripts;
     private boolean parallelProjectExecution;
     private boolean configureOnDemand;
+    private boolean parallelProjectConfiguration;
     private int maxWorkerCount;
     private boolean continuous;
     private List<File> includedBuilds = new ArrayList<File>();
@@ -225,6 +226,7 @@ public class StartParameter implements LoggingConfiguration, Serializable {
         p.refreshDependencies = refreshDependencies;
         p.parallelProjectExecution = parallelProjectExecution;
         p.configureOnDemand = configureOnDemand;
+        p.parallelProjectConfiguration = parallelProjectConfiguration;
         p.maxWorkerCount = maxWorkerCount;
         p.systemPropertiesArgs = new HashMap<String, String>(systemPropertiesArgs);
         return p;
@@ -713,6 +715,7 @@ public class StartParameter implements LoggingConfiguration, Serializable {
             + ", refreshDependencies=" + refreshDependencies
             + ", parallelProjectExecution=" + parallelProjectExecution
             + ", configureOnDemand=" + configureOnDemand
+            + ", parallelProjectConfiguration=" + parallelProjectConfiguration
             + ", maxWorkerCount=" + maxWorkerCount
             + '}';
     }
@@ -729,6 +732,26 @@ public class StartParameter implements LoggingConfiguration, Serializable {
         this.configureOnDemand = configureOnDemand;
     }
 
+    /**
+     * Returns true if projects are configured in parallel.
+     *
+     * @see #getMaxWorkerCount()
+     */
+    @Incubating
+    public boolean isParallelProjectConfigurationEnabled() {
+        return parallelProjectConfiguration;
+    }
+
+    /**
+     * Enables/disables parallel project configuration.
+     *
+     * @see #isParallelProjectConfigurationEnabled()
+     */
+    @Incubating
+    public void setParallelProjectConfigurationEnabled(boolean parallelProjectConfiguration) {
+        this.parallelProjectConfiguration = parallelProjectConfiguration;
+    }
+
     @Incubating
     public boolean isContinuous() {
         return continuous;
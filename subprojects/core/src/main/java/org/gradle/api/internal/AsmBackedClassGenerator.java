@@ -15,8 +15,13 @@
  */
 package org.gradle.api.internal;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import groovy.lang.Closure;
 import groovy.lang.GroovyObject;
 import groovy.lang.GroovySystem;
@@ -25,6 +30,7 @@ import groovy.lang.MetaClassRegistry;
 import org.gradle.api.Action;
 import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
+import org.gradle.api.internal.cache.GeneratedClassCache;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.internal.UncheckedException;
@@ -43,6 +49,8 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
@@ -51,9 +59,11 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import static org.gradle.model.internal.asm.AsmClassGeneratorUtils.signature;
 import static org.objectweb.asm.Opcodes.*;
@@ -62,10 +72,116 @@ import static org.objectweb.asm.Type.VOID_TYPE;
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
 
     private static final JavaMethod<ClassLoader, Class> DEFINE_CLASS_METHOD = JavaReflectionUtil.method(ClassLoader.class, Class.class, "defineClass", String.class, byte[].class, Integer.TYPE, Integer.TYPE);
+    // Change this when the generated bytecode changes, so that classes generated by an earlier version of this class are not used
+    private static final int GENERATOR_VERSION = 1;
+    private static final HashCode JVM_CLASS_HASH = Hashing.md5().hashString(System.getProperty("java.version"), Charsets.UTF_8);
+
+    private final GeneratedClassCache generatedClassCache;
+    // Accessed only while generating classes, which happens under a lock
+    private final Map<Class<?>, HashCode> classFileHashes = new WeakHashMap<Class<?>, HashCode>();
+
+    public AsmBackedClassGenerator() {
+        this(null);
+    }
+
+    /**
+     * Creates a generator that stores the classes it generates in the given cache, and reuses classes from the cache when the type they were generated from
+     * and all of its supertypes have the same bytecode.
+     */
+    public AsmBackedClassGenerator(@Nullable GeneratedClassCache generatedClassCache) {
+        this.generatedClassCache = generatedClassCache;
+    }
+
+    @Override
+    protected <T> Class<? extends T> loadPreviouslyGenerated(Class<T> type) {
+        if (generatedClassCache == null) {
+            return null;
+        }
+        String cacheKey = cacheKeyFor(type);
+        if (cacheKey == null) {
+            return null;
+        }
+        byte[] bytecode = generatedClassCache.get(cacheKey);
+        if (bytecode == null) {
+            return null;
+        }
+        try {
+            return DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), ClassBuilderImpl.generatedTypeName(type), bytecode, 0, bytecode.length);
+        } catch (LinkageError e) {
+            // The cached bytecode is corrupt or refers to types that cannot be loaded, so discard it and generate the class again
+            generatedClassCache.remove(cacheKey);
+            return null;
+        }
+    }
 
     @Override
     protected <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData) {
-        return new ClassBuilderImpl<T>(type, classMetaData);
+        String cacheKey = generatedClassCache == null ? null : cacheKeyFor(type);
+        return new ClassBuilderImpl<T>(type, classMetaData, cacheKey == null ? null : generatedClassCache, cacheKey);
+    }
+
+    /**
+     * Returns a key that identifies the bytecode of the given type and all of its supertypes, or null if the bytecode of one of these types is not available.
+     */
+    @Nullable
+    private String cacheKeyFor(Class<?> type) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putInt(GENERATOR_VERSION);
+        if (!hashTypeHierarchy(type, hasher, new HashSet<Class<?>>())) {
+            return null;
+        }
+        return hasher.hash().toString();
+    }
+
+    private boolean hashTypeHierarchy(Class<?> type, Hasher hasher, Set<Class<?>> visited) {
+        if (type == null || type == Object.class || !visited.add(type)) {
+            return true;
+        }
+        HashCode hash = classFileHashFor(type);
+        if (hash == null) {
+            return false;
+        }
+        hasher.putString(type.getName(), Charsets.UTF_8);
+        hasher.putBytes(hash.asBytes());
+        if (!hashTypeHierarchy(type.getSuperclass(), hasher, visited)) {
+            return false;
+        }
+        for (Class<?> interfaceType : type.getInterfaces()) {
+            if (!hashTypeHierarchy(interfaceType, hasher, visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private HashCode classFileHashFor(Class<?> type) {
+        HashCode hash = classFileHashes.get(type);
+        if (hash != null) {
+            return hash;
+        }
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null) {
+            // A JVM class, which only changes with the JVM
+            hash = JVM_CLASS_HASH;
+        } else {
+            InputStream classFile = classLoader.getResourceAsStream(type.getName().replace('.', '/') + ".class");
+            if (classFile == null) {
+                // Defined at runtime
+                return null;
+            }
+            try {
+                try {
+                    hash = Hashing.md5().hashBytes(ByteStreams.toByteArray(classFile));
+                } finally {
+                    classFile.close();
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        classFileHashes.put(type, hash);
+        return hash;
     }
 
     private static class ClassBuilderImpl<T> implements ClassBuilder<T> {
@@ -118,6 +234,8 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
 
         private final ClassWriter visitor;
         private final Class<T> type;
+        private final GeneratedClassCache generatedClassCache;
+        private final String cacheKey;
         private final String typeName;
         private final Type generatedType;
         private final Type superclassType;
@@ -127,11 +245,13 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final boolean extensible;
         private final boolean providesOwnDynamicObject;
 
-        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData) {
+        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData, @Nullable GeneratedClassCache generatedClassCache, @Nullable String cacheKey) {
             this.type = type;
+            this.generatedClassCache = generatedClassCache;
+            this.cacheKey = cacheKey;
 
             visitor = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-            typeName = type.getName() + "_Decorated";
+            typeName = generatedTypeName(type);
             generatedType = Type.getType("L" + typeName.replaceAll("\\.", "/") + ";");
             superclassType = Type.getType(type);
             extensible = classMetaData.isExtensible();
@@ -139,6 +259,10 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             providesOwnDynamicObject = classMetaData.providesDynamicObjectImplementation();
         }
 
+        static String generatedTypeName(Class<?> type) {
+            return type.getName() + "_Decorated";
+        }
+
         public void startClass() {
             List<String> interfaceTypes = new ArrayList<String>();
             if (conventionAware && extensible) {
@@ -905,7 +1029,11 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             visitor.visitEnd();
 
             byte[] bytecode = visitor.toByteArray();
-            return DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), typeName, bytecode, 0, bytecode.length);
+            Class<? extends T> generatedClass = DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), typeName, bytecode, 0, bytecode.length);
+            if (generatedClassCache != null) {
+                generatedClassCache.put(cacheKey, bytecode);
+            }
+            return generatedClass;
         }
 
         private void writeGenericReturnTypeFields() {
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.cache;
+
+import com.google.common.io.Files;
+import org.gradle.api.Nullable;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.internal.UncheckedException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Stores each generated class in its own file. As the keys identify the content, a file never changes once it has been written, so the files can be read
+ * without holding the cache lock. New files are written under a temporary name and then moved over any existing file, so that a reader never sees a partially written file
+ * and a corrupt file is replaced when the class is generated again.
+ */
+public class DefaultGeneratedClassCache implements GeneratedClassCache, Closeable {
+
+    private final PersistentCache cache;
+
+    public DefaultGeneratedClassCache(CacheRepository cacheRepository) {
+        this.cache = cacheRepository
+            .cache(CACHE_KEY)
+            .withDisplayName(CACHE_DISPLAY_NAME)
+            .withLockOptions(mode(FileLockManager.LockMode.None))
+            .open();
+    }
+
+    @Nullable
+    @Override
+    public byte[] get(String key) {
+        try {
+            return Files.toByteArray(classFile(key));
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public void put(final String key, final byte[] bytecode) {
+        cache.useCache("Storing generated class", new Runnable() {
+            public void run() {
+                File classFile = classFile(key);
+                File tmpFile = new File(classFile.getParentFile(), classFile.getName() + "-" + UUID.randomUUID() + ".tmp");
+                try {
+                    Files.write(bytecode, tmpFile);
+                    // Replace any existing file, which may be corrupt. File.renameTo() does not replace an existing file on Windows
+                    java.nio.file.Files.move(tmpFile.toPath(), classFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    tmpFile.delete();
+                    if (!classFile.isFile()) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                    // Another process has stored the class and is reading it, so it cannot be replaced
+                }
+            }
+        });
+    }
+
+    @Override
+    public void remove(final String key) {
+        cache.useCache("Removing generated class", new Runnable() {
+            public void run() {
+                // May fail when another process is reading the file, in which case the class is stored again once it has been generated
+                classFile(key).delete();
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        cache.close();
+    }
+
+    private File classFile(String key) {
+        return new File(cache.getBaseDir(), key + ".class");
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.cache;
+
+import org.gradle.api.Nullable;
+
+/**
+ * Cache for the bytecode of classes that are generated at runtime, such as the decorated classes created by {@link org.gradle.api.internal.AsmBackedClassGenerator}.
+ */
+public interface GeneratedClassCache {
+
+    String CACHE_KEY = "generated-classes";
+
+    String CACHE_DISPLAY_NAME = "Generated classes cache";
+
+    /**
+     * Returns the bytecode stored under the given key, or null if there is none.
+     *
+     * @param key a key that identifies everything the generated class was generated from.
+     */
+    @Nullable
+    byte[] get(String key);
+
+    /**
+     * Stores the bytecode of a generated class under the given key, replacing any bytecode already stored under the key.
+     */
+    void put(String key, byte[] bytecode);
+
+    /**
+     * Removes the bytecode stored under the given key, if any.
+     */
+    void remove(String key);
+}
@@ -17,30 +17,52 @@
 package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.archive.ArchiveEntryFileVisitDetails;
 import org.gradle.api.internal.tasks.TaskFilePropertySpec;
+import org.gradle.api.internal.tasks.TaskInputFilePropertySpec;
 import org.gradle.cache.CacheAccess;
 import org.gradle.internal.serialize.SerializerRegistry;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import static org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareType.UNORDERED;
 
 abstract class AbstractFileCollectionSnapshotter implements FileCollectionSnapshotter {
+    private static final int FILES_PER_HASHING_BATCH = 100;
+
     protected final FileSnapshotter snapshotter;
     protected final StringInterner stringInterner;
     protected final FileResolver fileResolver;
     protected CacheAccess cacheAccess;
+    private final CompileClasspathEntryHasher compileClasspathEntryHasher;
+    private final FileSnapshotExecutor snapshotExecutor;
 
     public AbstractFileCollectionSnapshotter(FileSnapshotter snapshotter, CacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver) {
+        this(snapshotter, cacheAccess, stringInterner, fileResolver, null);
+    }
+
+    /**
+     * @param compileClasspathEntryHasher the hasher to use for properties with {@link TaskFilePropertyContentNormalization#COMPILE_CLASSPATH} normalization, or null to use the full content of the files.
+     */
+    public AbstractFileCollectionSnapshotter(FileSnapshotter snapshotter, CacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver, CompileClasspathEntryHasher compileClasspathEntryHasher) {
+        this(snapshotter, cacheAccess, stringInterner, fileResolver, compileClasspathEntryHasher, null);
+    }
+
+    /**
+     * @param snapshotExecutor the executor to use to hash the files of large file collections concurrently, or null to hash them on the calling thread.
+     */
+    public AbstractFileCollectionSnapshotter(FileSnapshotter snapshotter, CacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver, CompileClasspathEntryHasher compileClasspathEntryHasher, FileSnapshotExecutor snapshotExecutor) {
         this.snapshotter = snapshotter;
+        this.compileClasspathEntryHasher = compileClasspathEntryHasher;
+        this.snapshotExecutor = snapshotExecutor;
         this.cacheAccess = cacheAccess;
         this.stringInterner = stringInterner;
         this.fileResolver = fileResolver;
@@ -56,7 +78,11 @@ abstract class AbstractFileCollectionSnapshotter implements FileCollectionSnapsh
     }
 
     @Override
-    public FileCollectionSnapshot snapshot(FileCollection input, TaskFilePropertyCompareType compareType, final TaskFilePropertyPathSensitivityType pathSensitivity) {
+    public FileCollectionSnapshot snapshot(FileCollection input, TaskFilePropertyCompareType compareType, TaskFilePropertyPathSensitivityType pathSensitivity) {
+        return snapshot(input, compareType, pathSensitivity, TaskFilePropertyContentNormalization.NONE);
+    }
+
+    private FileCollectionSnapshot snapshot(FileCollection input, TaskFilePropertyCompareType compareType, final TaskFilePropertyPathSensitivityType pathSensitivity, TaskFilePropertyContentNormalization contentNormalization) {
         final List<FileTreeElement> fileTreeElements = Lists.newLinkedList();
         final List<FileTreeElement> missingFiles = Lists.newArrayList();
         visitFiles(input, fileTreeElements, missingFiles);
@@ -65,18 +91,30 @@ abstract class AbstractFileCollectionSnapshotter implements FileCollectionSnapsh
             return emptySnapshot();
         }
 
-        final Map<String, NormalizedFileSnapshot> snapshots = Maps.newLinkedHashMap();
+        final CompactFileSnapshotMap.Builder snapshots = new CompactFileSnapshotMap.Builder(fileTreeElements.size() + missingFiles.size());
+        final boolean compileClasspath = contentNormalization == TaskFilePropertyContentNormalization.COMPILE_CLASSPATH && compileClasspathEntryHasher != null;
+        if (!compileClasspath) {
+            hashFilesConcurrently(fileTreeElements);
+        }
 
         cacheAccess.useCache("Create file snapshot", new Runnable() {
             public void run() {
+                CompileClasspathEntryHasher.ClasspathHasher classpathHasher = compileClasspath ? compileClasspathEntryHasher.newClasspathHasher() : null;
                 for (FileTreeElement fileDetails : fileTreeElements) {
                     String absolutePath = getInternedAbsolutePath(fileDetails.getFile());
                     if (!snapshots.containsKey(absolutePath)) {
                         IncrementalFileSnapshot snapshot;
                         if (fileDetails.isDirectory()) {
                             snapshot = DirSnapshot.getInstance();
+                        } else if (compileClasspath) {
+                            HashCode hash = classpathHasher.hash(fileDetails);
+                            if (hash == null) {
+                                // Not visible to the compiler
+                                continue;
+                            }
+                            snapshot = new FileHashSnapshot(hash, fileDetails.getLastModified());
                         } else {
-                            snapshot = new FileHashSnapshot(snapshotter.snapshot(fileDetails).getHash(), fileDetails.getLastModified());
+                            snapshot = new FileHashSnapshot(hash(fileDetails), fileDetails.getLastModified());
                         }
                         snapshots.put(absolutePath, pathSensitivity.getNormalizedSnapshot(fileDetails, snapshot, stringInterner));
                     }
@@ -89,17 +127,64 @@ abstract class AbstractFileCollectionSnapshotter implements FileCollectionSnapsh
                 }
             }
         });
-        return new DefaultFileCollectionSnapshot(snapshots, compareType);
+        return new DefaultFileCollectionSnapshot(snapshots.build(), compareType);
     }
 
     @Override
     public FileCollectionSnapshot snapshot(TaskFilePropertySpec propertySpec) {
-        return snapshot(propertySpec.getPropertyFiles(), propertySpec.getCompareType(), propertySpec.getPathSensitivity());
+        TaskFilePropertyContentNormalization contentNormalization = propertySpec instanceof TaskInputFilePropertySpec
+            ? ((TaskInputFilePropertySpec) propertySpec).getContentNormalization()
+            : TaskFilePropertyContentNormalization.NONE;
+        return snapshot(propertySpec.getPropertyFiles(), propertySpec.getCompareType(), propertySpec.getPathSensitivity(), contentNormalization);
+    }
+
+    /**
+     * Hashes the regular files of a large collection in batches on several threads, so that the hashes are already cached when the snapshot is built.
+     * Each batch holds the cache only while looking up and storing hashes.
+     */
+    private void hashFilesConcurrently(Collection<FileTreeElement> fileTreeElements) {
+        if (snapshotExecutor == null || fileTreeElements.size() < 2 * FILES_PER_HASHING_BATCH) {
+            return;
+        }
+        List<FileTreeElement> files = Lists.newArrayListWithCapacity(fileTreeElements.size());
+        for (FileTreeElement fileDetails : fileTreeElements) {
+            if (!fileDetails.isDirectory() && !(fileDetails instanceof ArchiveEntryFileVisitDetails)) {
+                files.add(fileDetails);
+            }
+        }
+        if (files.size() < 2 * FILES_PER_HASHING_BATCH) {
+            return;
+        }
+        List<Runnable> batches = Lists.newArrayList();
+        for (final List<FileTreeElement> batch : Lists.partition(files, FILES_PER_HASHING_BATCH)) {
+            batches.add(new Runnable() {
+                @Override
+                public void run() {
+                    cacheAccess.useCache("Hash files", new Runnable() {
+                        @Override
+                        public void run() {
+                            for (FileTreeElement fileDetails : batch) {
+                                snapshotter.snapshot(fileDetails);
+                            }
+                        }
+                    });
+                }
+            });
+        }
+        snapshotExecutor.runAll(batches);
     }
 
     private String getInternedAbsolutePath(File file) {
         return stringInterner.intern(file.getAbsolutePath());
     }
 
+    private HashCode hash(FileTreeElement fileDetails) {
+        if (fileDetails instanceof ArchiveEntryFileVisitDetails) {
+            // Use the hash calculated while the entry was extracted, rather than read the extracted file again
+            return ((ArchiveEntryFileVisitDetails) fileDetails).getContentHash();
+        }
+        return snapshotter.snapshot(fileDetails).getHash();
+    }
+
     abstract protected void visitFiles(FileCollection input, List<FileTreeElement> fileTreeElements, List<FileTreeElement> missingFiles);
 }
@@ -25,6 +25,7 @@ import org.gradle.api.internal.hash.Hasher;
 import org.gradle.cache.CacheAccess;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentStore;
+import org.gradle.internal.Factory;
 import org.gradle.internal.resource.TextResource;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -75,7 +76,7 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         return snapshot(file.getFile(), file.getSize(), file.getLastModified());
     }
 
-    private FileInfo snapshot(File file, long length, long timestamp) {
+    private FileInfo snapshot(final File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
         FileInfo info = cache.get(absolutePath);
 
@@ -83,7 +84,13 @@ public class CachingFileSnapshotter implements FileSnapshotter {
             return info;
         }
 
-        HashCode hash = hasher.hash(file);
+        // Release the cache while reading the file, so that other threads can snapshot files at the same time
+        HashCode hash = cacheAccess.longRunningOperation("Hash file", new Factory<HashCode>() {
+            @Override
+            public HashCode create() {
+                return hasher.hash(file);
+            }
+        });
         info = new FileInfo(hash, length, timestamp);
         cache.put(stringInterner.intern(absolutePath), info);
         return info;
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.util.internal.Java9ClassReader;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Calculates a hash of the application binary interface (ABI) of a class, that is, of the parts of a class that are visible to code compiled against it.
+ * Method bodies, private members, synthetic members and debug information do not contribute to the hash.
+ */
+class ClassAbiHasher {
+    private static final int IGNORED_ACCESS_FLAGS = Opcodes.ACC_SUPER;
+
+    /**
+     * Returns the hash of the ABI of the given class, or null when the class is not visible to other classes: a private, local or anonymous class.
+     *
+     * @throws IllegalArgumentException when the given bytes are not a valid class file.
+     */
+    public HashCode hashClass(byte[] classBytes) {
+        ClassReader reader = new Java9ClassReader(classBytes);
+        AbiCollectingClassVisitor visitor = new AbiCollectingClassVisitor();
+        reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        if (visitor.hidden) {
+            return null;
+        }
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(visitor.header, Charsets.UTF_8);
+        // Use a stable order, so that reordering members does not change the ABI
+        Collections.sort(visitor.members);
+        for (String member : visitor.members) {
+            hasher.putString(member, Charsets.UTF_8);
+        }
+        return hasher.hash();
+    }
+
+    private static boolean isHidden(int access) {
+        return (access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC)) != 0;
+    }
+
+    private static String sorted(String[] values) {
+        if (values == null) {
+            return "[]";
+        }
+        String[] copy = values.clone();
+        Arrays.sort(copy);
+        return Arrays.toString(copy);
+    }
+
+    private static class AbiCollectingClassVisitor extends ClassVisitor {
+        private final List<String> members = new ArrayList<String>();
+        private String className;
+        private String header;
+        private boolean hidden;
+
+        AbiCollectingClassVisitor() {
+            super(Opcodes.ASM5);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            className = name;
+            hidden = isHidden(access);
+            header = "class " + (access & ~IGNORED_ACCESS_FLAGS) + " " + name + " " + signature + " " + superName + " " + sorted(interfaces);
+        }
+
+        @Override
+        public void visitOuterClass(String owner, String name, String desc) {
+            // Only local and anonymous classes have an enclosing method attribute
+            hidden = true;
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (name.equals(className)) {
+                if (outerName == null || innerName == null || isHidden(access)) {
+                    hidden = true;
+                }
+                members.add("nested " + access);
+            } else if (className.equals(outerName) && !isHidden(access)) {
+                members.add("member class " + access + " " + name);
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+            return new AbiCollectingAnnotationVisitor("annotation " + desc, members);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            if (isHidden(access)) {
+                return null;
+            }
+            final String field = "field " + access + " " + name + " " + desc + " " + signature + " " + value;
+            members.add(field);
+            return new FieldVisitor(Opcodes.ASM5) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    return new AbiCollectingAnnotationVisitor(field + " annotation " + desc, members);
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            if (isHidden(access)) {
+                return null;
+            }
+            final String method = "method " + access + " " + name + " " + desc + " " + signature + " " + sorted(exceptions);
+            members.add(method);
+            return new MethodVisitor(Opcodes.ASM5) {
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    return new AbiCollectingAnnotationVisitor(method + " default", members);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    return new AbiCollectingAnnotationVisitor(method + " annotation " + desc, members);
+                }
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+                    return new AbiCollectingAnnotationVisitor(method + " parameter " + parameter + " annotation " + desc, members);
+                }
+            };
+        }
+    }
+
+    /**
+     * Collects the values of an annotation, including nested annotations and arrays, into a single entry that is added when the annotation has been visited.
+     */
+    private static class AbiCollectingAnnotationVisitor extends AnnotationVisitor {
+        private final StringBuilder builder;
+        private final List<String> members;
+
+        AbiCollectingAnnotationVisitor(String prefix, List<String> members) {
+            this(new StringBuilder(prefix), members);
+        }
+
+        private AbiCollectingAnnotationVisitor(StringBuilder builder, List<String> members) {
+            super(Opcodes.ASM5);
+            this.builder = builder;
+            this.members = members;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            builder.append(" ").append(name).append("=").append(valueToString(value));
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            builder.append(" ").append(name).append("=").append(desc).append(".").append(value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            builder.append(" ").append(name).append("=@").append(desc).append("(");
+            return new AbiCollectingAnnotationVisitor(builder, null) {
+                @Override
+                public void visitEnd() {
+                    builder.append(")");
+                }
+            };
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            builder.append(" ").append(name).append("=[");
+            return new AbiCollectingAnnotationVisitor(builder, null) {
+                @Override
+                public void visitEnd() {
+                    builder.append("]");
+                }
+            };
+        }
+
+        @Override
+        public void visitEnd() {
+            if (members != null) {
+                members.add(builder.toString());
+            }
+        }
+
+        private static String valueToString(Object value) {
+            if (value instanceof Type) {
+                return ((Type) value).getDescriptor();
+            }
+            if (value != null && value.getClass().isArray()) {
+                StringBuilder result = new StringBuilder("[");
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    result.append(Array.get(value, i)).append(",");
+                }
+                return result.append("]").toString();
+            }
+            return String.valueOf(value);
+        }
+    }
+}
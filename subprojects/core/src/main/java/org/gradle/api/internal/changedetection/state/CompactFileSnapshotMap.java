@@ -0,0 +1,409 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.DefaultNormalizedFileSnapshot;
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.IgnoredPathFileSnapshot;
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.IndexedNormalizedFileSnapshot;
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.NonNormalizedFileSnapshot;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map from absolute path to the snapshot of the file, which keeps the order of its entries. Stores the entries in parallel arrays of
+ * paths, kinds and hash bytes instead of as objects, and creates the {@link NormalizedFileSnapshot} values on demand.
+ *
+ * <p>The paths are not copied, so they are shared with the other snapshots of the same files when they have been interned.</p>
+ */
+class CompactFileSnapshotMap extends AbstractMap<String, NormalizedFileSnapshot> {
+    private static final int DIR = 1;
+    private static final int MISSING_FILE = 2;
+    private static final int REGULAR_FILE = 3;
+    private static final int FILE_KIND_MASK = 0x0f;
+
+    private static final int NO_NORMALIZATION = 0;
+    private static final int INDEXED_NORMALIZATION = 1 << 4;
+    private static final int DEFAULT_NORMALIZATION = 2 << 4;
+    private static final int IGNORED_PATH_NORMALIZATION = 3 << 4;
+    private static final int NORMALIZATION_MASK = 0xf0;
+
+    private final int size;
+    private final String[] paths;
+    private final byte[] kinds;
+    private final int hashLength;
+    private final byte[] hashes;
+    private final long[] lastModified;
+    private final int[] normalizedPathIndexes;
+    private final String[] normalizedPaths;
+    // Open addressing table of entry index + 1, 0 for an empty slot
+    private final int[] table;
+
+    private CompactFileSnapshotMap(Builder builder) {
+        this.size = builder.size;
+        this.paths = Arrays.copyOf(builder.paths, size);
+        this.kinds = Arrays.copyOf(builder.kinds, size);
+        this.hashLength = builder.hashLength;
+        this.hashes = builder.hashes == null ? null : Arrays.copyOf(builder.hashes, size * hashLength);
+        this.lastModified = builder.lastModified == null ? null : Arrays.copyOf(builder.lastModified, size);
+        this.normalizedPathIndexes = builder.normalizedPathIndexes == null ? null : Arrays.copyOf(builder.normalizedPathIndexes, size);
+        this.normalizedPaths = builder.normalizedPaths == null ? null : Arrays.copyOf(builder.normalizedPaths, size);
+        this.table = builder.table;
+    }
+
+    /**
+     * Returns a compact copy of the given map, or the map itself when it is already compact or cannot be stored compactly.
+     */
+    static Map<String, NormalizedFileSnapshot> copyOf(Map<String, NormalizedFileSnapshot> snapshots) {
+        if (snapshots instanceof CompactFileSnapshotMap || snapshots.isEmpty()) {
+            return snapshots;
+        }
+        Builder builder = new Builder(snapshots.size());
+        for (Map.Entry<String, NormalizedFileSnapshot> entry : snapshots.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public NormalizedFileSnapshot get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int index = indexOf((String) key);
+        return index < 0 ? null : getSnapshot(index);
+    }
+
+    /**
+     * Returns the index of the entry with the given path, or -1 when there is no such entry.
+     */
+    int indexOf(String path) {
+        return indexOf(paths, table, path);
+    }
+
+    String getPath(int index) {
+        return paths[index];
+    }
+
+    NormalizedFileSnapshot getSnapshot(int index) {
+        IncrementalFileSnapshot snapshot;
+        switch (kinds[index] & FILE_KIND_MASK) {
+            case DIR:
+                snapshot = DirSnapshot.getInstance();
+                break;
+            case MISSING_FILE:
+                snapshot = MissingFileSnapshot.getInstance();
+                break;
+            default:
+                int offset = index * hashLength;
+                HashCode hash = HashCode.fromBytes(Arrays.copyOfRange(hashes, offset, offset + hashLength));
+                snapshot = new FileHashSnapshot(hash, lastModified == null ? 0L : lastModified[index]);
+        }
+        switch (kinds[index] & NORMALIZATION_MASK) {
+            case NO_NORMALIZATION:
+                return new NonNormalizedFileSnapshot(paths[index], snapshot);
+            case INDEXED_NORMALIZATION:
+                return new IndexedNormalizedFileSnapshot(paths[index], normalizedPathIndexes[index], snapshot);
+            case DEFAULT_NORMALIZATION:
+                return new DefaultNormalizedFileSnapshot(normalizedPaths[index], snapshot);
+            default:
+                return new IgnoredPathFileSnapshot(snapshot);
+        }
+    }
+
+    /**
+     * Compares the content of an entry of this map with an entry of the given map, the same way as {@link IncrementalFileSnapshot#isContentUpToDate(IncrementalFileSnapshot)}.
+     */
+    boolean isContentUpToDate(int index, CompactFileSnapshotMap other, int otherIndex) {
+        int fileKind = kinds[index] & FILE_KIND_MASK;
+        if (fileKind != (other.kinds[otherIndex] & FILE_KIND_MASK)) {
+            return false;
+        }
+        if (fileKind != REGULAR_FILE) {
+            return true;
+        }
+        if (hashLength != other.hashLength) {
+            return false;
+        }
+        int offset = index * hashLength;
+        int otherOffset = otherIndex * hashLength;
+        for (int i = 0; i < hashLength; i++) {
+            if (hashes[offset + i] != other.hashes[otherOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new IndexIterator<String>() {
+                    @Override
+                    String get(int index) {
+                        return paths[index];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, NormalizedFileSnapshot>> entrySet() {
+        return new AbstractSet<Entry<String, NormalizedFileSnapshot>>() {
+            @Override
+            public Iterator<Entry<String, NormalizedFileSnapshot>> iterator() {
+                return new IndexIterator<Entry<String, NormalizedFileSnapshot>>() {
+                    @Override
+                    Entry<String, NormalizedFileSnapshot> get(int index) {
+                        return new SimpleImmutableEntry<String, NormalizedFileSnapshot>(paths[index], getSnapshot(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private abstract class IndexIterator<T> implements Iterator<T> {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            return get(next++);
+        }
+
+        abstract T get(int index);
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static int indexOf(String[] paths, int[] table, String path) {
+        int mask = table.length - 1;
+        int slot = slotFor(path, mask);
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (path.equals(paths[entry - 1])) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int slotFor(String path, int mask) {
+        int hash = path.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Collects the entries of a {@link CompactFileSnapshotMap}. Falls back to a regular map for entries that cannot be stored compactly, such as hashes of
+     * different lengths, so that any map of snapshots can be built with it.
+     */
+    static class Builder {
+        private int size;
+        private String[] paths;
+        private byte[] kinds;
+        private int hashLength = -1;
+        private byte[] hashes;
+        private long[] lastModified;
+        private int[] normalizedPathIndexes;
+        private String[] normalizedPaths;
+        private int[] table;
+        private Map<String, NormalizedFileSnapshot> fallback;
+
+        Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 4);
+            paths = new String[capacity];
+            kinds = new byte[capacity];
+            table = new int[tableSizeFor(capacity)];
+        }
+
+        boolean containsKey(String path) {
+            return fallback != null ? fallback.containsKey(path) : indexOf(paths, table, path) >= 0;
+        }
+
+        void put(String path, NormalizedFileSnapshot normalizedSnapshot) {
+            if (fallback == null && !tryPut(path, normalizedSnapshot)) {
+                fallback = Maps.newLinkedHashMap(build());
+            }
+            if (fallback != null) {
+                fallback.put(path, normalizedSnapshot);
+            }
+        }
+
+        Map<String, NormalizedFileSnapshot> build() {
+            if (fallback != null) {
+                return fallback;
+            }
+            if (size == 0) {
+                return Collections.emptyMap();
+            }
+            return new CompactFileSnapshotMap(this);
+        }
+
+        private boolean tryPut(String path, NormalizedFileSnapshot normalizedSnapshot) {
+            IncrementalFileSnapshot snapshot = normalizedSnapshot.getSnapshot();
+            int fileKind;
+            if (snapshot instanceof DirSnapshot) {
+                fileKind = DIR;
+            } else if (snapshot instanceof MissingFileSnapshot) {
+                fileKind = MISSING_FILE;
+            } else if (snapshot instanceof FileHashSnapshot) {
+                fileKind = REGULAR_FILE;
+            } else {
+                return false;
+            }
+            HashCode hash = fileKind == REGULAR_FILE ? snapshot.getHash() : null;
+            if (hash != null && hashLength >= 0 && hash.bits() != hashLength * 8) {
+                return false;
+            }
+
+            int index = indexOf(paths, table, path);
+            if (index < 0) {
+                index = size;
+                ensureCapacity(size + 1);
+                size++;
+                paths[index] = path;
+                addToTable(index);
+            }
+
+            int normalization;
+            if (normalizedSnapshot instanceof IgnoredPathFileSnapshot) {
+                normalization = IGNORED_PATH_NORMALIZATION;
+            } else if (normalizedSnapshot instanceof NonNormalizedFileSnapshot && normalizedSnapshot.getNormalizedPath().equals(path)) {
+                normalization = NO_NORMALIZATION;
+            } else if (normalizedSnapshot instanceof IndexedNormalizedFileSnapshot && ((IndexedNormalizedFileSnapshot) normalizedSnapshot).getAbsolutePath().equals(path)) {
+                normalization = INDEXED_NORMALIZATION;
+                if (normalizedPathIndexes == null) {
+                    normalizedPathIndexes = new int[paths.length];
+                }
+                normalizedPathIndexes[index] = ((IndexedNormalizedFileSnapshot) normalizedSnapshot).getIndex();
+            } else {
+                normalization = DEFAULT_NORMALIZATION;
+                if (normalizedPaths == null) {
+                    normalizedPaths = new String[paths.length];
+                }
+                normalizedPaths[index] = normalizedSnapshot.getNormalizedPath();
+            }
+            kinds[index] = (byte) (fileKind | normalization);
+
+            if (hash != null) {
+                if (hashes == null) {
+                    hashLength = hash.bits() / 8;
+                    hashes = new byte[paths.length * hashLength];
+                }
+                hash.writeBytesTo(hashes, index * hashLength, hashLength);
+                long fileLastModified = ((FileHashSnapshot) snapshot).getLastModified();
+                if (fileLastModified != 0L && lastModified == null) {
+                    lastModified = new long[paths.length];
+                }
+                if (lastModified != null) {
+                    lastModified[index] = fileLastModified;
+                }
+            }
+            return true;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= paths.length) {
+                return;
+            }
+            int capacity = Math.max(required, paths.length * 2);
+            paths = Arrays.copyOf(paths, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            if (hashes != null) {
+                hashes = Arrays.copyOf(hashes, capacity * hashLength);
+            }
+            if (lastModified != null) {
+                lastModified = Arrays.copyOf(lastModified, capacity);
+            }
+            if (normalizedPathIndexes != null) {
+                normalizedPathIndexes = Arrays.copyOf(normalizedPathIndexes, capacity);
+            }
+            if (normalizedPaths != null) {
+                normalizedPaths = Arrays.copyOf(normalizedPaths, capacity);
+            }
+            if (table.length < tableSizeFor(capacity)) {
+                table = new int[tableSizeFor(capacity)];
+                for (int i = 0; i < size; i++) {
+                    addToTable(i);
+                }
+            }
+        }
+
+        private void addToTable(int index) {
+            int mask = table.length - 1;
+            int slot = slotFor(paths[index], mask);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+
+        private static int tableSizeFor(int capacity) {
+            // Keep the table at most half full
+            return Integer.highestOneBit(capacity * 2 - 1) << 1;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentStore;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Hashes the entries of a compile classpath, so that only changes that can affect compilation against the classpath change the hash.
+ *
+ * <p>Class files and jars are hashed using the ABI of the classes they contain. Private, local and anonymous classes are ignored. Other files are hashed using
+ * their full content. Jars and class directories that declare an annotation processor are also hashed using their full content, as the implementation of the
+ * processor takes part in compilation.</p>
+ *
+ * <p>The ABI hashes are cached by content hash of the file, so that each version of a jar or class file is only analyzed once.</p>
+ */
+public class CompileClasspathEntryHasher {
+    static final String ANNOTATION_PROCESSOR_DECLARATION = "META-INF/services/javax.annotation.processing.Processor";
+    private static final HashCode NO_ABI = Hashing.md5().hashString(CompileClasspathEntryHasher.class.getName() + " no ABI", Charsets.UTF_8);
+
+    private final FileSnapshotter snapshotter;
+    private final PersistentIndexedCache<String, HashCode> abiHashes;
+    private final ClassAbiHasher classAbiHasher = new ClassAbiHasher();
+
+    public CompileClasspathEntryHasher(FileSnapshotter snapshotter, PersistentStore store) {
+        this.snapshotter = snapshotter;
+        this.abiHashes = store.createCache("compileClasspathAbiHashes", String.class, new HashCodeSerializer());
+    }
+
+    /**
+     * Creates a hasher for the entries of a single classpath. The returned hasher must only be used while holding the lock on the backing store.
+     */
+    public ClasspathHasher newClasspathHasher() {
+        return new ClasspathHasher();
+    }
+
+    public class ClasspathHasher {
+        private final Map<File, Boolean> annotationProcessorRoots = Maps.newHashMap();
+
+        private ClasspathHasher() {
+        }
+
+        /**
+         * Returns the hash of the given classpath entry, or null when the entry is not relevant to compilation.
+         */
+        public HashCode hash(FileTreeElement fileDetails) {
+            String name = fileDetails.getName();
+            if (name.endsWith(".class")) {
+                if (isInAnnotationProcessorRoot(fileDetails)) {
+                    return snapshotter.snapshot(fileDetails).getHash();
+                }
+                return hashClassFile(fileDetails);
+            }
+            if (name.endsWith(".jar") || name.endsWith(".zip")) {
+                return hashJar(fileDetails);
+            }
+            return snapshotter.snapshot(fileDetails).getHash();
+        }
+
+        private boolean isInAnnotationProcessorRoot(FileTreeElement fileDetails) {
+            File root = fileDetails.getFile();
+            for (int i = 0; i < fileDetails.getRelativePath().getSegments().length; i++) {
+                root = root.getParentFile();
+            }
+            Boolean declaresProcessor = annotationProcessorRoots.get(root);
+            if (declaresProcessor == null) {
+                declaresProcessor = new File(root, ANNOTATION_PROCESSOR_DECLARATION).isFile();
+                annotationProcessorRoots.put(root, declaresProcessor);
+            }
+            return declaresProcessor;
+        }
+    }
+
+    private HashCode hashClassFile(FileTreeElement fileDetails) {
+        HashCode contentHash = snapshotter.snapshot(fileDetails).getHash();
+        String key = contentHash.toString();
+        HashCode abiHash = abiHashes.get(key);
+        if (abiHash == null) {
+            byte[] classBytes;
+            try {
+                classBytes = Files.toByteArray(fileDetails.getFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Failed to read class file '%s'.", fileDetails.getFile()), e);
+            }
+            abiHash = hashClass(classBytes, contentHash);
+            abiHashes.put(key, abiHash);
+        }
+        return abiHash.equals(NO_ABI) ? null : abiHash;
+    }
+
+    private HashCode hashJar(FileTreeElement fileDetails) {
+        HashCode contentHash = snapshotter.snapshot(fileDetails).getHash();
+        String key = contentHash.toString();
+        HashCode abiHash = abiHashes.get(key);
+        if (abiHash == null) {
+            abiHash = hashJarContents(fileDetails.getFile(), contentHash);
+            abiHashes.put(key, abiHash);
+        }
+        return abiHash;
+    }
+
+    private HashCode hashJarContents(File jarFile, HashCode contentHash) {
+        try {
+            ZipFile zipFile = new ZipFile(jarFile);
+            try {
+                if (zipFile.getEntry(ANNOTATION_PROCESSOR_DECLARATION) != null) {
+                    return contentHash;
+                }
+                return hashJarEntries(zipFile);
+            } finally {
+                zipFile.close();
+            }
+        } catch (ZipException e) {
+            // Not a valid archive, use the content as is
+            return contentHash;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to read jar file '%s'.", jarFile), e);
+        }
+    }
+
+    private HashCode hashJarEntries(ZipFile zipFile) throws IOException {
+        List<ZipEntry> entries = new ArrayList<ZipEntry>();
+        Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+        while (enumeration.hasMoreElements()) {
+            ZipEntry entry = enumeration.nextElement();
+            if (!entry.isDirectory()) {
+                entries.add(entry);
+            }
+        }
+        // Use a stable order, so that rebuilding the jar with the same content does not change the hash
+        Collections.sort(entries, new Comparator<ZipEntry>() {
+            @Override
+            public int compare(ZipEntry o1, ZipEntry o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        Hasher hasher = Hashing.md5().newHasher();
+        for (ZipEntry entry : entries) {
+            byte[] bytes = readEntry(zipFile, entry);
+            HashCode entryHash = Hashing.md5().hashBytes(bytes);
+            if (entry.getName().endsWith(".class")) {
+                entryHash = hashClass(bytes, entryHash);
+                if (entryHash.equals(NO_ABI)) {
+                    continue;
+                }
+            }
+            hasher.putString(entry.getName(), Charsets.UTF_8);
+            hasher.putBytes(entryHash.asBytes());
+        }
+        return hasher.hash();
+    }
+
+    private static byte[] readEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+        InputStream inputStream = zipFile.getInputStream(entry);
+        try {
+            return ByteStreams.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Returns the ABI hash of the given class, {@link #NO_ABI} when the class is not visible to other classes, or the given content hash when the class cannot be parsed.
+     */
+    private HashCode hashClass(byte[] classBytes, HashCode contentHash) {
+        HashCode abiHash;
+        try {
+            abiHash = classAbiHasher.hashClass(classBytes);
+        } catch (RuntimeException e) {
+            return contentHash;
+        }
+        return abiHash == null ? NO_ABI : abiHash;
+    }
+}
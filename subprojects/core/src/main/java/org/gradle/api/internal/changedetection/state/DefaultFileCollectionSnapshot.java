@@ -34,7 +34,7 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
     private final TaskFilePropertyCompareType compareType;
 
     public DefaultFileCollectionSnapshot(Map<String, NormalizedFileSnapshot> snapshots, TaskFilePropertyCompareType compareType) {
-        this.snapshots = snapshots;
+        this.snapshots = CompactFileSnapshotMap.copyOf(snapshots);
         this.compareType = compareType;
     }
 
@@ -34,6 +34,14 @@ public class DefaultFileCollectionSnapshotter extends AbstractFileCollectionSnap
         super(snapshotter, cacheAccess, stringInterner, fileResolver);
     }
 
+    public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver, CompileClasspathEntryHasher compileClasspathEntryHasher) {
+        super(snapshotter, cacheAccess, stringInterner, fileResolver, compileClasspathEntryHasher);
+    }
+
+    public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver, CompileClasspathEntryHasher compileClasspathEntryHasher, FileSnapshotExecutor snapshotExecutor) {
+        super(snapshotter, cacheAccess, stringInterner, fileResolver, compileClasspathEntryHasher, snapshotExecutor);
+    }
+
     @Override
     protected void visitFiles(FileCollection input, final List<FileTreeElement> fileTreeElements, final List<FileTreeElement> missingFiles) {
         DefaultFileCollectionResolveContext context = new DefaultFileCollectionResolveContext(fileResolver);
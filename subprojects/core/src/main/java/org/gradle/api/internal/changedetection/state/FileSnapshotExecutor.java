@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs file snapshotting work, such as hashing files, on a bounded number of threads, so that the I/O of several files or tasks can overlap.
+ *
+ * <p>The limit applies to all work submitted to this executor, whichever thread submits it. A thread that calls {@link #runAll(List)} always takes part in
+ * running the actions, so that it makes progress even when all threads of the executor are busy.</p>
+ */
+public class FileSnapshotExecutor implements Stoppable {
+    private final Semaphore availableThreads;
+    private final StoppableExecutor executor;
+
+    /**
+     * @param maxConcurrency the maximum number of threads to use for snapshotting, including the threads that call {@link #runAll(List)}.
+     */
+    public FileSnapshotExecutor(ExecutorFactory executorFactory, int maxConcurrency) {
+        this.availableThreads = new Semaphore(Math.max(0, maxConcurrency - 1));
+        this.executor = executorFactory.create("file snapshotting");
+    }
+
+    /**
+     * Runs the given actions, using the calling thread and as many threads of this executor as are available. Blocks until all actions have completed.
+     * Rethrows the first failure, in which case actions that have not started are skipped.
+     */
+    public void runAll(final List<? extends Runnable> actions) {
+        if (actions.isEmpty()) {
+            return;
+        }
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        int helpers = 0;
+        while (helpers < actions.size() - 1 && availableThreads.tryAcquire()) {
+            helpers++;
+        }
+        final CountDownLatch helpersFinished = new CountDownLatch(helpers);
+        for (int i = 0; i < helpers; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runActions(actions, next, failure);
+                    } finally {
+                        availableThreads.release();
+                        helpersFinished.countDown();
+                    }
+                }
+            });
+        }
+        runActions(actions, next, failure);
+        try {
+            helpersFinished.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        if (failure.get() != null) {
+            throw UncheckedException.throwAsUncheckedException(failure.get());
+        }
+    }
+
+    private static void runActions(List<? extends Runnable> actions, AtomicInteger next, AtomicReference<Throwable> failure) {
+        while (failure.get() == null) {
+            int index = next.getAndIncrement();
+            if (index >= actions.size()) {
+                return;
+            }
+            try {
+                actions.get(index).run();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        executor.stop();
+    }
+}
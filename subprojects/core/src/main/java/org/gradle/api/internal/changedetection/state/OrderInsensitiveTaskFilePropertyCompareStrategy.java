@@ -24,6 +24,7 @@ import org.gradle.api.internal.changedetection.rules.FileChange;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -39,6 +40,9 @@ class OrderInsensitiveTaskFilePropertyCompareStrategy implements TaskFilePropert
 
     @Override
     public Iterator<TaskStateChange> iterateContentChangesSince(final Map<String, NormalizedFileSnapshot> current, Map<String, NormalizedFileSnapshot> previous, final String fileType) {
+        if (current instanceof CompactFileSnapshotMap && previous instanceof CompactFileSnapshotMap) {
+            return iterateCompactContentChangesSince((CompactFileSnapshotMap) current, (CompactFileSnapshotMap) previous, fileType);
+        }
         final Map<String, NormalizedFileSnapshot> remainingPrevious = Maps.newHashMap(previous);
         final Iterator<String> currentFiles = current.keySet().iterator();
         return new AbstractIterator<TaskStateChange>() {
@@ -72,6 +76,44 @@ class OrderInsensitiveTaskFilePropertyCompareStrategy implements TaskFilePropert
         };
     }
 
+    /**
+     * Compares the entries in place, without creating a snapshot object for each of them or copying the previous entries. Removed files are reported
+     * in the order of the previous snapshot.
+     */
+    private Iterator<TaskStateChange> iterateCompactContentChangesSince(final CompactFileSnapshotMap current, final CompactFileSnapshotMap previous, final String fileType) {
+        final BitSet matchedPrevious = new BitSet(previous.size());
+        return new AbstractIterator<TaskStateChange>() {
+            private int currentIndex;
+            private int previousIndex = -1;
+
+            @Override
+            protected TaskStateChange computeNext() {
+                while (currentIndex < current.size()) {
+                    int index = currentIndex++;
+                    String currentFile = current.getPath(index);
+                    int matchingIndex = previous.indexOf(currentFile);
+                    if (matchingIndex < 0) {
+                        if (includeAdded) {
+                            return new FileChange(currentFile, ChangeType.ADDED, fileType);
+                        }
+                        continue;
+                    }
+                    matchedPrevious.set(matchingIndex);
+                    if (!current.isContentUpToDate(index, previous, matchingIndex)) {
+                        return new FileChange(currentFile, ChangeType.MODIFIED, fileType);
+                    }
+                }
+
+                previousIndex = matchedPrevious.nextClearBit(previousIndex + 1);
+                if (previousIndex < previous.size()) {
+                    return new FileChange(previous.getPath(previousIndex), ChangeType.REMOVED, fileType);
+                }
+
+                return endOfData();
+            }
+        };
+    }
+
     @Override
     public void appendToCacheKey(TaskCacheKeyBuilder builder, Map<String, NormalizedFileSnapshot> snapshots) {
         List<NormalizedFileSnapshot> normalizedSnapshots = Lists.newArrayList(snapshots.values());
@@ -16,7 +16,6 @@
 
 package org.gradle.api.internal.changedetection.state;
 
-import com.google.common.collect.Maps;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.DefaultNormalizedFileSnapshot;
 import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.IgnoredPathFileSnapshot;
@@ -50,17 +49,23 @@ public class SnapshotMapSerializer implements Serializer<Map<String, NormalizedF
 
     @Override
     public Map<String, NormalizedFileSnapshot> read(Decoder decoder) throws EOFException, Exception {
-        Map<String, NormalizedFileSnapshot> snapshots = Maps.newLinkedHashMap();
         int snapshotsCount = decoder.readSmallInt();
+        CompactFileSnapshotMap.Builder snapshots = new CompactFileSnapshotMap.Builder(snapshotsCount);
+        String previousPath = "";
+        String previousNormalizedPath = "";
         for (int i = 0; i < snapshotsCount; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
-            NormalizedFileSnapshot snapshot = readSnapshot(absolutePath, decoder, stringInterner);
+            String absolutePath = stringInterner.intern(readPath(decoder, previousPath));
+            NormalizedFileSnapshot snapshot = readSnapshot(absolutePath, previousNormalizedPath, decoder, stringInterner);
             snapshots.put(absolutePath, snapshot);
+            previousPath = absolutePath;
+            if (snapshot instanceof DefaultNormalizedFileSnapshot) {
+                previousNormalizedPath = snapshot.getNormalizedPath();
+            }
         }
-        return snapshots;
+        return snapshots.build();
     }
 
-    private NormalizedFileSnapshot readSnapshot(String absolutePath, Decoder decoder, StringInterner stringInterner) throws IOException {
+    private NormalizedFileSnapshot readSnapshot(String absolutePath, String previousNormalizedPath, Decoder decoder, StringInterner stringInterner) throws IOException {
         byte fileSnapshotKind = decoder.readByte();
         IncrementalFileSnapshot snapshot;
         switch (fileSnapshotKind) {
@@ -82,7 +87,7 @@ public class SnapshotMapSerializer implements Serializer<Map<String, NormalizedF
             case NO_NORMALIZATION:
                 return new NonNormalizedFileSnapshot(absolutePath, snapshot);
             case DEFAULT_NORMALIZATION:
-                String normalizedPath = stringInterner.intern(decoder.readString());
+                String normalizedPath = stringInterner.intern(readPath(decoder, previousNormalizedPath));
                 return new DefaultNormalizedFileSnapshot(normalizedPath, snapshot);
             case INDEXED_NORMALIZATION:
                 int index = decoder.readSmallInt();
@@ -97,14 +102,51 @@ public class SnapshotMapSerializer implements Serializer<Map<String, NormalizedF
     @Override
     public void write(Encoder encoder, Map<String, NormalizedFileSnapshot> value) throws Exception {
         encoder.writeSmallInt(value.size());
-        for (String key : value.keySet()) {
-            encoder.writeString(key);
-            NormalizedFileSnapshot snapshot = value.get(key);
-            writeSnapshot(encoder, snapshot);
+        String previousPath = "";
+        String previousNormalizedPath = "";
+        for (Map.Entry<String, NormalizedFileSnapshot> entry : value.entrySet()) {
+            String absolutePath = entry.getKey();
+            NormalizedFileSnapshot snapshot = entry.getValue();
+            writePath(encoder, previousPath, absolutePath);
+            writeSnapshot(encoder, previousNormalizedPath, snapshot);
+            previousPath = absolutePath;
+            if (snapshot instanceof DefaultNormalizedFileSnapshot) {
+                previousNormalizedPath = snapshot.getNormalizedPath();
+            }
         }
     }
 
-    private void writeSnapshot(Encoder encoder, NormalizedFileSnapshot value) throws IOException {
+    /**
+     * Writes the path as the length of the prefix it shares with the previous path, followed by the rest of the path. The files of a collection are
+     * mostly visited directory by directory, so this leaves little more than the file name for each entry.
+     */
+    private static void writePath(Encoder encoder, String previousPath, String path) throws IOException {
+        int commonPrefix = 0;
+        int maxPrefix = Math.min(previousPath.length(), path.length());
+        while (commonPrefix < maxPrefix && previousPath.charAt(commonPrefix) == path.charAt(commonPrefix)) {
+            commonPrefix++;
+        }
+        if (commonPrefix > 0 && Character.isHighSurrogate(path.charAt(commonPrefix - 1))) {
+            // Do not split a surrogate pair, as the string encoding cannot represent half of it
+            commonPrefix--;
+        }
+        encoder.writeSmallInt(commonPrefix);
+        encoder.writeString(path.substring(commonPrefix));
+    }
+
+    private static String readPath(Decoder decoder, String previousPath) throws IOException {
+        int commonPrefix = decoder.readSmallInt();
+        String suffix = decoder.readString();
+        if (commonPrefix == 0) {
+            return suffix;
+        }
+        if (commonPrefix > previousPath.length()) {
+            throw new RuntimeException("Unable to read serialized file snapshot. Unrecognized value found in the data stream.");
+        }
+        return previousPath.substring(0, commonPrefix).concat(suffix);
+    }
+
+    private void writeSnapshot(Encoder encoder, String previousNormalizedPath, NormalizedFileSnapshot value) throws IOException {
         IncrementalFileSnapshot snapshot = value.getSnapshot();
         if (snapshot instanceof DirSnapshot) {
             encoder.writeByte(DIR_SNAPSHOT);
@@ -121,7 +163,7 @@ public class SnapshotMapSerializer implements Serializer<Map<String, NormalizedF
             encoder.writeByte(NO_NORMALIZATION);
         } else if (value instanceof DefaultNormalizedFileSnapshot) {
             encoder.writeByte(DEFAULT_NORMALIZATION);
-            encoder.writeString(value.getNormalizedPath());
+            writePath(encoder, previousNormalizedPath, value.getNormalizedPath());
         } else if (value instanceof IndexedNormalizedFileSnapshot) {
             encoder.writeByte(INDEXED_NORMALIZATION);
             encoder.writeSmallInt(((IndexedNormalizedFileSnapshot) value).getIndex());
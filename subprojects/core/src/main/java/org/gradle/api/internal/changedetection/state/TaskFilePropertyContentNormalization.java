@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state;
+
+/**
+ * Determines which part of the content of the files of a task property is relevant to the task.
+ */
+public enum TaskFilePropertyContentNormalization {
+    /**
+     * Use the full content of the files.
+     */
+    NONE,
+
+    /**
+     * Use only the parts of the files that are relevant when compiling against them: the ABI of classes and jars, and the full content of other resources.
+     */
+    COMPILE_CLASSPATH
+}
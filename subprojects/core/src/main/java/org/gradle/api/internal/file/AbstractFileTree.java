@@ -138,7 +138,7 @@ public abstract class AbstractFileTree extends AbstractFileCollection implements
         }
 
         public FileTree visit(final FileVisitor visitor) {
-            fileTree.visit(new FileVisitor() {
+            fileTree.visit(new ReproducibleFileVisitor() {
                 public void visitDir(FileVisitDetails dirDetails) {
                     if (spec.isSatisfiedBy(dirDetails)) {
                         visitor.visitDir(dirDetails);
@@ -150,6 +150,10 @@ public abstract class AbstractFileTree extends AbstractFileCollection implements
                         visitor.visitFile(fileDetails);
                     }
                 }
+
+                public boolean isReproducibleFileOrder() {
+                    return visitor instanceof ReproducibleFileVisitor && ((ReproducibleFileVisitor) visitor).isReproducibleFileOrder();
+                }
             });
             return this;
         }
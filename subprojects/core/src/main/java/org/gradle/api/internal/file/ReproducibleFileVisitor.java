@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file;
+
+import org.gradle.api.file.FileVisitor;
+
+/**
+ * A {@link FileVisitor} that may require the files of a tree to be visited in a reproducible order, independent of the order in which the file
+ * system lists the contents of a directory.
+ */
+public interface ReproducibleFileVisitor extends FileVisitor {
+    /**
+     * Returns true if the files of a tree should be visited in a reproducible order.
+     */
+    boolean isReproducibleFileOrder();
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.archive;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.file.FileVisitDetails;
+
+/**
+ * Details of an entry of an archive that can only be read once, such as an entry of a TAR stream. The content of the entry is hashed while it is extracted.
+ */
+public interface ArchiveEntryFileVisitDetails extends FileVisitDetails {
+    /**
+     * Returns a hash of the content of this entry, calculated while the entry was extracted to {@link #getFile()}. Extracts the entry if it has not been extracted yet.
+     */
+    HashCode getContentHash();
+}
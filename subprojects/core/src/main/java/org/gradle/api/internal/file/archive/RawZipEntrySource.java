@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.Nullable;
+
+/**
+ * A file tree element whose content may be available as an entry of a ZIP file, in the form it is stored in that file.
+ */
+public interface RawZipEntrySource {
+    /**
+     * Returns the ZIP file entry that holds the unmodified content of this element, or null when the content is not available in this form.
+     * The entry can only be read while the element is being visited.
+     */
+    @Nullable
+    RawZipFile.Entry getRawZipEntry();
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * Provides access to the entries of a ZIP file in their stored, usually compressed, form. This allows an entry to be copied to another ZIP file
+ * without inflating and deflating its content again.
+ *
+ * <p>Only the central directory is read when the file is opened. The content of an entry is read using positional reads, so that the entries can
+ * be read concurrently.</p>
+ */
+public class RawZipFile implements Closeable {
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIG = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIG = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIG = 0x07064b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH = 20;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int LOCAL_FILE_HEADER_LENGTH = 30;
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final int ENCRYPTED_FLAG = 1;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final Map<String, Entry> entries;
+    private boolean duplicateEntries;
+
+    /**
+     * Opens the given ZIP file, decoding entry names that are not flagged as UTF-8 using the platform's default character set.
+     */
+    public RawZipFile(File file) throws IOException {
+        this(file, null);
+    }
+
+    public RawZipFile(File file, @Nullable String encoding) throws IOException {
+        this.file = file;
+        this.randomAccessFile = new RandomAccessFile(file, "r");
+        this.channel = randomAccessFile.getChannel();
+        try {
+            this.entries = readCentralDirectory(encoding == null ? Charset.defaultCharset() : Charset.forName(encoding));
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        } catch (RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the entries of this file, in the order of the central directory.
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    @Nullable
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Returns true when several entries of this file have the same name. Only the last of these entries is available from {@link #getEntries()}
+     * and {@link #getEntry(String)}.
+     */
+    public boolean hasDuplicateEntries() {
+        return duplicateEntries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+
+    private Map<String, Entry> readCentralDirectory(Charset charset) throws IOException {
+        long length = channel.size();
+        long endOfCentralDirectory = findEndOfCentralDirectory(length);
+        ByteBuffer end = read(endOfCentralDirectory, END_OF_CENTRAL_DIRECTORY_LENGTH);
+        long entryCount = end.getShort(10) & 0xFFFF;
+        long centralDirectorySize = end.getInt(12) & ZIP64_MAGIC;
+        long centralDirectoryOffset = end.getInt(16) & ZIP64_MAGIC;
+        if (entryCount == ZIP64_MAGIC_SHORT || centralDirectorySize == ZIP64_MAGIC || centralDirectoryOffset == ZIP64_MAGIC) {
+            long locatorOffset = endOfCentralDirectory - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH;
+            if (locatorOffset >= 0) {
+                ByteBuffer locator = read(locatorOffset, ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_LENGTH);
+                if (locator.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIG) {
+                    ByteBuffer zip64End = read(locator.getLong(8), 56);
+                    if (zip64End.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIG) {
+                        throw new ZipException(String.format("Could not find the ZIP64 end of central directory record of %s.", file));
+                    }
+                    entryCount = zip64End.getLong(32);
+                    centralDirectorySize = zip64End.getLong(40);
+                    centralDirectoryOffset = zip64End.getLong(48);
+                }
+            }
+        }
+        if (centralDirectorySize > Integer.MAX_VALUE || centralDirectoryOffset + centralDirectorySize > length) {
+            throw new ZipException(String.format("Invalid central directory in %s.", file));
+        }
+
+        ByteBuffer centralDirectory = read(centralDirectoryOffset, (int) centralDirectorySize);
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>((int) Math.min(entryCount, 1 << 20) * 4 / 3 + 1);
+        while (centralDirectory.remaining() >= 46) {
+            int start = centralDirectory.position();
+            if (centralDirectory.getInt(start) != CENTRAL_FILE_HEADER_SIG) {
+                throw new ZipException(String.format("Invalid central directory entry in %s.", file));
+            }
+            int versionMadeBy = centralDirectory.getShort(start + 4) & 0xFFFF;
+            int flags = centralDirectory.getShort(start + 8) & 0xFFFF;
+            int method = centralDirectory.getShort(start + 10) & 0xFFFF;
+            long dosTime = centralDirectory.getInt(start + 12) & ZIP64_MAGIC;
+            long crc = centralDirectory.getInt(start + 16) & ZIP64_MAGIC;
+            long compressedSize = centralDirectory.getInt(start + 20) & ZIP64_MAGIC;
+            long size = centralDirectory.getInt(start + 24) & ZIP64_MAGIC;
+            int nameLength = centralDirectory.getShort(start + 28) & 0xFFFF;
+            int extraLength = centralDirectory.getShort(start + 30) & 0xFFFF;
+            int commentLength = centralDirectory.getShort(start + 32) & 0xFFFF;
+            long externalAttributes = centralDirectory.getInt(start + 38) & ZIP64_MAGIC;
+            long localHeaderOffset = centralDirectory.getInt(start + 42) & ZIP64_MAGIC;
+
+            byte[] nameBytes = new byte[nameLength];
+            centralDirectory.position(start + 46);
+            centralDirectory.get(nameBytes);
+            String name = new String(nameBytes, (flags & UTF8_FLAG) != 0 ? UTF8 : charset);
+
+            // Replace the values that did not fit into the fixed size fields with those of the ZIP64 extra field
+            int extraEnd = start + 46 + nameLength + extraLength;
+            int extra = start + 46 + nameLength;
+            while (extra + 4 <= extraEnd) {
+                int id = centralDirectory.getShort(extra) & 0xFFFF;
+                int fieldLength = centralDirectory.getShort(extra + 2) & 0xFFFF;
+                if (id == ZIP64_EXTRA_FIELD_ID) {
+                    int value = extra + 4;
+                    if (size == ZIP64_MAGIC && value + 8 <= extraEnd) {
+                        size = centralDirectory.getLong(value);
+                        value += 8;
+                    }
+                    if (compressedSize == ZIP64_MAGIC && value + 8 <= extraEnd) {
+                        compressedSize = centralDirectory.getLong(value);
+                        value += 8;
+                    }
+                    if (localHeaderOffset == ZIP64_MAGIC && value + 8 <= extraEnd) {
+                        localHeaderOffset = centralDirectory.getLong(value);
+                    }
+                    break;
+                }
+                extra += 4 + fieldLength;
+            }
+
+            if (entries.put(name, new Entry(name, versionMadeBy, flags, method, dosTime, crc, compressedSize, size, externalAttributes, localHeaderOffset)) != null) {
+                duplicateEntries = true;
+            }
+            centralDirectory.position(extraEnd + commentLength);
+        }
+        return entries;
+    }
+
+    private long findEndOfCentralDirectory(long length) throws IOException {
+        long minOffset = Math.max(0, length - END_OF_CENTRAL_DIRECTORY_LENGTH - MAX_COMMENT_LENGTH);
+        long maxOffset = length - END_OF_CENTRAL_DIRECTORY_LENGTH;
+        if (maxOffset >= 0) {
+            ByteBuffer tail = read(minOffset, (int) (length - minOffset));
+            for (long offset = maxOffset; offset >= minOffset; offset--) {
+                if (tail.getInt((int) (offset - minOffset)) == END_OF_CENTRAL_DIRECTORY_SIG) {
+                    return offset;
+                }
+            }
+        }
+        throw new ZipException(String.format("Could not find the end of central directory record of %s. It is probably not a ZIP file.", file));
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new ZipException(String.format("Unexpected end of %s.", file));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * An entry of a {@link RawZipFile}. The values are those of the central directory.
+     */
+    public class Entry {
+        private final String name;
+        private final int versionMadeBy;
+        private final int flags;
+        private final int method;
+        private final long dosTime;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private final long externalAttributes;
+        private final long localHeaderOffset;
+
+        private Entry(String name, int versionMadeBy, int flags, int method, long dosTime, long crc, long compressedSize, long size, long externalAttributes, long localHeaderOffset) {
+            this.name = name;
+            this.versionMadeBy = versionMadeBy;
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.externalAttributes = externalAttributes;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public boolean isEncrypted() {
+            return (flags & ENCRYPTED_FLAG) != 0;
+        }
+
+        /**
+         * The compression method of the entry, eg {@link java.util.zip.ZipEntry#DEFLATED}.
+         */
+        public int getMethod() {
+            return method;
+        }
+
+        /**
+         * The last modification time of the entry, in MS-DOS format.
+         */
+        public long getDosTime() {
+            return dosTime;
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the Unix mode of the entry, including the file type bits, or 0 when the entry was not created on a Unix platform.
+         */
+        public int getUnixMode() {
+            return (versionMadeBy >> 8) == 3 ? (int) ((externalAttributes >> 16) & 0xFFFF) : 0;
+        }
+
+        /**
+         * Copies the stored content of this entry to the given channel.
+         */
+        public void transferTo(WritableByteChannel target) throws IOException {
+            long position = getDataOffset();
+            long remaining = compressedSize;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    throw new ZipException(String.format("Unexpected end of %s while reading entry %s.", file, name));
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+
+        /**
+         * Reads the stored content of this entry into memory.
+         */
+        public byte[] readStoredContent() throws IOException {
+            if (compressedSize > Integer.MAX_VALUE) {
+                throw new ZipException(String.format("Entry %s of %s is too large to be read into memory.", name, file));
+            }
+            ByteBuffer content = read(getDataOffset(), (int) compressedSize);
+            return content.array();
+        }
+
+        private long getDataOffset() throws IOException {
+            ByteBuffer header = read(localHeaderOffset, LOCAL_FILE_HEADER_LENGTH);
+            if (header.getInt(0) != LOCAL_FILE_HEADER_SIG) {
+                throw new ZipException(String.format("Invalid local header for entry %s of %s.", name, file));
+            }
+            int nameLength = header.getShort(26) & 0xFFFF;
+            int extraLength = header.getShort(28) & 0xFFFF;
+            return localHeaderOffset + LOCAL_FILE_HEADER_LENGTH + nameLength + extraLength;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
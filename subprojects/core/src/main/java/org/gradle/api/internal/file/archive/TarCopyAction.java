@@ -36,10 +36,16 @@ import java.io.OutputStream;
 public class TarCopyAction implements CopyAction {
     private final File tarFile;
     private final ArchiveOutputStreamFactory compressor;
+    private final boolean preserveFileTimestamps;
 
     public TarCopyAction(File tarFile, ArchiveOutputStreamFactory compressor) {
+        this(tarFile, compressor, true);
+    }
+
+    public TarCopyAction(File tarFile, ArchiveOutputStreamFactory compressor, boolean preserveFileTimestamps) {
         this.tarFile = tarFile;
         this.compressor = compressor;
+        this.preserveFileTimestamps = preserveFileTimestamps;
     }
 
     public WorkResult execute(final CopyActionProcessingStream stream) {
@@ -87,7 +93,7 @@ public class TarCopyAction implements CopyAction {
         private void visitFile(FileCopyDetails fileDetails) {
             try {
                 TarEntry archiveEntry = new TarEntry(fileDetails.getRelativePath().getPathString());
-                archiveEntry.setModTime(fileDetails.getLastModified());
+                archiveEntry.setModTime(getArchiveTimeFor(fileDetails));
                 archiveEntry.setSize(fileDetails.getSize());
                 archiveEntry.setMode(UnixStat.FILE_FLAG | fileDetails.getMode());
                 tarOutStr.putNextEntry(archiveEntry);
@@ -102,7 +108,7 @@ public class TarCopyAction implements CopyAction {
             try {
                 // Trailing slash on name indicates entry is a directory
                 TarEntry archiveEntry = new TarEntry(dirDetails.getRelativePath().getPathString() + '/');
-                archiveEntry.setModTime(dirDetails.getLastModified());
+                archiveEntry.setModTime(getArchiveTimeFor(dirDetails));
                 archiveEntry.setMode(UnixStat.DIR_FLAG | dirDetails.getMode());
                 tarOutStr.putNextEntry(archiveEntry);
                 tarOutStr.closeEntry();
@@ -111,4 +117,8 @@ public class TarCopyAction implements CopyAction {
             }
         }
     }
+
+    private long getArchiveTimeFor(FileCopyDetails details) {
+        return preserveFileTimestamps ? details.getLastModified() : ZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES;
+    }
 }
@@ -15,6 +15,12 @@
  */
 package org.gradle.api.internal.file.archive;
 
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.tools.tar.TarEntry;
 import org.apache.tools.tar.TarInputStream;
 import org.gradle.api.GradleException;
@@ -24,34 +30,33 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
-import org.gradle.api.internal.file.DefaultFileVisitDetails;
 import org.gradle.api.internal.file.FileSystemSubset;
 import org.gradle.api.internal.file.collections.*;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.api.resources.internal.ReadableResourceInternal;
 import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
-import org.gradle.internal.nativeintegration.filesystem.Stat;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree {
+    private static final byte[] CONTENT_SIGNATURE = Hashing.md5().hashString(TarFileTree.class.getName(), Charsets.UTF_8).asBytes();
     private final File tarFile;
     private final ReadableResourceInternal resource;
     private final Chmod chmod;
-    private final Stat stat;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final File tmpDir;
 
-    public TarFileTree(@Nullable File tarFile, ReadableResourceInternal resource, File tmpDir, Chmod chmod, Stat stat, DirectoryFileTreeFactory directoryFileTreeFactory) {
+    public TarFileTree(@Nullable File tarFile, ReadableResourceInternal resource, File tmpDir, Chmod chmod, DirectoryFileTreeFactory directoryFileTreeFactory) {
         this.tarFile = tarFile;
         this.resource = resource;
         this.chmod = chmod;
-        this.stat = stat;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         String expandDirName = resource.getBaseName() + "_" + HashUtil.createCompactMD5(resource.getURI().toString());
         this.tmpDir = new File(tmpDir, expandDirName);
@@ -111,12 +116,13 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         return null;
     }
 
-    private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
+    private class DetailsImpl extends AbstractFileTreeElement implements ArchiveEntryFileVisitDetails {
         private final TarEntry entry;
         private final NoCloseTarInputStream tar;
         private final AtomicBoolean stopFlag;
         private File file;
         private boolean read;
+        private HashCode contentHash;
 
         public DetailsImpl(TarEntry entry, NoCloseTarInputStream tar, AtomicBoolean stopFlag, Chmod chmod) {
             super(chmod);
@@ -141,6 +147,25 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
             return file;
         }
 
+        public HashCode getContentHash() {
+            getFile();
+            return contentHash;
+        }
+
+        @Override
+        protected void copyFile(File target) throws IOException {
+            // The stream of an entry can only be read once, so hash the content while it is written
+            Hasher hasher = Hashing.md5().newHasher();
+            hasher.putBytes(CONTENT_SIGNATURE);
+            OutputStream outputStream = new FileOutputStream(target);
+            try {
+                copyTo(new TeeOutputStream(outputStream, Funnels.asOutputStream(hasher)));
+            } finally {
+                outputStream.close();
+            }
+            contentHash = hasher.hash();
+        }
+
         public long getLastModified() {
             return entry.getModTime().getTime();
         }
@@ -200,19 +225,20 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         if (backingFile!=null) {
             new SingletonFileTree(backingFile).visit(visitor);
         } else {
-            // We need to wrap the visitor so that the file seen by the visitor has already
-            // been extracted from the archive and we do not try to extract it again.
-            // It's unsafe to keep the FileVisitDetails provided by TarFileTree directly
-            // because we do not expect to visit the same paths again (after extracting everything).
+            // Extract each entry before handing it to the visitor, as the entry can only be read while the stream is
+            // positioned at it and the visitor may keep the details after the visit has finished. The content of a file
+            // is hashed while it is extracted, so that it does not need to be read again.
             visit(new FileVisitor() {
                 @Override
                 public void visitDir(FileVisitDetails dirDetails) {
-                    visitor.visitDir(new DefaultFileVisitDetails(dirDetails.getFile(), chmod, stat));
+                    dirDetails.getFile();
+                    visitor.visitDir(dirDetails);
                 }
 
                 @Override
                 public void visitFile(FileVisitDetails fileDetails) {
-                    visitor.visitFile(new DefaultFileVisitDetails(fileDetails.getFile(), chmod, stat));
+                    fileDetails.getFile();
+                    visitor.visitFile(fileDetails);
                 }
             });
         }
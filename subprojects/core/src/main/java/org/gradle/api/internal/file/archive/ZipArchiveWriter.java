@@ -0,0 +1,473 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.UnixStat;
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipEncoding;
+import org.apache.tools.zip.ZipEncodingHelper;
+import org.apache.tools.zip.ZipUtil;
+import org.gradle.api.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a ZIP file one entry at a time, in the order the entries are added. Unlike {@link org.apache.tools.zip.ZipOutputStream}, an entry can be
+ * added with content that has already been compressed, either by another thread or because it is copied verbatim from another ZIP file.
+ *
+ * <p>The entries are written in the same format as {@link org.apache.tools.zip.ZipOutputStream} uses: the Unix mode is recorded in the external
+ * attributes, and the ZIP64 extensions are only used where required. When they are required but not allowed, a {@link Zip64RequiredException} is thrown.</p>
+ */
+public class ZipArchiveWriter implements Closeable {
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIG = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIG = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final int PLATFORM_UNIX = 3;
+    private static final int MSDOS_DIRECTORY_FLAG = 0x10;
+    private static final int DEFLATE_VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final int method;
+    private final boolean allowZip64;
+    private final ZipEncoding zipEncoding;
+    private final boolean utf8;
+    private final List<WrittenEntry> entries = new ArrayList<WrittenEntry>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+    private EntryOutputStream currentEntry;
+    private boolean closed;
+
+    /**
+     * Creates a writer for the given file.
+     *
+     * @param method The compression method to use for entries whose content is provided by this writer's caller, either {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}.
+     * @param allowZip64 Whether the ZIP64 extensions may be used.
+     * @param encoding The character set used to encode entry names, or null to use the platform's default character set.
+     */
+    public ZipArchiveWriter(File file, int method, boolean allowZip64, @Nullable String encoding) throws IOException {
+        this.file = file;
+        this.method = method;
+        this.allowZip64 = allowZip64;
+        this.zipEncoding = ZipEncodingHelper.getZipEncoding(encoding);
+        Charset charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        this.utf8 = charset.name().equals("UTF-8");
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(0);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        this.channel = randomAccessFile.getChannel();
+    }
+
+    /**
+     * The compression method used for entries whose content is provided by this writer's caller.
+     */
+    public int getMethod() {
+        return method;
+    }
+
+    /**
+     * Adds a directory entry. The name should not include the trailing slash.
+     */
+    public void addDirectory(String name, long time, int mode) throws IOException {
+        writeEntry(new WrittenEntry(name + '/', ZipEntry.STORED, time, UnixStat.DIR_FLAG | mode, 0, 0, 0), null, 0);
+    }
+
+    /**
+     * Adds a file entry whose content has been compressed by the caller.
+     *
+     * @param method The method used to compress the content, either {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}.
+     */
+    public void addCompressedFile(String name, long time, int mode, int method, long crc, long size, byte[] content, int contentLength) throws IOException {
+        WrittenEntry entry = new WrittenEntry(name, method, time, UnixStat.FILE_FLAG | mode, crc, contentLength, size);
+        writeEntry(entry, content, contentLength);
+    }
+
+    /**
+     * Adds a file entry whose content is copied verbatim, without inflating it, from an entry of another ZIP file.
+     */
+    public void addRawFile(String name, long time, int mode, RawZipFile.Entry source) throws IOException {
+        WrittenEntry entry = new WrittenEntry(name, source.getMethod(), time, UnixStat.FILE_FLAG | mode, source.getCrc(), source.getCompressedSize(), source.getSize());
+        writeEntry(entry, null, 0);
+        flushBuffer();
+        source.transferTo(channel);
+        position += source.getCompressedSize();
+    }
+
+    /**
+     * Starts a file entry whose content is written to and compressed by the returned stream. The stream must be closed before another entry is added.
+     */
+    public OutputStream addFile(String name, long time, int mode) throws IOException {
+        assertNoCurrentEntry();
+        WrittenEntry entry = new WrittenEntry(name, method, time, UnixStat.FILE_FLAG | mode, 0, 0, 0);
+        // The sizes are not known yet, so reserve space for the ZIP64 extra field if it may be needed
+        entry.zip64Header = allowZip64;
+        entry.offset = position;
+        writeLocalFileHeader(entry);
+        currentEntry = new EntryOutputStream(entry);
+        return currentEntry;
+    }
+
+    /**
+     * Writes the central directory and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (currentEntry != null) {
+                currentEntry.close();
+            }
+            writeCentralDirectory();
+            flushBuffer();
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private void writeEntry(WrittenEntry entry, @Nullable byte[] content, int contentLength) throws IOException {
+        assertNoCurrentEntry();
+        if (entry.needsZip64ForSizes()) {
+            requireZip64(entry.displayName + "'s size exceeds the limit of 4GByte.");
+            entry.zip64Header = true;
+        }
+        entry.offset = position;
+        writeLocalFileHeader(entry);
+        if (content != null) {
+            write(content, 0, contentLength);
+        }
+        entries.add(entry);
+    }
+
+    private void assertNoCurrentEntry() {
+        if (currentEntry != null) {
+            throw new IllegalStateException("The previous entry has not been closed.");
+        }
+        if (closed) {
+            throw new IllegalStateException("This ZIP file has been closed.");
+        }
+    }
+
+    private void requireZip64(String reason) throws Zip64RequiredException {
+        if (!allowZip64) {
+            throw new Zip64RequiredException(reason);
+        }
+    }
+
+    private byte[] encodeName(String name) throws IOException {
+        ByteBuffer encoded = zipEncoding.encode(name);
+        byte[] bytes = new byte[encoded.limit() - encoded.position()];
+        encoded.get(bytes);
+        return bytes;
+    }
+
+    private void writeLocalFileHeader(WrittenEntry entry) throws IOException {
+        boolean zip64 = entry.zip64Header;
+        ByteBuffer header = ByteBuffer.allocate(30 + entry.name.length + (zip64 ? 20 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LOCAL_FILE_HEADER_SIG);
+        header.putShort((short) versionNeeded(entry.method, zip64));
+        header.putShort((short) entry.flags());
+        header.putShort((short) entry.method);
+        header.putInt((int) entry.dosTime);
+        header.putInt((int) entry.crc);
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.compressedSize));
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.size));
+        header.putShort((short) entry.name.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(entry.name);
+        if (zip64) {
+            header.putShort((short) ZIP64_EXTRA_FIELD_ID);
+            header.putShort((short) 16);
+            header.putLong(entry.size);
+            header.putLong(entry.compressedSize);
+        }
+        write(header.array(), 0, header.position());
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long centralDirectoryOffset = position;
+        for (WrittenEntry entry : entries) {
+            boolean zip64Sizes = entry.needsZip64ForSizes();
+            boolean zip64Offset = entry.offset >= ZIP64_MAGIC;
+            if (zip64Offset) {
+                requireZip64("archive's size exceeds the limit of 4GByte.");
+            }
+            int zip64ExtraLength = (zip64Sizes ? 16 : 0) + (zip64Offset ? 8 : 0);
+            boolean zip64 = zip64ExtraLength > 0 || entry.zip64Header;
+            ByteBuffer header = ByteBuffer.allocate(46 + entry.name.length + (zip64ExtraLength > 0 ? 4 + zip64ExtraLength : 0)).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(CENTRAL_FILE_HEADER_SIG);
+            header.putShort((short) ((PLATFORM_UNIX << 8) | (zip64 ? ZIP64_VERSION : DEFLATE_VERSION)));
+            header.putShort((short) versionNeeded(entry.method, zip64));
+            header.putShort((short) entry.flags());
+            header.putShort((short) entry.method);
+            header.putInt((int) entry.dosTime);
+            header.putInt((int) entry.crc);
+            header.putInt((int) (zip64Sizes ? ZIP64_MAGIC : entry.compressedSize));
+            header.putInt((int) (zip64Sizes ? ZIP64_MAGIC : entry.size));
+            header.putShort((short) entry.name.length);
+            header.putShort((short) (zip64ExtraLength > 0 ? 4 + zip64ExtraLength : 0));
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putInt((entry.unixMode << 16) | (entry.isDirectory() ? MSDOS_DIRECTORY_FLAG : 0));
+            header.putInt((int) (zip64Offset ? ZIP64_MAGIC : entry.offset));
+            header.put(entry.name);
+            if (zip64ExtraLength > 0) {
+                header.putShort((short) ZIP64_EXTRA_FIELD_ID);
+                header.putShort((short) zip64ExtraLength);
+                if (zip64Sizes) {
+                    header.putLong(entry.size);
+                    header.putLong(entry.compressedSize);
+                }
+                if (zip64Offset) {
+                    header.putLong(entry.offset);
+                }
+            }
+            write(header.array(), 0, header.position());
+        }
+        long centralDirectorySize = position - centralDirectoryOffset;
+
+        boolean zip64 = entries.size() >= ZIP64_MAGIC_SHORT || centralDirectoryOffset >= ZIP64_MAGIC || centralDirectorySize >= ZIP64_MAGIC;
+        if (zip64) {
+            requireZip64(entries.size() >= ZIP64_MAGIC_SHORT ? "archive contains more than 65535 entries." : "archive's size exceeds the limit of 4GByte.");
+            long zip64EndOffset = position;
+            ByteBuffer zip64End = ByteBuffer.allocate(56 + 20).order(ByteOrder.LITTLE_ENDIAN);
+            zip64End.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIG);
+            zip64End.putLong(44);
+            zip64End.putShort((short) ((PLATFORM_UNIX << 8) | ZIP64_VERSION));
+            zip64End.putShort((short) ZIP64_VERSION);
+            zip64End.putInt(0);
+            zip64End.putInt(0);
+            zip64End.putLong(entries.size());
+            zip64End.putLong(entries.size());
+            zip64End.putLong(centralDirectorySize);
+            zip64End.putLong(centralDirectoryOffset);
+            zip64End.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIG);
+            zip64End.putInt(0);
+            zip64End.putLong(zip64EndOffset);
+            zip64End.putInt(1);
+            write(zip64End.array(), 0, zip64End.position());
+        }
+
+        ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+        end.putInt(END_OF_CENTRAL_DIRECTORY_SIG);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(entries.size(), ZIP64_MAGIC_SHORT));
+        end.putShort((short) Math.min(entries.size(), ZIP64_MAGIC_SHORT));
+        end.putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC));
+        end.putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        end.putShort((short) 0);
+        write(end.array(), 0, end.position());
+    }
+
+    private static int versionNeeded(int method, boolean zip64) {
+        if (zip64) {
+            return ZIP64_VERSION;
+        }
+        return method == ZipEntry.DEFLATED ? DEFLATE_VERSION : 10;
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+            position += count;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeAt(long position, ByteBuffer bytes) throws IOException {
+        flushBuffer();
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes, position + bytes.position());
+        }
+    }
+
+    private class EntryOutputStream extends OutputStream {
+        private final WrittenEntry entry;
+        private final CRC32 crc = new CRC32();
+        private final Deflater deflater;
+        private final byte[] deflated;
+        private final byte[] oneByte = new byte[1];
+        private long size;
+        private boolean closed;
+
+        EntryOutputStream(WrittenEntry entry) {
+            this.entry = entry;
+            if (entry.method == ZipEntry.DEFLATED) {
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                deflated = new byte[BUFFER_SIZE];
+            } else {
+                deflater = null;
+                deflated = null;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            oneByte[0] = (byte) b;
+            write(oneByte, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed.");
+            }
+            crc.update(bytes, offset, length);
+            size += length;
+            if (deflater == null) {
+                ZipArchiveWriter.this.write(bytes, offset, length);
+                return;
+            }
+            deflater.setInput(bytes, offset, length);
+            while (!deflater.needsInput()) {
+                int count = deflater.deflate(deflated);
+                ZipArchiveWriter.this.write(deflated, 0, count);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            currentEntry = null;
+            long dataStart = entry.offset + 30 + entry.name.length + (entry.zip64Header ? 20 : 0);
+            if (deflater != null) {
+                try {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        int count = deflater.deflate(deflated);
+                        ZipArchiveWriter.this.write(deflated, 0, count);
+                    }
+                } finally {
+                    deflater.end();
+                }
+            }
+            entry.crc = crc.getValue();
+            entry.size = size;
+            entry.compressedSize = position - dataStart;
+            if (entry.needsZip64ForSizes()) {
+                requireZip64(entry.displayName + "'s size exceeds the limit of 4GByte.");
+            }
+
+            ByteBuffer sizes = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            sizes.putInt((int) entry.crc);
+            sizes.putInt((int) (entry.zip64Header ? ZIP64_MAGIC : entry.compressedSize));
+            sizes.putInt((int) (entry.zip64Header ? ZIP64_MAGIC : entry.size));
+            writeAt(entry.offset + 14, sizes);
+            if (entry.zip64Header) {
+                ByteBuffer zip64Sizes = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+                zip64Sizes.putLong(entry.size);
+                zip64Sizes.putLong(entry.compressedSize);
+                writeAt(entry.offset + 30 + entry.name.length + 4, zip64Sizes);
+            }
+            entries.add(entry);
+        }
+    }
+
+    private class WrittenEntry {
+        final String displayName;
+        final byte[] name;
+        final int method;
+        final long dosTime;
+        final int unixMode;
+        long crc;
+        long compressedSize;
+        long size;
+        long offset;
+        boolean zip64Header;
+
+        WrittenEntry(String name, int method, long time, int unixMode, long crc, long compressedSize, long size) throws IOException {
+            this.displayName = name;
+            this.name = encodeName(name);
+            this.method = method;
+            this.dosTime = toDosTime(time);
+            this.unixMode = unixMode;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+        int flags() {
+            return utf8 ? UTF8_FLAG : 0;
+        }
+
+        boolean isDirectory() {
+            return (unixMode & UnixStat.DIR_FLAG) == UnixStat.DIR_FLAG;
+        }
+
+        boolean needsZip64ForSizes() {
+            return size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        }
+    }
+
+    private static long toDosTime(long time) {
+        byte[] bytes = ZipUtil.toDosTime(time);
+        return (bytes[0] & 0xFFL) | (bytes[1] & 0xFFL) << 8 | (bytes[2] & 0xFFL) << 16 | (bytes[3] & 0xFFL) << 24;
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+/**
+ * The threads and deflaters used to compress the entries of ZIP files, shared by all the ZIP files written by a build.
+ *
+ * <p>A deflater holds native memory until it is ended. Deflaters are reused by all ZIP files, and are ended when the pool is stopped, once the
+ * compression threads have finished.</p>
+ */
+public class ZipCompressionPool implements Stoppable {
+    private final StoppableExecutor executor;
+    private final int maxCompressionThreads;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+
+    /**
+     * @param executorFactory The factory for the compression threads, or null to compress the entries on the thread writing the ZIP file.
+     * @param maxCompressionThreads The maximum number of entries to compress concurrently. Entries are compressed on the thread writing the ZIP file when this is 1.
+     */
+    public ZipCompressionPool(@Nullable ExecutorFactory executorFactory, int maxCompressionThreads) {
+        this.executor = executorFactory != null && maxCompressionThreads > 1 ? executorFactory.create("Zip entry compression", maxCompressionThreads) : null;
+        this.maxCompressionThreads = executor != null ? maxCompressionThreads : 1;
+    }
+
+    int getMaxCompressionThreads() {
+        return maxCompressionThreads;
+    }
+
+    /**
+     * Returns the executor that compresses the entries, or null when they should be compressed on the thread writing the ZIP file.
+     */
+    @Nullable
+    Executor getExecutor() {
+        return executor;
+    }
+
+    Deflater takeDeflater() {
+        Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    void returnDeflater(Deflater deflater) {
+        deflater.reset();
+        deflaters.add(deflater);
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            // Waits for the compressions in progress, which return their deflaters
+            executor.stop();
+        }
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+}
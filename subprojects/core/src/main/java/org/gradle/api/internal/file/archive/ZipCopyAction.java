@@ -15,12 +15,11 @@
  */
 package org.gradle.api.internal.file.archive;
 
-import org.apache.tools.zip.UnixStat;
+import com.google.common.util.concurrent.Futures;
 import org.apache.tools.zip.Zip64RequiredException;
-import org.apache.tools.zip.ZipEntry;
-import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileCopyDetails;
 import org.gradle.api.internal.DocumentationRegistry;
@@ -30,59 +29,173 @@ import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
 import org.gradle.api.internal.file.copy.ZipCompressor;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.bundling.Zip;
 import org.gradle.internal.IoActions;
+import org.gradle.internal.UncheckedException;
+import org.gradle.util.GFileUtils;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
 
+/**
+ * Writes the files of a copy spec to a ZIP file.
+ *
+ * <p>The content of the files is read on the calling thread, and compressed by the threads of a {@link ZipCompressionPool}. The entries are written
+ * in the order in which the files are visited, so the result does not depend on the number of threads. The content of an unmodified entry of another ZIP file is
+ * copied without decompressing and compressing it again, when it uses the compression method of the ZIP file being written.</p>
+ *
+ * <p>When told which source files are unchanged since the ZIP file was last written, the compressed content of the entries of the previous ZIP file
+ * that were copied from these files is reused in the same way. An entry is only reused when its size and CRC match the content of the source file. The ZIP file is still written from scratch, so the result is the same as
+ * that of a full rebuild.</p>
+ */
 public class ZipCopyAction implements CopyAction {
+    /**
+     * The timestamp used for the entries when file timestamps are not preserved. Note that the MS-DOS format used for ZIP timestamps cannot represent
+     * dates before 1980, so this is the first of February 1980, in the local time zone, to stay clear of that limit in every time zone.
+     */
+    public static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, 1, 1, 0, 0, 0).getTimeInMillis();
+
+    /**
+     * Files larger than this are compressed on the calling thread, while they are read, rather than buffered for a worker.
+     */
+    private static final int MAX_BUFFERED_ENTRY_SIZE = 4 * 1024 * 1024;
+    private static final long MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
     private final File zipFile;
     private final ZipCompressor compressor;
     private final DocumentationRegistry documentationRegistry;
     private final String encoding;
+    private final boolean preserveFileTimestamps;
+    private final ZipCompressionPool compressionPool;
+    private final Spec<? super File> unchangedSourceFiles;
 
     public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding) {
+        this(zipFile, compressor, documentationRegistry, encoding, true, null, null);
+    }
+
+    /**
+     * @param compressionPool The threads and deflaters that compress the entries, or null to compress them on the calling thread.
+     * @param unchangedSourceFiles The source files that have not changed since the ZIP file was last written, or null when the previous ZIP file should not be reused.
+     */
+    public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps,
+                         @Nullable ZipCompressionPool compressionPool, @Nullable Spec<? super File> unchangedSourceFiles) {
         this.zipFile = zipFile;
         this.compressor = compressor;
         this.documentationRegistry = documentationRegistry;
         this.encoding = encoding;
+        this.preserveFileTimestamps = preserveFileTimestamps;
+        this.compressionPool = compressionPool;
+        this.unchangedSourceFiles = unchangedSourceFiles;
     }
 
     public WorkResult execute(final CopyActionProcessingStream stream) {
-        final ZipOutputStream zipOutStr;
+        final RawZipFile previousZip = openPreviousZipFile();
+        // The previous ZIP file is read while the new one is written, so write the new one next to it
+        File destination = previousZip != null ? new File(zipFile.getParentFile(), zipFile.getName() + ".tmp") : zipFile;
+        final ZipArchiveWriter zipWriter;
 
         try {
-            zipOutStr = compressor.createArchiveOutputStream(zipFile);
+            zipWriter = compressor.createArchiveWriter(destination, encoding);
         } catch (Exception e) {
+            IoActions.closeQuietly(previousZip);
             throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
         }
 
+        final ZipCompressionPool pool = compressionPool != null ? compressionPool : new ZipCompressionPool(null, 1);
+        boolean written = false;
         try {
-            IoActions.withResource(zipOutStr, new Action<ZipOutputStream>() {
-                public void execute(ZipOutputStream outputStream) {
-                    stream.process(new StreamAction(outputStream, encoding));
+            IoActions.withResource(zipWriter, new Action<ZipArchiveWriter>() {
+                public void execute(ZipArchiveWriter writer) {
+                    StreamAction action = new StreamAction(writer, pool, previousZip);
+                    try {
+                        stream.process(action);
+                        action.writePendingEntries();
+                    } finally {
+                        action.cancelPendingEntries();
+                    }
                 }
             });
+            written = true;
         } catch (UncheckedIOException e) {
             if (e.getCause() instanceof Zip64RequiredException) {
                 throw new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
                         String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", e.getCause().getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
                 );
             }
+            throw e;
+        } finally {
+            if (pool != compressionPool) {
+                pool.stop();
+            }
+            if (previousZip != null) {
+                IoActions.closeQuietly(previousZip);
+                if (written) {
+                    GFileUtils.forceDelete(zipFile);
+                    GFileUtils.moveFile(destination, zipFile);
+                } else {
+                    GFileUtils.deleteQuietly(destination);
+                }
+            }
         }
 
         return new SimpleWorkResult(true);
     }
 
+    @Nullable
+    private RawZipFile openPreviousZipFile() {
+        if (unchangedSourceFiles == null || !zipFile.isFile()) {
+            return null;
+        }
+        RawZipFile previousZip;
+        try {
+            previousZip = new RawZipFile(zipFile, encoding);
+        } catch (IOException e) {
+            // Not a ZIP file that can be reused, so write the new one from scratch
+            return null;
+        }
+        if (previousZip.hasDuplicateEntries()) {
+            IoActions.closeQuietly(previousZip);
+            return null;
+        }
+        return previousZip;
+    }
+
+    private long getArchiveTimeFor(FileCopyDetails details) {
+        return preserveFileTimestamps ? details.getLastModified() : CONSTANT_TIME_FOR_ZIP_ENTRIES;
+    }
+
     private class StreamAction implements CopyActionProcessingStreamAction {
-        private final ZipOutputStream zipOutStr;
+        private final ZipArchiveWriter zipWriter;
+        private final ZipCompressionPool pool;
+        private final Executor executor;
+        private final RawZipFile previousZip;
+        private final int maxPendingEntries;
+        private final Queue<PendingWrite> pendingWrites = new LinkedList<PendingWrite>();
+        private long pendingBytes;
 
-        public StreamAction(ZipOutputStream zipOutStr, String encoding) {
-            this.zipOutStr = zipOutStr;
-            if (encoding != null) {
-                this.zipOutStr.setEncoding(encoding);
-            }
+        public StreamAction(ZipArchiveWriter zipWriter, ZipCompressionPool pool, @Nullable RawZipFile previousZip) {
+            this.zipWriter = zipWriter;
+            this.pool = pool;
+            this.executor = pool.getExecutor();
+            this.previousZip = previousZip;
+            this.maxPendingEntries = executor == null ? 0 : 4 * pool.getMaxCompressionThreads();
         }
 
         public void processFile(FileCopyDetailsInternal details) {
@@ -93,30 +206,300 @@ public class ZipCopyAction implements CopyAction {
             }
         }
 
-        private void visitFile(FileCopyDetails fileDetails) {
+        private void visitFile(FileCopyDetailsInternal fileDetails) {
             try {
-                ZipEntry archiveEntry = new ZipEntry(fileDetails.getRelativePath().getPathString());
-                archiveEntry.setTime(fileDetails.getLastModified());
-                archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getMode());
-                zipOutStr.putNextEntry(archiveEntry);
-                fileDetails.copyTo(zipOutStr);
-                zipOutStr.closeEntry();
+                String name = fileDetails.getRelativePath().getPathString();
+                long time = getArchiveTimeFor(fileDetails);
+                int mode = fileDetails.getMode();
+                RawZipFile.Entry rawEntry = fileDetails instanceof RawZipEntrySource ? ((RawZipEntrySource) fileDetails).getRawZipEntry() : null;
+                if (rawEntry == null || rawEntry.getMethod() != zipWriter.getMethod()) {
+                    rawEntry = findUnchangedPreviousEntry(name, fileDetails);
+                }
+                if (rawEntry != null && rawEntry.getMethod() == zipWriter.getMethod()) {
+                    addRawFile(name, time, mode, rawEntry);
+                } else {
+                    EntryContent content = new EntryContent(name, time, mode);
+                    fileDetails.copyTo(content);
+                    content.finish();
+                }
             } catch (Exception e) {
                 throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
             }
         }
 
+        /**
+         * Returns the entry of the previous ZIP file that holds the content of the given file, when the file has not changed since that ZIP file was written
+         * and the entry has the same size and CRC as the file.
+         */
+        @Nullable
+        private RawZipFile.Entry findUnchangedPreviousEntry(String name, FileCopyDetailsInternal fileDetails) throws IOException {
+            if (previousZip == null) {
+                return null;
+            }
+            RawZipFile.Entry previousEntry = previousZip.getEntry(name);
+            if (previousEntry == null || previousEntry.isDirectory() || previousEntry.isEncrypted()) {
+                return null;
+            }
+            File sourceFile = fileDetails.getUnfilteredSourceFile();
+            if (sourceFile == null || !unchangedSourceFiles.isSatisfiedBy(sourceFile) || previousEntry.getSize() != fileDetails.getSize()) {
+                return null;
+            }
+            // The entry may have been copied from another source file, for example one that has since been removed and that was preferred
+            // over this one by the duplicates strategy, or that was mapped to the same path
+            if (crcOf(sourceFile) != previousEntry.getCrc()) {
+                return null;
+            }
+            return previousEntry;
+        }
+
+        private long crcOf(File file) throws IOException {
+            CRC32 crc = new CRC32();
+            InputStream inputStream = new FileInputStream(file);
+            try {
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = inputStream.read(buffer)) >= 0) {
+                    crc.update(buffer, 0, count);
+                }
+            } finally {
+                inputStream.close();
+            }
+            return crc.getValue();
+        }
+
         private void visitDir(FileCopyDetails dirDetails) {
             try {
-                // Trailing slash in name indicates that entry is a directory
-                ZipEntry archiveEntry = new ZipEntry(dirDetails.getRelativePath().getPathString() + '/');
-                archiveEntry.setTime(dirDetails.getLastModified());
-                archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getMode());
-                zipOutStr.putNextEntry(archiveEntry);
-                zipOutStr.closeEntry();
+                add(new DirectoryEntry(dirDetails.getRelativePath().getPathString(), getArchiveTimeFor(dirDetails), dirDetails.getMode()), 0);
             } catch (Exception e) {
                 throw new GradleException(String.format("Could not add %s to ZIP '%s'.", dirDetails, zipFile), e);
             }
         }
+
+        /**
+         * Copies the stored content of an entry of another ZIP file. The other file is only open while its entries are visited, so the content is either
+         * read straight away or, when too large to buffer, written straight away.
+         */
+        private void addRawFile(String name, long time, int mode, RawZipFile.Entry rawEntry) throws IOException {
+            if (rawEntry.getCompressedSize() <= MAX_BUFFERED_ENTRY_SIZE) {
+                byte[] content = rawEntry.readStoredContent();
+                add(new CompressedEntry(name, time, mode, rawEntry.getMethod(), rawEntry.getCrc(), rawEntry.getSize(), content, content.length), content.length);
+            } else {
+                writePendingEntries();
+                zipWriter.addRawFile(name, time, mode, rawEntry);
+            }
+        }
+
+        private void add(PendingEntry entry, int bufferedBytes) throws IOException {
+            add(Futures.immediateFuture(entry), bufferedBytes);
+        }
+
+        private void add(Future<PendingEntry> entry, int bufferedBytes) throws IOException {
+            pendingWrites.add(new PendingWrite(entry, bufferedBytes));
+            pendingBytes += bufferedBytes;
+            while (pendingWrites.size() > maxPendingEntries || pendingBytes > MAX_PENDING_BYTES) {
+                writeNextPendingEntry();
+            }
+        }
+
+        private void compress(String name, long time, int mode, byte[] content, int length) throws IOException {
+            FutureTask<PendingEntry> compression = new FutureTask<PendingEntry>(new CompressEntry(name, time, mode, content, length));
+            if (executor != null) {
+                executor.execute(compression);
+            } else {
+                compression.run();
+            }
+            add(compression, length);
+        }
+
+        void writePendingEntries() {
+            try {
+                while (!pendingWrites.isEmpty()) {
+                    writeNextPendingEntry();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeNextPendingEntry() throws IOException {
+            PendingWrite pendingWrite = pendingWrites.remove();
+            PendingEntry entry;
+            try {
+                entry = pendingWrite.entry.get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+            pendingBytes -= pendingWrite.bufferedBytes;
+            entry.writeTo(zipWriter);
+        }
+
+        /**
+         * Skips the compression of the entries that have not been written, when the ZIP file could not be written.
+         */
+        void cancelPendingEntries() {
+            PendingWrite pendingWrite;
+            while ((pendingWrite = pendingWrites.poll()) != null) {
+                pendingWrite.entry.cancel(false);
+            }
+            pendingBytes = 0;
+        }
+
+        /**
+         * Buffers the content of a file for compression by a worker. Switches to writing the entry directly when the content turns out to be too large
+         * to buffer.
+         */
+        private class EntryContent extends OutputStream {
+            private final String name;
+            private final long time;
+            private final int mode;
+            private final byte[] singleByte = new byte[1];
+            private byte[] buffer = new byte[8192];
+            private int count;
+            private OutputStream entryStream;
+
+            EntryContent(String name, long time, int mode) {
+                this.name = name;
+                this.time = time;
+                this.mode = mode;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                if (entryStream == null && count < buffer.length) {
+                    buffer[count++] = (byte) b;
+                } else if (entryStream != null) {
+                    entryStream.write(b);
+                } else {
+                    singleByte[0] = (byte) b;
+                    write(singleByte, 0, 1);
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (entryStream == null && count + length > MAX_BUFFERED_ENTRY_SIZE) {
+                    writePendingEntries();
+                    entryStream = zipWriter.addFile(name, time, mode);
+                    entryStream.write(buffer, 0, count);
+                    buffer = null;
+                }
+                if (entryStream != null) {
+                    entryStream.write(bytes, offset, length);
+                    return;
+                }
+                if (count + length > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.min(MAX_BUFFERED_ENTRY_SIZE, Math.max(count + length, buffer.length * 2)));
+                }
+                System.arraycopy(bytes, offset, buffer, count, length);
+                count += length;
+            }
+
+            void finish() throws IOException {
+                if (entryStream != null) {
+                    entryStream.close();
+                } else {
+                    compress(name, time, mode, buffer, count);
+                }
+            }
+        }
+
+        private class CompressEntry implements Callable<PendingEntry> {
+            private final String name;
+            private final long time;
+            private final int mode;
+            private final byte[] content;
+            private final int length;
+
+            CompressEntry(String name, long time, int mode, byte[] content, int length) {
+                this.name = name;
+                this.time = time;
+                this.mode = mode;
+                this.content = content;
+                this.length = length;
+            }
+
+            public PendingEntry call() {
+                CRC32 crc = new CRC32();
+                crc.update(content, 0, length);
+                if (zipWriter.getMethod() != ZipEntry.DEFLATED) {
+                    return new CompressedEntry(name, time, mode, ZipEntry.STORED, crc.getValue(), length, content, length);
+                }
+
+                Deflater deflater = pool.takeDeflater();
+                try {
+                    deflater.setInput(content, 0, length);
+                    deflater.finish();
+                    byte[] compressed = new byte[length + (length >> 8) + 64];
+                    int compressedLength = 0;
+                    while (!deflater.finished()) {
+                        if (compressedLength == compressed.length) {
+                            compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                        }
+                        compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+                    }
+                    return new CompressedEntry(name, time, mode, ZipEntry.DEFLATED, crc.getValue(), length, compressed, compressedLength);
+                } finally {
+                    pool.returnDeflater(deflater);
+                }
+            }
+        }
+    }
+
+    private static class PendingWrite {
+        final Future<PendingEntry> entry;
+        final int bufferedBytes;
+
+        PendingWrite(Future<PendingEntry> entry, int bufferedBytes) {
+            this.entry = entry;
+            this.bufferedBytes = bufferedBytes;
+        }
+    }
+
+    private interface PendingEntry {
+        void writeTo(ZipArchiveWriter zipWriter) throws IOException;
+    }
+
+    private static class DirectoryEntry implements PendingEntry {
+        private final String name;
+        private final long time;
+        private final int mode;
+
+        DirectoryEntry(String name, long time, int mode) {
+            this.name = name;
+            this.time = time;
+            this.mode = mode;
+        }
+
+        public void writeTo(ZipArchiveWriter zipWriter) throws IOException {
+            zipWriter.addDirectory(name, time, mode);
+        }
+    }
+
+    private static class CompressedEntry implements PendingEntry {
+        private final String name;
+        private final long time;
+        private final int mode;
+        private final int method;
+        private final long crc;
+        private final long size;
+        private final byte[] content;
+        private final int contentLength;
+
+        CompressedEntry(String name, long time, int mode, int method, long crc, long size, byte[] content, int contentLength) {
+            this.name = name;
+            this.time = time;
+            this.mode = mode;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.content = content;
+            this.contentLength = contentLength;
+        }
+
+        public void writeTo(ZipArchiveWriter zipWriter) throws IOException {
+            zipWriter.addCompressedFile(name, time, mode, method, crc, size, content, contentLength);
+        }
     }
 }
@@ -18,6 +18,7 @@ package org.gradle.api.internal.file.archive;
 import org.apache.tools.zip.ZipEntry;
 import org.apache.tools.zip.ZipFile;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileVisitDetails;
@@ -73,6 +74,7 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
 
         try {
             ZipFile zip = new ZipFile(zipFile);
+            RawEntries rawEntries = new RawEntries();
             try {
                 // The iteration order of zip.getEntries() is based on the hash of the zip entry. This isn't much use
                 // to us. So, collect the entries in a map and iterate over them in alphabetical order.
@@ -86,12 +88,13 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
                 while (!stopFlag.get() && sortedEntries.hasNext()) {
                     ZipEntry entry = sortedEntries.next();
                     if (entry.isDirectory()) {
-                        visitor.visitDir(new DetailsImpl(entry, zip, stopFlag, chmod));
+                        visitor.visitDir(new DetailsImpl(entry, zip, rawEntries, stopFlag, chmod));
                     } else {
-                        visitor.visitFile(new DetailsImpl(entry, zip, stopFlag, chmod));
+                        visitor.visitFile(new DetailsImpl(entry, zip, rawEntries, stopFlag, chmod));
                     }
                 }
             } finally {
+                rawEntries.close();
                 zip.close();
             }
         } catch (Exception e) {
@@ -103,16 +106,53 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         return zipFile;
     }
 
-    private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
+    /**
+     * Opens the ZIP file for raw access to its entries on first use, so that visits that do not copy entries to another ZIP file do not read the
+     * central directory twice.
+     */
+    private class RawEntries {
+        private RawZipFile rawZipFile;
+        private boolean failed;
+
+        @Nullable
+        RawZipFile.Entry get(ZipEntry entry) {
+            if (rawZipFile == null && !failed) {
+                try {
+                    rawZipFile = new RawZipFile(zipFile);
+                } catch (IOException e) {
+                    // Fall back to reading the content through the zip file
+                    failed = true;
+                }
+            }
+            if (rawZipFile == null) {
+                return null;
+            }
+            RawZipFile.Entry rawEntry = rawZipFile.getEntry(entry.getName());
+            if (rawEntry == null || rawEntry.isEncrypted() || rawEntry.getCrc() != entry.getCrc() || rawEntry.getSize() != entry.getSize() || rawEntry.getCompressedSize() != entry.getCompressedSize()) {
+                return null;
+            }
+            return rawEntry;
+        }
+
+        void close() throws IOException {
+            if (rawZipFile != null) {
+                rawZipFile.close();
+            }
+        }
+    }
+
+    private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails, RawZipEntrySource {
         private final ZipEntry entry;
         private final ZipFile zip;
+        private final RawEntries rawEntries;
         private final AtomicBoolean stopFlag;
         private File file;
 
-        public DetailsImpl(ZipEntry entry, ZipFile zip, AtomicBoolean stopFlag, Chmod chmod) {
+        public DetailsImpl(ZipEntry entry, ZipFile zip, RawEntries rawEntries, AtomicBoolean stopFlag, Chmod chmod) {
             super(chmod);
             this.entry = entry;
             this.zip = zip;
+            this.rawEntries = rawEntries;
             this.stopFlag = stopFlag;
         }
 
@@ -152,6 +192,11 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
             }
         }
 
+        @Nullable
+        public RawZipFile.Entry getRawZipEntry() {
+            return entry.isDirectory() ? null : rawEntries.get(entry);
+        }
+
         public RelativePath getRelativePath() {
             return new RelativePath(!entry.isDirectory(), entry.getName().split("/"));
         }
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link DirectoryWalker} that walks each root directory once and then serves all visits of that directory, whatever their patterns, from an
+ * in-memory snapshot of the directory tree. The snapshot holds the names, types, sizes and timestamps of the files. The hashes of the files are
+ * cached separately by the file snapshotter.
+ *
+ * <p>The tree is walked in parallel, one directory listing per job. Snapshots are only kept once {@link #enable()} has been called, so that files
+ * created while the build is being configured are always seen. The owner of this walker is responsible for discarding the snapshots of any
+ * directory that may have been changed, and for reporting the directories that are being changed, such as the outputs of a running task. A
+ * directory that is being changed is walked again on each visit.</p>
+ *
+ * <p>The snapshots are discarded when the walker is stopped, unless they are held by a {@link WatchedDirectorySnapshots} that keeps them for later
+ * builds.</p>
+ */
+public class CachingDirectoryWalker implements DirectoryWalker, Stoppable {
+    private final DirectoryWalker delegate;
+    private final FileSystem fileSystem;
+    private final StoppableExecutor executor;
+    private final DirectorySnapshots snapshots;
+    private volatile boolean enabled;
+
+    public CachingDirectoryWalker(FileSystem fileSystem, ExecutorFactory executorFactory) {
+        this(fileSystem, executorFactory, new DirectorySnapshots());
+    }
+
+    public CachingDirectoryWalker(FileSystem fileSystem, ExecutorFactory executorFactory, WatchedDirectorySnapshots snapshots) {
+        this(fileSystem, executorFactory, (DirectorySnapshots) snapshots);
+    }
+
+    private CachingDirectoryWalker(FileSystem fileSystem, ExecutorFactory executorFactory, DirectorySnapshots snapshots) {
+        this(new DefaultDirectoryWalkerFactory().create(), fileSystem, executorFactory, snapshots);
+    }
+
+    CachingDirectoryWalker(DirectoryWalker delegate, FileSystem fileSystem, ExecutorFactory executorFactory) {
+        this(delegate, fileSystem, executorFactory, new DirectorySnapshots());
+    }
+
+    CachingDirectoryWalker(DirectoryWalker delegate, FileSystem fileSystem, ExecutorFactory executorFactory, DirectorySnapshots snapshots) {
+        this.delegate = delegate;
+        this.fileSystem = fileSystem;
+        this.snapshots = snapshots;
+        this.executor = executorFactory.create("Directory walker", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Starts keeping snapshots of the directories that are walked.
+     */
+    public void enable() {
+        snapshots.beforeUse();
+        enabled = true;
+    }
+
+    /**
+     * Discards the snapshots of the given files, of any directory that contains one of them and of any directory they contain.
+     */
+    public void invalidate(Iterable<File> files) {
+        snapshots.invalidate(files);
+    }
+
+    /**
+     * Discards all snapshots.
+     */
+    public void invalidateAll() {
+        snapshots.invalidateAll();
+    }
+
+    /**
+     * Discards the snapshots of the given files, in the same way as {@link #invalidate(Iterable)}, and neither uses nor keeps any snapshot of them
+     * until the returned changes have finished.
+     */
+    public ChangingFiles startChanges(Iterable<File> files) {
+        return changing(snapshots.startChanges(files));
+    }
+
+    /**
+     * Discards all snapshots, and neither uses nor keeps any snapshot until the returned changes have finished.
+     */
+    public ChangingFiles startChangesToAll() {
+        return changing(snapshots.startChanges(null));
+    }
+
+    private ChangingFiles changing(final DirectorySnapshots.Changes changes) {
+        return new ChangingFiles() {
+            @Override
+            public void finished() {
+                snapshots.finishChanges(changes);
+            }
+        };
+    }
+
+    @Override
+    public void stop() {
+        snapshots.buildFinished();
+        executor.stop();
+    }
+
+    @Override
+    public void walkDir(File file, RelativePath path, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        if (!enabled || snapshots.isChanging(file)) {
+            delegate.walkDir(file, path, visitor, spec, stopFlag, postfix);
+            return;
+        }
+        DirectoryEntry snapshot = snapshots.get(file);
+        if (snapshot == null) {
+            snapshot = snapshot(file);
+        }
+        visit(snapshot, file, path, visitor, spec, stopFlag, postfix);
+    }
+
+    private DirectoryEntry snapshot(File root) {
+        long startGeneration = snapshots.getGeneration();
+        snapshots.beforeWalk(root);
+        DirectoryEntry snapshot = new DirectoryEntry(null, root.getName(), root, root.lastModified());
+        TreeWalk walk = new TreeWalk();
+        walk.walk(snapshot);
+        if (walk.followedLinks) {
+            snapshots.linkFollowed(root);
+        }
+        snapshots.put(root, snapshot, startGeneration);
+        return snapshot;
+    }
+
+    private void visit(DirectoryEntry directory, File dir, RelativePath path, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        if (directory.failure != null) {
+            throw new GradleException(directory.failure);
+        }
+        for (int i = 0; !stopFlag.get() && i < directory.files.length; i++) {
+            FileEntry child = directory.files[i];
+            FileVisitDetails details = new DefaultFileVisitDetails(new File(dir, child.name), path.append(true, child.name), stopFlag, fileSystem, fileSystem, false, child.lastModified, child.length);
+            if (DirectoryFileTree.isAllowed(details, spec)) {
+                visitor.visitFile(details);
+            }
+        }
+        for (int i = 0; !stopFlag.get() && i < directory.directories.length; i++) {
+            DirectoryEntry child = directory.directories[i];
+            File childDir = new File(dir, child.name);
+            FileVisitDetails details = new DefaultFileVisitDetails(childDir, path.append(false, child.name), stopFlag, fileSystem, fileSystem, true, child.lastModified, 0);
+            if (!DirectoryFileTree.isAllowed(details, spec)) {
+                continue;
+            }
+            if (postfix) {
+                visit(child, childDir, details.getRelativePath(), visitor, spec, stopFlag, postfix);
+                visitor.visitDir(details);
+            } else {
+                visitor.visitDir(details);
+                visit(child, childDir, details.getRelativePath(), visitor, spec, stopFlag, postfix);
+            }
+        }
+    }
+
+    /**
+     * Lists each directory of a tree in a separate job. Jobs never wait for each other, so the walk cannot starve the executor.
+     */
+    private class TreeWalk {
+        private final Object walkLock = new Object();
+        private int pending;
+        private Throwable failure;
+        private volatile boolean followedLinks;
+
+        void walk(DirectoryEntry root) {
+            submit(root);
+            synchronized (walkLock) {
+                while (pending > 0) {
+                    try {
+                        walkLock.wait();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                if (failure != null) {
+                    throw UncheckedException.throwAsUncheckedException(failure);
+                }
+            }
+        }
+
+        private void submit(final DirectoryEntry directory) {
+            synchronized (walkLock) {
+                pending++;
+            }
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        list(directory);
+                    } catch (Throwable t) {
+                        synchronized (walkLock) {
+                            if (failure == null) {
+                                failure = t;
+                            }
+                        }
+                    } finally {
+                        synchronized (walkLock) {
+                            pending--;
+                            walkLock.notifyAll();
+                        }
+                    }
+                }
+            });
+        }
+
+        private void list(DirectoryEntry directory) throws IOException {
+            File[] children = directory.file.listFiles();
+            if (children == null) {
+                if (directory.file.isDirectory() && !directory.file.canRead()) {
+                    directory.failure = String.format("Could not list contents of directory '%s' as it is not readable.", directory.file);
+                } else {
+                    // might be a link which points to nothing, or has been removed while we're visiting, or ...
+                    directory.failure = String.format("Could not list contents of '%s'.", directory.file);
+                }
+                directory.files = new FileEntry[0];
+                directory.directories = new DirectoryEntry[0];
+                return;
+            }
+            List<FileEntry> files = new ArrayList<FileEntry>();
+            List<DirectoryEntry> directories = new ArrayList<DirectoryEntry>();
+            for (File child : children) {
+                if (child.isFile()) {
+                    if (snapshots.isLinkToFileFollowed() && fileSystem.isSymlink(child)) {
+                        followedLinks = true;
+                    }
+                    files.add(new FileEntry(child.getName(), child.lastModified(), child.length()));
+                } else if (!fileSystem.isSymlink(child)) {
+                    directories.add(new DirectoryEntry(directory, child.getName(), child, child.lastModified()));
+                } else if (!isLoop(directory, child)) {
+                    followedLinks = true;
+                    directories.add(new DirectoryEntry(directory, child.getName(), child, child.lastModified()));
+                }
+            }
+            // Publish the children before listing them, the walk is complete once the last listing has finished
+            directory.files = files.toArray(new FileEntry[0]);
+            directory.directories = directories.toArray(new DirectoryEntry[0]);
+            for (DirectoryEntry child : directory.directories) {
+                submit(child);
+            }
+        }
+
+        /**
+         * A symbolic link to one of the directories being walked is skipped, in the same way as the JDK 7 walker does.
+         */
+        private boolean isLoop(DirectoryEntry parent, File dir) throws IOException {
+            File target = dir.getCanonicalFile();
+            for (DirectoryEntry ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+                if (ancestor.file.getCanonicalFile().equals(target)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class FileEntry {
+        final String name;
+        final long lastModified;
+        final long length;
+
+        FileEntry(String name, long lastModified, long length) {
+            this.name = name;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A directory in a snapshot. The children are assigned once, when the directory is listed, and never change afterwards.
+     */
+    static class DirectoryEntry {
+        final DirectoryEntry parent;
+        final String name;
+        final File file;
+        final long lastModified;
+        FileEntry[] files;
+        DirectoryEntry[] directories;
+        String failure;
+
+        DirectoryEntry(DirectoryEntry parent, String name, File file, long lastModified) {
+            this.parent = parent;
+            this.name = name;
+            this.file = file;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Files that are being changed.
+     */
+    public interface ChangingFiles {
+        /**
+         * Discards the snapshots of the changed files, and starts keeping snapshots of them again.
+         */
+        void finished();
+    }
+}
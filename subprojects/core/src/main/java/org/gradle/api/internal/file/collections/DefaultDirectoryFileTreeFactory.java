@@ -23,27 +23,42 @@ import java.io.File;
 
 public class DefaultDirectoryFileTreeFactory implements DirectoryFileTreeFactory {
     private final Factory<PatternSet> patternSetFactory;
+    private final Factory<DirectoryWalker> directoryWalkerFactory;
 
     public DefaultDirectoryFileTreeFactory() {
-        this.patternSetFactory = new Factory<PatternSet>() {
+        this(new Factory<PatternSet>() {
             @Override
             public PatternSet create() {
                 return new PatternSet();
             }
-        };
+        });
     }
 
     public DefaultDirectoryFileTreeFactory(Factory<PatternSet> patternSetFactory) {
         this.patternSetFactory = patternSetFactory;
+        this.directoryWalkerFactory = DirectoryFileTree.DEFAULT_DIRECTORY_WALKER_FACTORY;
+    }
+
+    /**
+     * Creates trees that are walked using the given walker.
+     */
+    public DefaultDirectoryFileTreeFactory(Factory<PatternSet> patternSetFactory, final DirectoryWalker directoryWalker) {
+        this.patternSetFactory = patternSetFactory;
+        this.directoryWalkerFactory = new Factory<DirectoryWalker>() {
+            @Override
+            public DirectoryWalker create() {
+                return directoryWalker;
+            }
+        };
     }
 
     @Override
     public DirectoryFileTree create(File directory) {
-        return new DirectoryFileTree(directory, patternSetFactory.create());
+        return new DirectoryFileTree(directory, patternSetFactory.create(), directoryWalkerFactory);
     }
 
     @Override
     public DirectoryFileTree create(File directory, PatternSet patternSet) {
-        return new DirectoryFileTree(directory, patternSet);
+        return new DirectoryFileTree(directory, patternSet, directoryWalkerFactory);
     }
 }
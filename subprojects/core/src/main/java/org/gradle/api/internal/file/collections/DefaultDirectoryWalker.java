@@ -39,7 +39,7 @@ public class DefaultDirectoryWalker implements DirectoryWalker {
 
     @Override
     public void walkDir(File file, RelativePath path, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
-        File[] children = file.listFiles();
+        File[] children = listFiles(file);
         if (children == null) {
             if (file.isDirectory() && !file.canRead()) {
                 throw new GradleException(String.format("Could not list contents of directory '%s' as it is not readable.", file));
@@ -74,4 +74,11 @@ public class DefaultDirectoryWalker implements DirectoryWalker {
             }
         }
     }
+
+    /**
+     * Lists the children of the given directory, in the order they should be visited. Returns null when the directory cannot be listed.
+     */
+    protected File[] listFiles(File dir) {
+        return dir.listFiles();
+    }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.FileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The directory snapshots of a {@link CachingDirectoryWalker}, by root directory. These snapshots are discarded when the build finishes.
+ */
+class DirectorySnapshots {
+    private final ConcurrentMap<File, CachingDirectoryWalker.DirectoryEntry> snapshots = new ConcurrentHashMap<File, CachingDirectoryWalker.DirectoryEntry>();
+    private final Object lock = new Object();
+    // Protected by lock
+    private final List<Changes> changing = new ArrayList<Changes>();
+    private volatile boolean hasChanges;
+    private long generation;
+
+    CachingDirectoryWalker.DirectoryEntry get(File root) {
+        return snapshots.get(root);
+    }
+
+    /**
+     * Returns a counter that changes whenever some snapshots are discarded.
+     */
+    long getGeneration() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    /**
+     * Keeps the snapshot of the given root directory, unless some snapshots have been discarded since the given generation or some of its files are
+     * being changed.
+     */
+    void put(File root, CachingDirectoryWalker.DirectoryEntry snapshot, long startGeneration) {
+        synchronized (lock) {
+            // Don't keep the snapshot when some of the files may have changed while walking
+            if (generation == startGeneration && !isChangingLocked(root)) {
+                snapshots.put(root, snapshot);
+            }
+        }
+    }
+
+    /**
+     * Returns true when some files under the given root directory are being changed, so that its snapshot must be neither used nor kept.
+     */
+    boolean isChanging(File root) {
+        if (!hasChanges) {
+            return false;
+        }
+        synchronized (lock) {
+            return isChangingLocked(root);
+        }
+    }
+
+    private boolean isChangingLocked(File root) {
+        String rootPath = root.getPath();
+        for (Changes changes : changing) {
+            if (changes.paths == null) {
+                return true;
+            }
+            for (String path : changes.paths) {
+                if (isSelfOrAncestor(rootPath, path) || isSelfOrAncestor(path, rootPath)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Discards the snapshots of the given files, or of all files when null, and does not keep any snapshot of them until {@link #finishChanges(Changes)}
+     * is called.
+     */
+    Changes startChanges(@Nullable Iterable<File> files) {
+        List<String> paths = null;
+        if (files != null) {
+            paths = new ArrayList<String>();
+            for (File file : files) {
+                paths.add(FileUtils.canonicalize(file).getPath());
+            }
+        }
+        Changes changes = new Changes(paths);
+        synchronized (lock) {
+            changing.add(changes);
+            hasChanges = true;
+            invalidatePaths(paths);
+        }
+        return changes;
+    }
+
+    /**
+     * Discards the snapshots of the files that were changed, and starts keeping snapshots of them again.
+     */
+    void finishChanges(Changes changes) {
+        synchronized (lock) {
+            if (changing.remove(changes)) {
+                invalidatePaths(changes.paths);
+            }
+            hasChanges = !changing.isEmpty();
+        }
+    }
+
+    /**
+     * Discards the snapshots of the given files, of any directory that contains one of them and of any directory they contain.
+     */
+    void invalidate(Iterable<File> files) {
+        List<String> paths = new ArrayList<String>();
+        for (File file : files) {
+            paths.add(FileUtils.canonicalize(file).getPath());
+        }
+        synchronized (lock) {
+            invalidatePaths(paths);
+        }
+    }
+
+    /**
+     * Discards all snapshots.
+     */
+    void invalidateAll() {
+        synchronized (lock) {
+            invalidatePaths(null);
+        }
+    }
+
+    // Must be holding lock
+    private void invalidatePaths(@Nullable List<String> paths) {
+        generation++;
+        if (paths == null) {
+            snapshots.clear();
+            return;
+        }
+        for (String path : paths) {
+            Iterator<File> iterator = snapshots.keySet().iterator();
+            while (iterator.hasNext()) {
+                String rootPath = iterator.next().getPath();
+                if (isSelfOrAncestor(rootPath, path) || isSelfOrAncestor(path, rootPath)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static boolean isSelfOrAncestor(String ancestor, String path) {
+        return path.startsWith(ancestor) && (path.length() == ancestor.length() || path.charAt(ancestor.length()) == File.separatorChar);
+    }
+
+    /**
+     * Called when the walker starts serving visits from the snapshots.
+     */
+    void beforeUse() {
+    }
+
+    /**
+     * Called before the given root directory is walked.
+     */
+    void beforeWalk(File root) {
+    }
+
+    /**
+     * Returns true when {@link #linkFollowed(File)} should also be called for symbolic links to files.
+     */
+    boolean isLinkToFileFollowed() {
+        return false;
+    }
+
+    /**
+     * Called when the walk of the given root directory has followed a symbolic link.
+     */
+    void linkFollowed(File root) {
+    }
+
+    /**
+     * Called when the build that owns the walker has finished.
+     */
+    void buildFinished() {
+        invalidateAll();
+    }
+
+    /**
+     * Files that are being changed, such as the outputs of a running task.
+     */
+    static class Changes {
+        // Null when any file may be changed
+        private final List<String> paths;
+
+        private Changes(@Nullable List<String> paths) {
+            this.paths = paths;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A {@link DirectoryWalker} that visits the children of each directory ordered by name, so that the order does not depend on the file system.
+ */
+public class ReproducibleDirectoryWalker extends DefaultDirectoryWalker {
+    private static final Comparator<File> FILE_NAME_COMPARATOR = new Comparator<File>() {
+        @Override
+        public int compare(File o1, File o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    public ReproducibleDirectoryWalker(FileSystem fileSystem) {
+        super(fileSystem);
+    }
+
+    @Override
+    protected File[] listFiles(File dir) {
+        File[] children = super.listFiles(dir);
+        if (children != null) {
+            Arrays.sort(children, FILE_NAME_COMPARATOR);
+        }
+        return children;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.api.Action;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.internal.util.SystemPropertiesUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Directory snapshots that are kept for the later builds run by the same process. Each root directory is watched for changes before it is walked,
+ * and its snapshot is discarded as soon as a change is reported under it. All snapshots are discarded when the watcher reports that it may have
+ * missed some changes, or when it fails.
+ *
+ * <p>Changes are reported asynchronously. Before a build uses the snapshots, a marker file is created and then deleted in a private watched
+ * directory, and the changes reported before the deletion are waited for. Snapshots of directories that could not be watched, or whose walk followed a symbolic link,
+ * are only kept until the end of the build.</p>
+ */
+public class WatchedDirectorySnapshots extends DirectorySnapshots implements Stoppable {
+    public static final String RETAIN_SNAPSHOTS_PROPERTY = "org.gradle.retain.directory.snapshots";
+    private static final Logger LOGGER = Logging.getLogger(WatchedDirectorySnapshots.class);
+    private static final long SYNC_TIMEOUT_MILLIS = 5000;
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final Set<File> unwatchedRoots = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+    private final Object syncLock = new Object();
+    private volatile FileWatcher watcher;
+    private File syncDir;
+    private int syncCount;
+    private FileWatcherEvent syncEvent;
+
+    public WatchedDirectorySnapshots(FileWatcherFactory fileWatcherFactory) {
+        this.fileWatcherFactory = fileWatcherFactory;
+    }
+
+    /**
+     * Returns true when the snapshots should be kept for later builds. The JDK only reports changes natively, rather than by polling the file
+     * system, on Linux and Windows.
+     */
+    public static boolean isEnabled() {
+        OperatingSystem os = OperatingSystem.current();
+        return SystemPropertiesUtil.isEnabled(RETAIN_SNAPSHOTS_PROPERTY) && JavaVersion.current().isJava7Compatible() && (os.isLinux() || os.isWindows());
+    }
+
+    @Override
+    void beforeUse() {
+        FileWatcher current = watcher;
+        if (current == null || !current.isRunning()) {
+            // Changes made while nothing was watching are unknown
+            invalidateAll();
+            current = startWatching();
+            if (current == null) {
+                return;
+            }
+        }
+        if (!awaitPendingChanges()) {
+            LOGGER.info("Timed out waiting for file system changes to be reported. Discarding all directory snapshots.");
+            invalidateAll();
+        }
+    }
+
+    private FileWatcher startWatching() {
+        FileWatcher current = fileWatcherFactory.watch(new Action<Throwable>() {
+            @Override
+            public void execute(Throwable throwable) {
+                LOGGER.info("Failed to watch for file system changes. Discarding all directory snapshots.", throwable);
+                invalidateAll();
+            }
+        }, new FileWatcherListener() {
+            @Override
+            public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                WatchedDirectorySnapshots.this.onChange(event);
+            }
+        });
+        try {
+            if (syncDir == null) {
+                syncDir = createSyncDir();
+            }
+            current.watch(FileSystemSubset.builder().add(syncDir, new PatternSet()).build());
+        } catch (IOException e) {
+            LOGGER.info("Could not watch for file system changes. Directory snapshots will not be kept for later builds.", e);
+            current.stop();
+            return null;
+        }
+        watcher = current;
+        return current;
+    }
+
+    private static File createSyncDir() throws IOException {
+        File dir = File.createTempFile("gradle-snapshots", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException(String.format("Could not create directory '%s'.", dir));
+        }
+        return dir;
+    }
+
+    /**
+     * Waits for the creation and then the deletion of a marker file to be reported. The changes that were queued before the creation are reported
+     * before the deletion, even when the private directory already had pending changes or some of those changes were queued while the creation
+     * was being reported.
+     */
+    private boolean awaitPendingChanges() {
+        File marker = new File(syncDir, "sync-" + (++syncCount));
+        long deadline = System.currentTimeMillis() + SYNC_TIMEOUT_MILLIS;
+        try {
+            expect(FileWatcherEvent.create(marker));
+            if (!marker.createNewFile() || !await(deadline)) {
+                return false;
+            }
+            expect(FileWatcherEvent.delete(marker));
+            return marker.delete() && await(deadline);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            marker.delete();
+            expect(null);
+        }
+    }
+
+    private void expect(FileWatcherEvent event) {
+        synchronized (syncLock) {
+            syncEvent = event;
+        }
+    }
+
+    private boolean await(long deadline) {
+        synchronized (syncLock) {
+            while (syncEvent != null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    syncLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            return true;
+        }
+    }
+
+    private void onChange(FileWatcherEvent event) {
+        File file = event.getFile();
+        if (event.getType() == FileWatcherEvent.Type.UNDEFINED || file == null) {
+            invalidateAll();
+            return;
+        }
+        if (syncDir.equals(file.getParentFile())) {
+            synchronized (syncLock) {
+                if (event.equals(syncEvent)) {
+                    syncEvent = null;
+                    syncLock.notifyAll();
+                }
+            }
+            return;
+        }
+        invalidate(Collections.singleton(file));
+    }
+
+    @Override
+    CachingDirectoryWalker.DirectoryEntry get(File root) {
+        CachingDirectoryWalker.DirectoryEntry snapshot = super.get(root);
+        if (snapshot != null && root.lastModified() != snapshot.lastModified) {
+            // The root directory has been replaced, and the new directory is not watched
+            FileWatcher current = watcher;
+            if (current != null) {
+                current.stop();
+            }
+            invalidateAll();
+            return null;
+        }
+        return snapshot;
+    }
+
+    @Override
+    void beforeWalk(File root) {
+        FileWatcher current = watcher;
+        try {
+            if (current != null && current.isRunning() && root.equals(root.getCanonicalFile())) {
+                current.watch(FileSystemSubset.builder().add(root, new PatternSet()).build());
+                unwatchedRoots.remove(root);
+                return;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not watch directory '{}' for changes.", root, e);
+        }
+        unwatchedRoots.add(root);
+    }
+
+    @Override
+    boolean isLinkToFileFollowed() {
+        return true;
+    }
+
+    @Override
+    void linkFollowed(File root) {
+        // Changes to the targets of the links are not reported
+        unwatchedRoots.add(root);
+    }
+
+    @Override
+    void buildFinished() {
+        invalidate(unwatchedRoots);
+        unwatchedRoots.clear();
+    }
+
+    @Override
+    public void stop() {
+        FileWatcher current = watcher;
+        if (current != null) {
+            current.stop();
+        }
+        invalidateAll();
+        if (syncDir != null) {
+            syncDir.delete();
+        }
+    }
+}
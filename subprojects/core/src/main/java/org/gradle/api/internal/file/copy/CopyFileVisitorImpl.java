@@ -18,22 +18,33 @@ package org.gradle.api.internal.file.copy;
 import org.gradle.api.Action;
 import org.gradle.api.file.FileCopyDetails;
 import org.gradle.api.file.FileVisitDetails;
-import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.ReproducibleFileVisitor;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.reflect.Instantiator;
 
-public class CopyFileVisitorImpl implements FileVisitor {
+public class CopyFileVisitorImpl implements ReproducibleFileVisitor {
     private final CopySpecResolver copySpecResolver;
     private final CopyActionProcessingStreamAction action;
     private final Instantiator instantiator;
     private final FileSystem fileSystem;
+    private final boolean reproducibleFileOrder;
 
     public CopyFileVisitorImpl(CopySpecResolver spec, CopyActionProcessingStreamAction action, Instantiator instantiator, FileSystem fileSystem) {
+        this(spec, action, instantiator, fileSystem, false);
+    }
+
+    public CopyFileVisitorImpl(CopySpecResolver spec, CopyActionProcessingStreamAction action, Instantiator instantiator, FileSystem fileSystem, boolean reproducibleFileOrder) {
         this.copySpecResolver = spec;
         this.action = action;
         this.instantiator = instantiator;
         this.fileSystem = fileSystem;
+        this.reproducibleFileOrder = reproducibleFileOrder;
+    }
+
+    @Override
+    public boolean isReproducibleFileOrder() {
+        return reproducibleFileOrder;
     }
 
     public void visitDir(FileVisitDetails dirDetails) {
@@ -200,11 +200,7 @@ public class DefaultCopySpec implements CopySpecInternal {
         if (!patterns.iterator().hasNext()) {
             throw new InvalidUserDataException("must provide at least one pattern to match");
         }
-        List<Spec> matchers = new ArrayList<Spec>();
-        for (String pattern : patterns) {
-            matchers.add(PatternMatcherFactory.getPatternMatcher(true, isCaseSensitive(), pattern));
-        }
-        Spec unionMatcher = Specs.union(matchers.toArray(new Spec[matchers.size()]));
+        Spec<RelativePath> unionMatcher = PatternMatcherFactory.getPatternsMatcher(true, isCaseSensitive(), ImmutableList.copyOf(patterns));
         return eachFile(new MatchingCopyAction(unionMatcher, action));
     }
 
@@ -217,11 +213,7 @@ public class DefaultCopySpec implements CopySpecInternal {
         if (!patterns.iterator().hasNext()) {
             throw new InvalidUserDataException("must provide at least one pattern to not match");
         }
-        List<Spec> matchers = new ArrayList<Spec>();
-        for (String pattern : patterns) {
-            matchers.add(PatternMatcherFactory.getPatternMatcher(true, isCaseSensitive(), pattern));
-        }
-        Spec unionMatcher = Specs.union(matchers.toArray(new Spec[matchers.size()]));
+        Spec<RelativePath> unionMatcher = PatternMatcherFactory.getPatternsMatcher(true, isCaseSensitive(), ImmutableList.copyOf(patterns));
         return eachFile(new MatchingCopyAction(Specs.<RelativePath>negate(unionMatcher), action));
     }
 
@@ -23,12 +23,15 @@ import org.gradle.api.file.DuplicatesStrategy;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
+import org.gradle.api.internal.file.archive.RawZipEntrySource;
+import org.gradle.api.internal.file.archive.RawZipFile;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 
 import java.io.*;
 import java.util.Map;
 
-public class DefaultFileCopyDetails extends AbstractFileTreeElement implements FileVisitDetails, FileCopyDetailsInternal {
+public class DefaultFileCopyDetails extends AbstractFileTreeElement implements FileVisitDetails, FileCopyDetailsInternal, RawZipEntrySource {
     private final FileVisitDetails fileDetails;
     private final CopySpecResolver specResolver;
     private final FilterChain filterChain;
@@ -99,6 +102,21 @@ public class DefaultFileCopyDetails extends AbstractFileTreeElement implements F
         }
     }
 
+    public File getUnfilteredSourceFile() {
+        // Only use files that are already on disk, rather than extract the entries of an archive
+        if (filterChain.hasFilters() || fileDetails.isDirectory() || !(fileDetails instanceof DefaultFileTreeElement)) {
+            return null;
+        }
+        return fileDetails.getFile();
+    }
+
+    public RawZipFile.Entry getRawZipEntry() {
+        if (filterChain.hasFilters() || !(fileDetails instanceof RawZipEntrySource)) {
+            return null;
+        }
+        return ((RawZipEntrySource) fileDetails).getRawZipEntry();
+    }
+
     public boolean copyTo(File target) {
         if (filterChain.hasFilters()) {
             return super.copyTo(target);
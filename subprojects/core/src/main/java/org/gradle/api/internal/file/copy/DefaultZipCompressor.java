@@ -15,34 +15,22 @@
  */
 package org.gradle.api.internal.file.copy;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.tools.zip.Zip64Mode;
-import org.apache.tools.zip.ZipOutputStream;
-import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.file.archive.ZipArchiveWriter;
 
 import java.io.File;
 import java.io.IOException;
 
 public class DefaultZipCompressor implements ZipCompressor {
     private final int entryCompressionMethod;
-    private final Zip64Mode zip64Mode;
+    private final boolean allowZip64Mode;
 
     public DefaultZipCompressor(boolean allowZip64Mode, int entryCompressionMethod) {
         this.entryCompressionMethod = entryCompressionMethod;
-        zip64Mode = allowZip64Mode ? Zip64Mode.AsNeeded : Zip64Mode.Never;
+        this.allowZip64Mode = allowZip64Mode;
     }
 
-    public ZipOutputStream createArchiveOutputStream(File destination) throws IOException {
-        ZipOutputStream outStream = new ZipOutputStream(destination);
-        try {
-            outStream.setUseZip64(zip64Mode);
-            outStream.setMethod(entryCompressionMethod);
-            return outStream;
-        } catch (Exception e) {
-            IOUtils.closeQuietly(outStream);
-            String message = String.format("Unable to create ZIP output stream for file %s.", destination);
-            throw new UncheckedIOException(message, e);
-        }
+    public ZipArchiveWriter createArchiveWriter(File destination, String encoding) throws IOException {
+        return new ZipArchiveWriter(destination, entryCompressionMethod, allowZip64Mode, encoding);
     }
 
 }
@@ -15,33 +15,148 @@
  */
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.file.PathToFileResolver;
 
 import java.io.File;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+/**
+ * Copies files into a destination directory.
+ *
+ * <p>Files that are copied unmodified from a file on disk are copied by the threads of a {@link FileCopyPool}, when one is given. Other files,
+ * such as filtered files and the entries of archives, are copied on the calling thread, while they are visited.</p>
+ *
+ * <p>When told which source files are unchanged since the previous execution, a file copied unmodified from an unchanged source file is not copied
+ * again if its destination file exists and no other file is copied to the same path.</p>
+ */
 public class FileCopyAction implements CopyAction {
 
     private final PathToFileResolver fileResolver;
+    private final FileCopyPool copyPool;
+    private final Spec<? super File> unchangedSourceFiles;
 
     public FileCopyAction(PathToFileResolver fileResolver) {
+        this(fileResolver, null, null);
+    }
+
+    /**
+     * @param copyPool The threads that copy the files, or null to copy them on the calling thread.
+     * @param unchangedSourceFiles The source files that have not changed since the previous execution, or null when all files should be copied.
+     */
+    public FileCopyAction(PathToFileResolver fileResolver, @Nullable FileCopyPool copyPool, @Nullable Spec<? super File> unchangedSourceFiles) {
         this.fileResolver = fileResolver;
+        this.copyPool = copyPool;
+        this.unchangedSourceFiles = unchangedSourceFiles;
     }
 
     public WorkResult execute(CopyActionProcessingStream stream) {
-        FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction();
-        stream.process(action);
+        FileCopyDetailsInternalAction action = copyPool != null
+            ? new FileCopyDetailsInternalAction(copyPool.getExecutor(), copyPool.getMaxCopyThreads())
+            : new FileCopyDetailsInternalAction(null, 1);
+        try {
+            stream.process(action);
+            action.waitForPendingCopies();
+        } finally {
+            // The threads are shared with other copies, so discard the copies that have not started when this one fails
+            action.cancelPendingCopies();
+        }
         return new SimpleWorkResult(action.didWork);
     }
 
     private class FileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
+        private final ExecutorService executor;
+        private final int maxPendingCopies;
+        private final Queue<Future<Boolean>> pendingCopies = new LinkedList<Future<Boolean>>();
+        private final Set<File> pendingTargets = new HashSet<File>();
+        private final Set<File> visitedTargets = new HashSet<File>();
         private boolean didWork;
 
-        public void processFile(FileCopyDetailsInternal details) {
-            File target = fileResolver.resolve(details.getRelativePath().getPathString());
-            boolean copied = details.copyTo(target);
+        FileCopyDetailsInternalAction(@Nullable ExecutorService executor, int maxCopyThreads) {
+            this.executor = executor;
+            this.maxPendingCopies = 4 * maxCopyThreads;
+        }
+
+        public void processFile(final FileCopyDetailsInternal details) {
+            final File target = fileResolver.resolve(details.getRelativePath().getPathString());
+            File sourceFile = details.isDirectory() ? null : details.getUnfilteredSourceFile();
+            boolean firstVisit = visitedTargets.add(target);
+            if (sourceFile != null && firstVisit && isUnchanged(sourceFile, target)) {
+                return;
+            }
+            if (sourceFile == null || executor == null) {
+                if (pendingTargets.contains(target)) {
+                    // A later file with the same path replaces the earlier one
+                    waitForPendingCopies();
+                }
+                copied(details.copyTo(target));
+                return;
+            }
+
+            if (!pendingTargets.add(target)) {
+                waitForPendingCopies();
+                pendingTargets.add(target);
+            }
+            pendingCopies.add(executor.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    return details.copyTo(target);
+                }
+            }));
+            while (pendingCopies.size() > maxPendingCopies) {
+                waitForNextPendingCopy();
+            }
+        }
+
+        /**
+         * A file does not need to be copied again when its source file is unchanged and its destination file still exists. The destination file
+         * has not been changed since the previous execution either, otherwise the source files would not be known to be unchanged. A file is always
+         * copied when another file with the same path has already been visited during this execution, and all files are copied when a source file
+         * has been removed, as the destination file may hold the content of another source file.
+         */
+        private boolean isUnchanged(File sourceFile, File target) {
+            return unchangedSourceFiles != null
+                && unchangedSourceFiles.isSatisfiedBy(sourceFile)
+                && target.isFile();
+        }
+
+        void waitForPendingCopies() {
+            while (!pendingCopies.isEmpty()) {
+                waitForNextPendingCopy();
+            }
+            pendingTargets.clear();
+        }
+
+        void cancelPendingCopies() {
+            for (Future<Boolean> copy : pendingCopies) {
+                copy.cancel(false);
+            }
+            pendingCopies.clear();
+        }
+
+        private void waitForNextPendingCopy() {
+            Future<Boolean> copy = pendingCopies.remove();
+            try {
+                copied(copy.get());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+        }
+
+        private void copied(boolean copied) {
             if (copied) {
                 didWork = true;
             }
@@ -16,10 +16,19 @@
 
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCopyDetails;
 
+import java.io.File;
+
 public interface FileCopyDetailsInternal extends FileCopyDetails {
 
     boolean isIncludeEmptyDirs();
 
+    /**
+     * Returns the source file whose content is copied unmodified by this element, or null when the content is filtered or does not come from a source file.
+     */
+    @Nullable
+    File getUnfilteredSourceFile();
+
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The threads used to copy files into a destination directory, shared by all the copies made by a build, so that the number of files copied
+ * concurrently stays bounded when several copy tasks run in parallel.
+ */
+public class FileCopyPool implements Stoppable {
+    private final StoppableExecutor executor;
+    private final int maxCopyThreads;
+
+    /**
+     * @param executorFactory The factory for the copy threads, or null to copy the files on the calling thread.
+     * @param maxCopyThreads The maximum number of files to copy concurrently. Files are copied on the calling thread when this is 1.
+     */
+    public FileCopyPool(@Nullable ExecutorFactory executorFactory, int maxCopyThreads) {
+        this.executor = executorFactory != null && maxCopyThreads > 1 ? executorFactory.create("File copy", maxCopyThreads) : null;
+        this.maxCopyThreads = executor != null ? maxCopyThreads : 1;
+    }
+
+    int getMaxCopyThreads() {
+        return maxCopyThreads;
+    }
+
+    /**
+     * Returns the executor that copies the files, or null when they should be copied on the calling thread.
+     */
+    @Nullable
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+}
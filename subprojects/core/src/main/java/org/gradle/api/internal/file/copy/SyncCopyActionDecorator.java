@@ -20,7 +20,8 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
-import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
+import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.MinimalFileTree;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
 import org.gradle.api.specs.Spec;
@@ -33,19 +34,31 @@ import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Deletes the files of the destination directory that were not copied, after the copy.
+ *
+ * <p>The destination directory is visited using the given directory tree factory. The build scoped factory does not serve snapshots of the outputs of
+ * the task that is running, so the destination directory is always walked again, after the files have been copied.</p>
+ */
 public class SyncCopyActionDecorator implements CopyAction {
     private final File baseDestDir;
     private final CopyAction delegate;
     private final PatternFilterable preserveSpec;
+    private final DirectoryFileTreeFactory directoryFileTreeFactory;
 
     public SyncCopyActionDecorator(File baseDestDir, CopyAction delegate) {
         this(baseDestDir, delegate, null);
     }
 
     public SyncCopyActionDecorator(File baseDestDir, CopyAction delegate, PatternFilterable preserveSpec) {
+        this(baseDestDir, delegate, preserveSpec, new DefaultDirectoryFileTreeFactory());
+    }
+
+    public SyncCopyActionDecorator(File baseDestDir, CopyAction delegate, PatternFilterable preserveSpec, DirectoryFileTreeFactory directoryFileTreeFactory) {
         this.baseDestDir = baseDestDir;
         this.delegate = delegate;
         this.preserveSpec = preserveSpec;
+        this.directoryFileTreeFactory = directoryFileTreeFactory;
     }
 
     public WorkResult execute(final CopyActionProcessingStream stream) {
@@ -64,7 +77,7 @@ public class SyncCopyActionDecorator implements CopyAction {
 
         SyncCopyActionDecoratorFileVisitor fileVisitor = new SyncCopyActionDecoratorFileVisitor(visited, preserveSpec);
 
-        MinimalFileTree walker = new DirectoryFileTree(baseDestDir).postfix();
+        MinimalFileTree walker = directoryFileTreeFactory.create(baseDestDir).postfix();
         walker.visit(fileVisitor);
         visited.clear();
 
@@ -15,14 +15,14 @@
  */
 package org.gradle.api.internal.file.copy;
 
-import org.apache.tools.zip.ZipOutputStream;
-import org.gradle.api.internal.file.archive.compression.ArchiveOutputStreamFactory;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.file.archive.ZipArchiveWriter;
 
 import java.io.File;
 import java.io.IOException;
 
-public interface ZipCompressor extends ArchiveOutputStreamFactory {
+public interface ZipCompressor {
 
-    ZipOutputStream createArchiveOutputStream(File destination) throws IOException;
+    ZipArchiveWriter createArchiveWriter(File destination, @Nullable String encoding) throws IOException;
 
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.pattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches paths against a set of patterns at once. The patterns are merged into a trie of path segments, so that patterns sharing a leading path
+ * share the steps that match it, and literal segments are looked up by name rather than tested one pattern at a time. A path is rejected as soon
+ * as no pattern can match its leading segments, which also lets a directory walk skip a subtree that cannot contain any match.
+ *
+ * <p>Matching has the same semantics as the union of the {@link PathMatcher}s created by {@link PatternMatcherFactory} for the individual patterns.</p>
+ */
+public class PathMatcherTrie {
+    private final Node root;
+    private final boolean hasNonEmptyPattern;
+
+    private PathMatcherTrie(Node root, boolean hasNonEmptyPattern) {
+        this.root = root;
+        this.hasNonEmptyPattern = hasNonEmptyPattern;
+    }
+
+    public static PathMatcherTrie compile(Collection<String> patterns, boolean caseSensitive) {
+        Node root = new Node(false);
+        boolean hasNonEmptyPattern = false;
+        for (String pattern : patterns) {
+            String[] parts = PatternMatcherFactory.split(pattern);
+            hasNonEmptyPattern |= parts.length > 0;
+            Node node = root;
+            for (String part : parts) {
+                if (part.equals("**")) {
+                    node = node.greedy ? node : node.greedyChild();
+                } else {
+                    node = node.child(part, caseSensitive);
+                }
+            }
+            node.terminal = true;
+        }
+        return new PathMatcherTrie(root, hasNonEmptyPattern);
+    }
+
+    /**
+     * Returns true if the given path matches any of the patterns.
+     */
+    public boolean matches(String[] segments) {
+        return matches(root, segments, 0);
+    }
+
+    /**
+     * Returns true if the given path is a prefix of some path that could match any of the patterns, in the same way as {@link PathMatcher#isPrefix(String[], int)}.
+     */
+    public boolean isPrefix(String[] segments) {
+        if (segments.length == 0) {
+            return hasNonEmptyPattern;
+        }
+        return isPrefix(root, segments, 0);
+    }
+
+    private static boolean matches(Node node, String[] segments, int index) {
+        if (index == segments.length) {
+            return node.terminal || (node.greedyChild != null && node.greedyChild.terminal);
+        }
+        String segment = segments[index];
+        if (node.literalChildren != null) {
+            Node child = node.literalChildren.get(segment);
+            if (child != null && matches(child, segments, index + 1)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < node.steps.size(); i++) {
+            if (node.steps.get(i).matches(segment) && matches(node.stepChildren.get(i), segments, index + 1)) {
+                return true;
+            }
+        }
+        if (node.greedyChild != null && matches(node.greedyChild, segments, index)) {
+            return true;
+        }
+        return node.greedy && matches(node, segments, index + 1);
+    }
+
+    private static boolean isPrefix(Node node, String[] segments, int index) {
+        if (index == segments.length || node.greedy) {
+            return true;
+        }
+        String segment = segments[index];
+        if (node.literalChildren != null) {
+            Node child = node.literalChildren.get(segment);
+            if (child != null && isPrefix(child, segments, index + 1)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < node.steps.size(); i++) {
+            if (node.steps.get(i).matches(segment) && isPrefix(node.stepChildren.get(i), segments, index + 1)) {
+                return true;
+            }
+        }
+        return node.greedyChild != null;
+    }
+
+    private static class Node {
+        /**
+         * Whether this node matches any number of segments before moving on to its children, ie it follows a '**'.
+         */
+        final boolean greedy;
+        boolean terminal;
+        Map<String, Node> literalChildren;
+        final List<String> stepSources = new ArrayList<String>(0);
+        final List<PatternStep> steps = new ArrayList<PatternStep>(0);
+        final List<Node> stepChildren = new ArrayList<Node>(0);
+        Node greedyChild;
+
+        Node(boolean greedy) {
+            this.greedy = greedy;
+        }
+
+        Node greedyChild() {
+            if (greedyChild == null) {
+                greedyChild = new Node(true);
+            }
+            return greedyChild;
+        }
+
+        Node child(String part, boolean caseSensitive) {
+            if (caseSensitive && part.indexOf('*') < 0 && part.indexOf('?') < 0) {
+                if (literalChildren == null) {
+                    literalChildren = new HashMap<String, Node>();
+                }
+                Node child = literalChildren.get(part);
+                if (child == null) {
+                    child = new Node(false);
+                    literalChildren.put(part, child);
+                }
+                return child;
+            }
+            int index = stepSources.indexOf(part);
+            if (index >= 0) {
+                return stepChildren.get(index);
+            }
+            Node child = new Node(false);
+            stepSources.add(part);
+            steps.add(PatternStepFactory.getStep(part, caseSensitive));
+            stepChildren.add(child);
+            return child;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.api.file.RelativePath;
 import org.gradle.api.specs.Spec;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class PatternMatcherFactory {
@@ -32,17 +33,33 @@ public class PatternMatcherFactory {
         return new PathMatcherBackedSpec(partialMatchDirs, pathMatcher);
     }
 
-    private static PathMatcher compile(boolean caseSensitive, String pattern) {
-        if (pattern.length() == 0) {
+    /**
+     * Creates a spec that is satisfied by a path that matches any of the given patterns. The patterns are compiled into a single {@link PathMatcherTrie},
+     * so that each path is evaluated in one pass rather than once per pattern.
+     */
+    public static Spec<RelativePath> getPatternsMatcher(boolean partialMatchDirs, boolean caseSensitive, Collection<String> patterns) {
+        PathMatcherTrie trie = PathMatcherTrie.compile(patterns, caseSensitive);
+        return new PathMatcherTrieBackedSpec(partialMatchDirs, trie);
+    }
+
+    static PathMatcher compile(boolean caseSensitive, String pattern) {
+        String[] parts = split(pattern);
+        if (parts.length == 0) {
             return END_OF_PATH_MATCHER;
         }
+        return compile(parts, 0, caseSensitive);
+    }
+
+    static String[] split(String pattern) {
+        if (pattern.length() == 0) {
+            return new String[0];
+        }
 
         // trailing / or \ assumes **
         if (pattern.endsWith("/") || pattern.endsWith("\\")) {
             pattern = pattern + "**";
         }
-        String[] parts = StringUtils.split(pattern, PATH_SEPARATORS);
-        return compile(parts, 0, caseSensitive);
+        return StringUtils.split(pattern, PATH_SEPARATORS);
     }
 
     private static PathMatcher compile(String[] parts, int startIndex, boolean caseSensitive) {
@@ -81,4 +98,22 @@ public class PatternMatcherFactory {
             }
         }
     }
+
+    private static class PathMatcherTrieBackedSpec implements Spec<RelativePath> {
+        private final boolean partialMatchDirs;
+        private final PathMatcherTrie trie;
+
+        public PathMatcherTrieBackedSpec(boolean partialMatchDirs, PathMatcherTrie trie) {
+            this.partialMatchDirs = partialMatchDirs;
+            this.trie = trie;
+        }
+
+        public boolean isSatisfiedBy(RelativePath element) {
+            if (element.isFile() || !partialMatchDirs) {
+                return trie.matches(element.getSegments());
+            } else {
+                return trie.isPrefix(element.getSegments());
+            }
+        }
+    }
 }
@@ -19,14 +19,17 @@ package org.gradle.api.internal.initialization.loadercache;
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
 import org.gradle.api.Nullable;
-import org.gradle.internal.classloader.ClassLoaderFactory;
 import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classloader.ClassPathIndex;
 import org.gradle.internal.classloader.ClassPathSnapshot;
 import org.gradle.internal.classloader.ClassPathSnapshotter;
 import org.gradle.internal.classloader.FilteringClassLoader;
+import org.gradle.internal.classloader.HashingClassLoaderFactory;
+import org.gradle.internal.classloader.IndexedURLClassLoader;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.Stoppable;
 
@@ -41,10 +44,12 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable {
     private final Object lock = new Object();
     private final Map<ClassLoaderId, CachedClassLoader> byId = Maps.newHashMap();
     private final Map<ClassLoaderSpec, CachedClassLoader> bySpec = Maps.newHashMap();
+    // Shared by the class loaders for the same classpath, so that the index is built once for all parents
+    private final Map<ClassPathSnapshot, ClassPathIndex> indexes = new MapMaker().weakValues().makeMap();
     private final ClassPathSnapshotter snapshotter;
-    private final ClassLoaderFactory classLoaderFactory;
+    private final HashingClassLoaderFactory classLoaderFactory;
 
-    public DefaultClassLoaderCache(ClassLoaderFactory classLoaderFactory, ClassPathSnapshotter snapshotter) {
+    public DefaultClassLoaderCache(HashingClassLoaderFactory classLoaderFactory, ClassPathSnapshotter snapshotter) {
         this.classLoaderFactory = classLoaderFactory;
         this.snapshotter = snapshotter;
     }
@@ -89,7 +94,7 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable {
                 parentCachedLoader = getAndRetainLoader(classPath, spec.unfiltered(), id);
                 classLoader = classLoaderFactory.createFilteringClassLoader(parentCachedLoader.classLoader, spec.filterSpec);
             } else {
-                classLoader = classLoaderFactory.createClassLoader(spec.parent, classPath);
+                classLoader = classLoaderFactory.createCustomClassLoader(spec.parent, classPath, new IndexedClassLoaderFactory(indexFor(spec.classPathSnapshot, classPath)));
             }
             cachedLoader = new CachedClassLoader(classLoader, spec, parentCachedLoader);
             bySpec.put(spec, cachedLoader);
@@ -98,6 +103,15 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable {
         return cachedLoader.retain(id);
     }
 
+    private ClassPathIndex indexFor(ClassPathSnapshot classPathSnapshot, ClassPath classPath) {
+        ClassPathIndex index = indexes.get(classPathSnapshot);
+        if (index == null) {
+            index = ClassPathIndex.of(classPath);
+            indexes.put(classPathSnapshot, index);
+        }
+        return index;
+    }
+
     @Override
     public int size() {
         synchronized (lock) {
@@ -113,6 +127,7 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable {
             }
             byId.clear();
             bySpec.clear();
+            indexes.clear();
         }
     }
 
@@ -169,6 +184,19 @@ public class DefaultClassLoaderCache implements ClassLoaderCache, Stoppable {
         }
     }
 
+    private static class IndexedClassLoaderFactory implements HashingClassLoaderFactory.CustomClassLoaderFactory {
+        private final ClassPathIndex index;
+
+        IndexedClassLoaderFactory(ClassPathIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public ClassLoader create(ClassLoader parent, ClassPath classPath) {
+            return new IndexedURLClassLoader(parent, classPath, index);
+        }
+    }
+
     private static class ClassLoaderSpec {
         private final ClassLoader parent;
         private final ClassPathSnapshot classPathSnapshot;
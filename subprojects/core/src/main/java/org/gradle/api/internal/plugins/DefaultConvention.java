@@ -143,18 +143,37 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
     }
     
     private class ExtensionsDynamicObject extends AbstractDynamicObject {
+        private PluginDynamicObjects pluginDynamicObjects = new PluginDynamicObjects(new Object[0], new BeanDynamicObject[0]);
+
         @Override
         public String getDisplayName() {
             return "extensions";
         }
 
+        /**
+         * Returns the dynamic objects for the convention objects, reusing them while the set of convention objects does not change.
+         */
+        private BeanDynamicObject[] getPluginDynamicObjects() {
+            PluginDynamicObjects current = pluginDynamicObjects;
+            if (!current.isFor(plugins.values())) {
+                Object[] objects = plugins.values().toArray();
+                BeanDynamicObject[] dynamicObjects = new BeanDynamicObject[objects.length];
+                for (int i = 0; i < objects.length; i++) {
+                    dynamicObjects[i] = new BeanDynamicObject(objects[i]).withNotImplementsMissing();
+                }
+                current = new PluginDynamicObjects(objects, dynamicObjects);
+                pluginDynamicObjects = current;
+            }
+            return current.dynamicObjects;
+        }
+
         @Override
         public boolean hasProperty(String name) {
             if (extensionsStorage.hasExtension(name)) {
                 return true;
             }
-            for (Object object : plugins.values()) {
-                if (new BeanDynamicObject(object).hasProperty(name)) {
+            for (BeanDynamicObject dynamicObject : getPluginDynamicObjects()) {
+                if (dynamicObject.hasProperty(name)) {
                     return true;
                 }
             }
@@ -180,8 +199,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
                 result.result(extension);
                 return;
             }
-            for (Object object : plugins.values()) {
-                DynamicObject dynamicObject = new BeanDynamicObject(object).withNotImplementsMissing();
+            for (BeanDynamicObject dynamicObject : getPluginDynamicObjects()) {
                 dynamicObject.getProperty(name, result);
                 if (result.isFound()) {
                     return;
@@ -196,8 +214,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
         @Override
         public void setProperty(String name, Object value, SetPropertyResult result) {
             extensionsStorage.checkExtensionIsNotReassigned(name);
-            for (Object object : plugins.values()) {
-                BeanDynamicObject dynamicObject = new BeanDynamicObject(object).withNotImplementsMissing();
+            for (BeanDynamicObject dynamicObject : getPluginDynamicObjects()) {
                 dynamicObject.setProperty(name, value, result);
                 if (result.isFound()) {
                     return;
@@ -215,8 +232,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
                 result.result(extensionsStorage.configureExtension(name, args));
                 return;
             }
-            for (Object object : plugins.values()) {
-                BeanDynamicObject dynamicObject = new BeanDynamicObject(object).withNotImplementsMissing();
+            for (BeanDynamicObject dynamicObject : getPluginDynamicObjects()) {
                 dynamicObject.invokeMethod(name, result, args);
                 if (result.isFound()) {
                     return;
@@ -233,8 +249,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
             if (extensionsStorage.isConfigureExtensionMethod(name, args)) {
                 return true;
             }
-            for (Object object : plugins.values()) {
-                BeanDynamicObject dynamicObject = new BeanDynamicObject(object);
+            for (BeanDynamicObject dynamicObject : getPluginDynamicObjects()) {
                 if (dynamicObject.hasMethod(name, args)) {
                     return true;
                 }
@@ -242,4 +257,27 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
             return false;
         }
     }
-}
\ No newline at end of file
+
+    private static class PluginDynamicObjects {
+        private final Object[] objects;
+        private final BeanDynamicObject[] dynamicObjects;
+
+        PluginDynamicObjects(Object[] objects, BeanDynamicObject[] dynamicObjects) {
+            this.objects = objects;
+            this.dynamicObjects = dynamicObjects;
+        }
+
+        boolean isFor(Collection<Object> currentObjects) {
+            if (currentObjects.size() != objects.length) {
+                return false;
+            }
+            int i = 0;
+            for (Object object : currentObjects) {
+                if (object != objects[i++]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -525,7 +525,43 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         if (!isTrue(path)) {
             throw new InvalidUserDataException("A path must be specified!");
         }
-        return getProjectRegistry().getProject(absoluteProjectPath(path));
+        ProjectInternal project = getProjectRegistry().getProject(absoluteProjectPath(path));
+        if (project != null && isConfiguringInParallel()) {
+            evaluateBeforeAccess(project);
+        }
+        return project;
+    }
+
+    private boolean isConfiguringInParallel() {
+        return getGradle().getStartParameter().isParallelProjectConfigurationEnabled() && getRootProject().getState().getExecuted();
+    }
+
+    /**
+     * Configures the given project and its ancestors before the project is accessed, when projects are configured in parallel. This means that a project
+     * sees the configured state of the other projects it accesses, rather than a partially configured state. A project is not configured when it is
+     * accessed from one of its ancestors, as ancestors commonly configure their descendants before the descendant's build script runs.
+     */
+    private void evaluateBeforeAccess(ProjectInternal target) {
+        if (target.getState().getExecuted() || (getParent() != null && isSelfOrAncestorOf(target))) {
+            return;
+        }
+        if (target.getParent() != null) {
+            evaluateBeforeAccess(target.getParent());
+        }
+        try {
+            getProjectEvaluator().evaluate(target, target.getState());
+        } catch (CircularReferenceException e) {
+            // The projects access each other, so use the project as it is
+        }
+    }
+
+    private boolean isSelfOrAncestorOf(ProjectInternal target) {
+        for (ProjectInternal current = target; current != null; current = current.getParent()) {
+            if (current == this) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public Set<Project> getAllprojects() {
@@ -638,7 +674,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
-        if (projectToEvaluate.getState().getExecuting()) {
+        if (projectToEvaluate.getState().isExecutingInCurrentThread()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
         }
@@ -16,6 +16,9 @@
 package org.gradle.api.internal.project.taskfactory;
 
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyContentNormalization;
+import org.gradle.api.internal.tasks.TaskInputFilePropertyBuilderInternal;
+import org.gradle.api.tasks.CompileClasspath;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.OrderSensitive;
 import org.gradle.api.tasks.SkipWhenEmpty;
@@ -33,7 +36,8 @@ public class InputFilesPropertyAnnotationHandler implements PropertyAnnotationHa
     public boolean attachActions(final TaskPropertyActionContext context) {
         context.setConfigureAction(new UpdateAction() {
             public void update(TaskInternal task, Callable<Object> futureValue) {
-                task.getInputs().files(futureValue)
+                TaskInputFilePropertyBuilderInternal builder = (TaskInputFilePropertyBuilderInternal) task.getInputs().files(futureValue);
+                builder.withContentNormalization(context.isAnnotationPresent(CompileClasspath.class) ? TaskFilePropertyContentNormalization.COMPILE_CLASSPATH : TaskFilePropertyContentNormalization.NONE)
                     .withPropertyName(context.getName())
                     .skipWhenEmpty(context.isAnnotationPresent(SkipWhenEmpty.class))
                     .orderSensitive(context.isAnnotationPresent(OrderSensitive.class))
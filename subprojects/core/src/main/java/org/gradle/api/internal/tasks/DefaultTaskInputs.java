@@ -21,6 +21,7 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskInputsInternal;
 import org.gradle.api.internal.changedetection.state.PathSensitivity;
 import org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareType;
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyContentNormalization;
 import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType;
 import org.gradle.api.internal.file.CompositeFileCollection;
 import org.gradle.api.internal.file.FileResolver;
@@ -214,13 +215,14 @@ public class DefaultTaskInputs implements TaskInputsInternal {
         return this;
     }
 
-    private class PropertySpec extends AbstractTaskPropertyBuilder implements TaskInputFilePropertySpec, TaskInputFilePropertyBuilder {
+    private class PropertySpec extends AbstractTaskPropertyBuilder implements TaskInputFilePropertySpec, TaskInputFilePropertyBuilderInternal {
 
         private final TaskPropertyFileCollection files;
         private boolean skipWhenEmpty;
         private boolean optional;
         private TaskFilePropertyCompareType compareType = UNORDERED;
         private TaskFilePropertyPathSensitivityType pathSensitivity = ABSOLUTE;
+        private TaskFilePropertyContentNormalization contentNormalization = TaskFilePropertyContentNormalization.NONE;
 
         public PropertySpec(String taskName, boolean skipWhenEmpty, FileResolver resolver, Object paths) {
             this.files = new TaskPropertyFileCollection(taskName, "input", this, resolver, paths);
@@ -295,6 +297,17 @@ public class DefaultTaskInputs implements TaskInputsInternal {
             return this;
         }
 
+        @Override
+        public TaskFilePropertyContentNormalization getContentNormalization() {
+            return contentNormalization;
+        }
+
+        @Override
+        public TaskInputFilePropertyBuilderInternal withContentNormalization(TaskFilePropertyContentNormalization contentNormalization) {
+            this.contentNormalization = contentNormalization;
+            return this;
+        }
+
         // --- Deprecated delegate methods
 
         private TaskInputs getTaskInputs(String method) {
@@ -16,5 +16,8 @@
 
 package org.gradle.api.internal.tasks;
 
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyContentNormalization;
+
 public interface TaskInputFilePropertySpec extends TaskFilePropertySpec {
+    TaskFilePropertyContentNormalization getContentNormalization();
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.file.collections.CachingDirectoryWalker;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+
+/**
+ * A {@link TaskExecuter} which discards the directory snapshots that may be changed by a task, before and after the task executes. While the task
+ * executes, its outputs are walked again on every visit, so that the task sees the files it creates and deletes. Only the snapshots of the declared
+ * outputs are affected. All snapshots are affected for a task that does not declare any outputs, as it may change any file.
+ */
+public class InvalidateDirectorySnapshotsTaskExecuter implements TaskExecuter {
+    private final CachingDirectoryWalker directoryWalker;
+    private final TaskExecuter executer;
+
+    public InvalidateDirectorySnapshotsTaskExecuter(CachingDirectoryWalker directoryWalker, TaskExecuter executer) {
+        this.directoryWalker = directoryWalker;
+        this.executer = executer;
+    }
+
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        TaskOutputsInternal outputs = task.getOutputs();
+        CachingDirectoryWalker.ChangingFiles changes = outputs.getHasOutput() ? directoryWalker.startChanges(outputs.getFiles()) : directoryWalker.startChangesToAll();
+        try {
+            executer.execute(task, state, context);
+        } finally {
+            changes.finished();
+        }
+    }
+}
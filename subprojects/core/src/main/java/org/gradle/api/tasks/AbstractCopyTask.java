@@ -17,6 +17,8 @@ package org.gradle.api.tasks;
 
 import groovy.lang.Closure;
 import org.gradle.api.Action;
+import org.gradle.api.Incubating;
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.file.CopySpec;
 import org.gradle.api.file.DuplicatesStrategy;
@@ -34,13 +36,18 @@ import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.CopySpecSource;
 import org.gradle.api.internal.file.copy.DefaultCopySpec;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.api.tasks.incremental.InputFileDetails;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 import org.gradle.internal.reflect.Instantiator;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.io.FilterReader;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 /**
@@ -50,6 +57,7 @@ public abstract class AbstractCopyTask extends ConventionTask implements CopySpe
 
     private final CopySpecInternal rootSpec;
     private final CopySpecInternal mainSpec;
+    private Spec<File> unchangedSourceFiles;
 
     protected AbstractCopyTask() {
         this.rootSpec = createRootSpec();
@@ -86,15 +94,76 @@ public abstract class AbstractCopyTask extends ConventionTask implements CopySpe
 
     @TaskAction
     protected void copy() {
-        Instantiator instantiator = getInstantiator();
-        FileSystem fileSystem = getFileSystem();
-
-        CopyActionExecuter copyActionExecuter = new CopyActionExecuter(instantiator, fileSystem);
+        CopyActionExecuter copyActionExecuter = createCopyActionExecuter();
         CopyAction copyAction = createCopyAction();
         WorkResult didWork = copyActionExecuter.execute(rootSpec, copyAction);
         setDidWork(didWork.getDidWork());
     }
 
+    /**
+     * Copies the files, making the source files that have not changed since the previous execution of this task available from
+     * {@link #getUnchangedSourceFiles()} while the copy action is created. A subclass whose copy action can make use of this information declares
+     * this method as its task action, which then replaces {@link #copy()}.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    protected void copy(IncrementalTaskInputs inputs) {
+        unchangedSourceFiles = inputs.isIncremental() ? unchangedSourceFiles(inputs) : null;
+        try {
+            copy();
+        } finally {
+            unchangedSourceFiles = null;
+        }
+    }
+
+    @Nullable
+    private static Spec<File> unchangedSourceFiles(IncrementalTaskInputs inputs) {
+        final Set<File> changedFiles = new HashSet<File>();
+        inputs.outOfDate(new Action<InputFileDetails>() {
+            @Override
+            public void execute(InputFileDetails details) {
+                changedFiles.add(details.getFile());
+            }
+        });
+        final AtomicBoolean removedFiles = new AtomicBoolean();
+        inputs.removed(new Action<InputFileDetails>() {
+            @Override
+            public void execute(InputFileDetails details) {
+                removedFiles.set(true);
+            }
+        });
+        if (removedFiles.get()) {
+            // A removed file may have been copied to the same path as an unchanged file, so copy everything
+            return null;
+        }
+        return new Spec<File>() {
+            @Override
+            public boolean isSatisfiedBy(File file) {
+                return !changedFiles.contains(file);
+            }
+        };
+    }
+
+    /**
+     * Returns the source files that have not changed since the previous execution of this task. Returns null when this is not known, or when
+     * some source files have been removed, in which case all files should be copied.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @Internal
+    @Nullable
+    protected Spec<File> getUnchangedSourceFiles() {
+        return unchangedSourceFiles;
+    }
+
+    protected CopyActionExecuter createCopyActionExecuter() {
+        Instantiator instantiator = getInstantiator();
+        FileSystem fileSystem = getFileSystem();
+        return new CopyActionExecuter(instantiator, fileSystem);
+    }
+
     /**
      * Returns the source files for this task.
      * @return The source files. Never returns null.
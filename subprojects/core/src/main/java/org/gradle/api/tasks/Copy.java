@@ -16,12 +16,15 @@
 
 package org.gradle.api.tasks;
 
+import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.FileCopyPool;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.reflect.Instantiator;
 
 import java.io.File;
@@ -76,7 +79,25 @@ public class Copy extends AbstractCopyTask {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir));
+        return createFileCopyAction(destinationDir);
+    }
+
+    private FileCopyAction createFileCopyAction(File destinationDir) {
+        FileCopyPool copyPool = getServices().get(FileCopyPool.class);
+        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir), copyPool, getUnchangedSourceFiles());
+    }
+
+    /**
+     * Copies the files. When only some of the source files have changed since the previous execution of this task, the files copied unmodified
+     * from the unchanged source files are not copied again.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @TaskAction
+    @Override
+    protected void copy(IncrementalTaskInputs inputs) {
+        super.copy(inputs);
     }
 
     @Override
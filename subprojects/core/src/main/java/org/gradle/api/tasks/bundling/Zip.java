@@ -19,6 +19,7 @@ import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.archive.ZipCompressionPool;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.DefaultZipCompressor;
@@ -26,6 +27,8 @@ import org.gradle.api.internal.file.copy.ZipCompressor;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 
 import java.nio.charset.Charset;
 
@@ -57,10 +60,25 @@ public class Zip extends AbstractArchiveTask {
         }
     }
 
+    /**
+     * Creates the archive. When only some of the source files have changed since the archive was last created, the compressed content of the
+     * entries for the unchanged files is copied from the previous archive. The archive is otherwise written from scratch, so the result is the
+     * same as when all entries are compressed again.
+     *
+     * @since 3.2
+     */
+    @Incubating
+    @TaskAction
+    @Override
+    protected void copy(IncrementalTaskInputs inputs) {
+        super.copy(inputs);
+    }
+
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
-        return new ZipCopyAction(getArchivePath(), getCompressor(), documentationRegistry, metadataCharset);
+        ZipCompressionPool compressionPool = getServices().get(ZipCompressionPool.class);
+        return new ZipCopyAction(getArchivePath(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps(), compressionPool, getUnchangedSourceFiles());
     }
 
     /**
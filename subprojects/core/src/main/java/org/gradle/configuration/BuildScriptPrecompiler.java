@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.configuration;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.groovy.scripts.CachingScriptSource;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.CompileOperation;
+import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.internal.Actions;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles the build scripts of the projects of a build into the script cache before the projects are configured, using the build operation worker pool.
+ * Configuration then loads the compiled scripts from the cache, rather than compiling them one after the other.
+ *
+ * <p>Precompilation is an optimization only. A script that cannot be precompiled, or that is precompiled against a different class loader than the one
+ * used when the project is configured, is compiled on first use as usual, which also reports any compilation failure.</p>
+ */
+public class BuildScriptPrecompiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildScriptPrecompiler.class);
+
+    private final FileCacheBackedScriptClassCompiler scriptClassCompiler;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private final DocumentationRegistry documentationRegistry;
+
+    public BuildScriptPrecompiler(FileCacheBackedScriptClassCompiler scriptClassCompiler, BuildOperationProcessor buildOperationProcessor, DocumentationRegistry documentationRegistry) {
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.buildOperationProcessor = buildOperationProcessor;
+        this.documentationRegistry = documentationRegistry;
+    }
+
+    /**
+     * Compiles the first pass of the build scripts of the given projects, which contains the buildscript {} and plugins {} blocks. This pass is compiled
+     * against the base class loader scope of the project, which is known before any project is configured.
+     */
+    public void precompileInitialPass(final Iterable<? extends Project> projects) {
+        buildOperationProcessor.run(new Action<BuildOperationQueue<PrecompileScriptOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<PrecompileScriptOperation> queue) {
+                for (Project project : projects) {
+                    ProjectInternal projectInternal = (ProjectInternal) project;
+                    ClassLoaderScope baseScope = projectInternal.getBaseClassLoaderScope();
+                    if (!baseScope.isLocked()) {
+                        continue;
+                    }
+                    ScriptSource source = CachingScriptSource.of(projectInternal.getBuildScriptSource());
+                    ProjectScriptTarget target = new ProjectScriptTarget(projectInternal);
+                    CompileOperation<?> operation = DefaultScriptPluginFactory.createInitialPassOperation(source, target, documentationRegistry);
+                    queue.add(new PrecompileScriptOperation(source, baseScope.getExportClassLoader(), operation, target, Actions.doNothing()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Compiles the second pass of the build scripts of the given projects, which contains everything except the buildscript {} and plugins {} blocks.
+     * This pass is compiled against the class loader of the project, which is only known once the first pass has run. Assumes that the projects do not add
+     * anything to the classpath they inherit from the given, already configured, ancestor scope. This holds for projects that declare neither a
+     * buildscript classpath nor plugins that need one, and those that do are compiled on first use.
+     */
+    public void precompileBody(final Iterable<? extends Project> projects, final ClassLoaderScope ancestorScope) {
+        if (!ancestorScope.isLocked()) {
+            return;
+        }
+        buildOperationProcessor.run(new Action<BuildOperationQueue<PrecompileScriptOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<PrecompileScriptOperation> queue) {
+                for (Project project : projects) {
+                    ProjectInternal projectInternal = (ProjectInternal) project;
+                    ScriptSource source = CachingScriptSource.of(projectInternal.getBuildScriptSource());
+                    ProjectScriptTarget target = new ProjectScriptTarget(projectInternal);
+                    CompileOperation<?> operation = DefaultScriptPluginFactory.createSecondPassOperation(source, target);
+                    queue.add(new PrecompileScriptOperation(source, ancestorScope.getExportClassLoader(), operation, target, ClosureCreationInterceptingVerifier.INSTANCE));
+                }
+            }
+        });
+    }
+
+    private class PrecompileScriptOperation implements RunnableBuildOperation {
+        private final ScriptSource source;
+        private final ClassLoader classLoader;
+        private final CompileOperation<?> operation;
+        private final ScriptTarget target;
+        private final Action<? super ClassNode> verifier;
+
+        PrecompileScriptOperation(ScriptSource source, ClassLoader classLoader, CompileOperation<?> operation, ScriptTarget target, Action<? super ClassNode> verifier) {
+            this.source = source;
+            this.classLoader = classLoader;
+            this.operation = operation;
+            this.target = target;
+            this.verifier = verifier;
+        }
+
+        @Override
+        public void run() {
+            try {
+                scriptClassCompiler.precompile(source, classLoader, operation, target.getScriptClass(), verifier);
+            } catch (Exception e) {
+                // Compiled again when the project is configured, which reports the failure
+                LOGGER.debug("Could not precompile {}.", source.getDisplayName(), e);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "Precompile " + source.getDisplayName();
+        }
+    }
+}
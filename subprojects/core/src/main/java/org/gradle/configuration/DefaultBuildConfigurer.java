@@ -16,12 +16,23 @@
 package org.gradle.configuration;
 
 import org.gradle.StartParameter;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.execution.ProjectConfigurer;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.util.SingleMessageLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 public class DefaultBuildConfigurer implements BuildConfigurer {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultBuildConfigurer.class);
     private final ProjectConfigurer projectConfigurer;
@@ -35,7 +46,46 @@ public class DefaultBuildConfigurer implements BuildConfigurer {
         if (gradle.getStartParameter().isConfigureOnDemand()) {
             projectConfigurer.configure(gradle.getRootProject());
         } else {
-            projectConfigurer.configureHierarchy(gradle.getRootProject());
+            ProjectInternal rootProject = gradle.getRootProject();
+            if (!rootProject.getSubprojects().isEmpty()) {
+                // Compile the scripts of all projects concurrently, instead of one at a time as each project is configured
+                BuildScriptPrecompiler precompiler = gradle.getServices().get(BuildScriptPrecompiler.class);
+                precompiler.precompileInitialPass(rootProject.getAllprojects());
+                projectConfigurer.configure(rootProject);
+                precompiler.precompileBody(rootProject.getSubprojects(), rootProject.getClassLoaderScope());
+                if (gradle.getStartParameter().isParallelProjectConfigurationEnabled()) {
+                    configureInParallel(gradle.getServices().get(BuildOperationProcessor.class), rootProject.getSubprojects());
+                }
+            }
+            // Reports any failure in the same order as when the projects are configured serially
+            projectConfigurer.configureHierarchy(rootProject);
+        }
+    }
+
+    /**
+     * Configures the given projects concurrently, one level of the project hierarchy at a time, so that a project is configured after its parent.
+     * Failures are recorded in the state of each project, and reported when the project hierarchy is configured. Configuration code may itself use
+     * the build operation processor, as a thread that waits for operations runs those that no worker thread has started.
+     */
+    private void configureInParallel(BuildOperationProcessor buildOperationProcessor, Iterable<Project> projects) {
+        SortedMap<Integer, List<ProjectInternal>> projectsByDepth = new TreeMap<Integer, List<ProjectInternal>>();
+        for (Project project : projects) {
+            List<ProjectInternal> projectsAtDepth = projectsByDepth.get(project.getDepth());
+            if (projectsAtDepth == null) {
+                projectsAtDepth = new ArrayList<ProjectInternal>();
+                projectsByDepth.put(project.getDepth(), projectsAtDepth);
+            }
+            projectsAtDepth.add((ProjectInternal) project);
+        }
+        for (final List<ProjectInternal> projectsAtDepth : projectsByDepth.values()) {
+            buildOperationProcessor.run(new Action<BuildOperationQueue<ConfigureProjectOperation>>() {
+                @Override
+                public void execute(BuildOperationQueue<ConfigureProjectOperation> queue) {
+                    for (ProjectInternal project : projectsAtDepth) {
+                        queue.add(new ConfigureProjectOperation(project));
+                    }
+                }
+            });
         }
     }
 
@@ -51,6 +101,9 @@ public class DefaultBuildConfigurer implements BuildConfigurer {
         } else if (startParameter.isConfigureOnDemand()) {
             SingleMessageLogger.incubatingFeatureUsed("Configuration on demand");
         }
+        if (startParameter.isParallelProjectConfigurationEnabled()) {
+            SingleMessageLogger.incubatingFeatureUsed("Parallel project configuration");
+        }
     }
 
     private void maybeInformAboutParallelLimitations(GradleInternal gradle) {
@@ -61,4 +114,27 @@ public class DefaultBuildConfigurer implements BuildConfigurer {
             LOGGER.warn("Using the 'clean' task in combination with parallel execution may lead to unexpected runtime behavior.");
         }
     }
+
+    private class ConfigureProjectOperation implements RunnableBuildOperation {
+        private final ProjectInternal project;
+
+        ConfigureProjectOperation(ProjectInternal project) {
+            this.project = project;
+        }
+
+        @Override
+        public void run() {
+            try {
+                projectConfigurer.configure(project);
+            } catch (Exception e) {
+                // Rethrown when the project hierarchy is configured
+                LOGGER.debug("Could not configure {}.", project, e);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "Configure " + project;
+        }
+    }
 }
@@ -15,15 +15,29 @@
  */
 package org.gradle.configuration.project;
 
+import org.gradle.api.CircularReferenceException;
 import org.gradle.api.ProjectConfigurationException;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.UncheckedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 /**
- * Manages lifecycle concerns while delegating actual evaluation to another evaluator
+ * Manages lifecycle concerns while delegating actual evaluation to another evaluator.
+ *
+ * <p>A project is evaluated by at most one thread at a time. When projects are configured in parallel, a thread that needs a project that another thread
+ * is evaluating waits for that evaluation to complete. Waiting in a cycle fails with a {@link CircularReferenceException}, as it does when a single thread
+ * evaluates projects that depend on each other.</p>
+ *
+ * <p>Evaluation listeners are notified without holding any lock other than that of the project being evaluated, so the {@code beforeEvaluate} and
+ * {@code afterEvaluate} actions of different projects may run concurrently. A listener may evaluate another project, for example by calling
+ * {@code project(path)}, and waits for that evaluation like any other access. Listeners registered with the listener manager are still notified by
+ * one thread at a time.</p>
  *
  * @see org.gradle.internal.service.scopes.BuildScopeServices#createProjectEvaluator()
  */
@@ -31,16 +45,93 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
     private static final Logger LOGGER = LoggerFactory.getLogger(LifecycleProjectEvaluator.class);
 
     private final ProjectEvaluator delegate;
+    private final Object lock = new Object();
+    // Maps a project state to the thread that holds it
+    private final Map<ProjectStateInternal, Thread> owners = new IdentityHashMap<ProjectStateInternal, Thread>();
+    private final Map<Thread, ProjectStateInternal> waitingThreads = new IdentityHashMap<Thread, ProjectStateInternal>();
 
     public LifecycleProjectEvaluator(ProjectEvaluator delegate) {
         this.delegate = delegate;
     }
 
     public void evaluate(ProjectInternal project, ProjectStateInternal state) {
-        //TODO this is one of the places to look into thread safety when we implement parallel configuration
-        if (state.getExecuted() || state.getExecuting()) {
+        if (state.getExecuted()) {
             return;
         }
+        if (!lock(state, project)) {
+            // Already being evaluated by this thread
+            return;
+        }
+        try {
+            if (state.getExecuted() || state.getExecuting()) {
+                return;
+            }
+            doEvaluate(project, state);
+        } finally {
+            unlock(state);
+        }
+    }
+
+    /**
+     * Locks the given project state for the current thread, waiting for any other thread that holds it. Returns false when the current thread holds the
+     * lock already.
+     */
+    private boolean lock(ProjectStateInternal resource, ProjectInternal project) {
+        Thread currentThread = Thread.currentThread();
+        synchronized (lock) {
+            while (true) {
+                Thread owner = owners.get(resource);
+                if (owner == null) {
+                    owners.put(resource, currentThread);
+                    return true;
+                }
+                if (owner == currentThread) {
+                    return false;
+                }
+                if (isWaitingFor(owner, currentThread)) {
+                    throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", project));
+                }
+                waitingThreads.put(currentThread, resource);
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } finally {
+                    waitingThreads.remove(currentThread);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true when the given thread waits, directly or through other threads, for a lock that the target thread holds.
+     */
+    private boolean isWaitingFor(Thread thread, Thread target) {
+        Thread current = thread;
+        for (int i = 0; i <= waitingThreads.size(); i++) {
+            ProjectStateInternal waitingFor = waitingThreads.get(current);
+            if (waitingFor == null) {
+                return false;
+            }
+            current = owners.get(waitingFor);
+            if (current == target) {
+                return true;
+            }
+            if (current == null) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void unlock(ProjectStateInternal resource) {
+        synchronized (lock) {
+            owners.remove(resource);
+            lock.notifyAll();
+        }
+    }
+
+    private void doEvaluate(ProjectInternal project, ProjectStateInternal state) {
 
         ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
         try {
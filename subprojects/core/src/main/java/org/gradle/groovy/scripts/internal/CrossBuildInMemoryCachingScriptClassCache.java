@@ -24,10 +24,26 @@ import org.gradle.api.Action;
 import org.gradle.api.internal.changedetection.state.FileSnapshotter;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
 import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.initialization.MemoryPressureListener;
 import org.gradle.internal.Cast;
 
-public class CrossBuildInMemoryCachingScriptClassCache {
-    private final Cache<ScriptCacheKey, CachedCompiledScript> cachedCompiledScripts = CacheBuilder.newBuilder().maximumSize(100).recordStats().build();
+/**
+ * Keeps compiled script classes in memory across builds. Entries are keyed by the script file, class loader and DSL, and remember the hash of
+ * the content the class was compiled from, so that a script that is changed replaces its previous class rather than keeping it, and its class
+ * loader, alive. Scripts with the same content still get separate classes when they live in different files, as the file name is compiled into
+ * the class and used to locate errors in the script.
+ *
+ * <p>The cache is bounded by the number of cached scripts. The compiled scripts are softly referenced, so that the garbage collector can discard
+ * them and their class loaders rather than run out of memory, and the cache is cleared when the process is short of memory.</p>
+ */
+public class CrossBuildInMemoryCachingScriptClassCache implements MemoryPressureListener {
+    private static final int MAX_CACHED_SCRIPTS = 500;
+
+    private final Cache<ScriptKey, CachedScript> cachedCompiledScripts = CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHED_SCRIPTS)
+        .softValues()
+        .recordStats()
+        .build();
     private final FileSnapshotter snapshotter;
 
     public CrossBuildInMemoryCachingScriptClassCache(FileSnapshotter snapshotter) {
@@ -35,27 +51,65 @@ public class CrossBuildInMemoryCachingScriptClassCache {
     }
 
     public <T extends Script, M> CompiledScript<T, M> getOrCompile(ScriptSource source, ClassLoader classLoader, ClassLoaderId classLoaderId, CompileOperation<M> operation, Class<T> scriptBaseClass, Action<? super ClassNode> verifier, ScriptClassCompiler delegate) {
-        ScriptCacheKey key = new ScriptCacheKey(source.getClassName(), classLoader, operation.getId());
-        CachedCompiledScript cached = cachedCompiledScripts.getIfPresent(key);
         HashCode hash = snapshotter.snapshot(source.getResource()).getHash();
-        if (cached != null) {
-            if (hash.equals(cached.hash)) {
-                return Cast.uncheckedCast(cached.compiledScript);
-            }
+        ScriptKey key = new ScriptKey(source.getFileName(), classLoader, operation.getId());
+        CachedScript cached = cachedCompiledScripts.getIfPresent(key);
+        if (cached != null && cached.hash.equals(hash)) {
+            return Cast.uncheckedCast(cached.compiledScript);
         }
         CompiledScript<T, M> compiledScript = delegate.compile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier);
-        cachedCompiledScripts.put(key, new CachedCompiledScript(hash, compiledScript));
+        cachedCompiledScripts.put(key, new CachedScript(hash, compiledScript));
         return compiledScript;
     }
 
-    private static class CachedCompiledScript {
+    @Override
+    public void onMemoryPressure() {
+        cachedCompiledScripts.invalidateAll();
+    }
+
+    private static class CachedScript {
         private final HashCode hash;
         private final CompiledScript<?, ?> compiledScript;
 
-        private CachedCompiledScript(HashCode hash, CompiledScript<?, ?> compiledScript) {
+        private CachedScript(HashCode hash, CompiledScript<?, ?> compiledScript) {
             this.hash = hash;
             this.compiledScript = compiledScript;
         }
     }
 
+    private static class ScriptKey {
+        private final String fileName;
+        private final ClassLoader classLoader;
+        private final String dslId;
+
+        private ScriptKey(String fileName, ClassLoader classLoader, String dslId) {
+            this.fileName = fileName;
+            this.classLoader = classLoader;
+            this.dslId = dslId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            ScriptKey key = (ScriptKey) o;
+
+            return fileName.equals(key.fileName)
+                && classLoader.equals(key.classLoader)
+                && dslId.equals(key.dslId);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = fileName.hashCode();
+            result = 31 * result + classLoader.hashCode();
+            result = 31 * result + dslId.hashCode();
+            return result;
+        }
+    }
 }
@@ -23,9 +23,11 @@ import org.gradle.api.Action;
 import org.gradle.api.internal.changedetection.state.FileSnapshotter;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
+import org.gradle.cache.CacheBuilder;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
 import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
@@ -33,6 +35,7 @@ import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.model.dsl.internal.transform.RuleVisitor;
+import org.gradle.util.GFileUtils;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -47,6 +50,9 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A {@link ScriptClassCompiler} which compiles scripts to a cache directory, and loads them from there.
@@ -59,10 +65,13 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
     private final FileSnapshotter snapshotter;
     private final ClassLoaderCache classLoaderCache;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final CacheScopeMapping cacheScopeMapping;
+    // Generic class caches populated by precompile() during this build, mapped to whether the compilation has completed
+    private final ConcurrentMap<String, Boolean> precompiledCaches = new ConcurrentHashMap<String, Boolean>();
 
     public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, CacheValidator validator, ScriptCompilationHandler scriptCompilationHandler,
                                               ProgressLoggerFactory progressLoggerFactory, FileSnapshotter snapshotter, ClassLoaderCache classLoaderCache,
-                                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+                                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher, CacheScopeMapping cacheScopeMapping) {
         this.cacheRepository = cacheRepository;
         this.validator = validator;
         this.scriptCompilationHandler = scriptCompilationHandler;
@@ -70,6 +79,7 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         this.snapshotter = snapshotter;
         this.classLoaderCache = classLoaderCache;
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        this.cacheScopeMapping = cacheScopeMapping;
     }
 
     @Override
@@ -110,6 +120,50 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         return scriptCompilationHandler.loadFromDir(source, classLoader, remappedClassesDir, remappedMetadataDir, operation, scriptBaseClass, classLoaderId);
     }
 
+    /**
+     * Compiles the given script into the generic class cache, unless it is already cached, without loading it. Does not hold any cache lock while compiling,
+     * so it can be called concurrently for many scripts. A later call to {@link #compile} for the same script and class loader then finds the classes in the cache.
+     */
+    public void precompile(ScriptSource source, ClassLoader classLoader, CompileOperation<?> operation, Class<? extends Script> scriptBaseClass, Action<? super ClassNode> verifier) {
+        assert source.getResource().isContentCached();
+        if (source.getResource().getHasEmptyContent()) {
+            return;
+        }
+
+        String sourceHash = hashFor(source);
+        String dslId = operation.getId();
+        String classpathHash = dslId + classLoaderHierarchyHasher.getLenientHash(classLoader);
+        String cacheKey = genericCacheKey(sourceHash, dslId, classpathHash);
+        File cacheDir = cacheScopeMapping.getBaseDirectory(null, cacheKey, CacheBuilder.VersionStrategy.CachePerVersion);
+        // A cache directory with a properties file has been initialized by an earlier build. When it is stale anyway, the script is compiled on first use
+        if (validator.isValid() && new File(cacheDir, "cache.properties").isFile()) {
+            return;
+        }
+        if (precompiledCaches.putIfAbsent(cacheKey, false) != null) {
+            // Same script content and class loader as another script
+            return;
+        }
+
+        File precompiledDir = new File(cacheDir.getParentFile(), cacheDir.getName() + "-" + UUID.randomUUID() + ".tmp");
+        try {
+            RemappingScriptSource remapped = new RemappingScriptSource(source);
+            scriptCompilationHandler.compileToDir(remapped, classLoader, classesDir(precompiledDir), metadataDir(precompiledDir), operation, scriptBaseClass, verifier);
+            PersistentCache cache = cacheRepository.cache(cacheKey)
+                .withValidator(validator)
+                .withDisplayName(dslId + " generic class cache for " + source.getDisplayName())
+                .withInitializer(new CopyPrecompiledScriptAction(precompiledDir))
+                .open();
+            cache.close();
+            precompiledCaches.put(cacheKey, true);
+        } finally {
+            GFileUtils.deleteDirectory(precompiledDir);
+        }
+    }
+
+    private static String genericCacheKey(String sourceHash, String dslId, String classpathHash) {
+        return "scripts/" + sourceHash + "/" + dslId + "/" + classpathHash;
+    }
+
     private <T extends Script, M> CompiledScript<T, M> emptyCompiledScript(ClassLoaderId classLoaderId, CompileOperation<M> operation) {
         classLoaderCache.remove(classLoaderId);
         return new EmptyCompiledScript<T, M>(operation);
@@ -131,6 +185,19 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         return new File(cache.getBaseDir(), "metadata");
     }
 
+    private class CopyPrecompiledScriptAction implements Action<PersistentCache> {
+        private final File precompiledDir;
+
+        public CopyPrecompiledScriptAction(File precompiledDir) {
+            this.precompiledDir = precompiledDir;
+        }
+
+        public void execute(PersistentCache cache) {
+            GFileUtils.moveDirectory(classesDir(precompiledDir), classesDir(cache));
+            GFileUtils.moveDirectory(metadataDir(precompiledDir), metadataDir(cache));
+        }
+    }
+
     private class CompileToCrossBuildCacheAction implements Action<PersistentCache> {
         private final Action<? super ClassNode> verifier;
         private final Class<? extends Script> scriptBaseClass;
@@ -346,8 +413,14 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         }
 
         public void execute(final PersistentCache remappedClassesCache) {
-            final PersistentCache cache = cacheRepository.cache("scripts/" + sourceHash + "/" + dslId + "/" + classpathHash)
-                .withValidator(validator)
+            final String cacheKey = genericCacheKey(sourceHash, dslId, classpathHash);
+            final PersistentCache cache = cacheRepository.cache(cacheKey)
+                .withValidator(new CacheValidator() {
+                    public boolean isValid() {
+                        // Scripts precompiled by this build are up-to-date, even when scripts are recompiled
+                        return validator.isValid() || Boolean.TRUE.equals(precompiledCaches.get(cacheKey));
+                    }
+                })
                 .withDisplayName(dslId + " generic class cache for " + source.getDisplayName())
                 .withInitializer(new ProgressReportingInitializer(
                     progressLoggerFactory,
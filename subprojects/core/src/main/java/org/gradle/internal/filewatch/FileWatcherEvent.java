@@ -41,11 +41,31 @@ public class FileWatcherEvent {
         return type;
     }
 
-    @Nullable // null if type == UNDEFINED
+    /**
+     * Returns the file that changed. For an {@link Type#UNDEFINED} event, returns the directory in which changes may have been missed, or null when this is not known.
+     */
+    @Nullable
     public File getFile() {
         return file;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FileWatcherEvent other = (FileWatcherEvent) o;
+        return type == other.type && (file == null ? other.file == null : file.equals(other.file));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + (file == null ? 0 : file.hashCode());
+    }
+
     @Override
     public String toString() {
         return "FileWatcherEvent{type=" + type + ", file=" + file + '}';
@@ -67,4 +87,11 @@ public class FileWatcherEvent {
         return new FileWatcherEvent(Type.UNDEFINED, null);
     }
 
+    /**
+     * Creates an {@link Type#UNDEFINED} event for a directory whose events have been lost, for example because the event queue overflowed.
+     */
+    public static FileWatcherEvent overflow(File directory) {
+        return new FileWatcherEvent(Type.UNDEFINED, directory);
+    }
+
 }
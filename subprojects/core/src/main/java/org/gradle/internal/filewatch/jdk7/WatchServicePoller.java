@@ -25,25 +25,46 @@ import org.gradle.util.CollectionUtils;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 class WatchServicePoller {
     private static final int POLL_TIMEOUT_SECONDS = 5;
+    private static final int MAX_KEYS_PER_BATCH = 1000;
     private final WatchService watchService;
 
     WatchServicePoller(WatchService watchService) throws IOException {
         this.watchService = watchService;
     }
 
+    /**
+     * Waits for events and returns them. The events of all watch keys that are signalled by then are returned as a single batch, so that a burst
+     * of changes such as a checkout is delivered at once. An event that occurs more than once is only delivered at its last occurrence, so the
+     * batch still ends with the latest change to each file. Returns null when no events arrive before the timeout.
+     */
     @Nullable
     public List<FileWatcherEvent> takeEvents() throws InterruptedException {
         WatchKey watchKey = watchService.poll(POLL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        if (watchKey != null) {
-            return handleWatchKey(watchKey);
+        if (watchKey == null) {
+            return null;
         }
-        return null;
+        Set<FileWatcherEvent> events = new LinkedHashSet<FileWatcherEvent>();
+        int keyCount = 0;
+        while (watchKey != null) {
+            for (FileWatcherEvent event : handleWatchKey(watchKey)) {
+                events.remove(event);
+                events.add(event);
+            }
+            if (++keyCount == MAX_KEYS_PER_BATCH) {
+                break;
+            }
+            watchKey = watchService.poll();
+        }
+        return new ArrayList<FileWatcherEvent>(events);
     }
 
     private List<FileWatcherEvent> handleWatchKey(WatchKey watchKey) {
@@ -57,7 +78,7 @@ class WatchServicePoller {
                     WatchEvent<Path> ev = Cast.uncheckedCast(event);
                     file = watchedPath.resolve(ev.context()).toFile();
                 }
-                return toEvent(kind, file);
+                return toEvent(kind, watchedPath, file);
             }
         };
 
@@ -70,7 +91,7 @@ class WatchServicePoller {
         }
     }
 
-    private FileWatcherEvent toEvent(WatchEvent.Kind kind, File file) {
+    private FileWatcherEvent toEvent(WatchEvent.Kind kind, Path watchedPath, File file) {
         if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
             return FileWatcherEvent.create(file);
         } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
@@ -78,7 +99,7 @@ class WatchServicePoller {
         } else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
             return FileWatcherEvent.modify(file);
         } else if (kind == StandardWatchEventKinds.OVERFLOW) {
-            return FileWatcherEvent.undefined();
+            return FileWatcherEvent.overflow(watchedPath.toFile());
         } else {
             throw new IllegalStateException("Unknown watch kind " + kind);
         }
@@ -140,14 +140,9 @@ class WatchServiceRegistrar implements FileWatcherListener {
             LOG.debug("Skipping adding watch since current thread is interrupted.");
         }
 
-        // check if directory is already watched
-        // on Windows, check if any parent is already watched
-        for (Path path = dir; path != null; path = FILE_TREE_WATCHING_SUPPORTED ? path.getParent() : null) {
-            WatchKey previousWatchKey = watchKeys.get(path);
-            if (previousWatchKey != null && previousWatchKey.isValid()) {
-                LOG.debug("Directory {} is already watched and the watch is valid, not adding another one.", path);
-                return;
-            }
+        if (isWatched(dir)) {
+            LOG.debug("Directory {} is already watched and the watch is valid, not adding another one.", dir);
+            return;
         }
 
         int retryCount = 0;
@@ -190,6 +185,17 @@ class WatchServiceRegistrar implements FileWatcherListener {
     }
 
 
+    private boolean isWatched(Path dir) {
+        // on Windows, check if any parent is already watched
+        for (Path path = dir; path != null; path = FILE_TREE_WATCHING_SUPPORTED ? path.getParent() : null) {
+            WatchKey watchKey = watchKeys.get(path);
+            if (watchKey != null && watchKey.isValid()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void onChange(FileWatcher watcher, FileWatcherEvent event) {
         lock.lock();
@@ -197,6 +203,13 @@ class WatchServiceRegistrar implements FileWatcherListener {
             if (event.getType().equals(FileWatcherEvent.Type.UNDEFINED) || event.getFile() == null) {
                 LOG.debug("Calling onChange with event {}", event);
                 deliverEventToDelegate(watcher, event);
+                if (event.getFile() != null) {
+                    try {
+                        rescanDirectory(watcher, event.getFile());
+                    } catch (IOException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
                 return;
             }
 
@@ -271,6 +284,27 @@ class WatchServiceRegistrar implements FileWatcherListener {
         LOG.debug("End - maybeWatchNewDirectory {}", dir);
     }
 
+    /**
+     * Watches the subdirectories of a directory whose events have been lost, which may include the creation of subdirectories that are not watched yet.
+     * Subdirectories that are already watched are not scanned, as they report their own lost events.
+     */
+    private void rescanDirectory(FileWatcher watcher, File dir) throws IOException {
+        LOG.debug("Begin - rescanDirectory {}", dir);
+        File[] contents = dir.listFiles();
+        if (contents != null) {
+            for (File file : contents) {
+                if (isStopRequested(watcher)) {
+                    LOG.debug("Stop requested, returning.");
+                    return;
+                }
+                if (file.isDirectory() && !isWatched(file.toPath())) {
+                    maybeWatchNewDirectory(watcher, file);
+                }
+            }
+        }
+        LOG.debug("End - rescanDirectory {}", dir);
+    }
+
     private boolean isStopRequested(FileWatcher watcher) {
         return Thread.currentThread().isInterrupted() || !watcher.isRunning();
     }
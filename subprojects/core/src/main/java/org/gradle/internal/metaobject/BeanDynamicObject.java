@@ -254,6 +254,21 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         @Nullable
         protected MetaProperty lookupProperty(MetaClass metaClass, String name) {
+            MetaClassLookupCache cache = MetaClassLookupCache.forMetaClass(metaClass);
+            if (cache == null) {
+                return lookupPropertyUncached(metaClass, name);
+            }
+            Object cached = cache.getProperty(name);
+            if (cached != null) {
+                return MetaClassLookupCache.isCachedPropertyMissing(cached) ? null : (MetaProperty) cached;
+            }
+            MetaProperty property = lookupPropertyUncached(metaClass, name);
+            cache.putProperty(name, property);
+            return property;
+        }
+
+        @Nullable
+        private MetaProperty lookupPropertyUncached(MetaClass metaClass, String name) {
             if (metaClass instanceof MetaClassImpl) {
                 // MetaClass.getMetaProperty(name) is very expensive when the property is not known. Instead, reach into the meta class to call a much more efficient lookup method
                 try {
@@ -356,10 +371,10 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
 
         public boolean hasMethod(final String name, final Object... arguments) {
-            return lookupMethod(getMetaClass(), name, inferTypes(arguments)) != null;
+            return lookupMethod(getMetaClass(), name, arguments) != null;
         }
 
-        private Class[] inferTypes(Object... arguments) {
+        protected Class[] inferTypes(Object... arguments) {
             if (arguments == null || arguments.length == 0) {
                 return MetaClassHelper.EMPTY_CLASS_ARRAY;
             }
@@ -377,13 +392,13 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         public void invokeMethod(String name, InvokeMethodResult result, Object... arguments) {
             MetaClass metaClass = getMetaClass();
-            MetaMethod metaMethod = lookupMethod(metaClass, name, inferTypes(arguments));
+            MetaMethod metaMethod = lookupMethod(metaClass, name, arguments);
             if (metaMethod != null) {
                 result.result(metaMethod.doMethodInvoke(bean, arguments));
                 return;
             }
 
-            List<MetaMethod> metaMethods = metaClass.respondsTo(bean, name);
+            List<MetaMethod> metaMethods = respondsTo(metaClass, name);
             for (MetaMethod method : metaMethods) {
                 if (method.getParameterTypes().length != arguments.length) {
                     continue;
@@ -418,8 +433,34 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
 
         @Nullable
-        protected MetaMethod lookupMethod(MetaClass metaClass, String name, Class[] arguments) {
-            return metaClass.getMetaMethod(name, arguments);
+        protected MetaMethod lookupMethod(MetaClass metaClass, String name, Object[] arguments) {
+            MetaClassLookupCache cache = MetaClassLookupCache.forMetaClass(metaClass);
+            if (cache == null || arguments == null) {
+                return metaClass.getMetaMethod(name, inferTypes(arguments));
+            }
+            MetaClassLookupCache.MethodSite site = cache.getMethodSite(name);
+            MetaClassLookupCache.Entry entry = site.find(arguments);
+            if (entry != null) {
+                return entry.getMethod();
+            }
+            Class[] argumentTypes = inferTypes(arguments);
+            MetaMethod metaMethod = metaClass.getMetaMethod(name, argumentTypes);
+            site.put(argumentTypes, metaMethod);
+            return metaMethod;
+        }
+
+        private List<MetaMethod> respondsTo(MetaClass metaClass, String name) {
+            MetaClassLookupCache cache = MetaClassLookupCache.forMetaClass(metaClass);
+            if (cache == null) {
+                return metaClass.respondsTo(bean, name);
+            }
+            MetaClassLookupCache.MethodSite site = cache.getMethodSite(name);
+            List<MetaMethod> candidates = site.getCandidates();
+            if (candidates == null) {
+                candidates = metaClass.respondsTo(bean, name);
+                site.setCandidates(candidates);
+            }
+            return candidates;
         }
 
         protected Object invokeOpaqueMethod(MetaClass metaClass, String name, Object[] arguments) {
@@ -501,12 +542,12 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         @Nullable
         @Override
-        protected MetaMethod lookupMethod(MetaClass metaClass, String name, Class[] arguments) {
+        protected MetaMethod lookupMethod(MetaClass metaClass, String name, Object[] arguments) {
             MetaMethod metaMethod = super.lookupMethod(metaClass, name, arguments);
             if (metaMethod != null) {
                 return metaMethod;
             }
-            metaMethod = classMetaData.getMetaMethod(name, arguments);
+            metaMethod = classMetaData.getMetaMethod(name, inferTypes(arguments));
             if (metaMethod != null && Modifier.isStatic(metaMethod.getModifiers())) {
                 return metaMethod;
             }
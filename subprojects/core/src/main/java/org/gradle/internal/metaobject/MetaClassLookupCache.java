@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import groovy.lang.MetaClass;
+import groovy.lang.MetaClassImpl;
+import groovy.lang.MetaMethod;
+import groovy.lang.MetaProperty;
+import org.gradle.api.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the results of property and method lookups on a {@link MetaClassImpl}, including failed lookups, so that repeated dynamic access to the same
+ * name on objects of the same type does not repeat the meta-class search.
+ *
+ * <p>Only instances of exactly {@link MetaClassImpl} are cached, as the properties and methods of such a meta-class do not change once it has been
+ * initialized. Other implementations, such as {@link groovy.lang.ExpandoMetaClass}, can be changed at any time and are always queried directly.</p>
+ *
+ * <p>A cache hit does not allocate: method lookups are matched against the types of the arguments directly, rather than against an inferred array of
+ * argument types.</p>
+ */
+class MetaClassLookupCache {
+    private static final Object NOT_FOUND = new Object();
+    private static final LoadingCache<MetaClass, MetaClassLookupCache> CACHES = CacheBuilder.newBuilder()
+        .weakKeys()
+        // The cached meta properties and methods reference the class, so use soft values to allow the class to be collected
+        .softValues()
+        .build(new CacheLoader<MetaClass, MetaClassLookupCache>() {
+            @Override
+            public MetaClassLookupCache load(MetaClass metaClass) {
+                return new MetaClassLookupCache();
+            }
+        });
+
+    private final ConcurrentMap<String, Object> properties = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<String, MethodSite> methods = new ConcurrentHashMap<String, MethodSite>();
+
+    /**
+     * Returns the cache for the given meta-class, or null when lookups on the meta-class cannot be cached.
+     */
+    @Nullable
+    static MetaClassLookupCache forMetaClass(MetaClass metaClass) {
+        if (metaClass.getClass() != MetaClassImpl.class) {
+            return null;
+        }
+        return CACHES.getUnchecked(metaClass);
+    }
+
+    static boolean isCachedPropertyMissing(Object cached) {
+        return cached == NOT_FOUND;
+    }
+
+    /**
+     * Returns the cached property for the given name, {@link #isCachedPropertyMissing(Object) a marker} when the property is known not to exist,
+     * or null when the property has not been looked up yet.
+     */
+    @Nullable
+    Object getProperty(String name) {
+        return properties.get(name);
+    }
+
+    void putProperty(String name, @Nullable MetaProperty property) {
+        properties.put(name, property == null ? NOT_FOUND : property);
+    }
+
+    MethodSite getMethodSite(String name) {
+        MethodSite site = methods.get(name);
+        if (site == null) {
+            site = new MethodSite();
+            MethodSite existing = methods.putIfAbsent(name, site);
+            if (existing != null) {
+                site = existing;
+            }
+        }
+        return site;
+    }
+
+    /**
+     * The methods with a given name, looked up by the types of the arguments they have been invoked with.
+     */
+    static class MethodSite {
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+        private static final int MAX_ENTRIES = 8;
+        private volatile Entry[] entries = NO_ENTRIES;
+        private volatile List<MetaMethod> candidates;
+
+        /**
+         * Returns the entry that matches the types of the given arguments, or null when the method has not been looked up for these types yet.
+         */
+        @Nullable
+        Entry find(Object[] arguments) {
+            Entry[] entries = this.entries;
+            for (Entry entry : entries) {
+                if (entry.matches(arguments)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        void put(Class[] argumentTypes, @Nullable MetaMethod method) {
+            synchronized (this) {
+                Entry[] current = entries;
+                if (current.length >= MAX_ENTRIES) {
+                    // Highly polymorphic call site, don't cache any more variations
+                    return;
+                }
+                Entry[] updated = new Entry[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, current.length);
+                updated[current.length] = new Entry(argumentTypes, method);
+                entries = updated;
+            }
+        }
+
+        /**
+         * Returns the methods that the meta-class responds to with this name, or null when not known yet.
+         */
+        @Nullable
+        List<MetaMethod> getCandidates() {
+            return candidates;
+        }
+
+        void setCandidates(List<MetaMethod> candidates) {
+            this.candidates = candidates;
+        }
+    }
+
+    static class Entry {
+        private final Class[] argumentTypes;
+        private final MetaMethod method;
+
+        Entry(Class[] argumentTypes, @Nullable MetaMethod method) {
+            this.argumentTypes = argumentTypes;
+            this.method = method;
+        }
+
+        @Nullable
+        MetaMethod getMethod() {
+            return method;
+        }
+
+        boolean matches(Object[] arguments) {
+            if (arguments.length != argumentTypes.length) {
+                return false;
+            }
+            for (int i = 0; i < arguments.length; i++) {
+                Object argument = arguments[i];
+                Class<?> type = argument == null ? null : argument.getClass();
+                if (type != argumentTypes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
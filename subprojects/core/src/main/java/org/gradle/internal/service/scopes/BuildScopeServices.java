@@ -27,6 +27,7 @@ import org.gradle.api.internal.DefaultClassPathRegistry;
 import org.gradle.api.internal.DependencyClassPathProvider;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.ExceptionAnalyser;
+import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.artifacts.DefaultModule;
 import org.gradle.api.internal.artifacts.DependencyManagementServices;
 import org.gradle.api.internal.artifacts.Module;
@@ -38,7 +39,12 @@ import org.gradle.api.internal.component.ComponentTypeRegistry;
 import org.gradle.api.internal.component.DefaultComponentTypeRegistry;
 import org.gradle.api.internal.file.FileLookup;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.archive.ZipCompressionPool;
+import org.gradle.api.internal.file.collections.CachingDirectoryWalker;
+import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
+import org.gradle.api.internal.file.collections.WatchedDirectorySnapshots;
+import org.gradle.api.internal.file.copy.FileCopyPool;
 import org.gradle.api.internal.initialization.DefaultScriptHandlerFactory;
 import org.gradle.api.internal.initialization.ScriptHandlerFactory;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
@@ -63,8 +69,10 @@ import org.gradle.api.internal.project.taskfactory.TaskClassInfoStore;
 import org.gradle.api.internal.project.taskfactory.TaskFactory;
 import org.gradle.api.logging.configuration.LoggingConfiguration;
 import org.gradle.api.logging.configuration.ShowStacktrace;
+import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
+import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.configuration.BuildConfigurer;
 import org.gradle.configuration.DefaultBuildConfigurer;
 import org.gradle.configuration.DefaultInitScriptProcessor;
@@ -102,6 +110,7 @@ import org.gradle.initialization.GradleLauncherFactory;
 import org.gradle.initialization.IGradlePropertiesLoader;
 import org.gradle.initialization.InitScriptHandler;
 import org.gradle.initialization.InstantiatingBuildLoader;
+import org.gradle.initialization.ModelConfigurationListener;
 import org.gradle.initialization.MultipleBuildFailuresExceptionAnalyser;
 import org.gradle.initialization.NotifyingSettingsProcessor;
 import org.gradle.initialization.ProjectAccessListener;
@@ -114,6 +123,7 @@ import org.gradle.initialization.SettingsProcessor;
 import org.gradle.initialization.StackTraceSanitizingExceptionAnalyser;
 import org.gradle.initialization.buildsrc.BuildSourceBuilder;
 import org.gradle.initialization.layout.BuildLayoutFactory;
+import org.gradle.internal.Factory;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.actor.ActorFactory;
@@ -130,6 +140,7 @@ import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.operations.logging.BuildOperationLoggerFactory;
 import org.gradle.internal.operations.logging.DefaultBuildOperationLoggerFactory;
 import org.gradle.internal.progress.BuildOperationExecutor;
@@ -217,6 +228,38 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         return new DefaultActorFactory(get(ExecutorFactory.class));
     }
 
+    protected CachingDirectoryWalker createCachingDirectoryWalker(FileSystem fileSystem, ExecutorFactory executorFactory, ListenerManager listenerManager) {
+        final CachingDirectoryWalker directoryWalker;
+        if (WatchedDirectorySnapshots.isEnabled()) {
+            directoryWalker = new CachingDirectoryWalker(fileSystem, executorFactory, get(WatchedDirectorySnapshots.class));
+        } else {
+            directoryWalker = new CachingDirectoryWalker(fileSystem, executorFactory);
+        }
+        // Only keep directory snapshots once the build has been configured, so that files written by build scripts are always seen
+        listenerManager.addListener(new ModelConfigurationListener() {
+            @Override
+            public void onConfigure(GradleInternal model) {
+                // Nested builds notify the listeners of their parent build as well
+                if (model.getServices().get(CachingDirectoryWalker.class) == directoryWalker) {
+                    directoryWalker.enable();
+                }
+            }
+        });
+        return directoryWalker;
+    }
+
+    protected ZipCompressionPool createZipCompressionPool(ExecutorFactory executorFactory, StartParameter startParameter) {
+        return new ZipCompressionPool(executorFactory, startParameter.getMaxWorkerCount());
+    }
+
+    protected FileCopyPool createFileCopyPool(ExecutorFactory executorFactory, StartParameter startParameter) {
+        return new FileCopyPool(executorFactory, startParameter.getMaxWorkerCount());
+    }
+
+    protected DirectoryFileTreeFactory createDirectoryFileTreeFactory(Factory<PatternSet> patternSetFactory, CachingDirectoryWalker directoryWalker) {
+        return new DefaultDirectoryFileTreeFactory(patternSetFactory, directoryWalker);
+    }
+
     protected IGradlePropertiesLoader createGradlePropertiesLoader() {
         return new DefaultGradlePropertiesLoader(get(StartParameter.class));
     }
@@ -265,7 +308,7 @@ public class BuildScopeServices extends DefaultServiceRegistry {
     protected FileCacheBackedScriptClassCompiler createFileCacheBackedScriptClassCompiler(
         CacheRepository cacheRepository, final StartParameter startParameter,
         ProgressLoggerFactory progressLoggerFactory, ClassLoaderCache classLoaderCache, ImportsReader importsReader,
-        CacheAccessingFileSnapshotter snapshotter, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        CacheAccessingFileSnapshotter snapshotter, ClassLoaderHierarchyHasher classLoaderHierarchyHasher, CacheScopeMapping cacheScopeMapping) {
         CacheValidator scriptCacheInvalidator = new CacheValidator() {
             public boolean isValid() {
                 return !startParameter.isRecompileScripts();
@@ -278,7 +321,8 @@ public class BuildScopeServices extends DefaultServiceRegistry {
             progressLoggerFactory,
             snapshotter,
             classLoaderCache,
-            classLoaderHierarchyHasher);
+            classLoaderHierarchyHasher,
+            cacheScopeMapping);
     }
 
     protected ScriptPluginFactory createScriptPluginFactory() {
@@ -18,10 +18,14 @@ package org.gradle.internal.service.scopes;
 
 import org.gradle.StartParameter;
 import org.gradle.api.Action;
+import org.gradle.api.internal.AsmBackedClassGenerator;
+import org.gradle.api.internal.ClassGenerator;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.DefaultClassPathProvider;
 import org.gradle.api.internal.DefaultClassPathRegistry;
+import org.gradle.api.internal.cache.DefaultGeneratedClassCache;
 import org.gradle.api.internal.cache.DefaultGeneratedGradleJarCache;
+import org.gradle.api.internal.cache.GeneratedClassCache;
 import org.gradle.api.internal.cache.GeneratedGradleJarCache;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.file.TemporaryFileProvider;
@@ -106,6 +110,18 @@ public class BuildSessionScopeServices extends DefaultServiceRegistry {
         return new DefaultGeneratedGradleJarCache(cacheRepository, gradleVersion);
     }
 
+    GeneratedClassCache createGeneratedClassCache(CacheRepository cacheRepository) {
+        return new DefaultGeneratedClassCache(cacheRepository);
+    }
+
+    /**
+     * Replaces the class generator of the global scope with one that stores the generated classes in the Gradle user home directory.
+     * Both generators share the classes they have already generated.
+     */
+    ClassGenerator createClassGenerator(GeneratedClassCache generatedClassCache) {
+        return new AsmBackedClassGenerator(generatedClassCache);
+    }
+
     CachedClasspathTransformer createCachedClasspathTransformer(CacheRepository cacheRepository, CacheScopeMapping cacheScopeMapping) {
         return new DefaultCachedClasspathTransformer(cacheRepository, new JarCache(), cacheScopeMapping);
     }
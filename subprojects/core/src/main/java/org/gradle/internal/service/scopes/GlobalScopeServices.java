@@ -44,6 +44,7 @@ import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.internal.file.TmpDirTemporaryFileProvider;
 import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
+import org.gradle.api.internal.file.collections.WatchedDirectorySnapshots;
 import org.gradle.api.internal.hash.DefaultHasher;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.internal.initialization.loadercache.DefaultClassLoaderCache;
@@ -309,7 +310,7 @@ public class GlobalScopeServices {
         return new CacheAccessingFileSnapshotter(new CachingFileSnapshotter(new DefaultHasher(), inMemoryStore, stringInterner), inMemoryStore);
     }
 
-    ClassLoaderCache createClassLoaderCache(ClassLoaderFactory classLoaderFactory, ClassPathSnapshotter classPathSnapshotter) {
+    ClassLoaderCache createClassLoaderCache(HashingClassLoaderFactory classLoaderFactory, ClassPathSnapshotter classPathSnapshotter) {
         return new DefaultClassLoaderCache(classLoaderFactory, classPathSnapshotter);
     }
 
@@ -346,6 +347,10 @@ public class GlobalScopeServices {
         return new DefaultFileWatcherFactory(executorFactory);
     }
 
+    WatchedDirectorySnapshots createWatchedDirectorySnapshots(FileWatcherFactory fileWatcherFactory) {
+        return new WatchedDirectorySnapshots(fileWatcherFactory);
+    }
+
     StringInterner createStringInterner() {
         return new StringInterner();
     }
@@ -358,8 +363,10 @@ public class GlobalScopeServices {
         return PatternSets.getPatternSetFactory(patternSpecFactory);
     }
 
-    protected CrossBuildInMemoryCachingScriptClassCache createCachingScriptCompiler(CacheAccessingFileSnapshotter snapshotter) {
-        return new CrossBuildInMemoryCachingScriptClassCache(snapshotter);
+    protected CrossBuildInMemoryCachingScriptClassCache createCachingScriptCompiler(CacheAccessingFileSnapshotter snapshotter, ListenerManager listenerManager) {
+        CrossBuildInMemoryCachingScriptClassCache cache = new CrossBuildInMemoryCachingScriptClassCache(snapshotter);
+        listenerManager.addListener(cache);
+        return cache;
     }
 
 
@@ -28,6 +28,7 @@ import org.gradle.internal.process.ArgWriter;
 import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
+import org.gradle.internal.remote.services.MessagingServices;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.streams.EncodedStream;
@@ -101,6 +102,11 @@ public class ApplicationClassesInSystemClassLoaderWorkerFactory implements Worke
             execSpec.systemProperty("java.security.manager", "worker." + BootstrapSecurityManager.class.getName());
         }
 
+        if (Boolean.getBoolean(MessagingServices.SHARED_MEMORY_PROPERTY)) {
+            // The worker must use the same transport as this process
+            execSpec.systemProperty(MessagingServices.SHARED_MEMORY_PROPERTY, "true");
+        }
+
         // Serialize configuration for the worker process to it stdin
 
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
@@ -17,21 +17,30 @@
 package org.gradle.api.internal
 
 import com.google.common.base.Function
+import org.codehaus.groovy.control.CompilationUnit
+import org.codehaus.groovy.control.CompilerConfiguration
 import org.gradle.api.Action
 import org.gradle.api.NonExtensible
+import org.gradle.api.internal.cache.GeneratedClassCache
 import org.gradle.api.plugins.ExtensionAware
 import org.gradle.internal.BiAction
 import org.gradle.internal.reflect.DirectInstantiator
 import org.gradle.internal.service.ServiceRegistry
 import org.gradle.internal.typeconversion.TypeConversionException
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.internal.util.BiFunction
 import org.gradle.util.ConfigureUtil
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
 import spock.lang.Issue
 import spock.lang.Specification
 
 import javax.inject.Inject
 
 class AsmBackedClassGeneratorGroovyTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
 
     def generator = new AsmBackedClassGenerator()
     def instantiator = new ClassGeneratorBackedInstantiator(generator, DirectInstantiator.INSTANCE)
@@ -370,6 +379,68 @@ class AsmBackedClassGeneratorGroovyTest extends Specification {
         then:
         values == ["bar"]
     }
+
+    def "defines generated class from cached bytecode when type is loaded again"() {
+        given:
+        def classesDir = compile("class CachedThing { String prop }")
+        def cache = Mock(GeneratedClassCache)
+        def generator = new AsmBackedClassGenerator(cache)
+        def firstType = new URLClassLoader([classesDir.toURI().toURL()] as URL[], getClass().classLoader).loadClass("CachedThing")
+        def secondType = new URLClassLoader([classesDir.toURI().toURL()] as URL[], getClass().classLoader).loadClass("CachedThing")
+        String key = null
+        byte[] bytecode = null
+
+        when:
+        def first = generator.generate(firstType)
+
+        then:
+        1 * cache.get(_) >> null
+        1 * cache.put(_, _) >> { String k, byte[] b -> key = k; bytecode = b }
+        first.superclass == firstType
+
+        when:
+        def second = generator.generate(secondType)
+
+        then:
+        1 * cache.get(key) >> bytecode
+        0 * cache.put(_, _)
+        second != first
+        second.name == "CachedThing_Decorated"
+        second.superclass == secondType
+        second.newInstance() instanceof DynamicObjectAware
+    }
+
+    def "generates class again and discards cached bytecode that cannot be linked"() {
+        given:
+        def classesDir = compile("class CachedThing { String prop }")
+        def cache = Mock(GeneratedClassCache)
+        def generator = new AsmBackedClassGenerator(cache)
+        def type = new URLClassLoader([classesDir.toURI().toURL()] as URL[], getClass().classLoader).loadClass("CachedThing")
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "CachedThing_Decorated", null, "MissingType", null)
+        writer.visitEnd()
+        def staleBytecode = writer.toByteArray()
+
+        when:
+        def generated = generator.generate(type)
+
+        then:
+        1 * cache.get(_) >> staleBytecode
+
+        then:
+        1 * cache.remove(_)
+        1 * cache.put(_, _)
+        generated.name == "CachedThing_Decorated"
+        generated.superclass == type
+    }
+
+    private TestFile compile(String source) {
+        def classesDir = tmpDir.createDir("classes")
+        def unit = new CompilationUnit(new CompilerConfiguration(targetDirectory: classesDir))
+        unit.addSource("CachedThing.groovy", source)
+        unit.compile()
+        return classesDir
+    }
 }
 
 enum TestEnum {
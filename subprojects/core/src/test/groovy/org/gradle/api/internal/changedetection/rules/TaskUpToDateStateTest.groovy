@@ -25,6 +25,7 @@ import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter
 import org.gradle.api.internal.changedetection.state.OutputFilesCollectionSnapshotter
 import org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareType
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyContentNormalization
 import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository
 import org.gradle.api.internal.file.FileCollectionFactory
@@ -129,7 +130,8 @@ class TaskUpToDateStateTest extends Specification {
                 propertyName: entry.key,
                 propertyFiles: new SimpleFileCollection([new File(entry.value)]),
                 compareType: TaskFilePropertyCompareType.UNORDERED,
-                pathSensitivity: TaskFilePropertyPathSensitivityType.ABSOLUTE
+                pathSensitivity: TaskFilePropertyPathSensitivityType.ABSOLUTE,
+                contentNormalization: TaskFilePropertyContentNormalization.NONE
             )
         } as SortedSet
     }
@@ -139,6 +141,7 @@ class TaskUpToDateStateTest extends Specification {
         FileCollection propertyFiles
         TaskFilePropertyCompareType compareType
         TaskFilePropertyPathSensitivityType pathSensitivity
+        TaskFilePropertyContentNormalization contentNormalization
 
         @Override
         int compareTo(TaskPropertySpec o) {
@@ -21,6 +21,7 @@ import com.google.common.hash.Hashing
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.hash.Hasher
 import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
 import org.gradle.internal.resource.TextResource
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -51,6 +52,7 @@ class CachingFileSnapshotterTest extends Specification {
 
         and:
         1 * cache.get(file.getAbsolutePath()) >> null
+        1 * cacheAccess.longRunningOperation("Hash file", _) >> { String operationDisplayName, Factory action -> action.create() }
         1 * target.hash(file) >> hash
         1 * cache.put(file.getAbsolutePath(), _) >> { String key, CachingFileSnapshotter.FileInfo fileInfo ->
             fileInfo.hash == hash
@@ -69,6 +71,7 @@ class CachingFileSnapshotterTest extends Specification {
 
         and:
         1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, 1024, file.lastModified())
+        1 * cacheAccess.longRunningOperation("Hash file", _) >> { String operationDisplayName, Factory action -> action.create() }
         1 * target.hash(file) >> hash
         1 * cache.put(file.getAbsolutePath(), _) >> { String key, CachingFileSnapshotter.FileInfo fileInfo ->
             fileInfo.hash == hash
@@ -87,6 +90,7 @@ class CachingFileSnapshotterTest extends Specification {
 
         and:
         1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), 124)
+        1 * cacheAccess.longRunningOperation("Hash file", _) >> { String operationDisplayName, Factory action -> action.create() }
         1 * target.hash(file) >> hash
         1 * cache.put(file.getAbsolutePath(), _) >> { String key, CachingFileSnapshotter.FileInfo fileInfo ->
             fileInfo.hash == hash
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+class ClassAbiHasherTest extends Specification {
+    def hasher = new ClassAbiHasher()
+
+    def "ignores method bodies"() {
+        expect:
+        hasher.hashClass(generate { method(it, "doSomething", 1) }) == hasher.hashClass(generate { method(it, "doSomething", 2) })
+    }
+
+    def "ignores private and synthetic members"() {
+        def original = hasher.hashClass(generate { method(it, "doSomething", 1) })
+
+        expect:
+        hasher.hashClass(generate { method(it, "doSomething", 1); method(it, "helper", 1, Opcodes.ACC_PRIVATE) }) == original
+        hasher.hashClass(generate { method(it, "doSomething", 1); it.visitField(Opcodes.ACC_PRIVATE, "state", "I", null, null).visitEnd() }) == original
+        hasher.hashClass(generate { method(it, "doSomething", 1); method(it, "access\$000", 1, Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC) }) == original
+    }
+
+    def "ignores order of members"() {
+        expect:
+        hasher.hashClass(generate { method(it, "a", 1); method(it, "b", 1) }) == hasher.hashClass(generate { method(it, "b", 1); method(it, "a", 1) })
+    }
+
+    def "detects changes to visible members"() {
+        def original = hasher.hashClass(generate { method(it, "doSomething", 1) })
+
+        expect:
+        hasher.hashClass(generate { method(it, "doSomethingElse", 1) }) != original
+        hasher.hashClass(generate { method(it, "doSomething", 1); method(it, "helper", 1, 0) }) != original
+        hasher.hashClass(generate { method(it, "doSomething", 1, Opcodes.ACC_PROTECTED) }) != original
+    }
+
+    def "detects changes to constant values"() {
+        expect:
+        hasher.hashClass(generate { constant(it, 1) }) != hasher.hashClass(generate { constant(it, 2) })
+    }
+
+    def "detects changes to annotations"() {
+        expect:
+        hasher.hashClass(generate { annotation(it, "a") }) != hasher.hashClass(generate { annotation(it, "b") })
+        hasher.hashClass(generate { annotation(it, "a") }) != hasher.hashClass(generate {})
+    }
+
+    def "classes that are not visible to other classes have no ABI"() {
+        expect:
+        hasher.hashClass(generate { it.visitOuterClass("Thing", "doSomething", "()V") }) == null
+        hasher.hashClass(generate { it.visitInnerClass("Thing", null, null, 0) }) == null
+        hasher.hashClass(generate { it.visitInnerClass("Thing", "Outer", "Thing", Opcodes.ACC_PRIVATE) }) == null
+        hasher.hashClass(generate { it.visitInnerClass("Thing", "Outer", "Thing", Opcodes.ACC_PUBLIC) }) != null
+    }
+
+    def "fails for invalid class file"() {
+        when:
+        hasher.hashClass("not a class".bytes)
+
+        then:
+        thrown(RuntimeException)
+    }
+
+    private static byte[] generate(Closure body) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "Thing", null, "java/lang/Object", null)
+        body(writer)
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static void method(ClassWriter writer, String name, int returnValue, int access = Opcodes.ACC_PUBLIC) {
+        def method = writer.visitMethod(access, name, "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(returnValue)
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(1, 1)
+        method.visitEnd()
+    }
+
+    private static void constant(ClassWriter writer, int value) {
+        writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "VALUE", "I", null, value).visitEnd()
+    }
+
+    private static void annotation(ClassWriter writer, String value) {
+        def annotation = writer.visitAnnotation("LSomeAnnotation;", true)
+        annotation.visit("value", value)
+        annotation.visitEnd()
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.DefaultNormalizedFileSnapshot
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.IgnoredPathFileSnapshot
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.IndexedNormalizedFileSnapshot
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.NonNormalizedFileSnapshot
+import spock.lang.Specification
+
+class CompactFileSnapshotMapTest extends Specification {
+    def hash = HashCode.fromInt(123)
+
+    def "keeps entries in insertion order"() {
+        def builder = new CompactFileSnapshotMap.Builder(2)
+        (1..20).each {
+            builder.put("/root/file$it" as String, new NonNormalizedFileSnapshot("/root/file$it", new FileHashSnapshot(HashCode.fromInt(it))))
+        }
+
+        when:
+        def map = builder.build()
+
+        then:
+        map instanceof CompactFileSnapshotMap
+        map.size() == 20
+        map.keySet() as List == (1..20).collect { "/root/file$it" as String }
+        map.values()*.snapshot*.hash == (1..20).collect { HashCode.fromInt(it) }
+        map.containsKey("/root/file7")
+        !map.containsKey("/root/file21")
+        map.get("/root/file21") == null
+    }
+
+    def "creates snapshots of the same type as the ones added"() {
+        when:
+        def map = CompactFileSnapshotMap.copyOf([
+            "/root/dir/file": new NonNormalizedFileSnapshot("/root/dir/file", new FileHashSnapshot(hash, 1234L)),
+            "/root/dir": new IndexedNormalizedFileSnapshot("/root/dir", 6, DirSnapshot.getInstance()),
+            "/root/missing": new DefaultNormalizedFileSnapshot("missing", MissingFileSnapshot.getInstance()),
+            "/root/ignored": new IgnoredPathFileSnapshot(new FileHashSnapshot(hash))
+        ])
+
+        then:
+        map instanceof CompactFileSnapshotMap
+
+        def file = map["/root/dir/file"]
+        file instanceof NonNormalizedFileSnapshot
+        file.normalizedPath == "/root/dir/file"
+        file.snapshot.hash == hash
+        file.snapshot.isContentAndMetadataUpToDate(new FileHashSnapshot(hash, 1234L))
+
+        def dir = map["/root/dir"]
+        dir instanceof IndexedNormalizedFileSnapshot
+        dir.normalizedPath == "dir"
+        dir.snapshot instanceof DirSnapshot
+
+        def missing = map["/root/missing"]
+        missing instanceof DefaultNormalizedFileSnapshot
+        missing.normalizedPath == "missing"
+        missing.snapshot instanceof MissingFileSnapshot
+
+        def ignored = map["/root/ignored"]
+        ignored instanceof IgnoredPathFileSnapshot
+        ignored.snapshot.hash == hash
+    }
+
+    def "replaces entry with the same path"() {
+        def builder = new CompactFileSnapshotMap.Builder(2)
+        builder.put("/one", new NonNormalizedFileSnapshot("/one", MissingFileSnapshot.getInstance()))
+        builder.put("/two", new NonNormalizedFileSnapshot("/two", DirSnapshot.getInstance()))
+        builder.put("/one", new NonNormalizedFileSnapshot("/one", new FileHashSnapshot(hash)))
+
+        when:
+        def map = builder.build()
+
+        then:
+        builder.containsKey("/one")
+        map.keySet() as List == ["/one", "/two"]
+        map["/one"].snapshot.hash == hash
+    }
+
+    def "compares content of entries"() {
+        def map = CompactFileSnapshotMap.copyOf([
+            "/file": new NonNormalizedFileSnapshot("/file", new FileHashSnapshot(hash, 1L)),
+            "/dir": new NonNormalizedFileSnapshot("/dir", DirSnapshot.getInstance())
+        ])
+        def other = CompactFileSnapshotMap.copyOf([
+            "/dir": new DefaultNormalizedFileSnapshot("dir", DirSnapshot.getInstance()),
+            "/file": new NonNormalizedFileSnapshot("/file", new FileHashSnapshot(hash, 2L)),
+            "/changed": new NonNormalizedFileSnapshot("/changed", new FileHashSnapshot(HashCode.fromInt(234)))
+        ])
+
+        expect:
+        map.isContentUpToDate(0, other, 1)
+        map.isContentUpToDate(1, other, 0)
+        !map.isContentUpToDate(0, other, 2)
+        !map.isContentUpToDate(0, other, 0)
+    }
+
+    def "falls back to a regular map for entries that cannot be stored compactly"() {
+        def builder = new CompactFileSnapshotMap.Builder(2)
+        builder.put("/one", new NonNormalizedFileSnapshot("/one", new FileHashSnapshot(HashCode.fromInt(1))))
+        builder.put("/two", new NonNormalizedFileSnapshot("/two", new FileHashSnapshot(HashCode.fromLong(2L))))
+
+        when:
+        def map = builder.build()
+
+        then:
+        !(map instanceof CompactFileSnapshotMap)
+        map.keySet() as List == ["/one", "/two"]
+        map["/one"].snapshot.hash == HashCode.fromInt(1)
+        map["/two"].snapshot.hash == HashCode.fromLong(2L)
+    }
+
+    def "keeps empty and compact maps as they are"() {
+        def map = CompactFileSnapshotMap.copyOf(["/one": new NonNormalizedFileSnapshot("/one", DirSnapshot.getInstance())])
+        def empty = [:]
+
+        expect:
+        CompactFileSnapshotMap.copyOf(map).is(map)
+        CompactFileSnapshotMap.copyOf(empty).is(empty)
+    }
+}
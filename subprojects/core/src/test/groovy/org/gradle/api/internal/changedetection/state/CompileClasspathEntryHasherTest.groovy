@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state
+
+import com.google.common.hash.Hashing
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.file.RelativePath
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.cache.PersistentStore
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class CompileClasspathEntryHasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def snapshotter = Stub(FileSnapshotter) {
+        snapshot(_ as FileTreeElement) >> { FileTreeElement element ->
+            def hash = Hashing.md5().hashBytes(element.file.bytes)
+            return Stub(FileSnapshot) { getHash() >> hash }
+        }
+    }
+    def cache = Mock(PersistentIndexedCache)
+    def store = Stub(PersistentStore) {
+        createCache("compileClasspathAbiHashes", String, _) >> cache
+    }
+    def hasher = new CompileClasspathEntryHasher(snapshotter, store)
+
+    def "jars with the same ABI have the same hash"() {
+        def original = jar("original.jar", ["Thing.class": classWithMethodReturning(1)])
+        def changed = jar("changed.jar", ["Thing.class": classWithMethodReturning(2)])
+
+        expect:
+        hash(original) == hash(changed)
+        hash(original) != hash(jar("other.jar", ["Other.class": classWithMethodReturning(1)]))
+    }
+
+    def "uses full content of resources in jars"() {
+        def original = jar("original.jar", ["Thing.class": classWithMethodReturning(1), "thing.properties": "a".bytes])
+        def changed = jar("changed.jar", ["Thing.class": classWithMethodReturning(1), "thing.properties": "b".bytes])
+
+        expect:
+        hash(original) != hash(changed)
+    }
+
+    def "uses full content of jars that declare an annotation processor"() {
+        def original = jar("original.jar", ["Thing.class": classWithMethodReturning(1), (CompileClasspathEntryHasher.ANNOTATION_PROCESSOR_DECLARATION): "Thing".bytes])
+        def changed = jar("changed.jar", ["Thing.class": classWithMethodReturning(2), (CompileClasspathEntryHasher.ANNOTATION_PROCESSOR_DECLARATION): "Thing".bytes])
+
+        expect:
+        hash(original) == Hashing.md5().hashBytes(original.bytes)
+        hash(original) != hash(changed)
+    }
+
+    def "uses ABI of class files in directories"() {
+        def original = tmpDir.file("original/org/Thing.class")
+        original.parentFile.mkdirs()
+        original.bytes = classWithMethodReturning(1)
+        def changed = tmpDir.file("changed/org/Thing.class")
+        changed.parentFile.mkdirs()
+        changed.bytes = classWithMethodReturning(2)
+
+        expect:
+        hash(original, "org/Thing.class") == hash(changed, "org/Thing.class")
+    }
+
+    def "uses full content of class files in directories that declare an annotation processor"() {
+        def original = tmpDir.file("original/org/Thing.class")
+        original.parentFile.mkdirs()
+        original.bytes = classWithMethodReturning(1)
+        tmpDir.file("original", CompileClasspathEntryHasher.ANNOTATION_PROCESSOR_DECLARATION).text = "org.Thing"
+
+        expect:
+        hash(original, "org/Thing.class") == Hashing.md5().hashBytes(original.bytes)
+    }
+
+    def "uses cached ABI hash"() {
+        def jar = jar("original.jar", ["Thing.class": classWithMethodReturning(1)])
+        def cachedHash = Hashing.md5().hashInt(12)
+
+        when:
+        def result = hash(jar)
+
+        then:
+        result == cachedHash
+        1 * cache.get(Hashing.md5().hashBytes(jar.bytes).toString()) >> cachedHash
+        0 * cache._
+    }
+
+    private def hash(TestFile file, String path = file.name) {
+        def element = Stub(FileTreeElement) {
+            getFile() >> file
+            getName() >> file.name
+            getRelativePath() >> RelativePath.parse(true, path)
+        }
+        return hasher.newClasspathHasher().hash(element)
+    }
+
+    private TestFile jar(String name, Map<String, byte[]> entries) {
+        def jar = tmpDir.file(name)
+        def outputStream = new ZipOutputStream(jar.newOutputStream())
+        try {
+            entries.each { path, content ->
+                outputStream.putNextEntry(new ZipEntry(path))
+                outputStream.write(content)
+                outputStream.closeEntry()
+            }
+        } finally {
+            outputStream.close()
+        }
+        return jar
+    }
+
+    private static byte[] classWithMethodReturning(int value) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "Thing", null, "java/lang/Object", null)
+        def method = writer.visitMethod(Opcodes.ACC_PUBLIC, "getValue", "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(value)
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(1, 1)
+        method.visitEnd()
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+}
@@ -20,6 +20,9 @@ import com.google.common.base.Charsets
 import com.google.common.hash.Hashing
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.DefaultNormalizedFileSnapshot
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.IgnoredPathFileSnapshot
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.IndexedNormalizedFileSnapshot
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.NonNormalizedFileSnapshot
 import org.gradle.internal.serialize.SerializerSpec
 
 class DefaultFileCollectionSnapshotSerializerTest extends SerializerSpec {
@@ -58,4 +61,24 @@ class DefaultFileCollectionSnapshotSerializerTest extends SerializerSpec {
         then:
         out.snapshots.keySet() as List == ['/3', '/2', '/1']
     }
+
+    def "reads and writes paths that share a prefix with the previous entry"() {
+        when:
+        def hash = Hashing.md5().hashString("foo", Charsets.UTF_8)
+        DefaultFileCollectionSnapshot out = serialize(new DefaultFileCollectionSnapshot([
+            "/root/dir/a": new DefaultNormalizedFileSnapshot("dir/a", new FileHashSnapshot(hash)),
+            "/root/dir/ab": new IndexedNormalizedFileSnapshot("/root/dir/ab", 6, DirSnapshot.getInstance()),
+            "/root/dir/b": new DefaultNormalizedFileSnapshot("dir/b", MissingFileSnapshot.getInstance()),
+            "/root": new NonNormalizedFileSnapshot("/root", DirSnapshot.getInstance()),
+            "/other/\ud83d\ude00": new DefaultNormalizedFileSnapshot("\ud83d\ude00", MissingFileSnapshot.getInstance()),
+            "/other/\ud83d\ude01": new IgnoredPathFileSnapshot(MissingFileSnapshot.getInstance())
+        ], TaskFilePropertyCompareType.UNORDERED), serializer)
+
+        then:
+        out.snapshots.keySet() as List == ['/root/dir/a', '/root/dir/ab', '/root/dir/b', '/root', '/other/\ud83d\ude00', '/other/\ud83d\ude01']
+        out.snapshots.values()*.normalizedPath == ['dir/a', 'dir/ab', 'dir/b', '/root', '\ud83d\ude00', '']
+        out.snapshots['/root/dir/a'].snapshot.hash == hash
+        out.snapshots['/root/dir/ab'] instanceof IndexedNormalizedFileSnapshot
+        out.snapshots['/root'] instanceof NonNormalizedFileSnapshot
+    }
 }
@@ -25,6 +25,7 @@ import org.gradle.api.internal.changedetection.rules.ChangeType
 import org.gradle.api.internal.changedetection.rules.FileChange
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.ChangeListener
@@ -269,6 +270,74 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
         snapshot.files.collect { it.name } == testfileNames
     }
 
+    def "hashes the files of a large collection in batches before building the snapshot"() {
+        given:
+        def cacheAccess = Mock(TaskArtifactStateCacheAccess)
+        def snapshotExecutor = new FileSnapshotExecutor(new DefaultExecutorFactory(), 4)
+        def snapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, TestFiles.resolver(), null, snapshotExecutor)
+        def inputFiles = (1..250).collect { tmpDir.createFile("file$it") }
+
+        when:
+        def snapshot = snapshotter.snapshot(files(inputFiles as File[]), UNORDERED, ABSOLUTE)
+
+        then:
+        3 * cacheAccess.useCache("Hash files", _) >> { String name, Runnable action -> action.run() }
+
+        then:
+        1 * cacheAccess.useCache("Create file snapshot", _) >> { String name, Runnable action -> action.run() }
+        0 * cacheAccess._
+
+        and:
+        snapshot.files as List == inputFiles
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
+    def "hashes the files of a small collection while building the snapshot"() {
+        given:
+        def cacheAccess = Mock(TaskArtifactStateCacheAccess)
+        def snapshotExecutor = new FileSnapshotExecutor(new DefaultExecutorFactory(), 4)
+        def snapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, TestFiles.resolver(), null, snapshotExecutor)
+        def inputFiles = (1..199).collect { tmpDir.createFile("file$it") }
+
+        when:
+        def snapshot = snapshotter.snapshot(files(inputFiles as File[]), UNORDERED, ABSOLUTE)
+
+        then:
+        1 * cacheAccess.useCache("Create file snapshot", _) >> { String name, Runnable action -> action.run() }
+        0 * cacheAccess._
+
+        and:
+        snapshot.files as List == inputFiles
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
+    def "propagates failure to hash a file of a large collection"() {
+        given:
+        def failure = new RuntimeException("broken")
+        def fileSnapshotter = Stub(FileSnapshotter) {
+            snapshot(_) >> { FileTreeElement fileTreeElement ->
+                throw failure
+            }
+        }
+        def snapshotExecutor = new FileSnapshotExecutor(new DefaultExecutorFactory(), 4)
+        def snapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, TestFiles.resolver(), null, snapshotExecutor)
+        def inputFiles = (1..250).collect { tmpDir.createFile("file$it") }
+
+        when:
+        snapshotter.snapshot(files(inputFiles as File[]), UNORDERED, ABSOLUTE)
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
     private static void changes(FileCollectionSnapshot newSnapshot, FileCollectionSnapshot oldSnapshot, ChangeListener<String> listener) {
         newSnapshot.iterateContentChangesSince(oldSnapshot, "TYPE").each { FileChange change ->
             switch (change.type) {
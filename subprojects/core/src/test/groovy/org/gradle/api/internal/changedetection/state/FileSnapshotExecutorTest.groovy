@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class FileSnapshotExecutorTest extends ConcurrentSpec {
+    def "runs all actions on the calling thread when no other threads are allowed"() {
+        given:
+        def snapshotExecutor = new FileSnapshotExecutor(executorFactory, 1)
+        def threads = new CopyOnWriteArrayList<Thread>()
+        def actions = (1..5).collect { { -> threads << Thread.currentThread() } as Runnable }
+
+        when:
+        snapshotExecutor.runAll(actions)
+
+        then:
+        threads.size() == 5
+        threads.every { it == Thread.currentThread() }
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
+    def "runs actions concurrently with the calling thread"() {
+        given:
+        def snapshotExecutor = new FileSnapshotExecutor(executorFactory, 2)
+        def action1 = {
+            instant.action1Started
+            thread.blockUntil.action2Started
+        } as Runnable
+        def action2 = {
+            instant.action2Started
+            thread.blockUntil.action1Started
+        } as Runnable
+
+        when:
+        async {
+            snapshotExecutor.runAll([action1, action2])
+        }
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
+    def "does nothing when there are no actions"() {
+        given:
+        def snapshotExecutor = new FileSnapshotExecutor(executorFactory, 2)
+
+        when:
+        snapshotExecutor.runAll([])
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
+    def "rethrows the first failure and skips actions that have not started"() {
+        given:
+        def snapshotExecutor = new FileSnapshotExecutor(executorFactory, 1)
+        def failure = new RuntimeException("broken")
+        def action1 = Mock(Runnable)
+        def action2 = Mock(Runnable)
+        def action3 = Mock(Runnable)
+
+        when:
+        snapshotExecutor.runAll([action1, action2, action3])
+
+        then:
+        1 * action1.run()
+        1 * action2.run() >> { throw failure }
+        0 * action3.run()
+
+        and:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
+    def "rethrows failure of an action run by another thread"() {
+        given:
+        def snapshotExecutor = new FileSnapshotExecutor(executorFactory, 2)
+        def failure = new RuntimeException("broken")
+        def action1 = {
+            instant.action1Started
+            thread.blockUntil.action2Started
+            throw failure
+        } as Runnable
+        def action2 = {
+            instant.action2Started
+            thread.blockUntil.action1Started
+            throw failure
+        } as Runnable
+
+        when:
+        async {
+            snapshotExecutor.runAll([action1, action2])
+        }
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
+    def "releases its threads once the actions have completed"() {
+        given:
+        def snapshotExecutor = new FileSnapshotExecutor(executorFactory, 2)
+
+        when:
+        snapshotExecutor.runAll([{ throw new RuntimeException("broken") } as Runnable, {} as Runnable])
+
+        then:
+        thrown(RuntimeException)
+
+        when:
+        async {
+            snapshotExecutor.runAll([
+                {
+                    instant.action1Started
+                    thread.blockUntil.action2Started
+                } as Runnable,
+                {
+                    instant.action2Started
+                    thread.blockUntil.action1Started
+                } as Runnable
+            ])
+        }
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+
+    def "shares its threads between callers"() {
+        given:
+        def snapshotExecutor = new FileSnapshotExecutor(executorFactory, 2)
+        def threads = new CopyOnWriteArrayList<Thread>()
+
+        when:
+        async {
+            start {
+                snapshotExecutor.runAll([
+                    {
+                        instant.action1Started
+                        thread.blockUntil.otherCallerFinished
+                    } as Runnable,
+                    {
+                        instant.action2Started
+                        thread.blockUntil.otherCallerFinished
+                    } as Runnable
+                ])
+            }
+            thread.blockUntil.action1Started
+            thread.blockUntil.action2Started
+            start {
+                def caller = Thread.currentThread()
+                snapshotExecutor.runAll((1..3).collect { { -> threads << caller << Thread.currentThread() } as Runnable })
+                instant.otherCallerFinished
+            }
+        }
+
+        then:
+        // The only other thread is in use by the first caller, so the second caller runs its actions itself
+        threads.size() == 6
+        threads.collate(2).every { it[0] == it[1] }
+
+        cleanup:
+        snapshotExecutor?.stop()
+    }
+}
@@ -16,6 +16,9 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import com.google.common.collect.Lists
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.changedetection.state.TaskFilePropertyPathSensitivityType.NonNormalizedFileSnapshot
 import spock.lang.Shared
 
 import static org.gradle.api.internal.changedetection.rules.ChangeType.*
@@ -56,4 +59,30 @@ class OrderInsensitiveTaskFilePropertyCompareStrategyTest extends AbstractTaskFi
         where:
         strategy << [includeAdded, excludeAdded]
     }
+
+    def "compares compact snapshots in place"() {
+        def current = CompactFileSnapshotMap.copyOf([
+            "/one": fileSnapshot("/one", 1),
+            "/two": fileSnapshot("/two", 2),
+            "/three": new NonNormalizedFileSnapshot("/three", DirSnapshot.getInstance()),
+            "/five": fileSnapshot("/five", 5)
+        ])
+        def previous = CompactFileSnapshotMap.copyOf([
+            "/six": fileSnapshot("/six", 6),
+            "/three": new NonNormalizedFileSnapshot("/three", MissingFileSnapshot.getInstance()),
+            "/two": fileSnapshot("/two", 3),
+            "/four": fileSnapshot("/four", 4),
+            "/one": fileSnapshot("/one", 1)
+        ])
+
+        expect:
+        current instanceof CompactFileSnapshotMap
+        Lists.newArrayList(includeAdded.iterateContentChangesSince(current, previous, "test")) == [change("/two", MODIFIED), change("/three", MODIFIED), change("/five", ADDED), change("/six", REMOVED), change("/four", REMOVED)]
+        Lists.newArrayList(excludeAdded.iterateContentChangesSince(current, previous, "test")) == [change("/two", MODIFIED), change("/three", MODIFIED), change("/six", REMOVED), change("/four", REMOVED)]
+        Lists.newArrayList(includeAdded.iterateContentChangesSince(current, current, "test")) == []
+    }
+
+    private static NormalizedFileSnapshot fileSnapshot(String path, int hash) {
+        new NonNormalizedFileSnapshot(path, new FileHashSnapshot(HashCode.fromInt(hash)))
+    }
 }
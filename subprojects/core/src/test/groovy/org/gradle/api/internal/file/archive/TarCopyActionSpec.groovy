@@ -79,7 +79,7 @@ public class TarCopyActionSpec extends Specification {
 
         then:
         def expected = [dir: 2, file: 1]
-        assertVisitsPermissions(new TarFileTree(tarFile, new FileResource(tarFile), null, fileSystem(), fileSystem(), directoryFileTreeFactory()), expected);
+        assertVisitsPermissions(new TarFileTree(tarFile, new FileResource(tarFile), null, fileSystem(), directoryFileTreeFactory()), expected);
     }
 
     def "wraps failure to open output file"() {
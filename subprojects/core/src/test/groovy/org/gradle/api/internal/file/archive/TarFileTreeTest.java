@@ -15,8 +15,11 @@
  */
 package org.gradle.api.internal.file.archive;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.file.FileResource;
 import org.gradle.api.internal.file.MaybeCompressedFileResource;
 import org.gradle.api.resources.MissingResourceException;
@@ -26,6 +29,7 @@ import org.gradle.util.Resources;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -44,7 +48,7 @@ public class TarFileTreeTest {
     private final TestFile tarFile = tmpDir.getTestDirectory().file("test.tar");
     private final TestFile rootDir = tmpDir.getTestDirectory().file("root");
     private final TestFile expandDir = tmpDir.getTestDirectory().file("tmp");
-    private final TarFileTree tree = new TarFileTree(tarFile, new MaybeCompressedFileResource(new FileResource(tarFile)), expandDir, fileSystem(), fileSystem(), directoryFileTreeFactory());
+    private final TarFileTree tree = new TarFileTree(tarFile, new MaybeCompressedFileResource(new FileResource(tarFile)), expandDir, fileSystem(), directoryFileTreeFactory());
 
     @Test
     public void displayName() {
@@ -69,7 +73,7 @@ public class TarFileTreeTest {
         rootDir.file("subdir2/file2.txt").write("content");
         rootDir.tgzTo(tgz);
 
-        TarFileTree tree = new TarFileTree(tarFile, new MaybeCompressedFileResource(new FileResource(tgz)), expandDir, fileSystem(), fileSystem(), directoryFileTreeFactory());
+        TarFileTree tree = new TarFileTree(tarFile, new MaybeCompressedFileResource(new FileResource(tgz)), expandDir, fileSystem(), directoryFileTreeFactory());
 
         assertVisits(tree, toList("subdir/file1.txt", "subdir2/file2.txt"), toList("subdir", "subdir2"));
         assertSetContainsForAllTypes(tree, toList("subdir/file1.txt", "subdir2/file2.txt"));
@@ -83,12 +87,44 @@ public class TarFileTreeTest {
         rootDir.file("subdir2/file2.txt").write("content");
         rootDir.tbzTo(tbz2);
 
-        TarFileTree tree = new TarFileTree(tarFile, new MaybeCompressedFileResource(new FileResource(tbz2)), expandDir, fileSystem(), fileSystem(), directoryFileTreeFactory());
+        TarFileTree tree = new TarFileTree(tarFile, new MaybeCompressedFileResource(new FileResource(tbz2)), expandDir, fileSystem(), directoryFileTreeFactory());
 
         assertVisits(tree, toList("subdir/file1.txt", "subdir2/file2.txt"), toList("subdir", "subdir2"));
         assertSetContainsForAllTypes(tree, toList("subdir/file1.txt", "subdir2/file2.txt"));
     }
 
+    @Test
+    public void extractsAndHashesEntriesWhenVisitingTarWithoutBackingFile() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.file("subdir/file2.txt").write("content");
+        rootDir.file("subdir/file3.txt").write("other");
+        rootDir.tarTo(tarFile);
+
+        TarFileTree tree = new TarFileTree(null, new MaybeCompressedFileResource(new FileResource(tarFile) {
+            @Override
+            public File getBackingFile() {
+                return null;
+            }
+        }), expandDir, fileSystem(), directoryFileTreeFactory());
+
+        final Map<String, ArchiveEntryFileVisitDetails> entries = new HashMap<String, ArchiveEntryFileVisitDetails>();
+        tree.visitTreeOrBackingFile(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                entries.put(fileDetails.getPath(), (ArchiveEntryFileVisitDetails) fileDetails);
+            }
+        });
+
+        // The files have been extracted and hashed by the time the visit has finished
+        TestFile file1 = new TestFile(entries.get("subdir/file1.txt").getFile());
+        file1.assertIsFile();
+        assertThat(file1.getText(), equalTo("content"));
+        assertThat(file1, equalTo(new TestFile(tree.getMirror().getDir(), "subdir/file1.txt")));
+        HashCode hash1 = entries.get("subdir/file1.txt").getContentHash();
+        assertThat(hash1, equalTo(entries.get("subdir/file2.txt").getContentHash()));
+        assertThat(hash1, not(equalTo(entries.get("subdir/file3.txt").getContentHash())));
+    }
+
     @Test
     public void canStopVisitingFiles() {
         rootDir.file("subdir/file1.txt").write("content");
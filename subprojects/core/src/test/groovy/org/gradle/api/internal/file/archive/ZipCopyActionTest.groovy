@@ -16,14 +16,18 @@
 package org.gradle.api.internal.file.archive
 
 import org.apache.tools.zip.Zip64RequiredException
+import org.apache.tools.zip.ZipFile
 import org.apache.tools.zip.ZipOutputStream
+import org.gradle.api.GradleException
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction
 import org.gradle.api.internal.file.copy.CopyActionProcessingStream
 import org.gradle.api.internal.file.copy.DefaultZipCompressor
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
+import org.gradle.api.specs.Spec
 import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -108,15 +112,16 @@ class ZipCopyActionTest extends Specification {
 
     void wrapsZip64Failure() {
         given:
-        def zipOutputStream = Mock(ZipOutputStream)
-        zipOutputStream.close() >> {
+        def zipWriter = Mock(ZipArchiveWriter)
+        zipWriter.getMethod() >> ZipOutputStream.STORED
+        zipWriter.close() >> {
             throw new Zip64RequiredException("xyz")
         }
 
         def compressor = new DefaultZipCompressor(false, ZipOutputStream.STORED) {
             @Override
-            ZipOutputStream createArchiveOutputStream(File destination) {
-                zipOutputStream
+            ZipArchiveWriter createArchiveWriter(File destination, String encoding) {
+                zipWriter
             }
         }
 
@@ -134,6 +139,192 @@ class ZipCopyActionTest extends Specification {
         e.message == "xyz\n\nTo build this archive, please enable the zip64 extension.\nSee: doc url"
     }
 
+    void compressesEntriesConcurrentlyInVisitOrder() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def pool = new ZipCompressionPool(executorFactory, 4)
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, true, pool, null)
+        def files = (1..50).collect { file("dir/file$it") }
+
+        when:
+        zip(([dir("dir")] + files) as FileCopyDetailsInternal[])
+
+        then:
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.entries.collect { it.name } == ["dir/"] + (1..50).collect { "dir/file$it" }
+            (1..50).each {
+                def entry = zip.getEntry("dir/file$it")
+                assert entry.method == ZipOutputStream.DEFLATED
+                assert zip.getInputStream(entry).text == "contents of dir/file$it"
+            }
+        } finally {
+            zip.close()
+            pool.stop()
+            executorFactory.stop()
+        }
+    }
+
+    void sharesCompressionPoolBetweenZipFilesAndKeepsUsingItAfterFailure() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def pool = new ZipCompressionPool(executorFactory, 4)
+        def failure = new RuntimeException("broken")
+        def files = (1..20).collect { file("dir/file$it") }
+        def failingZip = tmpDir.getTestDirectory().file("failing.zip")
+
+        when:
+        new ZipCopyAction(failingZip, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, true, pool, null)
+            .execute(stream((files + [brokenFile("dir/broken", failure)]) as FileCopyDetailsInternal[]))
+
+        then:
+        def e = thrown(GradleException)
+        e.cause.is(failure)
+
+        when:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, true, pool, null)
+        zip(files as FileCopyDetailsInternal[])
+
+        then:
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.entries.collect { it.name } == (1..20).collect { "dir/file$it" }
+            assert zip.getInputStream(zip.getEntry("dir/file20")).text == "contents of dir/file20"
+        } finally {
+            zip.close()
+            pool.stop()
+            executorFactory.stop()
+        }
+    }
+
+    void compressesContentWrittenOneByteAtATime() {
+        given:
+        def content = "abc" * 5000
+        def details = Mock(FileCopyDetailsInternal)
+        details.getRelativePath() >> RelativePath.parse(true, "file")
+        details.getLastModified() >> 1000L
+        details.isDirectory() >> false
+        details.getMode() >> 1
+        details.copyTo(_ as OutputStream) >> { OutputStream out ->
+            content.bytes.each { out.write(it as int) }
+        }
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding)
+
+        when:
+        zip(details)
+
+        then:
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.getInputStream(zip.getEntry("file")).text == content
+        } finally {
+            zip.close()
+        }
+    }
+
+    void usesConstantTimestampsWhenFileTimestampsAreNotPreserved() {
+        given:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, null, null)
+
+        when:
+        zip(dir("dir"), file("dir/file1"))
+
+        then:
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.entries.collect { it.time } == [ZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES, ZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES]
+        } finally {
+            zip.close()
+        }
+    }
+
+    void copiesCompressedContentOfEntriesFromOtherZipFiles() {
+        given:
+        def sourceZip = tmpDir.getTestDirectory().file("source.zip")
+        new ZipCopyAction(sourceZip, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding).execute(stream(file("file1")))
+        def rawEntry = new RawZipFile(sourceZip)
+        def details = Mock(RawZipSourceDetails)
+        details.getRelativePath() >> RelativePath.parse(true, "file1")
+        details.getLastModified() >> 1000L
+        details.isDirectory() >> false
+        details.getMode() >> 1
+        details.getRawZipEntry() >> rawEntry.getEntry("file1")
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding)
+
+        when:
+        zip(details)
+
+        then:
+        0 * details.copyTo(_)
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.getInputStream(zip.getEntry("file1")).text == "contents of file1"
+        } finally {
+            zip.close()
+            rawEntry.close()
+        }
+    }
+
+    void reusesEntriesOfPreviousZipFileForUnchangedSourceFiles() {
+        given:
+        def unchanged = tmpDir.file("unchanged.txt") << "unchanged content"
+        def changed = tmpDir.file("changed.txt") << "original content"
+        def removed = tmpDir.file("removed.txt") << "removed content"
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding)
+        zip(sourceFile("unchanged.txt", unchanged), sourceFile("changed.txt", changed), sourceFile("removed.txt", removed))
+        def original = new RawZipFile(zipFile)
+        def originalEntry = original.getEntry("unchanged.txt")
+        def expectedCompressedSize = originalEntry.compressedSize
+        def expectedCrc = originalEntry.crc
+        original.close()
+
+        changed.text = "modified content"
+        def unchangedDetails = sourceFile("unchanged.txt", unchanged)
+        def unchangedSourceFiles = { File file -> file != changed } as Spec<File>
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, true, null, unchangedSourceFiles)
+
+        when:
+        zip(unchangedDetails, sourceFile("changed.txt", changed))
+
+        then:
+        0 * unchangedDetails.copyTo(_)
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.entries.collect { it.name } == ["unchanged.txt", "changed.txt"]
+            assert zip.getInputStream(zip.getEntry("unchanged.txt")).text == "unchanged content"
+            assert zip.getInputStream(zip.getEntry("changed.txt")).text == "modified content"
+            assert zip.getEntry("unchanged.txt").compressedSize == expectedCompressedSize
+            assert zip.getEntry("unchanged.txt").crc == expectedCrc
+        } finally {
+            zip.close()
+        }
+        !tmpDir.file("test.zip.tmp").exists()
+    }
+
+    void doesNotReuseEntryOfPreviousZipFileCopiedFromAnotherSourceFile() {
+        given:
+        def removed = tmpDir.file("a/file.txt") << "content a"
+        def unchanged = tmpDir.file("b/file.txt") << "content b"
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding)
+        zip(sourceFile("file.txt", removed))
+
+        removed.delete()
+        def unchangedDetails = sourceFile("file.txt", unchanged)
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, true, null, { true } as Spec<File>)
+
+        when:
+        zip(unchangedDetails)
+
+        then:
+        1 * unchangedDetails.copyTo(_ as OutputStream) >> { OutputStream out -> out << unchanged.bytes }
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.getInputStream(zip.getEntry("file.txt")).text == "content b"
+        } finally {
+            zip.close()
+        }
+    }
+
     @Test
     public void wrapsFailureToAddElement() {
         given:
@@ -150,13 +341,17 @@ class ZipCopyActionTest extends Specification {
     }
 
     private void zip(final FileCopyDetailsInternal... files) {
-        visitor.execute(new CopyActionProcessingStream() {
+        visitor.execute(stream(files));
+    }
+
+    private static CopyActionProcessingStream stream(final FileCopyDetailsInternal... files) {
+        return new CopyActionProcessingStream() {
             public void process(CopyActionProcessingStreamAction action) {
                 for (FileCopyDetailsInternal f : files) {
                     action.processFile(f);
                 }
             }
-        });
+        }
     }
 
     private FileCopyDetailsInternal file(final String path) {
@@ -171,6 +366,20 @@ class ZipCopyActionTest extends Specification {
         mock
     }
 
+    private FileCopyDetailsInternal sourceFile(final String path, final File file) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(true, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.getSize() >> { file.length() }
+        mock.getUnfilteredSourceFile() >> file
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            out << file.bytes
+        }
+        mock
+    }
+
     private FileCopyDetailsInternal dir(final String path) {
         def mock = Mock(FileCopyDetailsInternal)
         mock.getRelativePath() >> RelativePath.parse(false, path)
@@ -192,4 +401,7 @@ class ZipCopyActionTest extends Specification {
         }
         mock
     }
+
+    interface RawZipSourceDetails extends FileCopyDetailsInternal, RawZipEntrySource {
+    }
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.collections
+
+import org.gradle.api.GradleException
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.nativeintegration.services.FileSystems
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@UsesNativeServices
+class CachingDirectoryWalkerTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def executorFactory = new DefaultExecutorFactory()
+    def walker = new CachingDirectoryWalker(new DefaultDirectoryWalker(FileSystems.default), FileSystems.default, executorFactory)
+
+    def cleanup() {
+        walker.stop()
+        executorFactory.stop()
+    }
+
+    def "visits the same files and attributes as the default walker"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a.txt") << "a"
+        rootDir.createFile("a/b/c.txt") << "abc"
+        rootDir.createFile("a/b/c.html") << "<html/>"
+        rootDir.createFile("a/d/e.txt") << "ade"
+        rootDir.createFile("f/g.txt") << "fg"
+        rootDir.createDir("h")
+        walker.enable()
+
+        expect:
+        visit(rootDir, walker, patterns, postfix) == visit(rootDir, new DefaultDirectoryWalker(FileSystems.default), patterns, postfix)
+
+        where:
+        patterns                                       | postfix
+        new PatternSet()                               | false
+        new PatternSet()                               | true
+        new PatternSet().include("**/*.txt")           | false
+        new PatternSet().exclude("a/b/**")             | false
+        new PatternSet().include("a/**").exclude("**/*.html") | true
+    }
+
+    def "serves visits from the snapshot until it is invalidated"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/b.txt")
+        walker.enable()
+        visit(rootDir, walker)
+
+        when:
+        rootDir.createFile("a/c.txt")
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/b.txt"]
+
+        when:
+        walker.invalidate([rootDir.file("a/c.txt")])
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/b.txt", "file a/c.txt"]
+
+        when:
+        rootDir.file("a/b.txt").delete()
+        walker.invalidate([tmpDir.testDirectory])
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/c.txt"]
+
+        when:
+        rootDir.createFile("d.txt")
+        walker.invalidate([tmpDir.file("root2")])
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/c.txt"]
+
+        when:
+        walker.invalidateAll()
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/c.txt", "file d.txt"]
+    }
+
+    def "does not use or keep snapshots of files that are being changed"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        def otherDir = tmpDir.createDir("other")
+        rootDir.createFile("a/b.txt")
+        otherDir.createFile("c.txt")
+        walker.enable()
+        visit(rootDir, walker)
+        visit(otherDir, walker)
+
+        when:
+        def changes = walker.startChanges([rootDir.file("a")])
+        rootDir.createFile("a/d.txt")
+        otherDir.createFile("e.txt")
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/b.txt", "file a/d.txt"]
+        visitedPaths(otherDir, walker) == ["file c.txt"]
+
+        when:
+        rootDir.createFile("a/f.txt")
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/b.txt", "file a/d.txt", "file a/f.txt"]
+
+        when:
+        changes.finished()
+        rootDir.createFile("g.txt")
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/b.txt", "file a/d.txt", "file a/f.txt", "file g.txt"]
+
+        when:
+        rootDir.createFile("h.txt")
+
+        then:
+        visitedPaths(rootDir, walker) == ["dir a", "file a/b.txt", "file a/d.txt", "file a/f.txt", "file g.txt"]
+    }
+
+    def "does not use or keep any snapshots while any file may be changed"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a.txt")
+        walker.enable()
+        visit(rootDir, walker)
+
+        when:
+        def changes = walker.startChangesToAll()
+        rootDir.createFile("b.txt")
+
+        then:
+        visitedPaths(rootDir, walker) == ["file a.txt", "file b.txt"]
+
+        when:
+        rootDir.createFile("c.txt")
+        changes.finished()
+
+        then:
+        visitedPaths(rootDir, walker) == ["file a.txt", "file b.txt", "file c.txt"]
+    }
+
+    def "does not keep snapshots until enabled"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a.txt")
+        visit(rootDir, walker)
+
+        when:
+        rootDir.createFile("b.txt")
+
+        then:
+        visitedPaths(rootDir, walker) == ["file a.txt", "file b.txt"]
+    }
+
+    def "walks large trees"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateFilesAndSubDirectories(rootDir, 4, 4, 4, 1)
+        walker.enable()
+
+        expect:
+        visit(rootDir, walker) == visit(rootDir, new DefaultDirectoryWalker(FileSystems.default))
+    }
+
+    @Requires(TestPrecondition.SYMLINKS)
+    def "missing symbolic link causes an exception only when it is visited"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        def dir = rootDir.createDir("target")
+        def link = rootDir.file("source")
+        link.createLink(dir)
+        dir.deleteDir()
+        rootDir.createFile("hello.txt")
+        walker.enable()
+
+        expect:
+        visitedPaths(rootDir, walker, new PatternSet().include("*.txt")) == ["file hello.txt"]
+
+        when:
+        visit(rootDir, walker)
+
+        then:
+        GradleException e = thrown()
+        e.message.contains("Could not list contents of '${link.absolutePath}'.")
+
+        cleanup:
+        link.delete()
+    }
+
+    private static List<String> visit(File rootDir, DirectoryWalker walkerInstance, PatternSet patterns = new PatternSet(), boolean postfix = false) {
+        def fileTree = new DirectoryFileTree(rootDir, patterns, { walkerInstance } as Factory)
+        if (postfix) {
+            fileTree.postfix()
+        }
+        def visited = []
+        fileTree.visit([
+            visitFile: { FileVisitDetails details -> visited << "file ${details.relativePath} ${details.size} ${details.lastModified}".toString() },
+            visitDir: { FileVisitDetails details -> visited << "dir ${details.relativePath}".toString() }
+        ] as FileVisitor)
+        visited
+    }
+
+    private static List<String> visitedPaths(File rootDir, DirectoryWalker walkerInstance, PatternSet patterns = new PatternSet()) {
+        // The order of the entries of a directory is not specified
+        visit(rootDir, walkerInstance, patterns).collect { it.replaceAll(/ \d+ \d+$/, "") }.sort()
+    }
+
+    private generateFilesAndSubDirectories(TestFile parentDir, int fileCount, int dirCount, int maxDepth, int currentDepth) {
+        for (int i = 0; i < fileCount; i++) {
+            parentDir.createFile("file" + i) << ("x" * i)
+        }
+        if (currentDepth < maxDepth) {
+            for (int i = 0; i < dirCount; i++) {
+                generateFilesAndSubDirectories(parentDir.createDir("dir" + i), fileCount, dirCount, maxDepth, currentDepth + 1)
+            }
+        }
+    }
+}
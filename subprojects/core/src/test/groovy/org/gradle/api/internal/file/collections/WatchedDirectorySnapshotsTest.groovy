@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections
+
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.filewatch.DefaultFileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.internal.nativeintegration.services.FileSystems
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@UsesNativeServices
+@Requires(TestPrecondition.LINUX)
+class WatchedDirectorySnapshotsTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def executorFactory = new DefaultExecutorFactory()
+    def fileWatcherFactory = new DefaultFileWatcherFactory(executorFactory)
+    FileWatcherListener listener
+    def snapshots = new WatchedDirectorySnapshots({ onError, FileWatcherListener eventListener ->
+        listener = eventListener
+        fileWatcherFactory.watch(onError, eventListener)
+    } as FileWatcherFactory)
+
+    def cleanup() {
+        snapshots.stop()
+        fileWatcherFactory.stop()
+        executorFactory.stop()
+    }
+
+    def "keeps the snapshots of a build for later builds"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/b.txt") << "b"
+        def visited = build { walker -> visit(rootDir, walker) }
+
+        expect:
+        build { walker ->
+            assert snapshots.get(rootDir) != null
+            visit(rootDir, walker)
+        } == visited
+    }
+
+    def "discards the snapshot of a directory when a change is reported under it"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/b.txt")
+        def otherDir = tmpDir.createDir("other")
+        otherDir.createFile("c.txt")
+        build { walker ->
+            visit(rootDir, walker)
+            visit(otherDir, walker)
+        }
+
+        when:
+        rootDir.createFile("a/d.txt")
+
+        then:
+        build { walker ->
+            assert snapshots.get(rootDir) == null
+            assert snapshots.get(otherDir) != null
+            visitedPaths(rootDir, walker)
+        } == ["dir a", "file a/b.txt", "file a/d.txt"]
+    }
+
+    def "discards all snapshots when changes may have been missed"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/b.txt")
+        def otherDir = tmpDir.createDir("other")
+        otherDir.createFile("c.txt")
+        build { walker ->
+            visit(rootDir, walker)
+            visit(otherDir, walker)
+        }
+
+        when:
+        listener.onChange(null, FileWatcherEvent.overflow(rootDir))
+
+        then:
+        snapshots.get(rootDir) == null
+        snapshots.get(otherDir) == null
+    }
+
+    def "keeps the snapshot of a directory that contains a symbolic link until the end of the build only"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a.txt")
+        def targetDir = tmpDir.createDir("target")
+        targetDir.createFile("b.txt")
+        rootDir.file("link").createLink(targetDir)
+
+        when:
+        build { walker ->
+            visit(rootDir, walker)
+            assert snapshots.get(rootDir) != null
+        }
+
+        then:
+        snapshots.get(rootDir) == null
+    }
+
+    private <T> T build(Closure<T> action) {
+        def walker = new CachingDirectoryWalker(new DefaultDirectoryWalker(FileSystems.default), FileSystems.default, executorFactory, snapshots)
+        try {
+            walker.enable()
+            return action.call(walker)
+        } finally {
+            walker.stop()
+        }
+    }
+
+    private static List<String> visit(File rootDir, DirectoryWalker walkerInstance) {
+        def fileTree = new DirectoryFileTree(rootDir, new PatternSet(), { walkerInstance } as Factory)
+        def visited = []
+        fileTree.visit([
+            visitFile: { FileVisitDetails details -> visited << "file ${details.relativePath} ${details.size} ${details.lastModified}".toString() },
+            visitDir: { FileVisitDetails details -> visited << "dir ${details.relativePath}".toString() }
+        ] as FileVisitor)
+        visited
+    }
+
+    private static List<String> visitedPaths(File rootDir, DirectoryWalker walkerInstance) {
+        // The order of the entries of a directory is not specified
+        visit(rootDir, walkerInstance).collect { it.replaceAll(/ \d+ \d+$/, "") }.sort()
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.specs.Spec
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
+
+class FileCopyActionSpec extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final executorFactory = new DefaultExecutorFactory()
+    final copyPool = new FileCopyPool(executorFactory, 4)
+    TestFile destDir
+    int sourceCount
+
+    def setup() {
+        destDir = tmpDir.file("dest")
+    }
+
+    def cleanup() {
+        copyPool.stop()
+        executorFactory.stop()
+    }
+
+    def "copies files concurrently"() {
+        given:
+        def action = new FileCopyAction(TestFiles.resolver(destDir), copyPool, null)
+        def files = (1..20).collect { sourceFile("dir${it % 3}/file${it}.txt", "content $it") }
+
+        when:
+        def result = visit(action, files as FileCopyDetailsInternal[])
+
+        then:
+        result.didWork
+        (1..20).each {
+            assert destDir.file("dir${it % 3}/file${it}.txt").text == "content $it"
+        }
+    }
+
+    def "copies with the same pool can be executed one after another"() {
+        given:
+        def first = new FileCopyAction(TestFiles.resolver(destDir.file("first")), copyPool, null)
+        def second = new FileCopyAction(TestFiles.resolver(destDir.file("second")), copyPool, null)
+        def files = (1..10).collect { sourceFile("file${it}.txt", "content $it") }
+
+        when:
+        visit(first, files as FileCopyDetailsInternal[])
+        visit(second, files as FileCopyDetailsInternal[])
+
+        then:
+        (1..10).each {
+            assert destDir.file("first/file${it}.txt").text == "content $it"
+            assert destDir.file("second/file${it}.txt").text == "content $it"
+        }
+    }
+
+    def "a later file with the same path replaces an earlier one"() {
+        given:
+        def action = new FileCopyAction(TestFiles.resolver(destDir), copyPool, null)
+
+        when:
+        visit(action, sourceFile("file.txt", "first"), sourceFile("file.txt", "second"))
+
+        then:
+        destDir.file("file.txt").text == "second"
+    }
+
+    def "does not copy an unchanged file whose destination exists"() {
+        given:
+        def unchanged = sourceFile("unchanged.txt", "new content")
+        def changed = sourceFile("changed.txt", "new content")
+        def missing = sourceFile("missing.txt", "new content")
+        destDir.file("unchanged.txt").write("old content")
+        destDir.file("changed.txt").write("old content")
+        def changedSource = changed.unfilteredSourceFile
+        def unchangedSourceFiles = { File file -> file != changedSource } as Spec<File>
+        def action = new FileCopyAction(TestFiles.resolver(destDir), null, unchangedSourceFiles)
+
+        when:
+        visit(action, unchanged, changed, missing)
+
+        then:
+        destDir.file("unchanged.txt").text == "old content"
+        destDir.file("changed.txt").text == "new content"
+        destDir.file("missing.txt").text == "new content"
+    }
+
+    def "copies an unchanged file again when another file has been copied to its destination"() {
+        given:
+        def changed = sourceFile("file.txt", "changed")
+        def unchanged = sourceFile("file.txt", "unchanged")
+        destDir.file("file.txt").write("unchanged")
+        def changedSource = changed.unfilteredSourceFile
+        def unchangedSourceFiles = { File file -> file != changedSource } as Spec<File>
+        def action = new FileCopyAction(TestFiles.resolver(destDir), null, unchangedSourceFiles)
+
+        when:
+        visit(action, changed, unchanged)
+
+        then:
+        destDir.file("file.txt").text == "unchanged"
+    }
+
+    def "copies unchanged files again when they have the same destination path"() {
+        given:
+        def first = sourceFile("file.txt", "first")
+        def second = sourceFile("file.txt", "second")
+        destDir.file("file.txt").write("first")
+        def action = new FileCopyAction(TestFiles.resolver(destDir), null, { true } as Spec<File>)
+
+        when:
+        visit(action, first, second)
+
+        then:
+        destDir.file("file.txt").text == "second"
+    }
+
+    private FileCopyDetailsInternal sourceFile(String path, String content) {
+        def source = tmpDir.file("src/source${sourceCount++}.txt")
+        source.write(content)
+        def details = Stub(FileCopyDetailsInternal)
+        details.getRelativePath() >> RelativePath.parse(true, path)
+        details.isDirectory() >> false
+        details.getUnfilteredSourceFile() >> source
+        details.copyTo(_ as File) >> { File target ->
+            target.parentFile.mkdirs()
+            source.copyTo(target)
+            true
+        }
+        details
+    }
+}
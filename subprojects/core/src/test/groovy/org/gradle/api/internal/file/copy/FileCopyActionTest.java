@@ -59,6 +59,10 @@ public class FileCopyActionTest {
         context.checking(new Expectations() {{
             allowing(details).getRelativePath();
             will(returnValue(relativePath));
+            allowing(details).isDirectory();
+            will(returnValue(false));
+            allowing(details).getUnfilteredSourceFile();
+            will(returnValue(null));
             one(details).copyTo(targetFile);
         }});
         return details;
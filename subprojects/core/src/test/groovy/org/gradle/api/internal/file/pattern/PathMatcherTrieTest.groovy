@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.pattern
+
+import org.apache.tools.ant.DirectoryScanner
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class PathMatcherTrieTest extends Specification {
+    static final List<String> PATTERNS = [
+        "", "a", "a/b", "a/b/c", "a/", "a/**", "**", "**/b", "**/b/**", "a/**/c", "a/**/b/**/c", "**/*.java", "a/*/c", "*", "*b*", "?", "b?c/**",
+        "A/B", "**/A", "a\\b\\d", "a/b/**/**/d", "x/**"
+    ]
+    static final List<String[]> PATHS = [
+        [], ["a"], ["b"], ["A"], ["c"], ["a", "b"], ["a", "B"], ["a", "b", "c"], ["a", "b", "d"], ["a", "x", "c"], ["a", "b", "x", "b", "c"],
+        ["x", "a", "b"], ["x", "b", "c"], ["bbc", "c"], ["a", "b", "c", "d"], ["src", "Main.java"], ["src", "org", "Main.java"], ["x"]
+    ].collect { it as String[] }
+
+    @Unroll
+    def "matches the same paths as the individual pattern matchers for each pattern #pattern and caseSensitive #caseSensitive"() {
+        def trie = PathMatcherTrie.compile([pattern], caseSensitive)
+
+        expect:
+        PATHS.each { path -> assertSameResult(trie, [pattern], caseSensitive, path) }
+
+        where:
+        [pattern, caseSensitive] << [PATTERNS, [true, false]].combinations()
+    }
+
+    @Unroll
+    def "matches the same paths as the union of individual pattern matchers for patterns #patterns"() {
+        def trie = PathMatcherTrie.compile(patterns, true)
+
+        expect:
+        PATHS.each { path -> assertSameResult(trie, patterns, true, path) }
+
+        where:
+        patterns << [
+            ["a/b", "a/c"],
+            ["a/b", "a/**/d"],
+            ["**/b", "a/b/c"],
+            ["", "a/b"],
+            ["a/b/c", "*/b"],
+            ["*.java", "**/*.java", "a/b"],
+            PATTERNS
+        ]
+    }
+
+    def "matches the same paths as the individual pattern matchers for the default excludes"() {
+        def patterns = DirectoryScanner.defaultExcludes as List
+        def trie = PathMatcherTrie.compile(patterns, true)
+        def paths = PATHS + [["a", ".git"], [".git", "config"], ["a", "b~"], ["a", "CVS", "Entries"], ["a", ".DS_Store"], ["a", "._b"]].collect { it as String[] }
+
+        expect:
+        paths.each { path -> assertSameResult(trie, patterns, true, path) }
+    }
+
+    def "rejects a directory that cannot contain a match"() {
+        def trie = PathMatcherTrie.compile(["src/main/**/*.java", "src/test/resources/"], true)
+
+        expect:
+        trie.isPrefix(["src"] as String[])
+        trie.isPrefix(["src", "main", "org"] as String[])
+        trie.isPrefix(["src", "test"] as String[])
+        trie.isPrefix(["src", "test", "resources", "a"] as String[])
+        !trie.isPrefix(["build"] as String[])
+        !trie.isPrefix(["src", "test", "java"] as String[])
+    }
+
+    void assertSameResult(PathMatcherTrie trie, List<String> patterns, boolean caseSensitive, String[] path) {
+        def matchers = patterns.collect { PatternMatcherFactory.compile(caseSensitive, it) }
+        assert trie.matches(path) == matchers.any { it.matches(path, 0) }: "matches($path)"
+        assert trie.isPrefix(path) == matchers.any { it.isPrefix(path, 0) }: "isPrefix($path)"
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.project
 
 import org.apache.tools.ant.types.FileSet
+import org.gradle.StartParameter
 import org.gradle.api.Action
 import org.gradle.api.AntBuilder
 import org.gradle.api.CircularReferenceException
@@ -208,6 +209,8 @@ class DefaultProjectTest {
             ignoring(listener)
             allowing(build).getProjectEvaluationBroadcaster();
             will(returnValue(listener))
+            allowing(build).getStartParameter();
+            will(returnValue(new StartParameter()))
         }
 
         AsmBackedClassGenerator classGenerator = new AsmBackedClassGenerator()
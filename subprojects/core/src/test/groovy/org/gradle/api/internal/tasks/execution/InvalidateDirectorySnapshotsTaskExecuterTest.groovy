@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.execution
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.file.collections.CachingDirectoryWalker
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.DirectoryWalker
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.nativeintegration.services.FileSystems
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@UsesNativeServices
+class InvalidateDirectorySnapshotsTaskExecuterTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def target = Mock(TaskExecuter)
+    def task = Mock(TaskInternal)
+    def outputs = Mock(TaskOutputsInternal)
+    def state = Mock(TaskStateInternal)
+    def context = Mock(TaskExecutionContext)
+    def directoryWalker = Mock(CachingDirectoryWalker)
+    def changes = Mock(CachingDirectoryWalker.ChangingFiles)
+    final InvalidateDirectorySnapshotsTaskExecuter executer = new InvalidateDirectorySnapshotsTaskExecuter(directoryWalker, target)
+
+    def setup() {
+        task.outputs >> outputs
+    }
+
+    def "stops using snapshots of the outputs while executing task"() {
+        def outputFiles = Mock(FileCollection)
+
+        when:
+        executer.execute(task, state, context)
+
+        then:
+        1 * outputs.hasOutput >> true
+        1 * outputs.files >> outputFiles
+        1 * directoryWalker.startChanges(outputFiles) >> changes
+
+        then:
+        1 * target.execute(task, state, context)
+
+        then:
+        1 * changes.finished()
+        0 * directoryWalker._
+    }
+
+    def "stops using all snapshots while executing task without declared outputs"() {
+        when:
+        executer.execute(task, state, context)
+
+        then:
+        1 * outputs.hasOutput >> false
+        1 * directoryWalker.startChangesToAll() >> changes
+
+        then:
+        1 * target.execute(task, state, context)
+
+        then:
+        1 * changes.finished()
+        0 * directoryWalker._
+    }
+
+    def "finishes changes when task fails"() {
+        def failure = new RuntimeException()
+
+        when:
+        executer.execute(task, state, context)
+
+        then:
+        1 * outputs.hasOutput >> false
+        1 * directoryWalker.startChangesToAll() >> changes
+        1 * target.execute(task, state, context) >> { throw failure }
+        1 * changes.finished()
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def "task sees the files it creates in its output directory"() {
+        def executorFactory = new DefaultExecutorFactory()
+        def walker = new CachingDirectoryWalker(FileSystems.default, executorFactory)
+        def outputDir = tmpDir.createDir("out")
+        outputDir.createFile("old.txt")
+        def walkerExecuter = new InvalidateDirectorySnapshotsTaskExecuter(walker, target)
+        def visitedInTask = null
+
+        given:
+        outputs.hasOutput >> true
+        outputs.files >> new SimpleFileCollection(outputDir)
+        walker.enable()
+        assert visitedPaths(outputDir, walker) == ["old.txt"]
+
+        when:
+        walkerExecuter.execute(task, state, context)
+
+        then:
+        1 * target.execute(task, state, context) >> {
+            outputDir.file("old.txt").delete()
+            outputDir.createFile("new1.txt")
+            assert visitedPaths(outputDir, walker) == ["new1.txt"]
+            outputDir.createFile("new2.txt")
+            visitedInTask = visitedPaths(outputDir, walker)
+        }
+        visitedInTask == ["new1.txt", "new2.txt"]
+        visitedPaths(outputDir, walker) == ["new1.txt", "new2.txt"]
+
+        cleanup:
+        walker.stop()
+        executorFactory.stop()
+    }
+
+    private static List<String> visitedPaths(File dir, DirectoryWalker walker) {
+        def visited = []
+        new DirectoryFileTree(dir, new PatternSet(), { walker } as Factory).visit([
+            visitFile: { FileVisitDetails details -> visited << details.relativePath.pathString },
+            visitDir: { FileVisitDetails details -> visited << details.relativePath.pathString }
+        ] as FileVisitor)
+        visited.sort()
+    }
+}
@@ -15,7 +15,12 @@
  */
 package org.gradle.api.tasks
 
+import org.gradle.api.Action
 import org.gradle.api.internal.file.copy.CopyAction
+import org.gradle.api.internal.tasks.SimpleWorkResult
+import org.gradle.api.specs.Spec
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs
+import org.gradle.api.tasks.incremental.InputFileDetails
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.test.fixtures.file.WorkspaceTest
 import org.gradle.util.TestUtil
@@ -50,10 +55,48 @@ class AbstractCopyTaskTest extends WorkspaceTest {
         task.mainSpec.buildRootResolver().source.files == task.project.fileTree(testDirectory).files
     }
 
+    def "copy action knows which source files are unchanged"() {
+        given:
+        def changed = file("changed")
+        task.copyAction = Stub(CopyAction) {
+            execute(_) >> new SimpleWorkResult(true)
+        }
+        def inputs = Stub(IncrementalTaskInputs) {
+            isIncremental() >> true
+            outOfDate(_) >> { Action<InputFileDetails> action -> action.execute(Stub(InputFileDetails) { getFile() >> changed }) }
+        }
+
+        when:
+        task.copy(inputs)
+
+        then:
+        !task.unchangedSourceFilesForCopyAction.isSatisfiedBy(changed)
+        task.unchangedSourceFilesForCopyAction.isSatisfiedBy(file("unchanged"))
+    }
+
+    def "copy action copies all files when some source files have been removed"() {
+        given:
+        task.copyAction = Stub(CopyAction) {
+            execute(_) >> new SimpleWorkResult(true)
+        }
+        def inputs = Stub(IncrementalTaskInputs) {
+            isIncremental() >> true
+            removed(_) >> { Action<InputFileDetails> action -> action.execute(Stub(InputFileDetails) { getFile() >> file("removed") }) }
+        }
+
+        when:
+        task.copy(inputs)
+
+        then:
+        task.unchangedSourceFilesForCopyAction == null
+    }
+
     static class TestCopyTask extends AbstractCopyTask {
         CopyAction copyAction
+        Spec<File> unchangedSourceFilesForCopyAction
 
         protected CopyAction createCopyAction() {
+            unchangedSourceFilesForCopyAction = unchangedSourceFiles
             copyAction
         }
 
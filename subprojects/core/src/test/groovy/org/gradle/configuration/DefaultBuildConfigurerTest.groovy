@@ -16,10 +16,18 @@
 package org.gradle.configuration
 
 import org.gradle.StartParameter
+import org.gradle.api.Action
+import org.gradle.api.ProjectConfigurationException
 import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.initialization.ClassLoaderScope
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.execution.ProjectConfigurer
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.service.ServiceRegistry
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class DefaultBuildConfigurerTest extends Specification {
     private startParameter = Mock(StartParameter)
@@ -34,13 +42,123 @@ class DefaultBuildConfigurerTest extends Specification {
     }
 
     def "configures build for standard mode"() {
+        given:
+        rootProject.subprojects >> ([] as Set)
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * projectConfigurer.configureHierarchy(rootProject)
+    }
+
+    def "precompiles project build scripts before configuring multi-project build"() {
+        def child = Mock(ProjectInternal)
+        def services = Mock(ServiceRegistry)
+        def precompiler = Mock(BuildScriptPrecompiler)
+        def rootScope = Mock(ClassLoaderScope)
+
+        given:
+        rootProject.subprojects >> ([child] as Set)
+        rootProject.allprojects >> ([rootProject, child] as Set)
+        rootProject.classLoaderScope >> rootScope
+        gradle.services >> services
+        services.get(BuildScriptPrecompiler) >> precompiler
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * precompiler.precompileInitialPass([rootProject, child] as Set)
+
+        then:
+        1 * projectConfigurer.configure(rootProject)
+
+        then:
+        1 * precompiler.precompileBody([child] as Set, rootScope)
+
+        then:
+        1 * projectConfigurer.configureHierarchy(rootProject)
+    }
+
+    def "configures subprojects in parallel, one level at a time, when enabled"() {
+        def child = Mock(ProjectInternal)
+        def grandChild = Mock(ProjectInternal)
+        def services = Mock(ServiceRegistry)
+        def queue = Mock(BuildOperationQueue)
+        def buildOperationProcessor = Mock(BuildOperationProcessor)
+
+        given:
+        child.depth >> 1
+        grandChild.depth >> 2
+        rootProject.subprojects >> ([grandChild, child] as Set)
+        startParameter.parallelProjectConfigurationEnabled >> true
+        gradle.services >> services
+        services.get(BuildScriptPrecompiler) >> Mock(BuildScriptPrecompiler)
+        services.get(BuildOperationProcessor) >> buildOperationProcessor
+        buildOperationProcessor.run(_) >> { Action generator -> generator.execute(queue) }
+        queue.add(_) >> { RunnableBuildOperation operation -> operation.run() }
+
         when:
         configurer.configure(gradle)
 
+        then:
+        1 * projectConfigurer.configure(rootProject)
+
+        then:
+        1 * projectConfigurer.configure(child)
+
+        then:
+        1 * projectConfigurer.configure(grandChild)
+
         then:
         1 * projectConfigurer.configureHierarchy(rootProject)
     }
 
+    @Unroll
+    def "reports failure to configure a subproject in the same way when parallel configuration is #description"() {
+        def child = Mock(ProjectInternal)
+        def services = Mock(ServiceRegistry)
+        def buildOperationProcessor = Mock(BuildOperationProcessor)
+        def failure = new ProjectConfigurationException("A problem occurred configuring project ':child'.", new RuntimeException("broken"))
+        def configured = [] as Set
+        // Behaves like project evaluation, which configures a project once and rethrows its failure on each later access
+        def configure = { ProjectInternal project ->
+            configured << project
+            if (project.is(child)) {
+                throw failure
+            }
+        }
+        def projectConfigurer = [
+            configure: configure,
+            configureHierarchy: { ProjectInternal project -> [project, child].each(configure) }
+        ] as ProjectConfigurer
+        def configurer = new DefaultBuildConfigurer(projectConfigurer)
+
+        given:
+        child.depth >> 1
+        rootProject.subprojects >> ([child] as Set)
+        startParameter.parallelProjectConfigurationEnabled >> parallel
+        gradle.services >> services
+        services.get(BuildScriptPrecompiler) >> Mock(BuildScriptPrecompiler)
+        services.get(BuildOperationProcessor) >> buildOperationProcessor
+        buildOperationProcessor.run(_) >> { Action generator -> generator.execute([add: { RunnableBuildOperation operation -> operation.run() }] as BuildOperationQueue) }
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        def e = thrown(ProjectConfigurationException)
+        e.is(failure)
+        e.message == "A problem occurred configuring project ':child'."
+        configured == [rootProject, child] as Set
+
+        where:
+        parallel | description
+        true     | "enabled"
+        false    | "disabled"
+    }
+
     def "configures build for on demand mode"() {
         when:
         configurer.configure(gradle)
@@ -16,13 +16,14 @@
 
 package org.gradle.configuration.project
 
+import org.gradle.api.CircularReferenceException
 import org.gradle.api.ProjectConfigurationException
 import org.gradle.api.ProjectEvaluationListener
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectStateInternal
-import spock.lang.Specification
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
-public class LifecycleProjectEvaluatorTest extends Specification {
+public class LifecycleProjectEvaluatorTest extends ConcurrentSpec {
     private project = Mock(ProjectInternal)
     private listener = Mock(ProjectEvaluationListener)
     private delegate = Mock(ProjectEvaluator)
@@ -156,4 +157,155 @@ public class LifecycleProjectEvaluatorTest extends Specification {
         0 * state.executed(_)
     }
 
+    void "project is evaluated once when multiple threads evaluate it"() {
+        def state = new ProjectStateInternal()
+        def evaluations = 0
+        def evaluator = new LifecycleProjectEvaluator({ p, s ->
+            evaluations++
+            instant.evaluating
+            thread.block()
+            instant.evaluated
+        } as ProjectEvaluator)
+
+        when:
+        async {
+            start {
+                evaluator.evaluate(project, state)
+            }
+            start {
+                thread.blockUntil.evaluating
+                evaluator.evaluate(project, state)
+                instant.waited
+            }
+        }
+
+        then:
+        evaluations == 1
+        instant.waited > instant.evaluated
+        state.executed
+    }
+
+    void "fails when threads evaluating projects wait for each other"() {
+        def project2 = Stub(ProjectInternal) {
+            getProjectEvaluationBroadcaster() >> listener
+        }
+        def state1 = new ProjectStateInternal()
+        def state2 = new ProjectStateInternal()
+        def evaluator
+        evaluator = new LifecycleProjectEvaluator({ p, s ->
+            if (p.is(project)) {
+                instant.evaluating1
+                thread.blockUntil.evaluating2
+                evaluator.evaluate(project2, state2)
+            } else {
+                instant.evaluating2
+                thread.blockUntil.evaluating1
+                evaluator.evaluate(project, state1)
+            }
+        } as ProjectEvaluator)
+
+        when:
+        async {
+            start {
+                evaluator.evaluate(project, state1)
+            }
+            start {
+                evaluator.evaluate(project2, state2)
+            }
+        }
+
+        then:
+        state1.executed
+        state2.executed
+        [state1, state2].count { it.failure?.cause instanceof CircularReferenceException } == 1
+    }
+
+    void "notifies listeners of different projects concurrently"() {
+        def state1 = new ProjectStateInternal()
+        def state2 = new ProjectStateInternal()
+        def evaluator = new LifecycleProjectEvaluator({ p, s -> } as ProjectEvaluator)
+        def listener1 = [
+            beforeEvaluate: { p -> },
+            afterEvaluate: { p, s ->
+                instant.notifying1
+                thread.blockUntil.notifying2
+            }
+        ] as ProjectEvaluationListener
+        def listener2 = [
+            beforeEvaluate: { p -> },
+            afterEvaluate: { p, s ->
+                instant.notifying2
+                thread.blockUntil.notifying1
+            }
+        ] as ProjectEvaluationListener
+        def project1 = Stub(ProjectInternal) {
+            getProjectEvaluationBroadcaster() >> listener1
+        }
+        def project2 = Stub(ProjectInternal) {
+            getProjectEvaluationBroadcaster() >> listener2
+        }
+
+        when:
+        async {
+            start {
+                evaluator.evaluate(project1, state1)
+            }
+            start {
+                evaluator.evaluate(project2, state2)
+            }
+        }
+
+        then:
+        state1.executed
+        state1.failure == null
+        state2.executed
+        state2.failure == null
+    }
+
+    void "listener can evaluate a project that another thread is evaluating"() {
+        def state1 = new ProjectStateInternal()
+        def state2 = new ProjectStateInternal()
+        ProjectInternal project1 = null
+        ProjectInternal project2 = null
+        def evaluator
+        evaluator = new LifecycleProjectEvaluator({ p, s ->
+            if (p.is(project2)) {
+                instant.evaluating2
+                thread.blockUntil.notifying1
+            }
+        } as ProjectEvaluator)
+        def listener = [
+            beforeEvaluate: { p -> },
+            afterEvaluate: { p, s ->
+                if (p.is(project1)) {
+                    instant.notifying1
+                    evaluator.evaluate(project2, state2)
+                    instant.evaluated2
+                }
+            }
+        ] as ProjectEvaluationListener
+        project1 = Stub(ProjectInternal) {
+            getProjectEvaluationBroadcaster() >> listener
+        }
+        project2 = Stub(ProjectInternal) {
+            getProjectEvaluationBroadcaster() >> listener
+        }
+
+        when:
+        async {
+            start {
+                evaluator.evaluate(project2, state2)
+            }
+            start {
+                thread.blockUntil.evaluating2
+                evaluator.evaluate(project1, state1)
+            }
+        }
+
+        then:
+        state1.executed
+        state1.failure == null
+        state2.executed
+        state2.failure == null
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.groovy.scripts.internal
+
+import com.google.common.hash.HashCode
+import org.gradle.api.Action
+import org.gradle.api.internal.changedetection.state.FileSnapshot
+import org.gradle.api.internal.changedetection.state.FileSnapshotter
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderId
+import org.gradle.groovy.scripts.Script
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.resource.TextResource
+import spock.lang.Specification
+
+class CrossBuildInMemoryCachingScriptClassCacheTest extends Specification {
+    final FileSnapshotter snapshotter = Stub() {
+        snapshot(_) >> { TextResource resource ->
+            Stub(FileSnapshot) {
+                getHash() >> HashCode.fromInt(resource.text.hashCode())
+            }
+        }
+    }
+    final ScriptClassCompiler delegate = Mock()
+    final CrossBuildInMemoryCachingScriptClassCache cache = new CrossBuildInMemoryCachingScriptClassCache(snapshotter)
+    final ClassLoader classLoader = Stub()
+    final ClassLoaderId classLoaderId = Stub()
+    final Action verifier = Stub()
+    final CompileOperation<?> operation = Stub() {
+        getId() >> "id"
+    }
+
+    def "reuses compiled script for script with same content and file"() {
+        def compiled = Stub(CompiledScript)
+        def script1 = scriptSource("build.gradle", "content")
+        def script2 = scriptSource("build.gradle", "content")
+
+        when:
+        def c1 = cache.getOrCompile(script1, classLoader, classLoaderId, operation, Script, verifier, delegate)
+        def c2 = cache.getOrCompile(script2, classLoader, classLoaderId, operation, Script, verifier, delegate)
+
+        then:
+        c1.is(compiled)
+        c2.is(compiled)
+        1 * delegate.compile(script1, classLoader, classLoaderId, operation, Script, verifier) >> compiled
+        0 * delegate._
+    }
+
+    def "replaces compiled script when content of script changes"() {
+        def compiled1 = Stub(CompiledScript)
+        def compiled2 = Stub(CompiledScript)
+        def compiled3 = Stub(CompiledScript)
+        def original = scriptSource("build.gradle", "content")
+        def changed = scriptSource("build.gradle", "changed")
+        def reverted = scriptSource("build.gradle", "content")
+
+        when:
+        cache.getOrCompile(original, classLoader, classLoaderId, operation, Script, verifier, delegate)
+        def c2 = cache.getOrCompile(changed, classLoader, classLoaderId, operation, Script, verifier, delegate)
+        def c3 = cache.getOrCompile(reverted, classLoader, classLoaderId, operation, Script, verifier, delegate)
+
+        then:
+        c2.is(compiled2)
+        c3.is(compiled3)
+        1 * delegate.compile(original, classLoader, classLoaderId, operation, Script, verifier) >> compiled1
+        1 * delegate.compile(changed, classLoader, classLoaderId, operation, Script, verifier) >> compiled2
+        1 * delegate.compile(reverted, classLoader, classLoaderId, operation, Script, verifier) >> compiled3
+        0 * delegate._
+    }
+
+    def "bounds the number of cached scripts"() {
+        def first = scriptSource("build0.gradle", "content")
+
+        when:
+        cache.getOrCompile(first, classLoader, classLoaderId, operation, Script, verifier, delegate)
+        (1..600).each {
+            cache.getOrCompile(scriptSource("build${it}.gradle", "content"), classLoader, classLoaderId, operation, Script, verifier, delegate)
+        }
+        cache.getOrCompile(first, classLoader, classLoaderId, operation, Script, verifier, delegate)
+
+        then:
+        602 * delegate.compile(_, classLoader, classLoaderId, operation, Script, verifier) >> Stub(CompiledScript)
+    }
+
+    def "does not share compiled script between files with same content"() {
+        def script1 = scriptSource("a/build.gradle", "content")
+        def script2 = scriptSource("b/build.gradle", "content")
+
+        when:
+        cache.getOrCompile(script1, classLoader, classLoaderId, operation, Script, verifier, delegate)
+        cache.getOrCompile(script2, classLoader, classLoaderId, operation, Script, verifier, delegate)
+
+        then:
+        1 * delegate.compile(script1, classLoader, classLoaderId, operation, Script, verifier) >> Stub(CompiledScript)
+        1 * delegate.compile(script2, classLoader, classLoaderId, operation, Script, verifier) >> Stub(CompiledScript)
+    }
+
+    def "discards compiled scripts when under memory pressure"() {
+        def script = scriptSource("build.gradle", "content")
+
+        when:
+        cache.getOrCompile(script, classLoader, classLoaderId, operation, Script, verifier, delegate)
+        cache.onMemoryPressure()
+        cache.getOrCompile(script, classLoader, classLoaderId, operation, Script, verifier, delegate)
+
+        then:
+        2 * delegate.compile(script, classLoader, classLoaderId, operation, Script, verifier) >> Stub(CompiledScript)
+    }
+
+    def scriptSource(String fileName, String text) {
+        def resource = Stub(TextResource) {
+            getText() >> text
+        }
+        return Stub(ScriptSource) {
+            getFileName() >> fileName
+            getClassName() >> "build_1234"
+            getResource() >> resource
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.gradle.cache.CacheBuilder
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.CacheValidator
 import org.gradle.cache.PersistentCache
+import org.gradle.cache.internal.CacheScopeMapping
 import org.gradle.groovy.scripts.Script
 import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.groovy.scripts.Transformer
@@ -32,9 +33,12 @@ import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
 import org.gradle.internal.logging.progress.ProgressLogger
 import org.gradle.internal.logging.progress.ProgressLoggerFactory
 import org.gradle.internal.resource.TextResource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 
 class FileCacheBackedScriptClassCompilerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     final ScriptCompilationHandler scriptCompilationHandler = Mock()
     final CacheRepository cacheRepository = Mock()
     final CacheBuilder localCacheBuilder = Mock()
@@ -56,7 +60,8 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
     final File globalDir = new File("global-dir")
     final File classesDir = new File(globalDir, "classes")
     final File metadataDir = new File(globalDir, "metadata")
-    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler, Stub(ProgressLoggerFactory), snapshotter, classLoaderCache, classLoaderHierarchyHasher)
+    final CacheScopeMapping cacheScopeMapping = Mock()
+    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler, Stub(ProgressLoggerFactory), snapshotter, classLoaderCache, classLoaderHierarchyHasher, cacheScopeMapping)
     final Action verifier = Stub()
     final CompiledScript compiledScript = Stub() {
         loadClass() >> Script
@@ -167,6 +172,63 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         0 * scriptCompilationHandler._
     }
 
+    def "precompiles script into generic cache directory without holding the cache open"() {
+        def cacheDir = tmpDir.file("scripts/0123/TransformerId/TransformerId9999")
+        def precompiledCache = Stub(PersistentCache) {
+            getBaseDir() >> cacheDir
+        }
+        def initializer
+        def precompiledDir
+
+        when:
+        compiler.precompile(source, classLoader, operation, Script, verifier)
+
+        then:
+        1 * snapshotter.snapshot(resource) >> Stub(FileSnapshot) { getHash() >> HashCode.fromString("0123") }
+        1 * cacheScopeMapping.getBaseDirectory(null, { it.startsWith("scripts/") && it.endsWith("/TransformerId/TransformerId9999") }, CacheBuilder.VersionStrategy.CachePerVersion) >> cacheDir
+
+        then:
+        1 * scriptCompilationHandler.compileToDir({ it instanceof RemappingScriptSource }, classLoader, _, _, operation, Script, verifier) >> { args ->
+            precompiledDir = args[2].parentFile
+            args[2].mkdirs()
+            new File(args[2], "Script.class").createNewFile()
+            args[3].mkdirs()
+        }
+
+        then:
+        1 * cacheRepository.cache({ it.startsWith("scripts/") && it.endsWith("/TransformerId/TransformerId9999") }) >> globalCacheBuilder
+        1 * globalCacheBuilder.withDisplayName(!null) >> globalCacheBuilder
+        1 * globalCacheBuilder.withInitializer(!null) >> { args ->
+            initializer = args[0]
+            globalCacheBuilder
+        }
+        1 * globalCacheBuilder.withValidator(validator) >> globalCacheBuilder
+        1 * globalCacheBuilder.open() >> {
+            initializer.execute(precompiledCache)
+            precompiledCache
+        }
+        0 * scriptCompilationHandler._
+
+        and:
+        new File(cacheDir, "classes/Script.class").file
+        new File(cacheDir, "metadata").directory
+        !precompiledDir.exists()
+    }
+
+    def "does not precompile script that is already in the generic cache"() {
+        def cacheDir = tmpDir.createDir("scripts/0123/TransformerId/TransformerId9999")
+        cacheDir.file("cache.properties").createFile()
+
+        when:
+        compiler.precompile(source, classLoader, operation, Script, verifier)
+
+        then:
+        1 * snapshotter.snapshot(resource) >> Stub(FileSnapshot) { getHash() >> HashCode.fromString("0123") }
+        1 * cacheScopeMapping.getBaseDirectory(null, _, CacheBuilder.VersionStrategy.CachePerVersion) >> cacheDir
+        0 * scriptCompilationHandler._
+        0 * cacheRepository._
+    }
+
     def "reports compilation progress even in case of a failure"() {
         def factory = Mock(ProgressLoggerFactory)
         def delegate = Mock(Action)
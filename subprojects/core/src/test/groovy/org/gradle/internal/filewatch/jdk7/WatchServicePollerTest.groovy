@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.filewatch.jdk7
+
+import org.gradle.internal.filewatch.FileWatcherEvent
+import spock.lang.Specification
+
+import java.nio.file.WatchEvent
+import java.nio.file.WatchKey
+import java.nio.file.WatchService
+
+import static java.nio.file.StandardWatchEventKinds.*
+
+class WatchServicePollerTest extends Specification {
+    def watchService = Mock(WatchService)
+    def poller = new WatchServicePoller(watchService)
+    def dir1 = new File("dir1").absoluteFile
+    def dir2 = new File("dir2").absoluteFile
+
+    def "returns null when no events arrive"() {
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, _) >> null
+        events == null
+    }
+
+    def "delivers the events of all signalled keys as a single batch with each event at its last occurrence"() {
+        def key1 = watchKey(dir1, [watchEvent(ENTRY_MODIFY, "a"), watchEvent(ENTRY_CREATE, "b"), watchEvent(ENTRY_MODIFY, "a")])
+        def key2 = watchKey(dir2, [watchEvent(ENTRY_DELETE, "c")])
+
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, _) >> key1
+        2 * watchService.poll() >>> [key2, null]
+        events == [
+            FileWatcherEvent.create(new File(dir1, "b")),
+            FileWatcherEvent.modify(new File(dir1, "a")),
+            FileWatcherEvent.delete(new File(dir2, "c"))
+        ]
+    }
+
+    def "delivers the latest change to a file that is created again after it has been deleted"() {
+        def key1 = watchKey(dir1, [watchEvent(ENTRY_CREATE, "a"), watchEvent(ENTRY_DELETE, "a")])
+        def key2 = watchKey(dir1, [watchEvent(ENTRY_CREATE, "a")])
+
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, _) >> key1
+        2 * watchService.poll() >>> [key2, null]
+        events == [
+            FileWatcherEvent.delete(new File(dir1, "a")),
+            FileWatcherEvent.create(new File(dir1, "a"))
+        ]
+    }
+
+    def "reports the watched directory when events have been lost"() {
+        def key = watchKey(dir1, [watchEvent(OVERFLOW, null)])
+
+        when:
+        def events = poller.takeEvents()
+
+        then:
+        1 * watchService.poll(_, _) >> key
+        1 * watchService.poll() >> null
+        events == [FileWatcherEvent.overflow(dir1)]
+    }
+
+    private WatchKey watchKey(File dir, List<WatchEvent<?>> watchEvents) {
+        Stub(WatchKey) {
+            watchable() >> dir.toPath()
+            pollEvents() >> watchEvents
+        }
+    }
+
+    private WatchEvent<?> watchEvent(WatchEvent.Kind<?> eventKind, String name) {
+        Stub(WatchEvent) {
+            kind() >> eventKind
+            context() >> (name == null ? null : new File(name).toPath())
+        }
+    }
+}
@@ -16,18 +16,29 @@
 
 package org.gradle.internal.filewatch.jdk7
 
+import org.gradle.api.internal.file.FileSystemSubset
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
 import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
 import spock.lang.Specification
 
 import java.nio.file.AccessDeniedException
 import java.nio.file.FileSystem
 import java.nio.file.FileSystemException
+import java.nio.file.FileSystems
 import java.nio.file.Path
 import java.nio.file.WatchKey
 import java.nio.file.WatchService
 import java.nio.file.spi.FileSystemProvider
 
 class WatchServiceRegistrarTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
     def "registering gets retried"() {
         given:
         WatchService watchService = Mock()
@@ -104,4 +115,32 @@ class WatchServiceRegistrarTest extends Specification {
         }
         thrown(IOException)
     }
+
+    @Requires(TestPrecondition.NOT_WINDOWS)
+    def "watches the missed subdirectories of a directory whose events have been lost"() {
+        given:
+        def watchService = FileSystems.default.newWatchService()
+        def listener = Mock(FileWatcherListener)
+        def watcher = Stub(FileWatcher) {
+            isRunning() >> true
+        }
+        def registrar = new WatchServiceRegistrar(watchService, listener)
+        def root = tmpDir.createDir("root")
+        def existingFile = root.createFile("existing/file.txt")
+        registrar.watch(FileSystemSubset.builder().add(root).build())
+        def newDir = root.createDir("new/subdir")
+        def newFile = newDir.createFile("file.txt")
+
+        when:
+        registrar.onChange(watcher, FileWatcherEvent.overflow(root))
+
+        then:
+        1 * listener.onChange(watcher, FileWatcherEvent.overflow(root))
+        1 * listener.onChange(watcher, FileWatcherEvent.create(newFile))
+        0 * listener.onChange(watcher, FileWatcherEvent.create(existingFile))
+        registrar.watchKeys.containsKey(newDir.toPath())
+
+        cleanup:
+        watchService?.close()
+    }
 }
@@ -476,6 +476,37 @@ class BeanDynamicObjectTest extends Specification {
         !dynamicObject.hasMethod("methodWithValue", [Integer] as Object[])
     }
 
+    def "selects method based on types of arguments when method is invoked repeatedly"() {
+        def dynamicObject = new BeanDynamicObject(new Bean())
+        def otherDynamicObject = new BeanDynamicObject(new Bean())
+
+        expect:
+        2.times {
+            assert dynamicObject.invokeMethod("overlap", [Integer] as Object[]) == Class
+            assert dynamicObject.invokeMethod("overlap", [0] as Object[]) == Number
+            assert otherDynamicObject.invokeMethod("overlap", [1L] as Object[]) == Number
+            assert !otherDynamicObject.hasMethod("methodWithValue", [Integer] as Object[])
+            assert otherDynamicObject.hasMethod("methodWithValue", [1] as Object[])
+        }
+    }
+
+    def "can get property that is added to the meta-class of an object after a failed lookup"() {
+        def bean = new Bean()
+        def dynamicObject = new BeanDynamicObject(bean)
+
+        expect:
+        !dynamicObject.hasProperty("added")
+        !new BeanDynamicObject(new Bean()).hasProperty("added")
+
+        when:
+        bean.metaClass.getAdded = { -> "value" }
+
+        then:
+        dynamicObject.hasProperty("added")
+        dynamicObject.getProperty("added") == "value"
+        !new BeanDynamicObject(new Bean()).hasProperty("added")
+    }
+
     def "coerces parameters of method of groovy object"() {
         def bean = new EnumBean()
         def dynamicObject = new BeanDynamicObject(bean, EnumBean, true, false, new SomeEnumConverter(), new SomeEnumConverter())
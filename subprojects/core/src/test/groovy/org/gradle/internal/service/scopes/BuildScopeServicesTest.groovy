@@ -30,7 +30,11 @@ import org.gradle.api.internal.classpath.ModuleRegistry
 import org.gradle.api.internal.classpath.PluginModuleRegistry
 import org.gradle.api.internal.file.FileLookup
 import org.gradle.api.internal.file.FileResolver
+import org.gradle.api.internal.file.archive.ZipCompressionPool
+import org.gradle.api.internal.file.collections.CachingDirectoryWalker
+import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory
+import org.gradle.api.internal.file.copy.FileCopyPool
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache
 import org.gradle.api.internal.project.DefaultProjectRegistry
 import org.gradle.api.internal.project.IProjectFactory
@@ -40,6 +44,7 @@ import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectRegistry
 import org.gradle.api.internal.project.antbuilder.DefaultIsolatedAntBuilder
 import org.gradle.api.logging.configuration.LoggingConfiguration
+import org.gradle.api.tasks.util.PatternSet
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.internal.CacheFactory
 import org.gradle.configuration.BuildConfigurer
@@ -67,12 +72,14 @@ import org.gradle.internal.Factory
 import org.gradle.internal.classloader.ClassLoaderFactory
 import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
 import org.gradle.internal.classloader.ClassPathSnapshotter
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.installation.CurrentGradleInstallation
 import org.gradle.internal.installation.GradleInstallation
 import org.gradle.internal.logging.LoggingManagerInternal
 import org.gradle.internal.logging.progress.ProgressLoggerFactory
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
 import org.gradle.internal.operations.logging.BuildOperationLoggerFactory
 import org.gradle.internal.operations.logging.DefaultBuildOperationLoggerFactory
 import org.gradle.internal.reflect.Instantiator
@@ -107,7 +114,9 @@ public class BuildScopeServicesTest extends Specification {
         sessionServices.get(DependencyManagementServices) >> Stub(DependencyManagementServices)
         sessionServices.get(Instantiator) >> ThreadGlobalInstantiator.getOrCreate()
         sessionServices.get(FileResolver) >> Stub(FileResolver)
-        sessionServices.get(DirectoryFileTreeFactory) >> Stub(DirectoryFileTreeFactory)
+        sessionServices.getFactory(PatternSet) >> Stub(Factory)
+        sessionServices.get(FileSystem) >> Stub(FileSystem)
+        sessionServices.get(ExecutorFactory) >> Stub(ExecutorFactory)
         sessionServices.get(ProgressLoggerFactory) >> Stub(ProgressLoggerFactory)
         sessionServices.get(DocumentationRegistry) >> new DocumentationRegistry()
         sessionServices.get(FileLookup) >> Stub(FileLookup)
@@ -239,6 +248,25 @@ public class BuildScopeServicesTest extends Specification {
         assertThat(registry.get(ScriptPluginFactory), sameInstance(registry.get(ScriptPluginFactory)))
     }
 
+    def "provides a directory file tree factory that uses the caching directory walker"() {
+        setup:
+        expectListenerManagerCreated()
+
+        expect:
+        registry.get(DirectoryFileTreeFactory) instanceof DefaultDirectoryFileTreeFactory
+        registry.get(DirectoryFileTreeFactory).create(new File("dir"), new PatternSet()).directoryWalkerFactory.create().is(registry.get(CachingDirectoryWalker))
+    }
+
+    def "provides a zip compression pool shared by the build"() {
+        expect:
+        registry.get(ZipCompressionPool).is(registry.get(ZipCompressionPool))
+    }
+
+    def "provides a file copy pool shared by the build"() {
+        expect:
+        registry.get(FileCopyPool).is(registry.get(FileCopyPool))
+    }
+
     def providesASettingsProcessor() {
         setup:
         expectListenerManagerCreated()
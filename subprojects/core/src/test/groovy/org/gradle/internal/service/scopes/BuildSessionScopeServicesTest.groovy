@@ -17,7 +17,11 @@
 package org.gradle.internal.service.scopes
 
 import org.gradle.StartParameter
+import org.gradle.api.internal.AsmBackedClassGenerator
+import org.gradle.api.internal.ClassGenerator
 import org.gradle.api.internal.ClassPathRegistry
+import org.gradle.api.internal.cache.DefaultGeneratedClassCache
+import org.gradle.api.internal.cache.GeneratedClassCache
 import org.gradle.api.internal.classpath.DefaultModuleRegistry
 import org.gradle.api.internal.classpath.ModuleRegistry
 import org.gradle.api.internal.file.FileResolver
@@ -90,6 +94,13 @@ class BuildSessionScopeServicesTest extends Specification {
         registry.get(WorkerProcessClassPathProvider) == registry.get(WorkerProcessClassPathProvider)
     }
 
+    def "provides a ClassGenerator that uses the generated class cache"() {
+        expect:
+        registry.get(GeneratedClassCache) instanceof DefaultGeneratedClassCache
+        registry.get(ClassGenerator) instanceof AsmBackedClassGenerator
+        registry.get(ClassGenerator) == registry.get(ClassGenerator)
+    }
+
     private <T> T expectParentServiceLocated(Class<T> type) {
         T t = Mock(type)
         parent.get(type) >> t
@@ -16,13 +16,16 @@
 
 package org.gradle.api.internal.tasks.compile;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.tasks.compile.CompileOptions;
 
 import java.io.File;
+import java.util.Map;
 
 public class DefaultJavaCompileSpec extends DefaultJvmLanguageCompileSpec implements JavaCompileSpec {
     private CompileOptions compileOptions;
     private File dependencyCacheDir;
+    private Map<File, String> classpathHashes;
 
     @Override
     public CompileOptions getCompileOptions() {
@@ -42,4 +45,14 @@ public class DefaultJavaCompileSpec extends DefaultJvmLanguageCompileSpec implem
     public void setDependencyCacheDir(File dependencyCacheDir) {
         this.dependencyCacheDir = dependencyCacheDir;
     }
+
+    @Nullable
+    @Override
+    public Map<File, String> getClasspathHashes() {
+        return classpathHashes;
+    }
+
+    public void setClasspathHashes(@Nullable Map<File, String> classpathHashes) {
+        this.classpathHashes = classpathHashes;
+    }
 }
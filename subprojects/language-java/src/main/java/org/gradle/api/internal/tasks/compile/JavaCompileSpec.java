@@ -16,9 +16,11 @@
 
 package org.gradle.api.internal.tasks.compile;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.tasks.compile.CompileOptions;
 
 import java.io.File;
+import java.util.Map;
 
 public interface JavaCompileSpec extends JvmLanguageCompileSpec {
     CompileOptions getCompileOptions();
@@ -29,4 +31,10 @@ public interface JavaCompileSpec extends JvmLanguageCompileSpec {
 
     @Override
     File getDestinationDir();
+
+    /**
+     * Returns the content hashes of the jars on the classpath, or null when not known.
+     */
+    @Nullable
+    Map<File, String> getClasspathHashes();
 }
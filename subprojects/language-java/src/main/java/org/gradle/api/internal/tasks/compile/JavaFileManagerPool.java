@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pool of standard file managers that are reused across compilations in this JVM, so that javac does not need to rescan the classpath and reopen
+ * classpath jars for every compilation.
+ *
+ * <p>A file manager is used by a single compilation at a time. A file manager that has read a classpath jar whose content hash has since changed is
+ * discarded rather than reused. When the content hashes of the classpath are not known, a file manager is created for the compilation and closed
+ * afterwards. Stopping the pool closes the idle file managers, which releases their handles to classpath jars.</p>
+ *
+ * <p>The pool is shared by all compilations in the JVM. When serialized, for example as part of a compiler sent to a compiler daemon, it resolves to
+ * the pool of the receiving JVM.</p>
+ */
+public class JavaFileManagerPool implements Stoppable, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavaFileManagerPool.class);
+    private static final JavaFileManagerPool INSTANCE = new JavaFileManagerPool();
+    private static final StandardLocation[] RESET_LOCATIONS = {
+        StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_OUTPUT, StandardLocation.CLASS_PATH, StandardLocation.SOURCE_PATH,
+        StandardLocation.ANNOTATION_PROCESSOR_PATH, StandardLocation.PLATFORM_CLASS_PATH
+    };
+
+    private final transient Object lock = new Object();
+    private final transient List<PooledFileManager> idle = new ArrayList<PooledFileManager>();
+    private final transient Map<StandardJavaFileManager, PooledFileManager> inUse = new HashMap<StandardJavaFileManager, PooledFileManager>();
+
+    public static JavaFileManagerPool current() {
+        return INSTANCE;
+    }
+
+    JavaFileManagerPool() {
+    }
+
+    /**
+     * Returns a file manager for a compilation with the given compiler and encoding. The file manager must be returned using {@link #release(StandardJavaFileManager)}.
+     *
+     * @param classpathHashes the content hashes of the jars on the classpath of the compilation, or null when not known.
+     */
+    public StandardJavaFileManager acquire(JavaCompiler compiler, Charset charset, @Nullable Map<File, String> classpathHashes) {
+        PooledFileManager fileManager = null;
+        synchronized (lock) {
+            if (classpathHashes == null) {
+                // Cannot tell whether the jars read by a pooled file manager have changed, so use a file manager of its own
+                fileManager = new PooledFileManager(compiler.getClass(), charset, compiler.getStandardFileManager(null, null, charset), false);
+                inUse.put(fileManager.fileManager, fileManager);
+                return fileManager.fileManager;
+            }
+            Iterator<PooledFileManager> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledFileManager candidate = iterator.next();
+                if (!candidate.isFor(compiler, charset)) {
+                    continue;
+                }
+                iterator.remove();
+                if (candidate.isUpToDate(classpathHashes)) {
+                    fileManager = candidate;
+                    break;
+                }
+                close(candidate);
+            }
+            if (fileManager == null) {
+                fileManager = new PooledFileManager(compiler.getClass(), charset, compiler.getStandardFileManager(null, null, charset), true);
+            }
+            fileManager.classpathHashes.putAll(classpathHashes);
+            inUse.put(fileManager.fileManager, fileManager);
+        }
+        return fileManager.fileManager;
+    }
+
+    /**
+     * Returns the given file manager to the pool, once the compilation that used it has completed.
+     */
+    public void release(StandardJavaFileManager fileManager) {
+        PooledFileManager pooled;
+        synchronized (lock) {
+            pooled = inUse.remove(fileManager);
+        }
+        if (pooled == null) {
+            throw new IllegalArgumentException("File manager was not acquired from this pool.");
+        }
+        if (!pooled.reusable) {
+            close(pooled);
+            return;
+        }
+        try {
+            // Forget the locations used by the compilation, as the next compilation may not specify all of them
+            for (StandardLocation location : RESET_LOCATIONS) {
+                fileManager.setLocation(location, null);
+            }
+            fileManager.flush();
+        } catch (Exception e) {
+            LOGGER.debug("Could not reset file manager, discarding it.", e);
+            close(pooled);
+            return;
+        }
+        synchronized (lock) {
+            idle.add(pooled);
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<PooledFileManager> fileManagers;
+        synchronized (lock) {
+            fileManagers = new ArrayList<PooledFileManager>(idle);
+            idle.clear();
+        }
+        for (PooledFileManager fileManager : fileManagers) {
+            close(fileManager);
+        }
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+
+    private static void close(PooledFileManager fileManager) {
+        try {
+            fileManager.fileManager.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close file manager.", e);
+        }
+    }
+
+    private static class PooledFileManager {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final StandardJavaFileManager fileManager;
+        private final boolean reusable;
+        private final Map<File, String> classpathHashes = new HashMap<File, String>();
+
+        PooledFileManager(Class<?> compilerType, Charset charset, StandardJavaFileManager fileManager, boolean reusable) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.fileManager = fileManager;
+            this.reusable = reusable;
+        }
+
+        boolean isFor(JavaCompiler compiler, Charset charset) {
+            return compilerType.equals(compiler.getClass()) && (this.charset == null ? charset == null : this.charset.equals(charset));
+        }
+
+        boolean isUpToDate(Map<File, String> current) {
+            for (Map.Entry<File, String> entry : current.entrySet()) {
+                String previous = classpathHashes.get(entry.getKey());
+                if (previous != null && !previous.equals(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
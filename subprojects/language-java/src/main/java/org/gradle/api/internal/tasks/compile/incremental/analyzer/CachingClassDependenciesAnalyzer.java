@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.gradle.api.internal.hash.Hasher;
 import org.gradle.internal.Factory;
 
@@ -42,4 +43,14 @@ public class CachingClassDependenciesAnalyzer implements ClassDependenciesAnalyz
             }
         });
     }
+
+    @Override
+    public ClassAnalysis getClassAnalysis(final String className, final byte[] classBytes) {
+        HashCode hash = Hashing.md5().hashBytes(classBytes);
+        return cache.get(hash, new Factory<ClassAnalysis>() {
+            public ClassAnalysis create() {
+                return analyzer.getClassAnalysis(className, classBytes);
+            }
+        });
+    }
 }
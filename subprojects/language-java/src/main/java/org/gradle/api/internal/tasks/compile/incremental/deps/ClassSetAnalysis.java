@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,38 +43,53 @@ public class ClassSetAnalysis {
     }
 
     public DependentsSet getRelevantDependents(String className) {
-        DependentsSet deps = data.getDependents(className);
-        if (deps == null) {
+        int index = data.indexOf(className);
+        if (index < 0 || !data.isAnalyzed(index)) {
             return new DefaultDependentsSet();
         }
-        if (deps.isDependencyToAll()) {
+        if (data.isDependencyToAll(index)) {
             return new DependencyToAll();
         }
         Set<String> result = new HashSet<String>();
-        recurseDependents(new HashSet<String>(), result, deps.getDependentClasses());
+        collectDependents(index, result);
         result.remove(className);
         return new DefaultDependentsSet(result);
     }
 
     public boolean isDependencyToAll(String className) {
-        DependentsSet deps = data.getDependents(className);
-        return deps != null && deps.isDependencyToAll();
+        int index = data.indexOf(className);
+        return index >= 0 && data.isAnalyzed(index) && data.isDependencyToAll(index);
     }
 
-    private void recurseDependents(Set<String> visited, Set<String> result, Set<String> dependentClasses) {
-        for (String d : dependentClasses) {
-            if (!visited.add(d)) {
-                continue;
+    /**
+     * Collects the transitive dependents of the given class, walking the dependency graph by class index.
+     */
+    private void collectDependents(int index, Set<String> result) {
+        BitSet visited = new BitSet(data.getClassCount());
+        // Each class is pushed at most once, so the stack never holds more than all classes
+        int[] stack = new int[data.getClassCount()];
+        int size = 0;
+        for (int dependent : data.getDependents(index)) {
+            if (!visited.get(dependent)) {
+                visited.set(dependent);
+                stack[size++] = dependent;
             }
-            if (!d.contains("$")) { //filter out the inner classes
-                result.add(d);
+        }
+        while (size > 0) {
+            int current = stack[--size];
+            if (!data.isInnerClass(current)) { //filter out the inner classes
+                result.add(data.getClassName(current));
+            }
+            for (int dependent : data.getDependents(current)) {
+                if (!visited.get(dependent)) {
+                    visited.set(dependent);
+                    stack[size++] = dependent;
+                }
             }
-            DependentsSet currentDependents = data.getDependents(d);
-            recurseDependents(visited, result, currentDependents.getDependentClasses());
         }
     }
 
     public ClassSetAnalysisData getData() {
         return data;
     }
-}
\ No newline at end of file
+}
@@ -18,69 +18,219 @@ package org.gradle.api.internal.tasks.compile.incremental.deps;
 
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
-import org.gradle.internal.serialize.MapSerializer;
-import org.gradle.internal.serialize.SetSerializer;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
-
+/**
+ * The dependents of each class of a class set, stored as a compact graph: each class name is stored once and assigned an index, and the dependents
+ * of each class are stored as an array of class indices.
+ */
 public class ClassSetAnalysisData {
-
-    final Map<String, DependentsSet> dependents;
+    private static final int[] NO_DEPENDENTS = new int[0];
+
+    private final String[] classNames;
+    private final Map<String, Integer> classIndices;
+    private final int[][] dependents;
+    // Classes that have an entry in the analysis, as opposed to classes that are only known as the dependent of another class
+    private final BitSet analyzed;
+    private final BitSet dependencyToAll;
+    // Classes that are a dependency to all and have no information about their dependents
+    private final BitSet unknownDependents;
+    private final BitSet innerClasses;
 
     public ClassSetAnalysisData(Map<String, DependentsSet> dependents) {
-        this.dependents = dependents;
+        this(builderFor(dependents));
+    }
+
+    private ClassSetAnalysisData(Builder builder) {
+        this.classNames = builder.classNames.toArray(new String[0]);
+        this.classIndices = builder.classIndices;
+        this.dependents = new int[classNames.length][];
+        System.arraycopy(builder.dependents, 0, this.dependents, 0, Math.min(builder.dependents.length, classNames.length));
+        this.analyzed = builder.analyzed;
+        this.dependencyToAll = builder.dependencyToAll;
+        this.unknownDependents = builder.unknownDependents;
+        this.innerClasses = builder.innerClasses;
+    }
+
+    private static Builder builderFor(Map<String, DependentsSet> dependents) {
+        Builder builder = new Builder();
+        for (String className : dependents.keySet()) {
+            builder.analyzed.set(builder.intern(className));
+        }
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            int index = builder.intern(entry.getKey());
+            DependentsSet dependentsSet = entry.getValue();
+            if (dependentsSet.isDependencyToAll()) {
+                builder.dependencyToAll.set(index);
+            }
+            if (dependentsSet instanceof DependencyToAll) {
+                builder.unknownDependents.set(index);
+                continue;
+            }
+            Set<String> dependentClasses = dependentsSet.getDependentClasses();
+            int[] indices = new int[dependentClasses.size()];
+            int i = 0;
+            for (String dependentClass : dependentClasses) {
+                indices[i++] = builder.intern(dependentClass);
+            }
+            builder.setDependents(index, indices);
+        }
+        return builder;
     }
 
     public DependentsSet getDependents(String className) {
-        return dependents.get(className);
+        int index = indexOf(className);
+        if (index < 0 || !analyzed.get(index)) {
+            return null;
+        }
+        if (unknownDependents.get(index)) {
+            return new DependencyToAll();
+        }
+        DefaultDependentsSet result = new DefaultDependentsSet();
+        result.setDependencyToAll(dependencyToAll.get(index));
+        for (int dependent : getDependents(index)) {
+            result.addDependent(classNames[dependent]);
+        }
+        return result;
     }
 
-    public static class Serializer implements org.gradle.internal.serialize.Serializer<ClassSetAnalysisData> {
+    /**
+     * Returns the number of classes in this analysis, including classes that are only known as the dependent of another class.
+     */
+    int getClassCount() {
+        return classNames.length;
+    }
 
-        private final MapSerializer<String, DependentsSet> serializer = new MapSerializer<String, DependentsSet>(
-                STRING_SERIALIZER, new DependentsSetSerializer());
+    /**
+     * Returns the index of the given class, or -1 when the class is not known.
+     */
+    int indexOf(String className) {
+        Integer index = classIndices.get(className);
+        return index == null ? -1 : index;
+    }
 
-        @Override
-        public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            //we only support one kind of data
-            return new ClassSetAnalysisData(serializer.read(decoder));
-        }
+    String getClassName(int index) {
+        return classNames[index];
+    }
 
-        @Override
-        public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            //we only support one kind of data
-            serializer.write(encoder, value.dependents);
+    boolean isAnalyzed(int index) {
+        return analyzed.get(index);
+    }
+
+    boolean isDependencyToAll(int index) {
+        return dependencyToAll.get(index);
+    }
+
+    boolean isInnerClass(int index) {
+        return innerClasses.get(index);
+    }
+
+    int[] getDependents(int index) {
+        int[] result = dependents[index];
+        return result == null ? NO_DEPENDENTS : result;
+    }
+
+    private static class Builder {
+        private final List<String> classNames = new ArrayList<String>();
+        private final Map<String, Integer> classIndices = new HashMap<String, Integer>();
+        private int[][] dependents = new int[16][];
+        private final BitSet analyzed = new BitSet();
+        private final BitSet dependencyToAll = new BitSet();
+        private final BitSet unknownDependents = new BitSet();
+        private final BitSet innerClasses = new BitSet();
+
+        int intern(String className) {
+            Integer index = classIndices.get(className);
+            if (index != null) {
+                return index;
+            }
+            int newIndex = classNames.size();
+            classNames.add(className);
+            classIndices.put(className, newIndex);
+            if (className.contains("$")) {
+                innerClasses.set(newIndex);
+            }
+            return newIndex;
         }
 
-        private static class DependentsSetSerializer implements org.gradle.internal.serialize.Serializer<DependentsSet> {
+        void setDependents(int index, int[] indices) {
+            if (index >= dependents.length) {
+                int[][] newDependents = new int[Math.max(dependents.length * 2, index + 1)][];
+                System.arraycopy(dependents, 0, newDependents, 0, dependents.length);
+                dependents = newDependents;
+            }
+            dependents[index] = indices;
+        }
+    }
 
-            private SetSerializer<String> setSerializer = new SetSerializer<String>(STRING_SERIALIZER, false);
+    public static class Serializer implements org.gradle.internal.serialize.Serializer<ClassSetAnalysisData> {
+        private static final int DEPENDENCY_TO_ALL = 0;
+        private static final int DEPENDENCY_TO_ALL_WITH_DEPENDENTS = 1;
+        private static final int DEPENDENTS = 2;
+        private static final int NOT_ANALYZED = 3;
 
-            @Override
-            public DependentsSet read(Decoder decoder) throws Exception {
+        @Override
+        public ClassSetAnalysisData read(Decoder decoder) throws Exception {
+            Builder builder = new Builder();
+            int count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                builder.intern(decoder.readString());
+            }
+            for (int index = 0; index < count; index++) {
                 int control = decoder.readSmallInt();
-                if (control == 0) {
-                    return new DependencyToAll();
+                switch (control) {
+                    case NOT_ANALYZED:
+                        continue;
+                    case DEPENDENCY_TO_ALL:
+                        builder.analyzed.set(index);
+                        builder.dependencyToAll.set(index);
+                        builder.unknownDependents.set(index);
+                        continue;
+                    case DEPENDENCY_TO_ALL_WITH_DEPENDENTS:
+                        builder.dependencyToAll.set(index);
+                        break;
+                    case DEPENDENTS:
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unable to read the data. Unexpected control value: " + control);
                 }
-                if (control != 1 && control != 2) {
-                    throw new IllegalArgumentException("Unable to read the data. Unexpected control value: " + control);
+                builder.analyzed.set(index);
+                int[] indices = new int[decoder.readSmallInt()];
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = decoder.readSmallInt();
                 }
-                Set<String> classes = setSerializer.read(decoder);
-                return new DefaultDependentsSet(control == 1, classes);
+                builder.setDependents(index, indices);
             }
+            return new ClassSetAnalysisData(builder);
+        }
 
-            @Override
-            public void write(Encoder encoder, DependentsSet value) throws Exception {
-                if (value instanceof DependencyToAll) {
-                    encoder.writeSmallInt(0);
-                } else if (value instanceof DefaultDependentsSet) {
-                    encoder.writeSmallInt(value.isDependencyToAll() ? 1 : 2);
-                    setSerializer.write(encoder, value.getDependentClasses());
-                } else {
-                    throw new IllegalArgumentException("Don't know how to serialize value of type: " + value.getClass() + ", value: " + value);
+        @Override
+        public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
+            int count = value.getClassCount();
+            encoder.writeSmallInt(count);
+            for (String className : value.classNames) {
+                encoder.writeString(className);
+            }
+            for (int index = 0; index < count; index++) {
+                if (!value.isAnalyzed(index)) {
+                    encoder.writeSmallInt(NOT_ANALYZED);
+                    continue;
+                }
+                if (value.unknownDependents.get(index)) {
+                    encoder.writeSmallInt(DEPENDENCY_TO_ALL);
+                    continue;
+                }
+                encoder.writeSmallInt(value.isDependencyToAll(index) ? DEPENDENCY_TO_ALL_WITH_DEPENDENTS : DEPENDENTS);
+                int[] indices = value.getDependents(index);
+                encoder.writeSmallInt(indices.length);
+                for (int dependent : indices) {
+                    encoder.writeSmallInt(dependent);
                 }
             }
         }
@@ -28,7 +28,7 @@ public class CachingJarSnapshotter implements JarSnapshotter {
     private final JarSnapshotCache cache;
 
     public CachingJarSnapshotter(Hasher hasher, ClassDependenciesAnalyzer analyzer, JarSnapshotCache cache) {
-        this.snapshotter = new DefaultJarSnapshotter(hasher, analyzer);
+        this.snapshotter = new DefaultJarSnapshotter(analyzer);
         this.hasher = hasher;
         this.cache = cache;
     }
@@ -16,23 +16,32 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.gradle.api.internal.cache.MinimalPersistentCache;
 import org.gradle.cache.CacheRepository;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.serialize.HashCodeSerializer;
 
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Cross-process, global cache of jar snapshots. Required to make incremental java compilation fast.
  * Jar snapshots are cached globally, so if one project caches the groovy jar, it can be used by some other project.
+ * Snapshots used by the current build are also kept in memory, so that each jar is loaded or snapshotted only once per build, even when
+ * several projects that use the jar are compiled in parallel.
  */
 public class DefaultJarSnapshotCache implements JarSnapshotCache {
 
     private final MinimalPersistentCache<HashCode, JarSnapshotData> cache;
+    private final Cache<HashCode, JarSnapshotData> inMemoryCache = CacheBuilder.newBuilder().softValues().build();
 
     public DefaultJarSnapshotCache(CacheRepository cacheRepository) {
         cache = new MinimalPersistentCache<HashCode, JarSnapshotData>(cacheRepository, "jar snapshots", new HashCodeSerializer(), new JarSnapshotDataSerializer());
@@ -44,8 +53,11 @@ public class DefaultJarSnapshotCache implements JarSnapshotCache {
             public Map<File, JarSnapshot> create() {
                 final Map<File, JarSnapshot> out = new HashMap<File, JarSnapshot>();
                 for (Map.Entry<File, HashCode> entry : jarHashes.entrySet()) {
-                    JarSnapshot snapshot = new JarSnapshot(cache.getCache().get(entry.getValue()));
-                    out.put(entry.getKey(), snapshot);
+                    JarSnapshotData data = inMemoryCache.getIfPresent(entry.getValue());
+                    if (data == null) {
+                        data = cache.getCache().get(entry.getValue());
+                    }
+                    out.put(entry.getKey(), new JarSnapshot(data));
                 }
                 return out;
             }
@@ -53,16 +65,28 @@ public class DefaultJarSnapshotCache implements JarSnapshotCache {
     }
 
     @Override
-    public JarSnapshot get(HashCode key, final Factory<JarSnapshot> factory) {
-        return new JarSnapshot(cache.get(key, new Factory<JarSnapshotData>() {
-            public JarSnapshotData create() {
-                return factory.create().getData();
-            }
-        }));
+    public JarSnapshot get(final HashCode key, final Factory<JarSnapshot> factory) {
+        try {
+            // Blocks concurrent requests for the same jar until the snapshot is available
+            return new JarSnapshot(inMemoryCache.get(key, new Callable<JarSnapshotData>() {
+                public JarSnapshotData call() {
+                    return cache.get(key, new Factory<JarSnapshotData>() {
+                        public JarSnapshotData create() {
+                            return factory.create().getData();
+                        }
+                    });
+                }
+            }));
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
     }
 
     @Override
     public void stop() {
+        inMemoryCache.invalidateAll();
         cache.stop();
     }
 }
@@ -17,43 +17,66 @@ package org.gradle.api.internal.tasks.compile.incremental.jar;
 
 import com.google.common.collect.Maps;
 import com.google.common.hash.HashCode;
-import org.gradle.api.file.FileTree;
-import org.gradle.api.file.FileVisitDetails;
-import org.gradle.api.file.FileVisitor;
-import org.gradle.api.internal.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
-import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+/**
+ * Creates jar snapshots by reading the class files straight from the jar, without extracting them.
+ */
 class DefaultJarSnapshotter {
 
-    private final Hasher hasher;
     private final ClassDependenciesAnalyzer analyzer;
 
-    public DefaultJarSnapshotter(Hasher hasher, ClassDependenciesAnalyzer analyzer) {
-        this.hasher = hasher;
+    public DefaultJarSnapshotter(ClassDependenciesAnalyzer analyzer) {
         this.analyzer = analyzer;
     }
 
     public JarSnapshot createSnapshot(HashCode hash, JarArchive jarArchive) {
-        return createSnapshot(hash, jarArchive.contents, new ClassFilesAnalyzer(analyzer));
-    }
-
-    JarSnapshot createSnapshot(HashCode hash, FileTree classes, final ClassFilesAnalyzer analyzer) {
-        final Map<String, HashCode> hashes = Maps.newHashMap();
-        classes.visit(new FileVisitor() {
-            public void visitDir(FileVisitDetails dirDetails) {
+        Map<String, HashCode> hashes = Maps.newHashMap();
+        ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator("");
+        try {
+            ZipFile zipFile = new ZipFile(jarArchive.file);
+            try {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                        continue;
+                    }
+                    byte[] classBytes = readEntry(zipFile, entry);
+                    String className = entry.getName().replaceAll("/", ".").replaceAll("\\.class$", "");
+                    ClassAnalysis analysis = analyzer.getClassAnalysis(className, classBytes);
+                    accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+                    hashes.put(className, Hashing.md5().hashBytes(classBytes));
+                }
+            } finally {
+                zipFile.close();
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not create snapshot of jar '%s'.", jarArchive.file), e);
+        }
 
-            public void visitFile(FileVisitDetails fileDetails) {
-                analyzer.visitFile(fileDetails);
-                String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
-                HashCode classHash = hasher.hash(fileDetails.getFile());
-                hashes.put(className, classHash);
-            }
-        });
+        return new JarSnapshot(new JarSnapshotData(hash, hashes, new ClassSetAnalysisData(accumulator.getDependentsMap())));
+    }
 
-        return new JarSnapshot(new JarSnapshotData(hash, hashes, analyzer.getAnalysis()));
+    private static byte[] readEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+        InputStream inputStream = zipFile.getInputStream(entry);
+        try {
+            return ByteStreams.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
     }
 }
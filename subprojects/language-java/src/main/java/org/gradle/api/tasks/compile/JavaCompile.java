@@ -18,9 +18,11 @@ package org.gradle.api.tasks.compile;
 
 import org.gradle.api.AntBuilder;
 import org.gradle.api.Incubating;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.changedetection.changes.IncrementalTaskInputsInternal;
 import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
+import org.gradle.api.internal.changedetection.state.FileSnapshotter;
 import org.gradle.api.internal.changedetection.state.PathSensitive;
 import org.gradle.api.internal.changedetection.state.PathSensitivity;
 import org.gradle.api.internal.file.FileOperations;
@@ -36,6 +38,7 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.LocalClassSetAnaly
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshotCache;
 import org.gradle.api.internal.tasks.compile.incremental.jar.LocalJarClasspathSnapshotStore;
 import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.CompileClasspath;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.OutputDirectory;
@@ -45,6 +48,7 @@ import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.cache.CacheRepository;
 import org.gradle.internal.Factory;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.jvm.internal.toolchain.JavaToolChainInternal;
 import org.gradle.jvm.platform.JavaPlatform;
 import org.gradle.jvm.platform.internal.DefaultJavaPlatform;
@@ -55,6 +59,8 @@ import org.gradle.util.SingleMessageLogger;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Compiles Java source files.
@@ -85,6 +91,17 @@ public class JavaCompile extends AbstractCompile {
         return super.getSource();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the ABI of the classes on the classpath is relevant to this task, so changes to the implementation of those classes do not cause recompilation.</p>
+     */
+    @Override
+    @CompileClasspath
+    public FileCollection getClasspath() {
+        return super.getClasspath();
+    }
+
     /**
      * Returns the tool chain that will be used to compile the Java source.
      *
@@ -142,7 +159,7 @@ public class JavaCompile extends AbstractCompile {
             }
         };
         IncrementalCompilerFactory factory = new IncrementalCompilerFactory(
-            getFileOperations(), getCachingFileSnapshotter().createThreadSafeWrapper(), getPath(), createCompiler(spec), source, compileCaches, (IncrementalTaskInputsInternal) inputs);
+            getFileOperations(), getCachingFileSnapshotter().createThreadSafeWrapper(), getPath(), createCompiler(spec), source, compileCaches, (IncrementalTaskInputsInternal) inputs, getBuildOperationProcessor());
         Compiler<JavaCompileSpec> compiler = factory.createCompiler();
         performCompilation(spec, compiler);
     }
@@ -164,6 +181,10 @@ public class JavaCompile extends AbstractCompile {
         throw new UnsupportedOperationException();
     }
 
+    @Inject protected BuildOperationProcessor getBuildOperationProcessor() {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     protected void compile() {
         DefaultJavaCompileSpec spec = createSpec();
@@ -201,9 +222,24 @@ public class JavaCompile extends AbstractCompile {
         spec.setTargetCompatibility(getTargetCompatibility());
         spec.setSourceCompatibility(getSourceCompatibility());
         spec.setCompileOptions(compileOptions);
+        if (!compileOptions.isFork()) {
+            spec.setClasspathHashes(hashClasspathJars(spec.getClasspath()));
+        }
         return spec;
     }
 
+    private Map<File, String> hashClasspathJars(Iterable<File> classpath) {
+        // Used to decide whether the in-process compiler can reuse a file manager that has already opened these jars
+        FileSnapshotter snapshotter = getCachingFileSnapshotter().createThreadSafeWrapper();
+        Map<File, String> hashes = new HashMap<File, String>();
+        for (File file : classpath) {
+            if (file.isFile()) {
+                hashes.put(file, snapshotter.snapshot(file).getHash().toString());
+            }
+        }
+        return hashes;
+    }
+
     @OutputDirectory
     public File getDependencyCacheDir() {
         return dependencyCacheDir;
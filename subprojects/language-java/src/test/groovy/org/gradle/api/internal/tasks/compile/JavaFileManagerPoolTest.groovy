@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.GUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import java.nio.charset.Charset
+
+class JavaFileManagerPoolTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+    def compiler = Mock(JavaCompiler)
+    def pool = new JavaFileManagerPool()
+
+    def "reuses released file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def jar = temp.file("lib.jar").createFile()
+
+        when:
+        def first = pool.acquire(compiler, null, [(jar): "1234"])
+        pool.release(first)
+        def second = pool.acquire(compiler, null, [(jar): "1234"])
+
+        then:
+        first.is(fileManager)
+        second.is(fileManager)
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.flush()
+        0 * fileManager.close()
+    }
+
+    def "does not share file manager between concurrent compilations"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        def first = pool.acquire(compiler, null, [:])
+        def second = pool.acquire(compiler, null, [:])
+
+        then:
+        first.is(fileManager1)
+        second.is(fileManager2)
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+    }
+
+    def "does not reuse file manager for different encoding"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def charset = Charset.forName("UTF-16")
+
+        when:
+        pool.release(pool.acquire(compiler, null, [:]))
+        def second = pool.acquire(compiler, charset, [:])
+
+        then:
+        second.is(fileManager2)
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager1
+        1 * compiler.getStandardFileManager(null, null, charset) >> fileManager2
+    }
+
+    def "discards file manager when the hash of a classpath jar it has used has changed"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def jar = temp.file("lib.jar").createFile()
+        def other = temp.file("other.jar").createFile()
+
+        when:
+        pool.release(pool.acquire(compiler, null, [(jar): "1234"]))
+        def second = pool.acquire(compiler, null, [(other): "abcd", (jar): "5678"])
+
+        then:
+        second.is(fileManager2)
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        1 * fileManager1.close()
+    }
+
+    def "reuses file manager when a classpath jar it has not used has changed"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def jar = temp.file("lib.jar").createFile()
+        def other = temp.file("other.jar").createFile()
+
+        when:
+        pool.release(pool.acquire(compiler, null, [(jar): "1234"]))
+        def second = pool.acquire(compiler, null, [(other): "abcd", (jar): "1234"])
+
+        then:
+        second.is(fileManager)
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        0 * fileManager.close()
+    }
+
+    def "uses a file manager of its own and closes it afterwards when the classpath hashes are not known"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        def first = pool.acquire(compiler, null, null)
+        pool.release(first)
+        def second = pool.acquire(compiler, null, null)
+
+        then:
+        first.is(fileManager1)
+        second.is(fileManager2)
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        1 * fileManager1.close()
+    }
+
+    def "closes idle file managers when stopped"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+
+        when:
+        pool.release(pool.acquire(compiler, null, [:]))
+        pool.stop()
+
+        then:
+        1 * fileManager.close()
+    }
+
+    def "resolves to the pool of the current process when deserialized"() {
+        expect:
+        def copy = new ObjectInputStream(new ByteArrayInputStream(GUtil.serialize(pool))).readObject()
+        copy.is(JavaFileManagerPool.current())
+    }
+}
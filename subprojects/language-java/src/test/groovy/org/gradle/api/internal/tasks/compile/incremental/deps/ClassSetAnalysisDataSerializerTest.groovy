@@ -38,13 +38,28 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
-
         ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
+            assert read.getDependents(it).dependentClasses == data.getDependents(it).dependentClasses
+            assert read.getDependents(it).dependencyToAll == data.getDependents(it).dependencyToAll
         }
 
-        read.dependents["D"] instanceof DependencyToAll
+        read.getDependents("D") instanceof DependencyToAll
+    }
+
+    def "serializes classes that are only known as dependents"() {
+        def data = new ClassSetAnalysisData(["A": dependents("B", "A\$Inner"), "A\$Inner": dependents("C")])
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+
+        when:
+        serializer.write(e, data)
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.getDependents("A").dependentClasses == ["B", "A\$Inner"] as Set
+        read.getDependents("A\$Inner").dependentClasses == ["C"] as Set
+        read.getDependents("B") == null
+        read.getDependents("C") == null
+        new ClassSetAnalysis(read).getRelevantDependents("A").dependentClasses == ["B", "C"] as Set
     }
 }
@@ -20,13 +20,8 @@ package org.gradle.api.internal.tasks.compile.incremental.jar
 
 import com.google.common.base.Charsets
 import com.google.common.hash.Hashing
-import org.gradle.api.internal.file.TestFiles
-import org.gradle.api.internal.file.collections.DirectoryFileTree
-import org.gradle.api.internal.file.collections.FileTreeAdapter
-import org.gradle.api.internal.hash.Hasher
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
-import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer
-import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
@@ -37,34 +32,40 @@ import spock.lang.Subject
 class DefaultJarSnapshotterTest extends Specification {
 
     @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
-    def hasher = Mock(Hasher)
+    def analyzer = Mock(ClassDependenciesAnalyzer)
 
-    @Subject snapshotter = new DefaultJarSnapshotter(hasher, Mock(ClassDependenciesAnalyzer))
+    @Subject snapshotter = new DefaultJarSnapshotter(analyzer)
+
+    def "creates snapshot for a jar without classes"() {
+        def contents = temp.createDir("contents")
+        contents.file("resource.txt").text = "resource"
+        def jar = temp.file("a.jar")
+        contents.zipTo(jar)
 
-    def "creates snapshot for an empty jar"() {
         expect:
-        def snapshot = snapshotter.createSnapshot(Hashing.md5().hashString("foo", Charsets.UTF_8), new JarArchive(new File("a.jar"), new FileTreeAdapter(new DirectoryFileTree(new File("missing"))), TestFiles.resolver().getPatternSetFactory()))
+        def snapshot = snapshotter.createSnapshot(Hashing.md5().hashString("foo", Charsets.UTF_8), new JarArchive(jar))
         snapshot.hashes.isEmpty()
         snapshot.analysis
     }
 
-    def "creates snapshot of a jar with classes"() {
-        def f1 = temp.createFile("foo/Foo.class")
-        def f2 = temp.createFile("foo/com/Foo2.class")
-        def analyzer = Mock(ClassFilesAnalyzer)
+    def "creates snapshot of a jar with classes without extracting it"() {
+        def contents = temp.createDir("contents")
+        contents.file("Foo.class").text = "foo"
+        contents.file("com/Foo2.class").text = "foo2"
+        contents.file("com/resource.txt").text = "resource"
+        def jar = temp.file("a.jar")
+        contents.zipTo(jar)
 
         when:
-        def snapshot = snapshotter.createSnapshot(Hashing.md5().hashString("foo", Charsets.UTF_8), new FileTreeAdapter(new DirectoryFileTree(temp.file("foo"))), analyzer)
+        def snapshot = snapshotter.createSnapshot(Hashing.md5().hashString("foo", Charsets.UTF_8), new JarArchive(jar))
 
         then:
-        2 * analyzer.visitFile(_)
-        1 * hasher.hash(f1)
-        1 * hasher.hash(f2)
-        1 * analyzer.getAnalysis() >> Stub(ClassSetAnalysisData)
+        1 * analyzer.getClassAnalysis("Foo", "foo".bytes) >> new ClassAnalysis([] as Set, false)
+        1 * analyzer.getClassAnalysis("com.Foo2", "foo2".bytes) >> new ClassAnalysis(["Foo"] as Set, false)
         0 * _._
 
         and:
-        snapshot.hashes.keySet() == ["Foo", "com.Foo2"] as Set
+        snapshot.hashes == [Foo: Hashing.md5().hashBytes("foo".bytes), "com.Foo2": Hashing.md5().hashBytes("foo2".bytes)]
         snapshot.analysis
     }
 }
@@ -48,6 +48,15 @@ public class PropertiesToDaemonParametersConverter {
             }
         }
 
+        prop = properties.get(SPARE_DAEMONS_PROPERTY);
+        if (prop != null) {
+            try {
+                target.setSpareDaemons(new Integer(prop));
+            } catch (NumberFormatException e) {
+                throw new GradleException(String.format("Unable to parse %s property. Expected an int but got: %s", SPARE_DAEMONS_PROPERTY, prop), e);
+            }
+        }
+
         prop = properties.get(JVM_ARGS_PROPERTY);
         if (prop != null) {
             target.setJvmArgs(JvmOptions.fromString(prop));
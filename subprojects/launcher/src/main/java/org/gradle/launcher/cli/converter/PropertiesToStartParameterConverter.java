@@ -32,6 +32,10 @@ public class PropertiesToStartParameterConverter {
             startParameter.setParallelProjectExecutionEnabled(true);
         }
 
+        if (isTrue(properties.get(GradleProperties.PARALLEL_CONFIGURATION_PROPERTY))) {
+            startParameter.setParallelProjectConfigurationEnabled(true);
+        }
+
         String workers = properties.get(GradleProperties.WORKERS_PROPERTY);
         if (workers != null) {
             try {
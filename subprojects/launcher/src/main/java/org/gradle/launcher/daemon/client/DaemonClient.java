@@ -85,17 +85,24 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
     private final InputStream buildStandardInput;
     private final ExecutorFactory executorFactory;
     private final IdGenerator<?> idGenerator;
+    private final SpareDaemonStarter spareDaemonStarter;
 
     //TODO - outputEventListener and buildStandardInput are per-build settings
     //so down the road we should refactor the code accordingly and potentially attach them to BuildActionParameters
     public DaemonClient(DaemonConnector connector, OutputEventListener outputEventListener, ExplainingSpec<DaemonContext> compatibilitySpec,
                         InputStream buildStandardInput, ExecutorFactory executorFactory, IdGenerator<?> idGenerator) {
+        this(connector, outputEventListener, compatibilitySpec, buildStandardInput, executorFactory, idGenerator, null);
+    }
+
+    public DaemonClient(DaemonConnector connector, OutputEventListener outputEventListener, ExplainingSpec<DaemonContext> compatibilitySpec,
+                        InputStream buildStandardInput, ExecutorFactory executorFactory, IdGenerator<?> idGenerator, SpareDaemonStarter spareDaemonStarter) {
         this.connector = connector;
         this.outputEventListener = outputEventListener;
         this.compatibilitySpec = compatibilitySpec;
         this.buildStandardInput = buildStandardInput;
         this.executorFactory = executorFactory;
         this.idGenerator = idGenerator;
+        this.spareDaemonStarter = spareDaemonStarter;
     }
 
     protected IdGenerator<?> getIdGenerator() {
@@ -120,6 +127,7 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
 
         for (int i = 1; i < saneNumberOfAttempts; i++) {
             final DaemonClientConnection connection = connector.connect(compatibilitySpec);
+            boolean buildRan = true;
             try {
                 Build build = new Build(buildId, connection.getDaemon().getToken(), action, requestContext.getClient(), requestContext.getBuildTimeClock().getStartTime(), parameters);
                 return executeBuild(build, connection, requestContext.getCancellationToken(), requestContext.getEventConsumer());
@@ -127,8 +135,13 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
                 // this exception means that we want to try again.
                 LOGGER.debug("{}, Trying a different daemon...", e.getMessage());
                 accumulatedExceptions.add(e);
+                buildRan = false;
             } finally {
                 connection.stop();
+                if (buildRan) {
+                    // Start spare daemons only once the build has completed, so that they don't compete with it for the machine
+                    maybeStartSpareDaemons(connection);
+                }
             }
         }
 
@@ -137,6 +150,12 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
                 + parameters + ".", accumulatedExceptions);
     }
 
+    private void maybeStartSpareDaemons(DaemonClientConnection connection) {
+        if (spareDaemonStarter != null) {
+            spareDaemonStarter.maybeStartSpareDaemons(compatibilitySpec, connection.getDaemon());
+        }
+    }
+
     protected Object executeBuild(Build build, DaemonClientConnection connection, BuildCancellationToken cancellationToken, BuildEventConsumer buildEventConsumer) throws DaemonInitialConnectException {
         Object result;
         try {
@@ -19,4 +19,9 @@ import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 
 public interface DaemonStarter {
     DaemonStartupInfo startDaemon();
+
+    /**
+     * Starts a daemon that is not intended for a particular client. The daemon warms itself up and then advertises itself as idle.
+     */
+    DaemonStartupInfo startSpareDaemon();
 }
@@ -68,6 +68,14 @@ public class DefaultDaemonStarter implements DaemonStarter {
     }
 
     public DaemonStartupInfo startDaemon() {
+        return startDaemon(false);
+    }
+
+    public DaemonStartupInfo startSpareDaemon() {
+        return startDaemon(true);
+    }
+
+    private DaemonStartupInfo startDaemon(boolean spare) {
         String daemonUid = UUID.randomUUID().toString();
 
         GradleInstallation gradleInstallation = CurrentGradleInstallation.get();
@@ -118,6 +126,8 @@ public class DefaultDaemonStarter implements DaemonStarter {
             encoder.writeSmallInt(daemonParameters.getIdleTimeout());
             encoder.writeSmallInt(daemonParameters.getPeriodicCheckInterval());
             encoder.writeString(daemonUid);
+            encoder.writeSmallInt(daemonParameters.getSpareDaemons());
+            encoder.writeBoolean(spare);
             encoder.writeSmallInt(daemonOpts.size());
             for (String daemonOpt : daemonOpts) {
                 encoder.writeString(daemonOpt);
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.client;
+
+import org.gradle.api.internal.specs.ExplainingSpec;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.launcher.daemon.context.DaemonConnectDetails;
+import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
+import org.gradle.launcher.daemon.registry.DaemonInfo;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.launcher.daemon.server.api.DaemonStateControl.State;
+
+/**
+ * Keeps a configured number of spare daemons ready for the next build. Spare daemons are started in the background once a build has completed in
+ * another daemon, and warm themselves up before advertising themselves as idle.
+ */
+public class SpareDaemonStarter {
+    private static final Logger LOGGER = Logging.getLogger(SpareDaemonStarter.class);
+
+    private final DaemonRegistry daemonRegistry;
+    private final DaemonStarter daemonStarter;
+    private final ExecutorFactory executorFactory;
+    private final int spareDaemons;
+
+    public SpareDaemonStarter(DaemonRegistry daemonRegistry, DaemonStarter daemonStarter, ExecutorFactory executorFactory, int spareDaemons) {
+        this.daemonRegistry = daemonRegistry;
+        this.daemonStarter = daemonStarter;
+        this.executorFactory = executorFactory;
+        this.spareDaemons = spareDaemons;
+    }
+
+    /**
+     * Starts spare daemons in the background when there are fewer compatible idle or warming up daemons than required, not counting the daemon that
+     * was just used.
+     *
+     * <p>Does not wait for the spare daemons to be started, so that the client can exit as soon as its build has completed. A spare daemon whose
+     * launch has not begun by the time the client exits is simply not started.</p>
+     */
+    public void maybeStartSpareDaemons(ExplainingSpec<DaemonContext> constraint, DaemonConnectDetails daemonUsed) {
+        if (spareDaemons <= 0) {
+            return;
+        }
+        int available = 0;
+        for (DaemonInfo daemonInfo : daemonRegistry.getAll()) {
+            // Count spares started by other clients that are still warming up, so that concurrent clients don't each start their own
+            boolean spare = daemonInfo.getState() == State.Idle || daemonInfo.getState() == State.WarmingUp;
+            if (spare && !daemonInfo.getUid().equals(daemonUsed.getUid()) && constraint.isSatisfiedBy(daemonInfo.getContext())) {
+                available++;
+            }
+        }
+        int required = spareDaemons - available;
+        if (required <= 0) {
+            return;
+        }
+
+        LOGGER.info("Found {} compatible idle or warming up daemons, starting {} spare daemons.", available, required);
+        StoppableExecutor executor = executorFactory.create("Spare daemon starter");
+        for (int i = 0; i < required; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        DaemonStartupInfo startupInfo = daemonStarter.startSpareDaemon();
+                        LOGGER.debug("Started spare Gradle daemon {}", startupInfo);
+                    } catch (RuntimeException e) {
+                        // A spare daemon is only an optimization, so don't fail the build
+                        LOGGER.info("Could not start spare Gradle daemon.", e);
+                    }
+                }
+            });
+        }
+        executor.requestStop();
+    }
+}
@@ -44,6 +44,7 @@ public class DaemonParameters {
     private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
 
     private int periodicCheckInterval = DEFAULT_PERIODIC_CHECK_INTERVAL_MILLIS;
+    private int spareDaemons;
     private final DaemonJvmOptions jvmOptions = new DaemonJvmOptions(new IdentityFileResolver());
     private boolean enabled = true;
     private boolean hasJvmArgs;
@@ -99,6 +100,17 @@ public class DaemonParameters {
         this.periodicCheckInterval = periodicCheckInterval;
     }
 
+    /**
+     * Returns the number of idle daemons to keep ready for the next build, in addition to the daemon used by the current build.
+     */
+    public int getSpareDaemons() {
+        return spareDaemons;
+    }
+
+    public void setSpareDaemons(int spareDaemons) {
+        this.spareDaemons = spareDaemons;
+    }
+
     public List<String> getEffectiveJvmArgs() {
         return jvmOptions.getAllImmutableJvmArgs();
     }
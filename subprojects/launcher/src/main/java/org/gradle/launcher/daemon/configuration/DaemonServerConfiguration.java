@@ -30,4 +30,14 @@ public interface DaemonServerConfiguration {
     String getUid();
 
     List<String> getJvmOptions();
+
+    /**
+     * The number of compatible idle daemons that should be kept around, in addition to the most recently used one.
+     */
+    int getSpareDaemons();
+
+    /**
+     * Whether this daemon was started as a spare, rather than for a particular build.
+     */
+    boolean isSpare();
 }
@@ -26,13 +26,21 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
     private final int idleTimeoutMs;
     private final int periodicCheckIntervalMs;
     private final List<String> jvmOptions;
+    private final int spareDaemons;
+    private final boolean spare;
 
     public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, int periodicCheckIntervalMs, List<String> jvmOptions) {
+        this(daemonUid, daemonBaseDir, idleTimeoutMs, periodicCheckIntervalMs, jvmOptions, 0, false);
+    }
+
+    public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, int periodicCheckIntervalMs, List<String> jvmOptions, int spareDaemons, boolean spare) {
         this.daemonUid = daemonUid;
         this.daemonBaseDir = daemonBaseDir;
         this.idleTimeoutMs = idleTimeoutMs;
         this.periodicCheckIntervalMs = periodicCheckIntervalMs;
         this.jvmOptions = jvmOptions;
+        this.spareDaemons = spareDaemons;
+        this.spare = spare;
     }
 
     @Override
@@ -59,4 +67,14 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
     public List<String> getJvmOptions() {
         return jvmOptions;
     }
+
+    @Override
+    public int getSpareDaemons() {
+        return spareDaemons;
+    }
+
+    @Override
+    public boolean isSpare() {
+        return spare;
+    }
 }
@@ -25,11 +25,13 @@ public class DaemonDir {
     private final File baseDir;
     private final File versionedDir;
     private final File registryFile;
+    private final File warmUpClassesFile;
 
     public DaemonDir(File baseDir) {
         this.baseDir = baseDir;
         this.versionedDir = new File(baseDir, GradleVersion.current().getVersion());
         this.registryFile = new File(versionedDir, "registry.bin");
+        this.warmUpClassesFile = new File(versionedDir, "warm-up-classes.txt");
         GFileUtils.mkdirs(this.versionedDir);
     }
 
@@ -44,4 +46,11 @@ public class DaemonDir {
     public File getRegistry() {
         return registryFile;
     }
+
+    /**
+     * The classes used by previous builds, which new daemons load before their first build.
+     */
+    public File getWarmUpClasses() {
+        return warmUpClassesFile;
+    }
 }
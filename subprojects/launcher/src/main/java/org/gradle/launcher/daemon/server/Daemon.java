@@ -106,6 +106,20 @@ public class Daemon implements Stoppable {
      * @throws IllegalStateException if this daemon is already running, or has already been stopped.
      */
     public void start() {
+        start(DaemonStateControl.State.Busy);
+    }
+
+    /**
+     * Starts a spare daemon, receiving connections asynchronously (i.e. returns immediately). The daemon is advertised as warming up until
+     * {@link #advertiseIdle()} is called, so that clients count it as a spare daemon but do not use it yet.
+     *
+     * @throws IllegalStateException if this daemon is already running, or has already been stopped.
+     */
+    public void startSpare() {
+        start(DaemonStateControl.State.WarmingUp);
+    }
+
+    private void start(DaemonStateControl.State advertisedState) {
         LOGGER.info("start() called on daemon - {}", daemonContext);
         lifecycleLock.lock();
         try {
@@ -169,7 +183,7 @@ public class Daemon implements Stoppable {
             };
             connectorAddress = connector.start(connectionHandler, connectionErrorHandler);
             LOGGER.debug("Daemon starting at: {}, with address: {}", new Date(), connectorAddress);
-            registryUpdater.onStart(connectorAddress);
+            registryUpdater.onStart(connectorAddress, advertisedState);
         } finally {
             lifecycleLock.unlock();
         }
@@ -177,6 +191,25 @@ public class Daemon implements Stoppable {
         LOGGER.lifecycle(DaemonMessages.PROCESS_STARTED);
     }
 
+    /**
+     * Advertises this daemon as idle in the registry, so that any client may use it. A daemon is advertised as busy when it starts, so that only the
+     * client that started it will connect, and a spare daemon is advertised as warming up. Spare daemons call this once they have warmed up, as no
+     * client is waiting for them.
+     *
+     * @throws IllegalStateException if this daemon has not been started.
+     */
+    public void advertiseIdle() {
+        lifecycleLock.lock();
+        try {
+            if (stateCoordinator == null) {
+                throw new IllegalStateException("cannot advertise daemon as idle as it has not been started.");
+            }
+            registryUpdater.onCompleteActivity();
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
     /**
      * Stops the daemon, blocking until any current requests/connections have been satisfied.
      * <p>
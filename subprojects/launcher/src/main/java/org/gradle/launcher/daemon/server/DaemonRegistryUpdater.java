@@ -25,6 +25,7 @@ import org.gradle.launcher.daemon.logging.DaemonMessages;
 import org.gradle.launcher.daemon.registry.DaemonInfo;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.launcher.daemon.registry.DaemonStopEvent;
+import org.gradle.launcher.daemon.server.api.DaemonStateControl.State;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus;
 
 import java.util.Date;
@@ -73,11 +74,11 @@ class DaemonRegistryUpdater implements Stoppable {
         }
     }
 
-    public void onStart(Address connectorAddress) {
+    public void onStart(Address connectorAddress, State state) {
         LOGGER.info("{}{}", DaemonMessages.ADVERTISING_DAEMON, connectorAddress);
         LOGGER.debug("Advertised daemon context: {}", daemonContext);
         this.connectorAddress = connectorAddress;
-        daemonRegistry.store(new DaemonInfo(connectorAddress, daemonContext, token, Busy));
+        daemonRegistry.store(new DaemonInfo(connectorAddress, daemonContext, token, state));
     }
 
     public void onExpire(String reason, DaemonExpirationStatus status) {
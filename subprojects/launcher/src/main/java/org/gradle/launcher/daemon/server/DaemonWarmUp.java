@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import groovy.lang.GroovyClassLoader;
+import org.gradle.api.Task;
+import org.gradle.api.internal.ClassGenerator;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.initialization.ClassLoaderRegistry;
+import org.gradle.util.Clock;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Prepares a daemon for its first build, by loading and initializing the classes that practically every build uses, as well as the Gradle classes that
+ * previous builds used, as recorded by {@link WarmUpClassRecorder}. This moves the cost of class loading and of static initialization, such as setting
+ * up the Groovy runtime, out of the first build. The script compiler is also exercised with a synthetic build script, so that it is partially compiled
+ * by the JIT before the first build needs it. Finally, the decorated subclasses of the preloaded task types and of the core domain objects are generated,
+ * so that the first build finds them in the generated class cache.
+ */
+public class DaemonWarmUp {
+    private static final Logger LOGGER = Logging.getLogger(DaemonWarmUp.class);
+    private static final int SCRIPT_COMPILATIONS = 5;
+    private static final String SYNTHETIC_BUILD_SCRIPT = "apply plugin: 'java'\n"
+        + "repositories { mavenCentral() }\n"
+        + "dependencies { compile 'org.example:example:1.0'; testCompile group: 'junit', name: 'junit', version: '4.12' }\n"
+        + "def names = ['a', 'b'].collect { it.toUpperCase() }\n"
+        + "task warmUp(type: Copy) { from 'src'; into \"$buildDir/out\"; doLast { println \"${project.name}: $names\" } }\n";
+    private static final List<String> COMMON_CLASSES = Arrays.asList(
+        "org.codehaus.groovy.runtime.InvokerHelper",
+        "org.codehaus.groovy.runtime.DefaultGroovyMethods",
+        "org.codehaus.groovy.control.CompilationUnit",
+        "org.codehaus.groovy.ast.ClassHelper",
+        "org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler",
+        "org.gradle.initialization.DefaultGradleLauncherFactory",
+        "org.gradle.initialization.DefaultSettings",
+        "org.gradle.invocation.DefaultGradle",
+        "org.gradle.api.internal.project.DefaultProject",
+        "org.gradle.api.internal.tasks.DefaultTaskContainer",
+        "org.gradle.api.internal.AbstractTask",
+        "org.gradle.api.internal.artifacts.dsl.dependencies.DefaultDependencyHandler",
+        "org.gradle.api.internal.artifacts.configurations.DefaultConfiguration",
+        "org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver",
+        "org.gradle.model.internal.registry.DefaultModelRegistry",
+        "org.gradle.api.internal.file.DefaultSourceDirectorySet",
+        "org.gradle.execution.taskgraph.DefaultTaskGraphExecuter",
+        "org.gradle.api.plugins.BasePlugin",
+        "org.gradle.api.plugins.JavaPlugin",
+        "org.gradle.api.tasks.compile.JavaCompile",
+        "org.gradle.api.tasks.bundling.Jar",
+        "org.gradle.api.tasks.testing.Test"
+    );
+    private static final List<String> DECORATED_CLASSES = Arrays.asList(
+        "org.gradle.initialization.DefaultSettings",
+        "org.gradle.invocation.DefaultGradle",
+        "org.gradle.api.internal.project.DefaultProject"
+    );
+
+    private final ClassLoaderRegistry classLoaderRegistry;
+    private final ClassGenerator classGenerator;
+    private final File recordedClassesFile;
+
+    public DaemonWarmUp(ClassLoaderRegistry classLoaderRegistry, ClassGenerator classGenerator, File recordedClassesFile) {
+        this.classLoaderRegistry = classLoaderRegistry;
+        this.classGenerator = classGenerator;
+        this.recordedClassesFile = recordedClassesFile;
+    }
+
+    public void warmUp() {
+        Clock clock = new Clock();
+        // The plugins class loader can see the Gradle runtime and the core plugins
+        ClassLoader classLoader = classLoaderRegistry.getPluginsClassLoader();
+        Set<String> classNames = new LinkedHashSet<String>(COMMON_CLASSES);
+        classNames.addAll(readRecordedClasses(recordedClassesFile));
+        List<Class<?>> toDecorate = new ArrayList<Class<?>>();
+        int loaded = 0;
+        for (String className : classNames) {
+            try {
+                Class<?> type = Class.forName(className, true, classLoader);
+                if (DECORATED_CLASSES.contains(className) || isTaskImplementation(type)) {
+                    toDecorate.add(type);
+                }
+                loaded++;
+            } catch (ClassNotFoundException e) {
+                LOGGER.debug("Could not preload class {}, skipping.", className);
+            } catch (LinkageError e) {
+                LOGGER.debug("Could not preload class {}, skipping.", className, e);
+            }
+        }
+        compileSyntheticBuildScript(classLoader);
+        int generated = generateDecoratedClasses(toDecorate);
+        LOGGER.info("Warmed up daemon, preloaded {} classes and generated {} decorated classes in {}.", loaded, generated, clock.getTime());
+    }
+
+    private static boolean isTaskImplementation(Class<?> type) {
+        int modifiers = type.getModifiers();
+        return Task.class.isAssignableFrom(type) && Modifier.isPublic(modifiers) && !Modifier.isAbstract(modifiers) && !Modifier.isFinal(modifiers);
+    }
+
+    private int generateDecoratedClasses(List<Class<?>> types) {
+        int generated = 0;
+        for (Class<?> type : types) {
+            try {
+                classGenerator.generate(type);
+                generated++;
+            } catch (Exception e) {
+                LOGGER.debug("Could not generate decorated class for {}, skipping.", type.getName(), e);
+            } catch (LinkageError e) {
+                LOGGER.debug("Could not generate decorated class for {}, skipping.", type.getName(), e);
+            }
+        }
+        return generated;
+    }
+
+    private void compileSyntheticBuildScript(ClassLoader classLoader) {
+        try {
+            for (int i = 0; i < SCRIPT_COMPILATIONS; i++) {
+                // Use a new class loader each time, so the compiled classes can be collected
+                GroovyClassLoader groovyClassLoader = new GroovyClassLoader(classLoader);
+                groovyClassLoader.parseClass(SYNTHETIC_BUILD_SCRIPT, "warm_up_" + i + ".gradle");
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not compile synthetic build script.", e);
+        } catch (LinkageError e) {
+            LOGGER.debug("Could not compile synthetic build script.", e);
+        }
+    }
+
+    static List<String> readRecordedClasses(File recordedClassesFile) {
+        if (!recordedClassesFile.isFile()) {
+            return Collections.emptyList();
+        }
+        try {
+            return Files.readLines(recordedClassesFile, Charsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.debug("Could not read recorded classes from {}.", recordedClassesFile, e);
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server;
+
+import org.gradle.api.internal.ClassGenerator;
+import org.gradle.initialization.ClassLoaderRegistry;
+import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.service.ServiceRegistration;
+import org.gradle.launcher.daemon.registry.DaemonDir;
+
+/**
+ * Takes care of instantiating and wiring together the services that warm up a daemon and record the types used by its builds.
+ */
+class DaemonWarmUpServices {
+    void configure(ServiceRegistration registration, ListenerManager listenerManager, WarmUpClassRecorder warmUpClassRecorder) {
+        listenerManager.addListener(warmUpClassRecorder);
+    }
+
+    WarmUpClassRecorder createWarmUpClassRecorder(ClassLoaderRegistry classLoaderRegistry, DaemonDir daemonDir) {
+        return new WarmUpClassRecorder(classLoaderRegistry, daemonDir.getWarmUpClasses());
+    }
+
+    DaemonWarmUp createDaemonWarmUp(ClassLoaderRegistry classLoaderRegistry, ClassGenerator classGenerator, DaemonDir daemonDir) {
+        return new DaemonWarmUp(classLoaderRegistry, classGenerator, daemonDir.getWarmUpClasses());
+    }
+}
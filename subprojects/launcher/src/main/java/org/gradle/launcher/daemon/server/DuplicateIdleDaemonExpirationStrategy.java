@@ -26,8 +26,11 @@ import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
 import org.gradle.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.*;
 
@@ -35,14 +38,27 @@ public class DuplicateIdleDaemonExpirationStrategy implements DaemonExpirationSt
     public final static int IDLE_COMPATIBLE_TIMEOUT = 10 * 1000;
     private final Daemon daemon;
     private final ExplainingSpec<DaemonContext> compatibilitySpec;
+    private final int spareDaemons;
 
-    DuplicateIdleDaemonExpirationStrategy(Daemon daemon, ExplainingSpec<DaemonContext> compatibilitySpec) {
+    DuplicateIdleDaemonExpirationStrategy(Daemon daemon, ExplainingSpec<DaemonContext> compatibilitySpec, int spareDaemons) {
         this.daemon = daemon;
         this.compatibilitySpec = compatibilitySpec;
+        this.spareDaemons = spareDaemons;
+    }
+
+    DuplicateIdleDaemonExpirationStrategy(Daemon daemon, ExplainingSpec<DaemonContext> compatibilitySpec) {
+        this(daemon, compatibilitySpec, 0);
     }
 
     public DuplicateIdleDaemonExpirationStrategy(Daemon daemon) {
-        this(daemon, new DaemonCompatibilitySpec(daemon.getDaemonContext()));
+        this(daemon, 0);
+    }
+
+    /**
+     * @param spareDaemons the number of compatible idle daemons to keep, in addition to the most recently used one.
+     */
+    public DuplicateIdleDaemonExpirationStrategy(Daemon daemon, int spareDaemons) {
+        this(daemon, new DaemonCompatibilitySpec(daemon.getDaemonContext()), spareDaemons);
     }
 
     @Override
@@ -55,9 +71,10 @@ public class DuplicateIdleDaemonExpirationStrategy implements DaemonExpirationSt
         };
         Collection<DaemonInfo> compatibleIdleDaemons = CollectionUtils.filter(daemon.getDaemonRegistry().getIdle(), spec);
 
-        if (compatibleIdleDaemons.size() > 1
+        int daemonsToKeep = 1 + spareDaemons;
+        if (compatibleIdleDaemons.size() > daemonsToKeep
             && daemon.getStateCoordinator().getState() == Idle
-            && !isMostRecentlyUsed(compatibleIdleDaemons, daemon.getDaemonContext())
+            && !isMostRecentlyUsed(compatibleIdleDaemons, daemon.getDaemonContext(), daemonsToKeep)
             && hasBeenIdle()) {
             return new DaemonExpirationResult(DaemonExpirationStatus.GRACEFUL_EXPIRE, "after other compatible daemons were started");
         } else {
@@ -65,17 +82,21 @@ public class DuplicateIdleDaemonExpirationStrategy implements DaemonExpirationSt
         }
     }
 
-    boolean isMostRecentlyUsed(Collection<DaemonInfo> compatibleDaemons, DaemonContext thisDaemonContext) {
-        String mruUid = null;
-        Date mruTimestamp = new Date(Long.MIN_VALUE);
-        for (DaemonInfo daemonInfo : compatibleDaemons) {
-            Date daemonAccessTime = daemonInfo.getLastBusy();
-            if (daemonAccessTime.after(mruTimestamp)) {
-                mruUid = daemonInfo.getUid();
-                mruTimestamp = daemonAccessTime;
+    boolean isMostRecentlyUsed(Collection<DaemonInfo> compatibleDaemons, DaemonContext thisDaemonContext, int count) {
+        List<DaemonInfo> byAccessTime = new ArrayList<DaemonInfo>(compatibleDaemons);
+        // Stable sort, so that daemons with the same access time are ranked in registry order by every daemon
+        Collections.sort(byAccessTime, new Comparator<DaemonInfo>() {
+            @Override
+            public int compare(DaemonInfo o1, DaemonInfo o2) {
+                return o2.getLastBusy().compareTo(o1.getLastBusy());
+            }
+        });
+        for (DaemonInfo daemonInfo : byAccessTime.subList(0, Math.min(count, byAccessTime.size()))) {
+            if (thisDaemonContext.getUid().equals(daemonInfo.getUid())) {
+                return true;
             }
         }
-        return thisDaemonContext.getUid().equals(mruUid);
+        return false;
     }
 
     boolean hasBeenIdle() {
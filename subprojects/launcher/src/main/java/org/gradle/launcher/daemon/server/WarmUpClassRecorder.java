@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.TaskState;
+import org.gradle.initialization.ClassLoaderRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the Gradle plugin and task types used by the builds that run in this daemon, so that new daemons can load them before their first build.
+ * Types that are not part of the Gradle distribution, such as those defined by build scripts, are not recorded.
+ *
+ * <p>The recorded types are merged into a file shared by all daemons of the same Gradle version. The most recently used types are kept when the file
+ * reaches its maximum size. Only the names of the types are held on to, so that the class loaders of build scripts can be collected.</p>
+ */
+class WarmUpClassRecorder extends BuildAdapter implements TaskExecutionListener {
+    private static final Logger LOGGER = Logging.getLogger(WarmUpClassRecorder.class);
+    static final int MAX_RECORDED_CLASSES = 2000;
+    // Guards the file lock, which cannot be acquired twice by the same process
+    private static final Object FILE_LOCK = new Object();
+
+    private final ClassLoaderRegistry classLoaderRegistry;
+    private final File recordedClassesFile;
+    private final Set<String> seen = new HashSet<String>();
+    private final Set<String> recorded = new LinkedHashSet<String>();
+
+    WarmUpClassRecorder(ClassLoaderRegistry classLoaderRegistry, File recordedClassesFile) {
+        this.classLoaderRegistry = classLoaderRegistry;
+        this.recordedClassesFile = recordedClassesFile;
+    }
+
+    @Override
+    public void projectsEvaluated(Gradle gradle) {
+        for (Project project : gradle.getRootProject().getAllprojects()) {
+            for (Plugin<?> plugin : project.getPlugins()) {
+                record(plugin.getClass());
+            }
+        }
+    }
+
+    @Override
+    public void beforeExecute(Task task) {
+        record(task.getClass());
+    }
+
+    @Override
+    public void afterExecute(Task task, TaskState state) {
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        Set<String> classNames;
+        synchronized (this) {
+            if (recorded.isEmpty()) {
+                return;
+            }
+            classNames = new LinkedHashSet<String>(recorded);
+            recorded.clear();
+            seen.clear();
+        }
+        persist(classNames);
+    }
+
+    private synchronized void record(Class<?> type) {
+        if (!seen.add(type.getName())) {
+            return;
+        }
+        // Skip over generated subclasses, such as decorated task types, to the type they were generated from
+        ClassLoader classLoader = classLoaderRegistry.getPluginsClassLoader();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            if (isVisible(current, classLoader)) {
+                recorded.add(current.getName());
+                return;
+            }
+        }
+    }
+
+    private static boolean isVisible(Class<?> type, ClassLoader classLoader) {
+        try {
+            return Class.forName(type.getName(), false, classLoader) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    private void persist(Set<String> classNames) {
+        File lockFile = new File(recordedClassesFile.getParentFile(), recordedClassesFile.getName() + ".lock");
+        synchronized (FILE_LOCK) {
+            try {
+                RandomAccessFile lockFileAccess = new RandomAccessFile(lockFile, "rw");
+                try {
+                    // Hold the lock while merging, so that classes recorded concurrently by other daemons are not lost
+                    FileLock lock = lockFileAccess.getChannel().lock();
+                    try {
+                        merge(classNames);
+                    } finally {
+                        lock.release();
+                    }
+                } finally {
+                    lockFileAccess.close();
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Could not write recorded classes to {}.", recordedClassesFile, e);
+            }
+        }
+    }
+
+    private void merge(Set<String> classNames) throws IOException {
+        List<String> previous = DaemonWarmUp.readRecordedClasses(recordedClassesFile);
+        // Put the newly recorded classes first, so that the least recently used classes are dropped when there are too many
+        Set<String> merged = new LinkedHashSet<String>(classNames);
+        for (String className : previous) {
+            if (merged.size() >= MAX_RECORDED_CLASSES) {
+                break;
+            }
+            merged.add(className);
+        }
+        if (merged.size() == previous.size() && merged.containsAll(previous)) {
+            return;
+        }
+        // Write to a temporary file and then move it into place, so that other daemons never see a partially written file
+        File tmpFile = new File(recordedClassesFile.getParentFile(), recordedClassesFile.getName() + "." + System.nanoTime() + ".tmp");
+        try {
+            Files.write(Joiner.on('\n').join(merged), tmpFile, Charsets.UTF_8);
+            Files.move(tmpFile, recordedClassesFile);
+        } finally {
+            tmpFile.delete();
+        }
+    }
+}
@@ -75,5 +75,8 @@ public interface DaemonStateControl {
      */
     void runCommand(Runnable command, String commandDisplayName) throws DaemonUnavailableException, DaemonStoppedException;
 
-    enum State {Idle, Busy, Canceled, StopRequested, Stopped, Broken}
+    /**
+     * The states of a daemon. {@link #WarmingUp} is only advertised in the registry, by a spare daemon that is not yet ready for a build.
+     */
+    enum State {Idle, Busy, Canceled, StopRequested, Stopped, Broken, WarmingUp}
 }
@@ -19,10 +19,12 @@ package org.gradle.launcher.daemon.server.exec;
 import com.google.common.annotations.VisibleForTesting;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.initialization.MemoryPressureListener;
 import org.gradle.launcher.daemon.server.api.DaemonCommandAction;
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
 import org.gradle.launcher.daemon.server.health.DaemonHealthCheck;
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats;
+import org.gradle.launcher.daemon.server.health.DaemonMemoryStatus;
 import org.gradle.launcher.daemon.server.health.HealthLogger;
 
 public class LogAndCheckHealth implements DaemonCommandAction {
@@ -31,16 +33,20 @@ public class LogAndCheckHealth implements DaemonCommandAction {
 
     private final DaemonHealthStats stats;
     private final DaemonHealthCheck healthCheck;
+    private final DaemonMemoryStatus memoryStatus;
+    private final MemoryPressureListener memoryPressureListener;
     private final HealthLogger logger;
 
-    public LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck) {
-        this(stats, healthCheck, new HealthLogger());
+    public LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, DaemonMemoryStatus memoryStatus, MemoryPressureListener memoryPressureListener) {
+        this(stats, healthCheck, memoryStatus, memoryPressureListener, new HealthLogger());
     }
 
     @VisibleForTesting
-    LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, HealthLogger logger) {
+    LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, DaemonMemoryStatus memoryStatus, MemoryPressureListener memoryPressureListener, HealthLogger logger) {
         this.stats = stats;
         this.healthCheck = healthCheck;
+        this.memoryStatus = memoryStatus;
+        this.memoryPressureListener = memoryPressureListener;
         this.logger = logger;
     }
 
@@ -52,6 +58,13 @@ public class LogAndCheckHealth implements DaemonCommandAction {
         }
 
         logger.logHealth(stats, LOG);
+
+        // Let cross-build caches release memory before the build starts, rather than running the build short of memory
+        if (memoryStatus.isUnderMemoryPressure()) {
+            LOG.info("Daemon is short of memory, discarding cached state.");
+            memoryPressureListener.onMemoryPressure();
+        }
+
         execution.proceed();
 
         // Execute the health check that should send out a DaemonExpiration event
@@ -97,6 +97,40 @@ public class DaemonMemoryStatus {
         });
     }
 
+    /**
+     * Returns true when garbage collection runs frequently and the heap or the space for class metadata remains nearly full after collection.
+     * This uses half the collection rate at which the tenured space is considered exhausted, so a daemon that merely holds a large amount of live
+     * data is not considered short of memory, while caches still get the chance to release memory before the daemon is expired.
+     */
+    public boolean isUnderMemoryPressure() {
+        final GarbageCollectionStats tenuredStats = stats.getGcMonitor().getTenuredStats();
+        Spec<GarbageCollectionStats> tenuredSpec = new Spec<GarbageCollectionStats>() {
+            @Override
+            public boolean isSatisfiedBy(GarbageCollectionStats gcStats) {
+                return tenuredUsageThreshold != 0
+                    && isCollectingFrequently(tenuredStats)
+                    && gcStats.getUsage() >= tenuredUsageThreshold;
+            }
+        };
+        Spec<GarbageCollectionStats> permgenSpec = new Spec<GarbageCollectionStats>() {
+            @Override
+            public boolean isSatisfiedBy(GarbageCollectionStats gcStats) {
+                return permgenUsageThreshold > 0
+                    && isCollectingFrequently(tenuredStats)
+                    && gcStats.getEventCount() > 0
+                    && gcStats.getUsage() >= permgenUsageThreshold;
+            }
+        };
+        return exceedsThreshold(TENURED, tenuredStats, tenuredSpec)
+            || exceedsThreshold(PERMGEN, stats.getGcMonitor().getPermGenStats(), permgenSpec);
+    }
+
+    private boolean isCollectingFrequently(GarbageCollectionStats tenuredStats) {
+        return tenuredRateThreshold != 0
+            && tenuredStats.getEventCount() >= 5
+            && tenuredStats.getRate() >= tenuredRateThreshold / 2;
+    }
+
     private boolean exceedsThreshold(String pool, GarbageCollectionStats gcStats, Spec<GarbageCollectionStats> spec) {
         if (isEnabled()
             && strategy != GarbageCollectorMonitoringStrategy.UNKNOWN
@@ -72,6 +72,7 @@ class PropertiesToDaemonParametersConverterTest extends Specification {
             (DAEMON_BASE_DIR_PROPERTY)          : new File("baseDir").absolutePath,
             (IDLE_TIMEOUT_PROPERTY)             : "115",
             (HEALTH_CHECK_INTERVAL_PROPERTY)  : "42",
+            (SPARE_DAEMONS_PROPERTY)            : "2",
             (DEBUG_MODE_PROPERTY)               : "true",
         ], params)
 
@@ -83,6 +84,7 @@ class PropertiesToDaemonParametersConverterTest extends Specification {
         params.baseDir == new File("baseDir").absoluteFile
         params.idleTimeout == 115
         params.periodicCheckInterval == 42
+        params.spareDaemons == 2
     }
 
     def "shows nice message for dummy java home"() {
@@ -126,6 +128,16 @@ class PropertiesToDaemonParametersConverterTest extends Specification {
         ex.message.contains 'bogus'
     }
 
+    def "shows nice message for invalid spare daemon count"() {
+        when:
+        converter.convert((GradleProperties.SPARE_DAEMONS_PROPERTY): 'many', params)
+
+        then:
+        def ex = thrown(GradleException)
+        ex.message.contains 'org.gradle.daemon.spares'
+        ex.message.contains 'many'
+    }
+
     def "does not explicitly set daemon usage if daemon system property is not specified"() {
         when:
         converter.convert([:], params)
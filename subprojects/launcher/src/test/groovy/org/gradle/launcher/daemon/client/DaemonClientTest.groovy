@@ -53,6 +53,27 @@ class DaemonClientTest extends ConcurrentSpecification {
         0 * _
     }
 
+    def "starts spare daemons once the build has completed"() {
+        def spareDaemonStarter = Mock(SpareDaemonStarter)
+        def daemon = Stub(DaemonConnectDetails)
+        def client = new DaemonClient(connector, outputEventListener, compatibilitySpec, new ByteArrayInputStream(new byte[0]), executorFactory, idGenerator, spareDaemonStarter)
+
+        when:
+        def result = client.execute(Stub(BuildAction), Stub(BuildRequestContext), Stub(BuildActionParameters), Stub(ServiceRegistry))
+
+        then:
+        result == '[result]'
+        1 * connector.connect(compatibilitySpec) >> connection
+        _ * connection.daemon >> daemon
+        2 * connection.receive() >>> [Stub(BuildStarted), new Success('[result]')]
+
+        then:
+        1 * connection.stop()
+
+        then:
+        1 * spareDaemonStarter.maybeStartSpareDaemons(compatibilitySpec, daemon)
+    }
+
     def rethrowsFailureToExecuteAction() {
         RuntimeException failure = new RuntimeException()
 
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.client
+
+import org.gradle.api.internal.specs.ExplainingSpec
+import org.gradle.launcher.daemon.context.DaemonConnectDetails
+import org.gradle.launcher.daemon.context.DaemonContext
+import org.gradle.launcher.daemon.registry.DaemonInfo
+import org.gradle.launcher.daemon.registry.DaemonRegistry
+import org.gradle.launcher.daemon.server.api.DaemonStateControl.State
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.*
+
+class SpareDaemonStarterTest extends ConcurrentSpec {
+    final DaemonRegistry registry = Mock()
+    final DaemonStarter starter = Mock()
+    final ExplainingSpec<DaemonContext> constraint = Mock()
+    final DaemonConnectDetails daemonUsed = Stub(DaemonConnectDetails) {
+        getUid() >> "used"
+    }
+
+    def "does nothing when no spare daemons are configured"() {
+        def spares = new SpareDaemonStarter(registry, starter, executorFactory, 0)
+
+        when:
+        async {
+            spares.maybeStartSpareDaemons(constraint, daemonUsed)
+        }
+
+        then:
+        0 * _
+    }
+
+    def "starts missing spare daemons in the background"() {
+        def spares = new SpareDaemonStarter(registry, starter, executorFactory, 2)
+
+        when:
+        async {
+            spares.maybeStartSpareDaemons(constraint, daemonUsed)
+        }
+
+        then:
+        1 * registry.getAll() >> [daemon("used"), daemon("compatible"), daemon("incompatible"), daemon("busy", Busy)]
+        _ * constraint.isSatisfiedBy({ it.uid != "incompatible" }) >> true
+        _ * constraint.isSatisfiedBy({ it.uid == "incompatible" }) >> false
+        1 * starter.startSpareDaemon()
+        0 * starter._
+    }
+
+    def "does not start spare daemons when there are enough compatible idle daemons"() {
+        def spares = new SpareDaemonStarter(registry, starter, executorFactory, 1)
+
+        when:
+        async {
+            spares.maybeStartSpareDaemons(constraint, daemonUsed)
+        }
+
+        then:
+        1 * registry.getAll() >> [daemon("used"), daemon("compatible")]
+        _ * constraint.isSatisfiedBy(_) >> true
+        0 * starter._
+    }
+
+    def "counts spare daemons that are still warming up"() {
+        def spares = new SpareDaemonStarter(registry, starter, executorFactory, 1)
+
+        when:
+        async {
+            spares.maybeStartSpareDaemons(constraint, daemonUsed)
+        }
+
+        then:
+        1 * registry.getAll() >> [daemon("used"), daemon("warming", WarmingUp)]
+        _ * constraint.isSatisfiedBy(_) >> true
+        0 * starter._
+    }
+
+    def "ignores failure to start a spare daemon"() {
+        def spares = new SpareDaemonStarter(registry, starter, executorFactory, 1)
+
+        when:
+        async {
+            spares.maybeStartSpareDaemons(constraint, daemonUsed)
+        }
+
+        then:
+        1 * registry.getAll() >> []
+        1 * starter.startSpareDaemon() >> { throw new RuntimeException("broken") }
+        noExceptionThrown()
+    }
+
+    private DaemonInfo daemon(String uid, State state = Idle) {
+        def context = Stub(DaemonContext) {
+            getUid() >> uid
+        }
+        return Stub(DaemonInfo) {
+            getUid() >> uid
+            getContext() >> context
+            getState() >> state
+        }
+    }
+}
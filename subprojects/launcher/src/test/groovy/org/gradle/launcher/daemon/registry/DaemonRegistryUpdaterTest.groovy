@@ -29,11 +29,19 @@ public class DaemonRegistryUpdaterTest extends Specification {
     final DaemonRegistry registry = Mock()
     final Address address = Mock()
     final DaemonContext context = Mock()
-    final updater = new DaemonRegistryUpdater(registry, context)
+    final updater = new DaemonRegistryUpdater(registry, context, new byte[0])
+
+    def "advertises daemon with given state on start"() {
+        when:
+        updater.onStart(address, WarmingUp)
+
+        then:
+        1 * registry.store({ it.address == address && it.state == WarmingUp })
+    }
 
     def "marks idle"() {
         given:
-        updater.onStart(address)
+        updater.onStart(address, Busy)
 
         when:
         updater.onCompleteActivity()
@@ -44,7 +52,7 @@ public class DaemonRegistryUpdaterTest extends Specification {
 
     def "ignores empty cache on marking idle"() {
         given:
-        updater.onStart(address)
+        updater.onStart(address, Busy)
         registry.markState(address, Idle) >> { throw new EmptyRegistryException("") }
 
         when:
@@ -56,7 +64,7 @@ public class DaemonRegistryUpdaterTest extends Specification {
 
     def "marks busy"() {
         given:
-        updater.onStart(address)
+        updater.onStart(address, Busy)
 
         when:
         updater.onStartActivity()
@@ -67,7 +75,7 @@ public class DaemonRegistryUpdaterTest extends Specification {
 
     def "marks canceled"() {
         given:
-        updater.onStart(address)
+        updater.onStart(address, Busy)
 
         when:
         updater.onCancel()
@@ -78,7 +86,7 @@ public class DaemonRegistryUpdaterTest extends Specification {
 
     def "ignores empty cache on marking busy"() {
         given:
-        updater.onStart(address)
+        updater.onStart(address, Busy)
         registry.markState(address, Busy) >> { throw new EmptyRegistryException("") }
 
         when:
@@ -90,7 +98,7 @@ public class DaemonRegistryUpdaterTest extends Specification {
 
     def "ignores empty cache on stopping"() {
         given:
-        updater.onStart(address)
+        updater.onStart(address, Busy)
         registry.remove(address) >> { throw new EmptyRegistryException("") }
 
         when:
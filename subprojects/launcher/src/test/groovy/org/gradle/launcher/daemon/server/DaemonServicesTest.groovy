@@ -49,4 +49,10 @@ class DaemonServicesTest extends Specification {
         expect:
         services.get(Daemon.class) != null
     }
+
+    def "makes a DaemonWarmUp and a WarmUpClassRecorder available"() {
+        expect:
+        services.get(DaemonWarmUp.class) != null
+        services.get(WarmUpClassRecorder.class) != null
+    }
 }
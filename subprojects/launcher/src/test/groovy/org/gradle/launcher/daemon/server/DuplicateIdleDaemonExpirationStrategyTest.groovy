@@ -155,6 +155,36 @@ class DuplicateIdleDaemonExpirationStrategyTest extends Specification {
         wouldExpire(d1) ^ wouldExpire(d2)
     }
 
+    def "keeps spare daemons in addition to the most recently used daemon"() {
+        given:
+        DaemonInfo d1 = registerDaemon(Idle)
+        DaemonInfo d2 = registerDaemon(Idle)
+        DaemonInfo d3 = registerDaemon(Idle)
+        DaemonInfo d4 = registerDaemon(Idle)
+
+        when:
+        compatible = [ d1, d2, d3, d4 ]
+
+        then:
+        wouldExpire(d1, true, 2)
+        !wouldExpire(d2, true, 2)
+        !wouldExpire(d3, true, 2)
+        !wouldExpire(d4, true, 2)
+    }
+
+    def "does not expire when there are no more idle daemons than spares"() {
+        given:
+        DaemonInfo d1 = registerDaemon(Idle)
+        DaemonInfo d2 = registerDaemon(Idle)
+
+        when:
+        compatible = [ d1, d2 ]
+
+        then:
+        !wouldExpire(d1, true, 1)
+        !wouldExpire(d2, true, 1)
+    }
+
     private DaemonInfo registerDaemon(DaemonStateControl.State state, long lastIdle=-1) {
         final String uid = UUID.randomUUID().toString()
         final int id = registry.getAll().size() + 1
@@ -176,7 +206,7 @@ class DuplicateIdleDaemonExpirationStrategyTest extends Specification {
         }
     }
 
-    private boolean wouldExpire(DaemonInfo info, timeoutReached = true) {
+    private boolean wouldExpire(DaemonInfo info, timeoutReached = true, int spareDaemons = 0) {
         Daemon daemon = Mock(Daemon) {
             1 * getDaemonRegistry() >> { registry }
             _ * getDaemonContext() >> { info.getContext() }
@@ -192,6 +222,6 @@ class DuplicateIdleDaemonExpirationStrategyTest extends Specification {
             compatibleWithCurrent = []
         }
 
-        return new DuplicateIdleDaemonExpirationStrategy(daemon, compatibilitySpec).checkExpiration().status == GRACEFUL_EXPIRE
+        return new DuplicateIdleDaemonExpirationStrategy(daemon, compatibilitySpec, spareDaemons).checkExpiration().status == GRACEFUL_EXPIRE
     }
 }
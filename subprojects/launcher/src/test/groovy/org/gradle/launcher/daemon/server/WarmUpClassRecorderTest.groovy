@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server
+
+import org.gradle.BuildResult
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+import org.gradle.api.invocation.Gradle
+import org.gradle.api.plugins.PluginContainer
+import org.gradle.initialization.ClassLoaderRegistry
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class WarmUpClassRecorderTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def classLoaderRegistry = Stub(ClassLoaderRegistry) {
+        getPluginsClassLoader() >> WarmUpClassRecorderTest.classLoader
+    }
+    def recordedClasses = tmpDir.file("warm-up-classes.txt")
+    def recorder = new WarmUpClassRecorder(classLoaderRegistry, recordedClasses)
+
+    def "records applied plugin types when the build finishes"() {
+        when:
+        recorder.projectsEvaluated(gradleWithPlugins(new TestPlugin()))
+        recorder.buildFinished(Stub(BuildResult))
+
+        then:
+        recordedClasses.text == TestPlugin.name
+        DaemonWarmUp.readRecordedClasses(recordedClasses) == [TestPlugin.name]
+    }
+
+    def "merges with previously recorded classes"() {
+        given:
+        recordedClasses.text = "org.gradle.Previous"
+
+        when:
+        recorder.projectsEvaluated(gradleWithPlugins(new TestPlugin()))
+        recorder.buildFinished(Stub(BuildResult))
+
+        then:
+        DaemonWarmUp.readRecordedClasses(recordedClasses) == [TestPlugin.name, "org.gradle.Previous"]
+    }
+
+    def "drops least recently recorded classes when too many classes have been recorded"() {
+        given:
+        def previous = (1..WarmUpClassRecorder.MAX_RECORDED_CLASSES).collect { "org.gradle.Previous$it" as String }
+        recordedClasses.text = previous.join("\n")
+
+        when:
+        recorder.projectsEvaluated(gradleWithPlugins(new TestPlugin()))
+        recorder.buildFinished(Stub(BuildResult))
+
+        then:
+        DaemonWarmUp.readRecordedClasses(recordedClasses) == [TestPlugin.name] + previous.subList(0, WarmUpClassRecorder.MAX_RECORDED_CLASSES - 1)
+    }
+
+    def "does not rewrite file when no new classes have been recorded"() {
+        given:
+        recordedClasses.text = "${TestPlugin.name}\norg.gradle.Previous"
+
+        when:
+        recorder.projectsEvaluated(gradleWithPlugins(new TestPlugin()))
+        recorder.buildFinished(Stub(BuildResult))
+
+        then:
+        recordedClasses.text == "${TestPlugin.name}\norg.gradle.Previous"
+    }
+
+    def "records classes again in later builds"() {
+        when:
+        recorder.projectsEvaluated(gradleWithPlugins(new TestPlugin()))
+        recorder.buildFinished(Stub(BuildResult))
+        recordedClasses.delete()
+        recorder.projectsEvaluated(gradleWithPlugins(new TestPlugin()))
+        recorder.buildFinished(Stub(BuildResult))
+
+        then:
+        DaemonWarmUp.readRecordedClasses(recordedClasses) == [TestPlugin.name]
+    }
+
+    def "records the type that a generated subclass was generated from"() {
+        given:
+        def generatedType = new GroovyClassLoader(WarmUpClassRecorderTest.classLoader).parseClass("class TestPlugin_Decorated extends ${TestPlugin.name.replace('$', '.')} {}")
+
+        when:
+        recorder.projectsEvaluated(gradleWithPlugins(generatedType.newInstance()))
+        recorder.buildFinished(Stub(BuildResult))
+
+        then:
+        DaemonWarmUp.readRecordedClasses(recordedClasses) == [TestPlugin.name]
+    }
+
+    def "does not record classes that the Gradle class loaders cannot see"() {
+        given:
+        def scriptType = new GroovyClassLoader(WarmUpClassRecorderTest.classLoader).parseClass("class ScriptPlugin implements ${Plugin.name} { void apply(Object project) {} }")
+
+        when:
+        recorder.projectsEvaluated(gradleWithPlugins(scriptType.newInstance()))
+        recorder.buildFinished(Stub(BuildResult))
+
+        then:
+        !recordedClasses.exists()
+    }
+
+    def "reads nothing when no classes have been recorded"() {
+        expect:
+        DaemonWarmUp.readRecordedClasses(recordedClasses) == []
+    }
+
+    private Gradle gradleWithPlugins(Object... plugins) {
+        def project = Stub(Project) {
+            getPlugins() >> Stub(PluginContainer) {
+                iterator() >> { (plugins as List<Plugin>).iterator() }
+            }
+        }
+        return Stub(Gradle) {
+            getRootProject() >> Stub(Project) {
+                getAllprojects() >> ([project] as Set)
+            }
+        }
+    }
+
+    static class TestPlugin implements Plugin<Project> {
+        @Override
+        void apply(Project project) {
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.server.exec
 
+import org.gradle.initialization.MemoryPressureListener
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution
 import org.gradle.launcher.daemon.server.health.DaemonHealthCheck
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats
@@ -29,7 +30,8 @@ class LogAndCheckHealthTest extends Specification {
     def status = Mock(DaemonMemoryStatus)
     def logger = Mock(HealthLogger)
     def healthCheck = Mock(DaemonHealthCheck)
-    def tracker = new LogAndCheckHealth(stats, healthCheck, logger)
+    def memoryPressureListener = Mock(MemoryPressureListener)
+    def tracker = new LogAndCheckHealth(stats, healthCheck, status, memoryPressureListener, logger)
 
     def "does not track single use daemon"() {
         when:
@@ -48,4 +50,28 @@ class LogAndCheckHealthTest extends Specification {
         then:
         1 * healthCheck.executeHealthCheck()
     }
+
+    def "notifies listener before build when short of memory"() {
+        when:
+        tracker.execute(exec)
+
+        then:
+        1 * status.isUnderMemoryPressure() >> true
+
+        then:
+        1 * memoryPressureListener.onMemoryPressure()
+
+        then:
+        1 * exec.proceed()
+    }
+
+    def "does not notify listener when memory is fine"() {
+        when:
+        tracker.execute(exec)
+
+        then:
+        1 * status.isUnderMemoryPressure() >> false
+        0 * memoryPressureListener._
+        1 * exec.proceed()
+    }
 }
@@ -148,6 +148,56 @@ class DaemonMemoryStatusTest extends Specification {
         10             | 90             | 15   | 0    | false
     }
 
+    @Unroll
+    def "knows when memory is under pressure (#tenuredUsed of tenured, #permGenUsed of perm gen, #rate gc/s)"() {
+        when:
+        System.setProperty(TENURED_USAGE_EXPIRE_AT, "80")
+        System.setProperty(TENURED_RATE_EXPIRE_AT, "2.0")
+        System.setProperty(PERMGEN_USAGE_EXPIRE_AT, "90")
+        gcMonitor.getTenuredStats() >> {
+            Stub(GarbageCollectionStats) {
+                getRate() >> rate
+                getUsage() >> tenuredUsed
+                getEventCount() >> 5
+            }
+        }
+        gcMonitor.getPermGenStats() >> {
+            Stub(GarbageCollectionStats) {
+                getUsage() >> permGenUsed
+                getEventCount() >> 5
+            }
+        }
+
+        then:
+        status.isUnderMemoryPressure() == pressure
+
+        where:
+        tenuredUsed | permGenUsed | rate | pressure
+        50          | 50          | 1.0  | false
+        79          | 89          | 1.0  | false
+        80          | 50          | 1.0  | true
+        50          | 90          | 1.0  | true
+        100         | 100         | 1.0  | true
+        100         | 100         | 0.9  | false
+        100         | 100         | 0    | false
+    }
+
+    def "is not under memory pressure before enough garbage collections have been seen"() {
+        when:
+        System.setProperty(TENURED_USAGE_EXPIRE_AT, "80")
+        System.setProperty(TENURED_RATE_EXPIRE_AT, "2.0")
+        gcMonitor.getTenuredStats() >> {
+            Stub(GarbageCollectionStats) {
+                getRate() >> 5.0
+                getUsage() >> 100
+                getEventCount() >> 4
+            }
+        }
+
+        then:
+        !status.isUnderMemoryPressure()
+    }
+
     def "can disable daemon performance monitoring"() {
         when:
         System.setProperty(DaemonMemoryStatus.ENABLE_PERFORMANCE_MONITORING, "false")
@@ -160,6 +210,9 @@ class DaemonMemoryStatusTest extends Specification {
 
         and:
         !status.isThrashing()
+
+        and:
+        !status.isUnderMemoryPressure()
     }
 
     DaemonMemoryStatus getStatus() {
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub;
+
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+
+/**
+ * Measures the cost of encoding and decoding the arguments of a stream of test output events, as sent from a test worker to the build process.
+ */
+@State(Scope.Benchmark)
+public class MethodArgsSerializerBenchmark {
+    private static final int EVENT_COUNT = 1000;
+    private static final Class<?>[] PARAM_TYPES = new Class<?>[]{Long.class, OutputEvent.class};
+
+    @Param({"java", "binary"})
+    private String serializer;
+
+    private Serializer<Object[]> argsSerializer;
+    private Object[][] events;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        MethodArgsSerializer javaSerializer = new JavaSerializationBackedMethodArgsSerializer(getClass().getClassLoader());
+        argsSerializer = serializer.equals("java") ? javaSerializer.forTypes(PARAM_TYPES) : new BinaryMethodArgsSerializer(javaSerializer).forTypes(PARAM_TYPES);
+        events = new Object[EVENT_COUNT][];
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            events[i] = new Object[]{(long) i, new OutputEvent(Destination.StdOut, "Output line " + i + " from test method testSomething()\n")};
+        }
+        encoded = encode();
+    }
+
+    @Benchmark
+    public void write(Blackhole bh) throws Exception {
+        bh.consume(encode());
+    }
+
+    @Benchmark
+    public void read(Blackhole bh) throws Exception {
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(encoded));
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            bh.consume(argsSerializer.read(decoder));
+        }
+    }
+
+    private byte[] encode() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        for (Object[] event : events) {
+            argsSerializer.write(encoder, event);
+        }
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    public enum Destination {
+        StdOut, StdErr
+    }
+
+    public static final class OutputEvent implements Serializable {
+        private Destination destination;
+        private String message;
+
+        public OutputEvent() {
+        }
+
+        public OutputEvent(Destination destination, String message) {
+            this.destination = destination;
+            this.message = message;
+        }
+    }
+}
@@ -23,11 +23,15 @@ import org.gradle.internal.dispatch.ReflectionDispatch;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Dispatches to a set of handlers. Handlers may be added and removed while another thread dispatches; a dispatch uses the handlers present when it starts.
+ */
 public class BroadcastDispatch<T> extends AbstractBroadcastDispatch<T> {
+    // Protected by the map's own monitor
     private final Map<Object, Dispatch<MethodInvocation>> handlers = new LinkedHashMap<Object, Dispatch<MethodInvocation>>();
 
     public BroadcastDispatch(Class<T> type) {
@@ -39,20 +43,28 @@ public class BroadcastDispatch<T> extends AbstractBroadcastDispatch<T> {
     }
 
     public boolean isEmpty() {
-        return handlers.isEmpty();
+        synchronized (handlers) {
+            return handlers.isEmpty();
+        }
     }
 
     public void add(Dispatch<MethodInvocation> dispatch) {
-        handlers.put(dispatch, dispatch);
+        synchronized (handlers) {
+            handlers.put(dispatch, dispatch);
+        }
     }
 
     public void add(T listener) {
-        handlers.put(listener, new ReflectionDispatch(listener));
+        synchronized (handlers) {
+            handlers.put(listener, new ReflectionDispatch(listener));
+        }
     }
 
     public void add(String methodName, Action<?> action) {
         assertIsMethod(methodName);
-        handlers.put(action, new ActionInvocationHandler(methodName, action));
+        synchronized (handlers) {
+            handlers.put(action, new ActionInvocationHandler(methodName, action));
+        }
     }
 
     private void assertIsMethod(String methodName) {
@@ -66,17 +78,24 @@ public class BroadcastDispatch<T> extends AbstractBroadcastDispatch<T> {
     }
 
     public void remove(Object listener) {
-        handlers.remove(listener);
+        synchronized (handlers) {
+            handlers.remove(listener);
+        }
     }
 
     public void removeAll() {
-        handlers.clear();
+        synchronized (handlers) {
+            handlers.clear();
+        }
     }
 
     @Override
     public void dispatch(MethodInvocation message) {
-        Iterator<Dispatch<MethodInvocation>> iterator = new ArrayList<Dispatch<MethodInvocation>>(handlers.values()).iterator();
-        dispatch(message, iterator);
+        List<Dispatch<MethodInvocation>> snapshot;
+        synchronized (handlers) {
+            snapshot = new ArrayList<Dispatch<MethodInvocation>>(handlers.values());
+        }
+        dispatch(message, snapshot.iterator());
     }
 
     private class ActionInvocationHandler implements Dispatch<MethodInvocation> {
@@ -76,7 +76,8 @@ public interface ListenerManager {
      * of the listener as they need.  The client code must provide some way for its users to register listeners on the
      * specialized broadcasters.
      *
-     * <p>The returned value is not thread-safe.</p>
+     * <p>Listeners can be added to and removed from the returned value while another thread uses it. Unlike listeners registered with this
+     * manager, listeners added directly to the returned value may be notified by several threads at once.</p>
      *
      * @param listenerClass The type of listener for which to create a broadcaster.
      * @return A broadcaster that forwards method calls to all listeners assigned to it, or of the same type that have
@@ -46,7 +46,8 @@ public interface ObjectConnectionBuilder {
     <T> void addIncoming(Class<T> type, T instance);
 
     /**
-     * Use Java serialization for method parameters for method invocations sent between peers.
+     * Use Java serialization for method parameters for method invocations sent between peers. Parameters of well-known types, such as strings, primitives,
+     * enums and simple value classes made up of these, are encoded using a more efficient binary format.
      */
     void useJavaSerializationForParameters(ClassLoader incomingMessageClassLoader);
 
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.Externalizable;
+import java.io.File;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link MethodArgsSerializer} that uses a compact binary encoding for method parameters of well-known types: primitives and their boxed types, strings,
+ * files, byte arrays, enums, and simple value classes whose fields are all of these types. Serializers for the value classes are derived from their fields.
+ *
+ * <p>Falls back to the given serializer for methods that take a parameter of any other type. Both peers make the same decision based on the parameter
+ * types of the method, so no additional information needs to be sent.</p>
+ */
+class BinaryMethodArgsSerializer implements MethodArgsSerializer {
+    private static final List<String> SERIALIZATION_METHODS = Arrays.asList("writeObject", "readObject", "readObjectNoData", "writeReplace", "readResolve");
+    private static final Map<Class<?>, Serializer<?>> KNOWN_TYPES;
+    static {
+        KNOWN_TYPES = new HashMap<Class<?>, Serializer<?>>();
+        KNOWN_TYPES.put(Boolean.TYPE, new BooleanSerializer());
+        KNOWN_TYPES.put(Byte.TYPE, new ByteSerializer());
+        KNOWN_TYPES.put(Short.TYPE, new ShortSerializer());
+        KNOWN_TYPES.put(Character.TYPE, new CharSerializer());
+        KNOWN_TYPES.put(Integer.TYPE, new IntSerializer());
+        KNOWN_TYPES.put(Long.TYPE, new LongSerializer());
+        KNOWN_TYPES.put(Float.TYPE, new FloatSerializer());
+        KNOWN_TYPES.put(Double.TYPE, new DoubleSerializer());
+        KNOWN_TYPES.put(Boolean.class, nullSafe(new BooleanSerializer()));
+        KNOWN_TYPES.put(Byte.class, nullSafe(new ByteSerializer()));
+        KNOWN_TYPES.put(Short.class, nullSafe(new ShortSerializer()));
+        KNOWN_TYPES.put(Character.class, nullSafe(new CharSerializer()));
+        KNOWN_TYPES.put(Integer.class, nullSafe(new IntSerializer()));
+        KNOWN_TYPES.put(Long.class, nullSafe(new LongSerializer()));
+        KNOWN_TYPES.put(Float.class, nullSafe(new FloatSerializer()));
+        KNOWN_TYPES.put(Double.class, nullSafe(new DoubleSerializer()));
+        KNOWN_TYPES.put(String.class, new NullableStringSerializer());
+        KNOWN_TYPES.put(File.class, nullSafe(BaseSerializerFactory.FILE_SERIALIZER));
+        KNOWN_TYPES.put(byte[].class, nullSafe(BaseSerializerFactory.BYTE_ARRAY_SERIALIZER));
+    }
+
+    private final MethodArgsSerializer fallback;
+    private final BaseSerializerFactory serializerFactory = new BaseSerializerFactory();
+    private final Map<Class<?>, Serializer<?>> serializers = new HashMap<Class<?>, Serializer<?>>(KNOWN_TYPES);
+    private final Set<Class<?>> unsupported = new HashSet<Class<?>>();
+
+    public BinaryMethodArgsSerializer(MethodArgsSerializer fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Serializer<Object[]> forTypes(Class<?>[] types) {
+        if (types.length == 0) {
+            return fallback.forTypes(types);
+        }
+        Serializer<Object>[] argSerializers = new Serializer[types.length];
+        synchronized (this) {
+            for (int i = 0; i < types.length; i++) {
+                Serializer<Object> serializer = serializerFor(types[i], new HashSet<Class<?>>());
+                if (serializer == null) {
+                    return fallback.forTypes(types);
+                }
+                argSerializers[i] = serializer;
+            }
+        }
+        return new ArraySerializer(argSerializers);
+    }
+
+    private Serializer<Object> serializerFor(Class<?> type, Set<Class<?>> visiting) {
+        Serializer<?> serializer = serializers.get(type);
+        if (serializer != null) {
+            return (Serializer<Object>) serializer;
+        }
+        if (unsupported.contains(type) || !visiting.add(type)) {
+            return null;
+        }
+        if (type.isEnum()) {
+            serializer = nullSafe(serializerFactory.getSerializerFor(type));
+        } else {
+            serializer = valueSerializerFor(type, visiting);
+        }
+        visiting.remove(type);
+        if (serializer == null) {
+            unsupported.add(type);
+            return null;
+        }
+        serializers.put(type, serializer);
+        return (Serializer<Object>) serializer;
+    }
+
+    /**
+     * Creates a serializer for a simple value class: a final serializable class that extends Object, has a no-args constructor, does not customize
+     * its serialized form and whose fields are all of supported types. Returns null for any other type.
+     */
+    private Serializer<Object> valueSerializerFor(Class<?> type, Set<Class<?>> visiting) {
+        if (type.isArray() || type.isInterface() || !Modifier.isFinal(type.getModifiers()) || !Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+            || type.getSuperclass() != Object.class) {
+            return null;
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            if (SERIALIZATION_METHODS.contains(method.getName())) {
+                return null;
+            }
+        }
+        Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+
+        List<Field> fields = new ArrayList<Field>();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            if (Modifier.isTransient(field.getModifiers())) {
+                return null;
+            }
+            fields.add(field);
+        }
+        // Use a stable order, as the order of declared fields is not specified
+        Field[] fieldArray = fields.toArray(new Field[0]);
+        Arrays.sort(fieldArray, new Comparator<Field>() {
+            @Override
+            public int compare(Field o1, Field o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        Serializer<Object>[] fieldSerializers = new Serializer[fieldArray.length];
+        for (int i = 0; i < fieldArray.length; i++) {
+            fieldSerializers[i] = serializerFor(fieldArray[i].getType(), visiting);
+            if (fieldSerializers[i] == null) {
+                return null;
+            }
+        }
+
+        try {
+            constructor.setAccessible(true);
+            for (Field field : fieldArray) {
+                field.setAccessible(true);
+            }
+        } catch (SecurityException e) {
+            return null;
+        }
+        return nullSafe(new ValueSerializer(constructor, fieldArray, fieldSerializers));
+    }
+
+    private static <T> Serializer<T> nullSafe(Serializer<T> serializer) {
+        return new NullSafeSerializer<T>(serializer);
+    }
+
+    private static class ArraySerializer implements Serializer<Object[]> {
+        private final Serializer<Object>[] serializers;
+
+        ArraySerializer(Serializer<Object>[] serializers) {
+            this.serializers = serializers;
+        }
+
+        @Override
+        public Object[] read(Decoder decoder) throws Exception {
+            Object[] result = new Object[serializers.length];
+            for (int i = 0; i < serializers.length; i++) {
+                result[i] = serializers[i].read(decoder);
+            }
+            return result;
+        }
+
+        @Override
+        public void write(Encoder encoder, Object[] value) throws Exception {
+            for (int i = 0; i < value.length; i++) {
+                serializers[i].write(encoder, value[i]);
+            }
+        }
+    }
+
+    private static class ValueSerializer implements Serializer<Object> {
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+        private final Serializer<Object>[] fieldSerializers;
+
+        ValueSerializer(Constructor<?> constructor, Field[] fields, Serializer<Object>[] fieldSerializers) {
+            this.constructor = constructor;
+            this.fields = fields;
+            this.fieldSerializers = fieldSerializers;
+        }
+
+        @Override
+        public Object read(Decoder decoder) throws Exception {
+            Object value = constructor.newInstance();
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].set(value, fieldSerializers[i].read(decoder));
+            }
+            return value;
+        }
+
+        @Override
+        public void write(Encoder encoder, Object value) throws Exception {
+            for (int i = 0; i < fields.length; i++) {
+                fieldSerializers[i].write(encoder, fields[i].get(value));
+            }
+        }
+    }
+
+    private static class NullSafeSerializer<T> implements Serializer<T> {
+        private final Serializer<T> serializer;
+
+        NullSafeSerializer(Serializer<T> serializer) {
+            this.serializer = serializer;
+        }
+
+        @Override
+        public T read(Decoder decoder) throws Exception {
+            if (!decoder.readBoolean()) {
+                return null;
+            }
+            return serializer.read(decoder);
+        }
+
+        @Override
+        public void write(Encoder encoder, T value) throws Exception {
+            encoder.writeBoolean(value != null);
+            if (value != null) {
+                serializer.write(encoder, value);
+            }
+        }
+    }
+
+    private static class NullableStringSerializer implements Serializer<String> {
+        @Override
+        public String read(Decoder decoder) throws Exception {
+            return decoder.readNullableString();
+        }
+
+        @Override
+        public void write(Encoder encoder, String value) throws Exception {
+            encoder.writeNullableString(value);
+        }
+    }
+
+    private static class BooleanSerializer implements Serializer<Boolean> {
+        @Override
+        public Boolean read(Decoder decoder) throws Exception {
+            return decoder.readBoolean();
+        }
+
+        @Override
+        public void write(Encoder encoder, Boolean value) throws Exception {
+            encoder.writeBoolean(value);
+        }
+    }
+
+    private static class ByteSerializer implements Serializer<Byte> {
+        @Override
+        public Byte read(Decoder decoder) throws Exception {
+            return decoder.readByte();
+        }
+
+        @Override
+        public void write(Encoder encoder, Byte value) throws Exception {
+            encoder.writeByte(value);
+        }
+    }
+
+    private static class ShortSerializer implements Serializer<Short> {
+        @Override
+        public Short read(Decoder decoder) throws Exception {
+            return (short) decoder.readInt();
+        }
+
+        @Override
+        public void write(Encoder encoder, Short value) throws Exception {
+            encoder.writeInt(value);
+        }
+    }
+
+    private static class CharSerializer implements Serializer<Character> {
+        @Override
+        public Character read(Decoder decoder) throws Exception {
+            return (char) decoder.readSmallInt();
+        }
+
+        @Override
+        public void write(Encoder encoder, Character value) throws Exception {
+            encoder.writeSmallInt(value);
+        }
+    }
+
+    private static class IntSerializer implements Serializer<Integer> {
+        @Override
+        public Integer read(Decoder decoder) throws Exception {
+            return decoder.readInt();
+        }
+
+        @Override
+        public void write(Encoder encoder, Integer value) throws Exception {
+            encoder.writeInt(value);
+        }
+    }
+
+    private static class LongSerializer implements Serializer<Long> {
+        @Override
+        public Long read(Decoder decoder) throws Exception {
+            return decoder.readLong();
+        }
+
+        @Override
+        public void write(Encoder encoder, Long value) throws Exception {
+            encoder.writeLong(value);
+        }
+    }
+
+    private static class FloatSerializer implements Serializer<Float> {
+        @Override
+        public Float read(Decoder decoder) throws Exception {
+            return Float.intBitsToFloat(decoder.readInt());
+        }
+
+        @Override
+        public void write(Encoder encoder, Float value) throws Exception {
+            encoder.writeInt(Float.floatToIntBits(value));
+        }
+    }
+
+    private static class DoubleSerializer implements Serializer<Double> {
+        @Override
+        public Double read(Decoder decoder) throws Exception {
+            return Double.longBitsToDouble(decoder.readLong());
+        }
+
+        @Override
+        public void write(Encoder encoder, Double value) throws Exception {
+            encoder.writeLong(Double.doubleToLongBits(value));
+        }
+    }
+}
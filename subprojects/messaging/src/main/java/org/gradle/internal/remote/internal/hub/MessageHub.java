@@ -17,6 +17,8 @@
 package org.gradle.internal.remote.internal.hub;
 
 import org.gradle.api.Action;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.concurrent.AsyncStoppable;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.StoppableExecutor;
@@ -47,6 +49,7 @@ public class MessageHub implements AsyncStoppable {
     private final StoppableExecutor workers;
     private final String displayName;
     private final Action<? super Throwable> errorHandler;
+    private final TimeProvider timeProvider;
     private final Lock lock = new ReentrantLock();
     private State state = State.Running;
     private final IncomingQueue incomingQueue = new IncomingQueue(lock);
@@ -57,8 +60,13 @@ public class MessageHub implements AsyncStoppable {
      * @param errorHandler Notified when some asynch. activity fails. Must be thread-safe.
      */
     public MessageHub(String displayName, ExecutorFactory executorFactory, Action<? super Throwable> errorHandler) {
+        this(displayName, executorFactory, errorHandler, new TrueTimeProvider());
+    }
+
+    MessageHub(String displayName, ExecutorFactory executorFactory, Action<? super Throwable> errorHandler, TimeProvider timeProvider) {
         this.displayName = displayName;
         this.errorHandler = errorHandler;
+        this.timeProvider = timeProvider;
         workers = executorFactory.create(displayName + " workers");
     }
 
@@ -272,7 +280,15 @@ public class MessageHub implements AsyncStoppable {
         }
     }
 
+    /**
+     * Dispatches outgoing messages to a connection. Flushes the connection as soon as the outgoing queue is empty, so an isolated message is sent
+     * immediately. Messages that are queued while earlier messages are being written are written to the connection without flushing in between, up to
+     * {@link #MAX_UNFLUSHED_MESSAGES} messages or for at most {@link #MAX_FLUSH_DELAY_MILLIS}, to avoid writing small amounts of data to the connection
+     * for each message.
+     */
     private class ConnectionDispatch implements Runnable {
+        private static final long MAX_FLUSH_DELAY_MILLIS = 1;
+        private static final int MAX_UNFLUSHED_MESSAGES = 512;
         private final RemoteConnection<InterHubMessage> connection;
         private final EndPointQueue queue;
         private final ConnectionState connectionState;
@@ -287,21 +303,41 @@ public class MessageHub implements AsyncStoppable {
             try {
                 List<InterHubMessage> messages = new ArrayList<InterHubMessage>();
                 try {
+                    int unflushed = 0;
+                    long flushDeadline = 0;
                     while (true) {
                         lock.lock();
                         try {
-                            queue.take(messages);
+                            if (unflushed == 0) {
+                                queue.take(messages);
+                            } else {
+                                queue.poll(messages);
+                            }
                         } finally {
                             lock.unlock();
                         }
+                        if (messages.isEmpty()) {
+                            // Nothing more is queued, so send what has been written so far
+                            connection.flush();
+                            unflushed = 0;
+                            continue;
+                        }
                         for (InterHubMessage message : messages) {
+                            if (unflushed > 0 && (unflushed >= MAX_UNFLUSHED_MESSAGES || timeProvider.getCurrentTime() >= flushDeadline)) {
+                                // Messages keep being queued, so send the messages written so far rather than holding them back indefinitely
+                                connection.flush();
+                                unflushed = 0;
+                            }
+                            if (unflushed == 0) {
+                                flushDeadline = timeProvider.getCurrentTime() + MAX_FLUSH_DELAY_MILLIS;
+                            }
                             connection.dispatch(message);
+                            unflushed++;
                             if (message instanceof EndOfStream) {
                                 connection.flush();
                                 return;
                             }
                         }
-                        connection.flush();
                         messages.clear();
                     }
                 } finally {
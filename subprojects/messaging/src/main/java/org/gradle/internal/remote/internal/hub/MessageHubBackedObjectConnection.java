@@ -85,7 +85,7 @@ public class MessageHubBackedObjectConnection implements ObjectConnection {
         if (paramSerializers != null) {
             argsSerializer = new DefaultMethodArgsSerializer(paramSerializers);
         } else {
-            argsSerializer = new JavaSerializationBackedMethodArgsSerializer(methodParamClassLoader);
+            argsSerializer = new BinaryMethodArgsSerializer(new JavaSerializationBackedMethodArgsSerializer(methodParamClassLoader));
         }
 
         StatefulSerializer<InterHubMessage> serializer = new InterHubMessageSerializer(
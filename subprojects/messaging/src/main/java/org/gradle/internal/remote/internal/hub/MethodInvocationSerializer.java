@@ -100,7 +100,9 @@ public class MethodInvocationSerializer implements StatefulSerializer<MethodInvo
         private static final Map<String, Class<?>> PRIMITIVE_TYPES;
         static {
             PRIMITIVE_TYPES = new HashMap<String, Class<?>>();
-            PRIMITIVE_TYPES.put(Integer.TYPE.getName(), Integer.TYPE);
+            for (Class<?> type : new Class<?>[]{Boolean.TYPE, Byte.TYPE, Short.TYPE, Character.TYPE, Integer.TYPE, Long.TYPE, Float.TYPE, Double.TYPE}) {
+                PRIMITIVE_TYPES.put(type.getName(), type);
+            }
         }
 
         private final Decoder decoder;
@@ -42,7 +42,10 @@ public class MultiEndPointQueue implements Dispatch<InterHubMessage> {
     }
 
     void empty(EndPointQueue endPointQueue) {
-        waiting.add(endPointQueue);
+        if (!waiting.contains(endPointQueue)) {
+            // May already be waiting, when a previous poll found the queue empty
+            waiting.add(endPointQueue);
+        }
         flush();
     }
 
@@ -141,7 +141,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             this.socket = socket;
             selector = Selector.open();
             socket.register(selector, SelectionKey.OP_READ);
-            buffer = ByteBuffer.allocateDirect(4096);
+            buffer = ByteBuffer.allocateDirect(32 * 1024);
             buffer.limit(0);
         }
 
@@ -151,7 +151,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             if (nread <= 0) {
                 return nread;
             }
-            return readBuffer[0];
+            return readBuffer[0] & 0xff;
         }
 
         @Override
@@ -161,28 +161,23 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             }
 
             if (buffer.remaining() == 0) {
-                try {
-                    selector.select();
-                } catch (ClosedSelectorException e) {
-                    return -1;
-                }
                 if (!selector.isOpen()) {
                     return -1;
                 }
 
-                buffer.clear();
-                int nread;
-                try {
-                    nread = socket.read(buffer);
-                } catch (IOException e) {
-                    if (isEndOfStream(e)) {
-                        buffer.position(0);
-                        buffer.limit(0);
+                // Attempt to read without waiting first, as there is very likely to be more data available when a stream of messages is being received
+                int nread = readFromChannel();
+                while (nread == 0) {
+                    try {
+                        selector.select();
+                    } catch (ClosedSelectorException e) {
+                        return -1;
+                    }
+                    if (!selector.isOpen()) {
                         return -1;
                     }
-                    throw e;
+                    nread = readFromChannel();
                 }
-                buffer.flip();
 
                 if (nread < 0) {
                     return -1;
@@ -194,6 +189,23 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             return count;
         }
 
+        private int readFromChannel() throws IOException {
+            buffer.clear();
+            int nread;
+            try {
+                nread = socket.read(buffer);
+            } catch (IOException e) {
+                if (isEndOfStream(e)) {
+                    buffer.position(0);
+                    buffer.limit(0);
+                    return -1;
+                }
+                throw e;
+            }
+            buffer.flip();
+            return nread;
+        }
+
         @Override
         public void close() throws IOException {
             selector.close();
@@ -220,19 +232,30 @@ public class SocketConnection<T> implements RemoteConnection<T> {
 
         @Override
         public void write(byte[] src, int offset, int max) throws IOException {
-            int remaining = max;
-            int currentPos = offset;
-            while (remaining > 0) {
-                int count = Math.min(remaining, buffer.remaining());
-                if (count > 0) {
-                    buffer.put(src, currentPos, count);
-                    remaining -= count;
-                    currentPos += count;
-                }
+            if (max <= buffer.remaining()) {
+                buffer.put(src, offset, max);
                 while (buffer.remaining() == 0) {
                     writeBufferToChannel();
                 }
+                return;
+            }
+
+            // Does not fit into the buffer: write the buffered content and the given bytes to the channel together using a gathering write,
+            // rather than copying the bytes into the buffer in chunks and writing each chunk separately
+            ByteBuffer source = ByteBuffer.wrap(src, offset, max);
+            ByteBuffer[] buffers = new ByteBuffer[]{buffer, source};
+            buffer.flip();
+            try {
+                while (source.remaining() > buffer.capacity() - buffer.remaining()) {
+                    long count = socket.write(buffers);
+                    if (count == 0) {
+                        waitForWriteBufferToDrain();
+                    }
+                }
+            } finally {
+                buffer.compact();
             }
+            buffer.put(source);
         }
 
         @Override
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.sharedmemory;
+
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.StatefulSerializer;
+
+/**
+ * A message sent between the peers of a shared memory connection to set up the shared memory and to wake up a peer that is parked.
+ */
+class ControlMessage {
+    enum Type {
+        /**
+         * Sent by the peer that accepted the connection and created the shared memory file, to tell the other peer where to find it.
+         */
+        Open,
+        /**
+         * Sent by a writer to wake up a reader that has parked waiting for data. The position is the park sequence number published by the reader.
+         */
+        WakeReader,
+        /**
+         * Sent by a reader to wake up a writer that has parked waiting for space. The position is the park sequence number published by the writer.
+         */
+        WakeWriter
+    }
+
+    private final Type type;
+    private final long position;
+    private final String path;
+
+    private ControlMessage(Type type, long position, String path) {
+        this.type = type;
+        this.position = position;
+        this.path = path;
+    }
+
+    static ControlMessage open(String path, long capacity) {
+        return new ControlMessage(Type.Open, capacity, path);
+    }
+
+    static ControlMessage wakeReader(long parkSequence) {
+        return new ControlMessage(Type.WakeReader, parkSequence, null);
+    }
+
+    static ControlMessage wakeWriter(long parkSequence) {
+        return new ControlMessage(Type.WakeWriter, parkSequence, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + (path != null ? path + " " : "") + position;
+    }
+
+    static class Serializer implements StatefulSerializer<ControlMessage> {
+        @Override
+        public ObjectReader<ControlMessage> newReader(final Decoder decoder) {
+            return new ObjectReader<ControlMessage>() {
+                @Override
+                public ControlMessage read() throws Exception {
+                    Type type = Type.values()[decoder.readByte()];
+                    String path = type == Type.Open ? decoder.readString() : null;
+                    return new ControlMessage(type, decoder.readLong(), path);
+                }
+            };
+        }
+
+        @Override
+        public ObjectWriter<ControlMessage> newWriter(final Encoder encoder) {
+            return new ObjectWriter<ControlMessage>() {
+                @Override
+                public void write(ControlMessage value) throws Exception {
+                    encoder.writeByte((byte) value.type.ordinal());
+                    if (value.type == Type.Open) {
+                        encoder.writeString(value.path);
+                    }
+                    encoder.writeLong(value.position);
+                }
+            };
+        }
+    }
+}
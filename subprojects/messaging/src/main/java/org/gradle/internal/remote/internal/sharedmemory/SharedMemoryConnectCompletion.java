@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.sharedmemory;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.MessageIOException;
+import org.gradle.internal.remote.internal.RemoteConnection;
+import org.gradle.internal.serialize.StatefulSerializer;
+
+import java.io.File;
+
+/**
+ * Sets up a shared memory connection over an established connection. The peer that accepted the connection creates a file that holds a ring buffer for
+ * each direction, in a directory private to the current user, and sends its location to the peer that initiated the connection. The accepting peer never
+ * opens a file named by the other peer. The file is removed when the accepting peer stops the connection.
+ */
+class SharedMemoryConnectCompletion implements ConnectCompletion {
+    static final int BUFFER_SIZE = 1024 * 1024;
+    private final ConnectCompletion completion;
+    private final boolean initiator;
+
+    SharedMemoryConnectCompletion(ConnectCompletion completion, boolean initiator) {
+        this.completion = completion;
+        this.initiator = initiator;
+    }
+
+    @Override
+    public String toString() {
+        return completion.toString();
+    }
+
+    @Override
+    public <T> RemoteConnection<T> create(StatefulSerializer<T> serializer) {
+        RemoteConnection<ControlMessage> control = completion.create(new ControlMessage.Serializer());
+        SharedMemoryFile memory = null;
+        try {
+            if (!initiator) {
+                memory = SharedMemoryFile.create(2 * BUFFER_SIZE);
+                control.dispatch(ControlMessage.open(memory.getPath(), BUFFER_SIZE));
+                control.flush();
+                return new SharedMemoryConnection<T>(control, memory, memory.slice(0, BUFFER_SIZE), memory.slice(BUFFER_SIZE, BUFFER_SIZE), serializer);
+            }
+
+            ControlMessage message = control.receive();
+            if (message == null || message.getType() != ControlMessage.Type.Open) {
+                throw new MessageIOException(String.format("Expected a shared memory location from '%s' but received %s.", completion, message), null);
+            }
+            if (message.getPosition() <= SharedMemoryConnection.HEADER_SIZE || message.getPosition() > Integer.MAX_VALUE / 2) {
+                throw new MessageIOException(String.format("Unexpected shared memory size received from '%s': %s.", completion, message.getPosition()), null);
+            }
+            int bufferSize = (int) message.getPosition();
+            memory = SharedMemoryFile.open(new File(message.getPath()), 2 * bufferSize);
+            return new SharedMemoryConnection<T>(control, memory, memory.slice(bufferSize, bufferSize), memory.slice(0, bufferSize), serializer);
+        } catch (Exception e) {
+            CompositeStoppable.stoppable(control, memory).stop();
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.sharedmemory;
+
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.remote.internal.KryoBackedMessageSerializer;
+import org.gradle.internal.remote.internal.MessageIOException;
+import org.gradle.internal.remote.internal.MessageSerializer;
+import org.gradle.internal.remote.internal.RemoteConnection;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link RemoteConnection} that transfers messages through a pair of single-producer single-consumer ring buffers in shared memory, one for each direction.
+ *
+ * <p>Each ring buffer starts with a header that holds the position the writer has written up to and the position the reader has consumed up to. Each end
+ * of a ring buffer publishes its position after every transfer, without locking. When an end has nothing to do, it spins, then yields, and then parks: it
+ * publishes a park sequence number in the header and waits for a wake-up message on the given control connection. The other end sends a wake-up message
+ * only when it finds a park sequence number it has not woken up yet after publishing its position. The control connection is otherwise only used to detect
+ * when the peer has gone away.</p>
+ */
+class SharedMemoryConnection<T> implements RemoteConnection<T> {
+    /**
+     * The size of the header at the start of each ring buffer. Each value in the header is placed on its own cache line.
+     */
+    static final int HEADER_SIZE = 256;
+    private static final int WRITE_POSITION = 0;
+    private static final int READ_POSITION = 64;
+    private static final int WRITER_PARKED = 128;
+    private static final int READER_PARKED = 192;
+    private static final int SPIN_COUNT = 1000;
+    private static final int YIELD_COUNT = 100;
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMemoryConnection.class);
+    private final RemoteConnection<ControlMessage> control;
+    private final SharedMemoryFile memory;
+    private final ObjectWriter<T> objectWriter;
+    private final ObjectReader<T> objectReader;
+    private final FlushableEncoder encoder;
+    private final Object parkLock = new Object();
+    // The following state is guarded by parkLock
+    private boolean receivingControlMessage;
+    private long readerWakeup;
+    private long writerWakeup;
+    private volatile boolean endOfStream;
+    private volatile boolean closed;
+    private volatile int fence;
+
+    SharedMemoryConnection(RemoteConnection<ControlMessage> control, SharedMemoryFile memory, ByteBuffer outgoing, ByteBuffer incoming, StatefulSerializer<T> messageSerializer) {
+        this.control = control;
+        this.memory = memory;
+        MessageSerializer streamSerializer = new KryoBackedMessageSerializer();
+        objectReader = messageSerializer.newReader(streamSerializer.newDecoder(new RingInputStream(new Ring(incoming, false))));
+        encoder = streamSerializer.newEncoder(new RingOutputStream(new Ring(outgoing, true)));
+        objectWriter = messageSerializer.newWriter(encoder);
+    }
+
+    @Override
+    public String toString() {
+        return "shared memory connection over " + control;
+    }
+
+    @Override
+    public void dispatch(T message) throws MessageIOException {
+        try {
+            objectWriter.write(message);
+        } catch (Exception e) {
+            throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, control), e);
+        }
+    }
+
+    @Override
+    public void flush() throws MessageIOException {
+        try {
+            // The ring buffer publishes the content as soon as it is written to it
+            encoder.flush();
+        } catch (Exception e) {
+            throw new MessageIOException(String.format("Could not write '%s'.", control), e);
+        }
+    }
+
+    @Override
+    public T receive() throws MessageIOException {
+        try {
+            return objectReader.read();
+        } catch (EOFException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Discarding EOFException: {}", e.toString());
+            }
+            return null;
+        } catch (Exception e) {
+            throw new MessageIOException(String.format("Could not read message from '%s'.", control), e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(new Closeable() {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }, control, new Closeable() {
+            @Override
+            public void close() {
+                closed = true;
+                synchronized (parkLock) {
+                    parkLock.notifyAll();
+                }
+                memory.close();
+            }
+        }).stop();
+    }
+
+    /**
+     * Orders the accesses to shared memory before this call with those after it. There is no API for ordered access to a mapped buffer on Java 6, but a
+     * volatile write followed by a volatile read cannot be reordered with the surrounding memory accesses, and HotSpot implements this using a full fence.
+     */
+    private int fence() {
+        fence = 0;
+        return fence;
+    }
+
+    private void sendControlMessage(ControlMessage message) {
+        synchronized (control) {
+            control.dispatch(message);
+            control.flush();
+        }
+    }
+
+    /**
+     * Waits until the peer has sent a wake-up message of the given type for the given park sequence number, or has gone away. Receives control messages
+     * from the peer while waiting, unless some other thread is already doing so.
+     */
+    private void waitForWakeup(ControlMessage.Type type, long parkSequence) throws IOException {
+        while (true) {
+            synchronized (parkLock) {
+                if (closed || endOfStream || (type == ControlMessage.Type.WakeReader ? readerWakeup : writerWakeup) >= parkSequence) {
+                    return;
+                }
+                if (receivingControlMessage) {
+                    try {
+                        parkLock.wait();
+                    } catch (InterruptedException e) {
+                        throw new IOException("Interrupted while waiting for peer.");
+                    }
+                    continue;
+                }
+                receivingControlMessage = true;
+            }
+            ControlMessage message = null;
+            try {
+                message = control.receive();
+            } finally {
+                synchronized (parkLock) {
+                    receivingControlMessage = false;
+                    if (message == null) {
+                        endOfStream = true;
+                    } else if (message.getType() == ControlMessage.Type.WakeReader) {
+                        readerWakeup = Math.max(readerWakeup, message.getPosition());
+                    } else if (message.getType() == ControlMessage.Type.WakeWriter) {
+                        writerWakeup = Math.max(writerWakeup, message.getPosition());
+                    }
+                    parkLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int size) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + size);
+        return duplicate.slice();
+    }
+
+    /**
+     * One end of a ring buffer. Must only be used by one thread at a time.
+     */
+    private class Ring {
+        private final boolean writer;
+        private final ByteBuffer header;
+        private final ByteBuffer data;
+        private final int capacity;
+        private long position;
+        private long parkSequence;
+        private long lastPeerWakeup;
+
+        Ring(ByteBuffer buffer, boolean writer) {
+            this.writer = writer;
+            header = slice(buffer, 0, HEADER_SIZE);
+            data = slice(buffer, HEADER_SIZE, buffer.capacity() - HEADER_SIZE);
+            capacity = data.capacity();
+        }
+
+        /**
+         * Returns the number of bytes that can be transferred without waiting for the peer.
+         */
+        private long available() {
+            long peerPosition = header.getLong(writer ? READ_POSITION : WRITE_POSITION);
+            fence();
+            long available = writer ? capacity - (position - peerPosition) : peerPosition - position;
+            return Math.max(0, Math.min(capacity, available));
+        }
+
+        /**
+         * Waits until some bytes can be transferred. Returns 0 when the connection has been closed, or when the peer has gone away and nothing more
+         * can be transferred.
+         */
+        long await() throws IOException {
+            for (int i = 0;; i++) {
+                if (closed) {
+                    return 0;
+                }
+                boolean peerGone = endOfStream;
+                long available = available();
+                if (available > 0 || peerGone) {
+                    return available;
+                }
+                if (i < SPIN_COUNT) {
+                    continue;
+                }
+                if (i < SPIN_COUNT + YIELD_COUNT) {
+                    Thread.yield();
+                    continue;
+                }
+                park();
+            }
+        }
+
+        private void park() throws IOException {
+            int parkedOffset = writer ? WRITER_PARKED : READER_PARKED;
+            long sequence = ++parkSequence;
+            header.putLong(parkedOffset, sequence);
+            // Check again after publishing the park sequence number, as the peer may have published its position before it could see it
+            fence();
+            try {
+                if (available() == 0) {
+                    waitForWakeup(writer ? ControlMessage.Type.WakeWriter : ControlMessage.Type.WakeReader, sequence);
+                }
+            } finally {
+                header.putLong(parkedOffset, 0);
+            }
+        }
+
+        /**
+         * Copies bytes to or from the ring buffer, then publishes the new position and wakes up the peer if it has parked.
+         */
+        void transfer(byte[] bytes, int offset, int count) {
+            int index = (int) (position % capacity);
+            int first = Math.min(count, capacity - index);
+            data.position(index);
+            if (writer) {
+                data.put(bytes, offset, first);
+            } else {
+                data.get(bytes, offset, first);
+            }
+            if (first < count) {
+                data.position(0);
+                if (writer) {
+                    data.put(bytes, offset + first, count - first);
+                } else {
+                    data.get(bytes, offset + first, count - first);
+                }
+            }
+            position += count;
+
+            fence();
+            header.putLong(writer ? WRITE_POSITION : READ_POSITION, position);
+            fence();
+            long peerParked = header.getLong(writer ? READER_PARKED : WRITER_PARKED);
+            if (peerParked != 0 && peerParked != lastPeerWakeup) {
+                lastPeerWakeup = peerParked;
+                sendControlMessage(writer ? ControlMessage.wakeReader(peerParked) : ControlMessage.wakeWriter(peerParked));
+            }
+        }
+    }
+
+    private class RingOutputStream extends OutputStream {
+        private final Ring ring;
+        private final byte[] writeBuffer = new byte[1];
+
+        RingOutputStream(Ring ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writeBuffer[0] = (byte) b;
+            write(writeBuffer, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] src, int offset, int count) throws IOException {
+            int remaining = count;
+            int currentPos = offset;
+            while (remaining > 0) {
+                int n = (int) Math.min(remaining, ring.await());
+                if (n == 0) {
+                    throw new EOFException();
+                }
+                ring.transfer(src, currentPos, n);
+                currentPos += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    private class RingInputStream extends InputStream {
+        private final Ring ring;
+        private final byte[] readBuffer = new byte[1];
+
+        RingInputStream(Ring ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int nread = read(readBuffer, 0, 1);
+            if (nread <= 0) {
+                return nread;
+            }
+            return readBuffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] dest, int offset, int max) throws IOException {
+            if (max == 0) {
+                return 0;
+            }
+            int n = (int) Math.min(max, ring.await());
+            if (n == 0) {
+                return -1;
+            }
+            ring.transfer(dest, offset, n);
+            return n;
+        }
+    }
+}
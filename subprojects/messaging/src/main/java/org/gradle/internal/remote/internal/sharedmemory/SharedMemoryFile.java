@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.sharedmemory;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.remote.internal.MessageIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * A memory mapped file that is shared with the peer of a connection. Removes the file when closed, if it was created by this process.
+ *
+ * <p>The mapping itself is released when the buffer is garbage collected. There is no public API to release it earlier, and the internal cleaner
+ * is not accessible on Java 9 and later. Releasing it while the peer threads of a connection may still access the buffer without locking would
+ * also be unsafe.</p>
+ */
+class SharedMemoryFile implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMemoryFile.class);
+    private static final int MAX_SIZE = 64 * 1024 * 1024;
+    private final MappedByteBuffer buffer;
+    @Nullable
+    private final File ownedFile;
+
+    private SharedMemoryFile(MappedByteBuffer buffer, @Nullable File ownedFile) {
+        this.buffer = buffer;
+        this.ownedFile = ownedFile;
+    }
+
+    /**
+     * Creates a new file of the given size, in a directory that is only accessible to the current user.
+     */
+    static SharedMemoryFile create(int size) throws IOException {
+        File file = PrivateDirectory.createFile();
+        try {
+            return new SharedMemoryFile(map(file, size), file);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing file created by the peer. Does not create or grow the file.
+     */
+    static SharedMemoryFile open(File file, int size) throws IOException {
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new MessageIOException(String.format("Unexpected shared memory size %s requested.", size), null);
+        }
+        if (!file.isFile() || file.length() < size) {
+            throw new MessageIOException(String.format("Shared memory file %s does not exist or is too small.", file), null);
+        }
+        return new SharedMemoryFile(map(file, size), null);
+    }
+
+    /**
+     * Returns the path to send to the peer.
+     */
+    String getPath() {
+        if (ownedFile == null) {
+            throw new IllegalStateException("Shared memory file was created by the peer.");
+        }
+        return ownedFile.getAbsolutePath();
+    }
+
+    ByteBuffer slice(int offset, int size) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + size);
+        return duplicate.slice();
+    }
+
+    /**
+     * Removes the file, if owned. The buffers returned by {@link #slice(int, int)} remain valid until they are garbage collected.
+     */
+    @Override
+    public void close() {
+        if (ownedFile != null && !ownedFile.delete()) {
+            LOGGER.debug("Could not delete shared memory file {}.", ownedFile);
+        }
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            // The mapping remains valid after the file is closed
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Creates the files in a directory that is private to the current user and removed when this process exits. Kept separate as it requires Java 7,
+     * and is only used by the peer that accepts connections.
+     */
+    private static class PrivateDirectory {
+        private static Path directory;
+
+        static synchronized File createFile() throws IOException {
+            boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+            if (directory == null) {
+                if (posix) {
+                    directory = Files.createTempDirectory("gradle-shared-memory", ownerOnly("rwx------"));
+                } else {
+                    // The temporary directory is private to the user on platforms without POSIX permissions
+                    directory = Files.createTempDirectory("gradle-shared-memory");
+                }
+                directory.toFile().deleteOnExit();
+            }
+            Path file = posix ? Files.createTempFile(directory, "connection", ".bin", ownerOnly("rw-------")) : Files.createTempFile(directory, "connection", ".bin");
+            return file.toFile();
+        }
+
+        private static FileAttribute<Set<PosixFilePermission>> ownerOnly(String permissions) {
+            return PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions));
+        }
+    }
+}
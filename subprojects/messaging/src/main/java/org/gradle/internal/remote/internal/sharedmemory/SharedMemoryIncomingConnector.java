@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.sharedmemory;
+
+import org.gradle.api.Action;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.IncomingConnector;
+
+/**
+ * An {@link IncomingConnector} that accepts connections from peers that use a {@link SharedMemoryOutgoingConnector}. Uses the given connector to
+ * accept connections, and then transfers messages using a memory mapped file that it creates. Connections from remote machines are accepted by the given
+ * connector only and do not use shared memory, so remote peers must connect without a {@link SharedMemoryOutgoingConnector}.
+ */
+public class SharedMemoryIncomingConnector implements IncomingConnector {
+    private final IncomingConnector connector;
+
+    public SharedMemoryIncomingConnector(IncomingConnector connector) {
+        this.connector = connector;
+    }
+
+    @Override
+    public ConnectionAcceptor accept(final Action<ConnectCompletion> action, boolean allowRemote) {
+        if (allowRemote) {
+            // Memory cannot be shared with a remote machine, so transfer messages using the given connector instead
+            return connector.accept(action, true);
+        }
+        return connector.accept(new Action<ConnectCompletion>() {
+            @Override
+            public void execute(ConnectCompletion completion) {
+                action.execute(new SharedMemoryConnectCompletion(completion, false));
+            }
+        }, false);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.sharedmemory;
+
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.ConnectException;
+import org.gradle.internal.remote.internal.OutgoingConnector;
+
+/**
+ * An {@link OutgoingConnector} that connects to a peer on the same machine that uses a {@link SharedMemoryIncomingConnector}. Uses the given connector
+ * to establish a connection, and then transfers messages using a memory mapped file created by the peer.
+ */
+public class SharedMemoryOutgoingConnector implements OutgoingConnector {
+    private final OutgoingConnector connector;
+
+    public SharedMemoryOutgoingConnector(OutgoingConnector connector) {
+        this.connector = connector;
+    }
+
+    @Override
+    public ConnectCompletion connect(Address destinationAddress) throws ConnectException {
+        return new SharedMemoryConnectCompletion(connector.connect(destinationAddress), true);
+    }
+}
@@ -31,6 +31,8 @@ import org.gradle.internal.remote.internal.hub.MessageHubBackedServer;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
 import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+import org.gradle.internal.remote.internal.sharedmemory.SharedMemoryIncomingConnector;
+import org.gradle.internal.remote.internal.sharedmemory.SharedMemoryOutgoingConnector;
 
 import java.util.UUID;
 
@@ -44,9 +46,14 @@ import java.util.UUID;
  * <li>{@link MessagingServer}</li>
  *
  * </ul>
+ *
+ * <p>When the {@value #SHARED_MEMORY_PROPERTY} system property is set to {@code true}, messages are transferred using shared memory instead of over the TCP
+ * connection. Both peers must use the same setting.</p>
  */
 public class MessagingServices extends DefaultServiceRegistry implements Stoppable {
+    public static final String SHARED_MEMORY_PROPERTY = "org.gradle.messaging.sharedmemory";
     private final IdGenerator<UUID> idGenerator = new UUIDGenerator();
+    private final boolean useSharedMemory = Boolean.getBoolean(SHARED_MEMORY_PROPERTY);
 
     public void stop() {
         close();
@@ -61,15 +68,17 @@ public class MessagingServices extends DefaultServiceRegistry implements Stoppab
     }
 
     protected OutgoingConnector createOutgoingConnector() {
-        return new TcpOutgoingConnector();
+        OutgoingConnector connector = new TcpOutgoingConnector();
+        return useSharedMemory ? new SharedMemoryOutgoingConnector(connector) : connector;
     }
 
     protected IncomingConnector createIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory) {
-        return new TcpIncomingConnector(
+        IncomingConnector connector = new TcpIncomingConnector(
                 executorFactory,
                 inetAddressFactory,
                 idGenerator
         );
+        return useSharedMemory ? new SharedMemoryIncomingConnector(connector) : connector;
     }
 
     protected MessagingClient createMessagingClient(OutgoingConnector outgoingConnector, ExecutorFactory executorFactory) {
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub
+
+import org.gradle.internal.serialize.Serializer
+import org.gradle.internal.serialize.SerializerSpec
+
+class BinaryMethodArgsSerializerTest extends SerializerSpec {
+    def fallback = Mock(MethodArgsSerializer)
+    def serializer = new BinaryMethodArgsSerializer(fallback)
+
+    def "serializes multiple args of well-known types"() {
+        def args = ["a", 12L, 3, true, new File("file"), Thread.State.BLOCKED] as Object[]
+
+        when:
+        def arraySerializer = serializer.forTypes([String, Long, Integer.TYPE, Boolean.TYPE, File, Thread.State] as Class[])
+        def result = serialize(args, arraySerializer)
+
+        then:
+        result == args
+        0 * fallback._
+    }
+
+    def "serializes null args"() {
+        expect:
+        def arraySerializer = serializer.forTypes([String, Long, File, Thread.State, SimpleValue] as Class[])
+        def args = [null, null, null, null, null] as Object[]
+        serialize(args, arraySerializer) == args
+    }
+
+    def "serializes simple value classes"() {
+        def args = [new SimpleValue("value", 12, Thread.State.NEW), "b"] as Object[]
+
+        when:
+        def arraySerializer = serializer.forTypes([SimpleValue, String] as Class[])
+        def result = serialize(args, arraySerializer)
+
+        then:
+        result == args
+        0 * fallback._
+    }
+
+    def "uses more efficient encoding than java serialization"() {
+        expect:
+        def arraySerializer = serializer.forTypes([SimpleValue, String] as Class[])
+        def args = [new SimpleValue("value", 12, Thread.State.NEW), "b"] as Object[]
+        usesEfficientSerialization(args, arraySerializer) == args
+    }
+
+    def "uses fallback for empty args"() {
+        def fallbackSerializer = Stub(Serializer)
+
+        when:
+        def arraySerializer = serializer.forTypes([] as Class[])
+
+        then:
+        arraySerializer == fallbackSerializer
+        1 * fallback.forTypes([] as Class[]) >> fallbackSerializer
+    }
+
+    def "uses fallback when any parameter type is not supported"() {
+        def fallbackSerializer = Stub(Serializer)
+
+        when:
+        def arraySerializer = serializer.forTypes([String, type] as Class[])
+
+        then:
+        arraySerializer == fallbackSerializer
+        1 * fallback.forTypes([String, type] as Class[]) >> fallbackSerializer
+
+        where:
+        type << [Object, List, Number, Date, Thread, ExternalizableValue]
+    }
+}
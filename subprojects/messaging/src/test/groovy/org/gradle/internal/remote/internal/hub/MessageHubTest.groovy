@@ -17,6 +17,7 @@
 package org.gradle.internal.remote.internal.hub
 
 import org.gradle.api.Action
+import org.gradle.internal.TimeProvider
 import org.gradle.internal.dispatch.BoundedDispatch
 import org.gradle.internal.dispatch.Dispatch
 import org.gradle.internal.remote.internal.RemoteConnection
@@ -35,7 +36,9 @@ import java.util.concurrent.LinkedBlockingQueue
 @Timeout(60)
 class MessageHubTest extends ConcurrentSpec {
     final Action<Throwable> errorHandler = Mock()
-    final MessageHub hub = new MessageHub("<hub>", executorFactory, errorHandler)
+    volatile long currentTime
+    final TimeProvider timeProvider = { currentTime } as TimeProvider
+    final MessageHub hub = new MessageHub("<hub>", executorFactory, errorHandler, timeProvider)
 
     def cleanup() {
         hub.stop()
@@ -196,6 +199,138 @@ class MessageHubTest extends ConcurrentSpec {
         connection.stop()
     }
 
+    def "flushes connection as soon as no further outgoing messages are queued"() {
+        RemoteConnection<InterHubMessage> outgoing = Mock()
+        def connection = new MockOutgoingConnection(outgoing)
+        def dispatcher = hub.getOutgoing("channel", String)
+
+        given:
+        hub.addConnection(connection)
+
+        when:
+        dispatcher.dispatch("message1")
+        thread.blockUntil.message1Flushed
+        dispatcher.dispatch("message2")
+        thread.blockUntil.message2Flushed
+
+        then:
+        1 * outgoing.dispatch({ it.payload == "message1" })
+
+        then:
+        1 * outgoing.flush() >> { instant.message1Flushed }
+
+        then:
+        1 * outgoing.dispatch({ it.payload == "message2" })
+
+        then:
+        1 * outgoing.flush() >> { instant.message2Flushed }
+        0 * _._
+
+        cleanup:
+        connection.stop()
+    }
+
+    def "writes outgoing messages queued while writing to connection before flushing"() {
+        RemoteConnection<InterHubMessage> outgoing = Mock()
+        def connection = new MockOutgoingConnection(outgoing)
+        def dispatcher = hub.getOutgoing("channel", String)
+
+        given:
+        hub.addConnection(connection)
+
+        when:
+        dispatcher.dispatch("message1")
+        thread.blockUntil.message1Dispatching
+        dispatcher.dispatch("message2")
+        dispatcher.dispatch("message3")
+        instant.queued
+        thread.blockUntil.flushed
+
+        then:
+        1 * outgoing.dispatch({ it.payload == "message1" }) >> {
+            instant.message1Dispatching
+            thread.blockUntil.queued
+        }
+
+        then:
+        1 * outgoing.dispatch({ it.payload == "message2" })
+
+        then:
+        1 * outgoing.dispatch({ it.payload == "message3" })
+
+        then:
+        1 * outgoing.flush() >> { instant.flushed }
+        0 * _._
+
+        cleanup:
+        connection.stop()
+    }
+
+    def "flushes connection when outgoing messages keep being queued for longer than the flush delay"() {
+        RemoteConnection<InterHubMessage> outgoing = Mock()
+        def connection = new MockOutgoingConnection(outgoing)
+        def dispatcher = hub.getOutgoing("channel", String)
+
+        given:
+        hub.addConnection(connection)
+
+        when:
+        dispatcher.dispatch("message1")
+        thread.blockUntil.message1Dispatching
+        dispatcher.dispatch("message2")
+        currentTime += 2
+        instant.queued
+        thread.blockUntil.flushed
+
+        then:
+        1 * outgoing.dispatch({ it.payload == "message1" }) >> {
+            instant.message1Dispatching
+            thread.blockUntil.queued
+        }
+
+        then:
+        1 * outgoing.flush()
+
+        then:
+        1 * outgoing.dispatch({ it.payload == "message2" })
+
+        then:
+        1 * outgoing.flush() >> { instant.flushed }
+        0 * _._
+
+        cleanup:
+        connection.stop()
+    }
+
+    def "flushes connection when maximum number of unflushed outgoing messages have been written"() {
+        RemoteConnection<InterHubMessage> outgoing = Mock()
+        def connection = new MockOutgoingConnection(outgoing)
+        def dispatcher = hub.getOutgoing("channel", Long)
+
+        given:
+        600.times { dispatcher.dispatch(it) }
+
+        when:
+        hub.addConnection(connection)
+        thread.blockUntil.flushed
+
+        then:
+        512 * outgoing.dispatch({ it.payload < 512 })
+
+        then:
+        1 * outgoing.flush()
+
+        then:
+        88 * outgoing.dispatch({ it.payload >= 512 })
+
+        then:
+        1 * outgoing.flush() >> { instant.flushed }
+        0 * _._
+
+        cleanup:
+        connection.stop()
+    }
+
     def "each outgoing message is dispatched to exactly one connection"() {
         def messages = new CopyOnWriteArrayList()
         RemoteConnection<InterHubMessage> outgoing = Mock()
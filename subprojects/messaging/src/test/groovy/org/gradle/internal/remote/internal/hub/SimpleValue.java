@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub;
+
+import java.io.Serializable;
+
+public final class SimpleValue implements Serializable {
+    private String name;
+    private long count;
+    private Thread.State state;
+
+    public SimpleValue() {
+    }
+
+    public SimpleValue(String name, long count, Thread.State state) {
+        this.name = name;
+        this.count = count;
+        this.state = state;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof SimpleValue)) {
+            return false;
+        }
+        SimpleValue other = (SimpleValue) obj;
+        return (name == null ? other.name == null : name.equals(other.name)) && count == other.count && state == other.state;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) count;
+    }
+}
@@ -57,6 +57,44 @@ class MultiEndPointQueueTest extends AbstractQueueTest {
         messages == [message]
     }
 
+    def "poll forwards queued messages to endpoint"() {
+        given:
+        def message1 = unicast()
+        def message2 = unicast()
+        def endpoint = queue.newEndpoint()
+
+        and:
+        queue.dispatch(message1)
+        queue.dispatch(message2)
+
+        when:
+        def messages = []
+        endpoint.poll(messages)
+
+        then:
+        messages == [message1, message2]
+    }
+
+    def "poll returns no messages when none are queued"() {
+        given:
+        def message = unicast()
+        def endpoint = queue.newEndpoint()
+
+        when:
+        def messages = []
+        endpoint.poll(messages)
+
+        then:
+        messages == []
+
+        when:
+        queue.dispatch(message)
+        endpoint.take(messages)
+
+        then:
+        messages == [message]
+    }
+
     def "forwards queued broadcast messages to all endpoints"() {
         given:
         def message1 = unicast()
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet
+
+import org.gradle.internal.concurrent.CompositeStoppable
+import org.gradle.internal.remote.internal.KryoBackedMessageSerializer
+import org.gradle.internal.remote.internal.MessageSerializer
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.FlushableEncoder
+import org.gradle.internal.serialize.InputStreamBackedDecoder
+import org.gradle.internal.serialize.OutputStreamBackedEncoder
+import org.gradle.internal.serialize.Serializers
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import spock.lang.Timeout
+import spock.lang.Unroll
+
+import java.nio.channels.ServerSocketChannel
+import java.nio.channels.SocketChannel
+
+@Timeout(60)
+class SocketConnectionTest extends ConcurrentSpec {
+    def serializer = Serializers.stateful(BaseSerializerFactory.BYTE_ARRAY_SERIALIZER)
+    ServerSocketChannel serverSocket
+    SocketConnection<byte[]> sender
+    SocketConnection<byte[]> receiver
+
+    def setup() {
+        serverSocket = ServerSocketChannel.open()
+        serverSocket.socket().bind(new InetSocketAddress(InetAddress.getByName(null), 0))
+    }
+
+    def cleanup() {
+        CompositeStoppable.stoppable(sender, receiver, serverSocket).stop()
+    }
+
+    @Unroll
+    def "writes messages that do not fit into the output buffer using #streamSerializer.class.simpleName"() {
+        def messages = [bytes(10), bytes(100 * 1024), bytes(3), bytes(1024 * 1024), bytes(32 * 1024), bytes(32 * 1024 - 1), bytes(70 * 1024)]
+        def received = []
+        connect(streamSerializer)
+
+        when:
+        async {
+            start {
+                messages.size().times { received << receiver.receive() }
+            }
+            messages.each { sender.dispatch(it) }
+            sender.flush()
+        }
+
+        then:
+        received.size() == messages.size()
+        messages.indices.every { Arrays.equals(received[it], messages[it]) }
+
+        where:
+        streamSerializer << [new KryoBackedMessageSerializer(), new StreamBackedMessageSerializer()]
+    }
+
+    def "writes messages that do not fit into the output buffer when the peer is slow to read"() {
+        def messages = (1..20).collect { bytes(it * 50 * 1024) }
+        def received = []
+        connect(new StreamBackedMessageSerializer())
+
+        when:
+        async {
+            start {
+                // Let the socket buffers fill up before reading
+                Thread.sleep(200)
+                messages.size().times { received << receiver.receive() }
+            }
+            messages.each { sender.dispatch(it) }
+            sender.flush()
+        }
+
+        then:
+        received.size() == messages.size()
+        messages.indices.every { Arrays.equals(received[it], messages[it]) }
+    }
+
+    private void connect(MessageSerializer streamSerializer) {
+        def socket = SocketChannel.open(serverSocket.socket().localSocketAddress)
+        sender = new SocketConnection<byte[]>(socket, streamSerializer, serializer)
+        receiver = new SocketConnection<byte[]>(serverSocket.accept(), streamSerializer, serializer)
+    }
+
+    private static byte[] bytes(int count) {
+        def result = new byte[count]
+        new Random(count).nextBytes(result)
+        return result
+    }
+
+    /**
+     * Writes binary values straight through to the connection, rather than through a buffer as Kryo does.
+     */
+    private static class StreamBackedMessageSerializer implements MessageSerializer {
+        @Override
+        Decoder newDecoder(InputStream inputStream) {
+            return new InputStreamBackedDecoder(inputStream)
+        }
+
+        @Override
+        FlushableEncoder newEncoder(OutputStream outputStream) {
+            return new OutputStreamBackedEncoder(outputStream)
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.sharedmemory
+
+import org.gradle.api.Action
+import org.gradle.internal.id.UUIDGenerator
+import org.gradle.internal.remote.internal.ConnectCompletion
+import org.gradle.internal.remote.internal.MessageIOException
+import org.gradle.internal.remote.internal.RemoteConnection
+import org.gradle.internal.remote.internal.inet.InetAddressFactory
+import org.gradle.internal.remote.internal.inet.TcpIncomingConnector
+import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.Serializers
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Shared
+import spock.lang.Timeout
+
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermissions
+import java.util.concurrent.LinkedBlockingQueue
+
+@Timeout(60)
+class SharedMemoryConnectorTest extends ConcurrentSpec {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Shared def serializer = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER)
+    final def outgoingConnector = new SharedMemoryOutgoingConnector(new TcpOutgoingConnector())
+    final def incomingConnector = new SharedMemoryIncomingConnector(new TcpIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator()))
+    final def connections = new LinkedBlockingQueue<RemoteConnection<String>>()
+    def acceptor
+
+    def setup() {
+        acceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            start {
+                connections.add(completion.create(serializer))
+            }
+        } as Action, false)
+    }
+
+    def cleanup() {
+        acceptor?.stop()
+    }
+
+    def "client and server can exchange messages"() {
+        when:
+        def client = outgoingConnector.connect(acceptor.address).create(serializer)
+        def server = connections.take()
+        client.dispatch("hello")
+        client.flush()
+
+        then:
+        server.receive() == "hello"
+
+        when:
+        server.dispatch("reply")
+        server.flush()
+
+        then:
+        client.receive() == "reply"
+
+        cleanup:
+        client?.stop()
+        server?.stop()
+    }
+
+    def "can send more content than fits in shared memory"() {
+        def count = 3 * SharedMemoryConnectCompletion.BUFFER_SIZE / 100
+        def message = "x" * 100
+
+        when:
+        def client = outgoingConnector.connect(acceptor.address).create(serializer)
+        def server = connections.take()
+        start {
+            count.times { client.dispatch(message + it) }
+            client.flush()
+        }
+        def received = []
+        count.times { received << server.receive() }
+
+        then:
+        received == (0..<count).collect { message + it }
+
+        cleanup:
+        client?.stop()
+        server?.stop()
+    }
+
+    def "receive returns null when peer stops"() {
+        when:
+        def client = outgoingConnector.connect(acceptor.address).create(serializer)
+        def server = connections.take()
+        client.dispatch("last")
+        client.stop()
+
+        then:
+        server.receive() == "last"
+        server.receive() == null
+
+        cleanup:
+        server?.stop()
+    }
+
+    def "accepting peer does not use a shared memory file named by the peer"() {
+        def file = tmpDir.file("file.txt")
+        file.text = "content"
+
+        when:
+        def client = new TcpOutgoingConnector().connect(acceptor.address).create(new ControlMessage.Serializer())
+        def server = connections.take()
+        def open = client.receive()
+        client.dispatch(ControlMessage.open(file.absolutePath, 1024))
+        client.flush()
+
+        then:
+        open.type == ControlMessage.Type.Open
+        open.path != file.absolutePath
+        file.text == "content"
+
+        cleanup:
+        client?.stop()
+        server?.stop()
+    }
+
+    @Requires(TestPrecondition.FILE_PERMISSIONS)
+    def "accepting peer creates shared memory file that only the current user can access and removes it when connection stops"() {
+        when:
+        def client = new TcpOutgoingConnector().connect(acceptor.address).create(new ControlMessage.Serializer())
+        def server = connections.take()
+        def file = new File(client.receive().path)
+
+        then:
+        file.file
+        PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())) == "rw-------"
+        PosixFilePermissions.toString(Files.getPosixFilePermissions(file.parentFile.toPath())) == "rwx------"
+
+        when:
+        server.stop()
+
+        then:
+        !file.exists()
+
+        cleanup:
+        client?.stop()
+    }
+
+    def "initiating peer rejects unexpected shared memory size"() {
+        def file = tmpDir.file("file.bin")
+        file.bytes = new byte[1024]
+        def tcpIncomingConnector = new TcpIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator())
+        def tcpAcceptor = tcpIncomingConnector.accept({ ConnectCompletion completion ->
+            def server = completion.create(new ControlMessage.Serializer())
+            server.dispatch(ControlMessage.open(file.absolutePath, size))
+            server.flush()
+        } as Action, false)
+
+        when:
+        outgoingConnector.connect(tcpAcceptor.address).create(serializer)
+
+        then:
+        thrown(MessageIOException)
+        file.length() == 1024
+
+        cleanup:
+        tcpAcceptor?.stop()
+
+        where:
+        size << [0, -1, 1024, Integer.MAX_VALUE, Long.MAX_VALUE]
+    }
+
+    def "accepts connections from remote machines without using shared memory"() {
+        def remoteConnections = new LinkedBlockingQueue<RemoteConnection<String>>()
+        def remoteAcceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            start {
+                remoteConnections.add(completion.create(serializer))
+            }
+        } as Action, true)
+
+        when:
+        def client = new TcpOutgoingConnector().connect(remoteAcceptor.address).create(serializer)
+        def server = remoteConnections.take()
+        client.dispatch("hello")
+        client.flush()
+
+        then:
+        server.receive() == "hello"
+
+        cleanup:
+        client?.stop()
+        server?.stop()
+        remoteAcceptor?.stop()
+    }
+
+    def "wakes up a receiver that has parked waiting for a message"() {
+        when:
+        def client = outgoingConnector.connect(acceptor.address).create(serializer)
+        def server = connections.take()
+        def received = null
+        start {
+            instant.receiving
+            received = server.receive()
+            instant.received
+        }
+        thread.blockUntil.receiving
+        Thread.sleep(200)
+        client.dispatch("hello")
+        client.flush()
+        thread.blockUntil.received
+
+        then:
+        received == "hello"
+
+        cleanup:
+        client?.stop()
+        server?.stop()
+    }
+
+    def "wakes up a sender that has parked waiting for space"() {
+        def count = 2 * SharedMemoryConnectCompletion.BUFFER_SIZE / 100
+        def message = "x" * 100
+
+        when:
+        def client = outgoingConnector.connect(acceptor.address).create(serializer)
+        def server = connections.take()
+        start {
+            count.times { client.dispatch(message + it) }
+            client.flush()
+            instant.sent
+        }
+        Thread.sleep(200)
+        def received = []
+        count.times { received << server.receive() }
+        thread.blockUntil.sent
+
+        then:
+        received == (0..<count).collect { message + it }
+
+        cleanup:
+        client?.stop()
+        server?.stop()
+    }
+}
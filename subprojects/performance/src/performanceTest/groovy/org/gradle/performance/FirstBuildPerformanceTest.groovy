@@ -39,6 +39,6 @@ class FirstBuildPerformanceTest extends AbstractCrossVersionPerformanceTest {
         result.assertCurrentVersionHasNotRegressed()
 
         where:
-        testProject << ["manyProjects"]
+        testProject << ["manyProjects", "manyScripts"]
     }
 }